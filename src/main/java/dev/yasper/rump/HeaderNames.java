@@ -51,6 +51,9 @@ public class HeaderNames {
     /** RFC 2616 (HTTP/1.1) Section 14.10 */
     public static final String CONNECTION = "Connection";
 
+    /** RFC 6266, RFC 7578 (multipart/form-data) Section 4.2 */
+    public static final String CONTENT_DISPOSITION = "Content-Disposition";
+
     /** RFC 1945 (HTTP/1.0) Section 10.3, RFC 2616 (HTTP/1.1) Section 14.11 */
     public static final String CONTENT_ENCODING = "Content-Encoding";
 
@@ -117,6 +120,9 @@ public class HeaderNames {
     /** RFC 2616 (HTTP/1.1) Section 14.28 */
     public static final String IF_UNMODIFIED_SINCE = "If-Unmodified-Since";
 
+    /** HTML Living Standard, Server-sent events */
+    public static final String LAST_EVENT_ID = "Last-Event-ID";
+
     /** RFC 1945 (HTTP/1.0) Section 10.10, RFC 2616 (HTTP/1.1) Section 14.29 */
     public static final String LAST_MODIFIED = "Last-Modified";
 
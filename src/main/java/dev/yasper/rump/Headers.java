@@ -26,18 +26,22 @@ import java.util.*;
 import java.util.function.Supplier;
 
 /**
- * Class for storing headers
+ * Class for storing headers, header names are case insensitive
  */
 public class Headers {
 
-    private final Map<String, Header> headers = new HashMap<>();
+    private final Map<String, Header> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
 
     /**
-     * Headers instance constructed from a map of header fields
+     * Headers instance constructed from a map of header fields, the status line entry (null key) is skipped
      * @param headerFields the header fields from which this instance should be constructed
      */
     public Headers(Map<String, List<String>> headerFields) {
         for (String key : headerFields.keySet()) {
+            if (key == null) {
+                continue;
+            }
+
             headers.put(key, new SimpleHeader(key, String.join(", ", headerFields.get(key))));
         }
     }
@@ -188,6 +192,28 @@ public class Headers {
         return setContentType(type.getCode());
     }
 
+    /**
+     * Gets the charset of the Content-Type header, taken from its charset parameter or else from the matching
+     * {@link ContentType}.
+     * @return the charset, UTF-8 if the header is absent or the charset is unknown
+     */
+    public Charset getContentCharset() {
+        String[] parts = getContentType().split(";");
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.regionMatches(true, 0, "charset=", 0, 8)) {
+                try {
+                    return Charset.forName(param.substring(8).replace("\"", "").trim());
+                } catch (IllegalArgumentException e) {
+                    return StandardCharsets.UTF_8;
+                }
+            }
+        }
+
+        ContentType type = ContentType.fromCode(parts[0].trim());
+        return type == null ? StandardCharsets.UTF_8 : type.getCharset();
+    }
+
     public String getDate() {
         return getSafeValue(HeaderNames.DATE);
     }
@@ -585,6 +611,21 @@ public class Headers {
         public String getCode() {
             return code;
         }
+
+        /**
+         * Finds the content type for a media type
+         * @param code the media type, such as application/json
+         * @return the matching content type or null if there is none
+         */
+        public static ContentType fromCode(String code) {
+            for (ContentType type : values()) {
+                if (type.code.equalsIgnoreCase(code)) {
+                    return type;
+                }
+            }
+
+            return null;
+        }
     }
 
     private static class SupplierHeader implements Header {
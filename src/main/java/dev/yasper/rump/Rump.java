@@ -21,19 +21,27 @@ package dev.yasper.rump;
 import dev.yasper.rump.client.AsyncRestClient;
 import dev.yasper.rump.client.DefaultRestClient;
 import dev.yasper.rump.client.RestClient;
+import dev.yasper.rump.client.ThreadPerTaskExecutors;
 import dev.yasper.rump.config.RequestConfig;
 import dev.yasper.rump.exception.DefaultExceptionHandler;
 import dev.yasper.rump.request.JacksonRequestTransformer;
 import dev.yasper.rump.request.RequestMethod;
 import dev.yasper.rump.request.RequestParams;
+import dev.yasper.rump.response.GenericType;
 import dev.yasper.rump.response.HttpResponse;
 import dev.yasper.rump.response.JacksonResponseTransformer;
+import dev.yasper.rump.transport.ConnectionPool;
+import dev.yasper.rump.transport.HttpVersion;
+import dev.yasper.rump.transport.URLConnectionTransport;
 
 import java.io.IOException;
 import java.util.LinkedList;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main entry point for Rump.
@@ -60,10 +68,24 @@ public class Rump {
             .setIgnoreStatusCode((val) -> false)
             .setExceptionHandler(new DefaultExceptionHandler())
             .setConnectionConsumer((connection -> {
-            }));
-    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newFixedThreadPool(5);
+            }))
+            .setTransport(new URLConnectionTransport())
+            .setConnectionPool(new ConnectionPool())
+            .setHttpVersion(HttpVersion.HTTP_1_1)
+            .setMaxConcurrentStreams(0)
+            .setStreamingChunkSize(0)
+            .setDecompressResponses(true)
+            .setCompressionThreshold(0);
+    /**
+     * System property that selects the executor of the static async methods, set it to {@code virtual} to start a
+     * (virtual) thread per request instead of using a fixed pool of five threads.
+     */
+    public static final String EXECUTOR_PROPERTY = "rump.executor";
+    private static final int DEFAULT_POOL_SIZE = 5;
+    private static final long DEFAULT_POOL_KEEP_ALIVE = 60;
     private static final DefaultRestClient DEFAULT_CLIENT = DefaultRestClient.create(DEFAULT_CONFIG);
-    private static final AsyncRestClient ASYNC_CLIENT = new AsyncRestClient(DEFAULT_CLIENT, DEFAULT_EXECUTOR);
+    private static volatile ExecutorService defaultExecutor = createDefaultExecutor();
+    private static volatile AsyncRestClient asyncClient = new AsyncRestClient(DEFAULT_CLIENT, defaultExecutor);
 
     public static <T> T requestForObject(String path, RequestMethod method, Class<T> responseType, RequestConfig... configs) throws IOException {
         return DEFAULT_CLIENT.requestForObject(path, method, null, responseType, configs);
@@ -110,49 +132,113 @@ public class Rump {
         return DEFAULT_CLIENT.request(path, requestBody, responseType, configs);
     }
 
+    public static <T> T getForObject(String path, GenericType<T> responseType, RequestConfig... configs) throws IOException {
+        return DEFAULT_CLIENT.getForObject(path, responseType, configs);
+    }
+
+    public static <T> T postForObject(String path, Object requestBody, GenericType<T> responseType, RequestConfig... configs) throws IOException {
+        return DEFAULT_CLIENT.postForObject(path, requestBody, responseType, configs);
+    }
+
+    public static <T> T putForObject(String path, Object requestBody, GenericType<T> responseType, RequestConfig... configs) throws IOException {
+        return DEFAULT_CLIENT.putForObject(path, requestBody, responseType, configs);
+    }
+
+    public static <T> T deleteForObject(String path, GenericType<T> responseType, RequestConfig... configs) throws IOException {
+        return DEFAULT_CLIENT.deleteForObject(path, responseType, configs);
+    }
+
+    public static <T> HttpResponse<T> get(String path, GenericType<T> responseType, RequestConfig... configs) throws IOException {
+        return DEFAULT_CLIENT.get(path, responseType, configs);
+    }
+
+    public static <T> HttpResponse<T> post(String path, Object requestBody, GenericType<T> responseType, RequestConfig... configs) throws IOException {
+        return DEFAULT_CLIENT.post(path, requestBody, responseType, configs);
+    }
+
+    public static <T> HttpResponse<T> put(String path, Object requestBody, GenericType<T> responseType, RequestConfig... configs) throws IOException {
+        return DEFAULT_CLIENT.put(path, requestBody, responseType, configs);
+    }
+
+    public static <T> HttpResponse<T> delete(String path, GenericType<T> responseType, RequestConfig... configs) throws IOException {
+        return DEFAULT_CLIENT.delete(path, responseType, configs);
+    }
+
     public static <T> CompletableFuture<T> requestForObjectAsync(String path, RequestMethod method, Object requestBody, Class<T> responseType, RequestConfig... configs) {
-        return ASYNC_CLIENT.requestForObject(path, method, requestBody, responseType, configs);
+        return asyncClient.requestForObject(path, method, requestBody, responseType, configs);
     }
 
     public static <T> CompletableFuture<T> getForObjectAsync(String path, Class<T> responseType, RequestConfig... configs) {
-        return ASYNC_CLIENT.getForObject(path, responseType, configs);
+        return asyncClient.getForObject(path, responseType, configs);
     }
 
     public static <T> CompletableFuture<T> postForObjectAsync(String path, Object requestBody, Class<T> responseType, RequestConfig... configs) {
-        return ASYNC_CLIENT.postForObject(path, requestBody, responseType, configs);
+        return asyncClient.postForObject(path, requestBody, responseType, configs);
     }
 
     public static <T> CompletableFuture<T> putForObjectAsync(String path, Object requestBody, Class<T> responseType, RequestConfig... configs) {
-        return ASYNC_CLIENT.putForObject(path, requestBody, responseType, configs);
+        return asyncClient.putForObject(path, requestBody, responseType, configs);
     }
 
     public static <T> CompletableFuture<T> deleteForObjectAsync(String path, Class<T> responseType, RequestConfig... configs) {
-        return ASYNC_CLIENT.deleteForObject(path, responseType, configs);
+        return asyncClient.deleteForObject(path, responseType, configs);
     }
 
     public static <T> CompletableFuture<HttpResponse<T>> getAsync(String path, Class<T> responseType, RequestConfig... configs) {
-        return ASYNC_CLIENT.get(path, responseType, configs);
+        return asyncClient.get(path, responseType, configs);
     }
 
     public static <T> CompletableFuture<HttpResponse<T>> postAsync(String path, Object requestBody, Class<T> responseType, RequestConfig... configs) {
-        return ASYNC_CLIENT.post(path, requestBody, responseType, configs);
+        return asyncClient.post(path, requestBody, responseType, configs);
     }
 
     public static <T> CompletableFuture<HttpResponse<T>> putAsync(String path, Object requestBody, Class<T> responseType, RequestConfig... configs) {
-        return ASYNC_CLIENT.put(path, requestBody, responseType, configs);
+        return asyncClient.put(path, requestBody, responseType, configs);
     }
 
     public static <T> CompletableFuture<HttpResponse<T>> deleteAsync(String path, Class<T> responseType, RequestConfig... configs) {
-        return ASYNC_CLIENT.delete(path, responseType, configs);
+        return asyncClient.delete(path, responseType, configs);
     }
 
     public static CompletableFuture<HttpResponse<Void>> headAsync(String path, RequestConfig... configs) {
-        return ASYNC_CLIENT.head(path, configs);
+        return asyncClient.head(path, configs);
     }
 
     public static <T> CompletableFuture<HttpResponse<T>> requestAsync(String path, RequestMethod method, Object requestBody,
                                                                       Class<T> responseType, RequestConfig... configs) {
-        return ASYNC_CLIENT.request(path, method, requestBody, responseType);
+        return asyncClient.request(path, method, requestBody, responseType, configs);
+    }
+
+    public static <T> CompletableFuture<T> getForObjectAsync(String path, GenericType<T> responseType, RequestConfig... configs) {
+        return asyncClient.getForObject(path, responseType, configs);
+    }
+
+    public static <T> CompletableFuture<T> postForObjectAsync(String path, Object requestBody, GenericType<T> responseType, RequestConfig... configs) {
+        return asyncClient.postForObject(path, requestBody, responseType, configs);
+    }
+
+    public static <T> CompletableFuture<T> putForObjectAsync(String path, Object requestBody, GenericType<T> responseType, RequestConfig... configs) {
+        return asyncClient.putForObject(path, requestBody, responseType, configs);
+    }
+
+    public static <T> CompletableFuture<T> deleteForObjectAsync(String path, GenericType<T> responseType, RequestConfig... configs) {
+        return asyncClient.deleteForObject(path, responseType, configs);
+    }
+
+    public static <T> CompletableFuture<HttpResponse<T>> getAsync(String path, GenericType<T> responseType, RequestConfig... configs) {
+        return asyncClient.get(path, responseType, configs);
+    }
+
+    public static <T> CompletableFuture<HttpResponse<T>> postAsync(String path, Object requestBody, GenericType<T> responseType, RequestConfig... configs) {
+        return asyncClient.post(path, requestBody, responseType, configs);
+    }
+
+    public static <T> CompletableFuture<HttpResponse<T>> putAsync(String path, Object requestBody, GenericType<T> responseType, RequestConfig... configs) {
+        return asyncClient.put(path, requestBody, responseType, configs);
+    }
+
+    public static <T> CompletableFuture<HttpResponse<T>> deleteAsync(String path, GenericType<T> responseType, RequestConfig... configs) {
+        return asyncClient.delete(path, responseType, configs);
     }
 
     /**
@@ -165,7 +251,7 @@ public class Rump {
     public static RestClient create(RequestConfig config, boolean async) {
         DefaultRestClient backing = DefaultRestClient.create(config);
         if (async) {
-            return new AsyncRestClient(backing, DEFAULT_EXECUTOR);
+            return new AsyncRestClient(backing, defaultExecutor);
         }
 
         return backing;
@@ -191,4 +277,46 @@ public class Rump {
     public static AsyncRestClient createAsync(RequestConfig config, ExecutorService executor) {
         return new AsyncRestClient(DefaultRestClient.create(config), executor);
     }
+
+    /**
+     * Replace the executor used by the static async methods and by async clients created from now on through
+     * {@link #create(RequestConfig, boolean)}. Clients created before keep using the previous executor, so it is not
+     * shut down: an executor passed earlier is still owned by the caller, and the idle threads of the pool Rump
+     * creates itself time out.
+     *
+     * @param executor The executor to use from now on
+     */
+    public static synchronized void setDefaultExecutor(ExecutorService executor) {
+        defaultExecutor = executor;
+        asyncClient = new AsyncRestClient(DEFAULT_CLIENT, executor);
+    }
+
+    /**
+     * Let the static async methods start a new thread per request, see
+     * {@link ThreadPerTaskExecutors#newVirtualThreadPerTaskExecutor()}.
+     */
+    public static void useVirtualThreads() {
+        setDefaultExecutor(ThreadPerTaskExecutors.newVirtualThreadPerTaskExecutor());
+    }
+
+    public static ExecutorService getDefaultExecutor() {
+        return defaultExecutor;
+    }
+
+    /**
+     * Create the executor selected by {@link #EXECUTOR_PROPERTY}. The threads of the fixed pool time out when idle, as
+     * the pool is never shut down.
+     *
+     * @return the executor
+     */
+    static ExecutorService createDefaultExecutor() {
+        if ("virtual".equalsIgnoreCase(System.getProperty(EXECUTOR_PROPERTY))) {
+            return ThreadPerTaskExecutors.newVirtualThreadPerTaskExecutor();
+        }
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(DEFAULT_POOL_SIZE, DEFAULT_POOL_SIZE,
+                DEFAULT_POOL_KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
 }
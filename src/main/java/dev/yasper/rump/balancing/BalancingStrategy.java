@@ -0,0 +1,118 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.balancing;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Picks the endpoint of a {@link LoadBalancer} a request is sent to
+ */
+@FunctionalInterface
+public interface BalancingStrategy {
+
+    /**
+     * Pick an endpoint
+     *
+     * @param endpoints The endpoints that are not ejected, never empty
+     * @return one of the endpoints
+     */
+    Endpoint choose(List<Endpoint> endpoints);
+
+    /**
+     * @return a strategy that takes turns
+     */
+    static BalancingStrategy roundRobin() {
+        AtomicInteger next = new AtomicInteger();
+        return endpoints -> endpoints.get(Math.floorMod(next.getAndIncrement(), endpoints.size()));
+    }
+
+    /**
+     * @return a strategy that picks the endpoint with the fewest requests in flight, ties are broken at random
+     */
+    static BalancingStrategy leastOutstanding() {
+        return endpoints -> {
+            Endpoint best = null;
+            int ties = 0;
+            for (Endpoint endpoint : endpoints) {
+                int outstanding = endpoint.getOutstanding();
+                int bestOutstanding = best == null ? Integer.MAX_VALUE : best.getOutstanding();
+                if (outstanding < bestOutstanding) {
+                    best = endpoint;
+                    ties = 1;
+                } else if (outstanding == bestOutstanding && ThreadLocalRandom.current().nextInt(++ties) == 0) {
+                    best = endpoint;
+                }
+            }
+
+            return best;
+        };
+    }
+
+    /**
+     * @return a strategy that picks two endpoints at random and takes the one with the lower latency times requests in
+     * flight, which avoids both slow endpoints and herding onto the single best one
+     */
+    static BalancingStrategy powerOfTwoChoices() {
+        return endpoints -> {
+            if (endpoints.size() == 1) {
+                return endpoints.get(0);
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(endpoints.size());
+            int second = random.nextInt(endpoints.size() - 1);
+            if (second >= first) {
+                second++;
+            }
+
+            Endpoint a = endpoints.get(first);
+            Endpoint b = endpoints.get(second);
+            return score(a) <= score(b) ? a : b;
+        };
+    }
+
+    /**
+     * @return a strategy that picks endpoints at random in proportion to their weight
+     */
+    static BalancingStrategy weighted() {
+        return endpoints -> {
+            int total = 0;
+            for (Endpoint endpoint : endpoints) {
+                total += endpoint.getWeight();
+            }
+
+            int pick = ThreadLocalRandom.current().nextInt(total);
+            for (Endpoint endpoint : endpoints) {
+                pick -= endpoint.getWeight();
+                if (pick < 0) {
+                    return endpoint;
+                }
+            }
+
+            return endpoints.get(endpoints.size() - 1);
+        };
+    }
+
+    private static double score(Endpoint endpoint) {
+        // Endpoints without samples score zero so they get tried
+        return endpoint.getLatency() * (endpoint.getOutstanding() + 1);
+    }
+}
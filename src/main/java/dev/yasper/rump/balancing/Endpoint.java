@@ -0,0 +1,120 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.balancing;
+
+/**
+ * One base URL of a {@link LoadBalancer} and what the balancer observed of it
+ */
+public final class Endpoint {
+
+    // Weight of the latest sample in the moving average of the latency
+    private static final double DECAY = 0.2;
+
+    private final String baseURL;
+    private final int weight;
+    private int outstanding = 0;
+    private double latency = 0;
+    private int consecutiveFailures = 0;
+    private long ejectedUntil = 0;
+    private long ejections = 0;
+
+    Endpoint(String baseURL, int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("The weight of an endpoint must be at least 1");
+        }
+
+        this.baseURL = baseURL;
+        this.weight = weight;
+    }
+
+    public String getBaseURL() {
+        return baseURL;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return the number of requests in flight to this endpoint
+     */
+    public synchronized int getOutstanding() {
+        return outstanding;
+    }
+
+    /**
+     * @return the moving average of the latency in milliseconds, zero before the first request completed
+     */
+    public synchronized double getLatency() {
+        return latency;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * @return whether the endpoint is taken out of the rotation because of consecutive failures
+     */
+    public synchronized boolean isEjected() {
+        return System.currentTimeMillis() < ejectedUntil;
+    }
+
+    /**
+     * @return the number of times the endpoint was ejected
+     */
+    public synchronized long getEjections() {
+        return ejections;
+    }
+
+    synchronized void start() {
+        outstanding++;
+    }
+
+    synchronized void release() {
+        outstanding--;
+    }
+
+    synchronized void record(double millis, boolean failed, int maxFailures, long ejectDuration) {
+        outstanding--;
+        latency = latency == 0 ? millis : latency + DECAY * (millis - latency);
+        if (!failed) {
+            consecutiveFailures = 0;
+            return;
+        }
+
+        consecutiveFailures++;
+        if (maxFailures > 0 && consecutiveFailures >= maxFailures && !isEjected()) {
+            // Stays at the threshold after the ejection, so a single failure on return ejects it again
+            consecutiveFailures = maxFailures - 1;
+            ejectedUntil = System.currentTimeMillis() + ejectDuration;
+            ejections++;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Endpoint{" + "baseURL='" + baseURL + '\'' +
+                ", weight=" + weight +
+                ", outstanding=" + getOutstanding() +
+                ", latency=" + getLatency() +
+                ", ejected=" + isEjected() +
+                '}';
+    }
+}
@@ -0,0 +1,277 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.balancing;
+
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.exception.HttpStatusCodeException;
+import dev.yasper.rump.exception.RequestRejectedException;
+import dev.yasper.rump.resilience.RequestGuard;
+import dev.yasper.rump.response.HttpResponse;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * <p>
+ * Spreads requests over a pool of base URLs, see {@link RequestConfig#setLoadBalancer(LoadBalancer)}. Every request
+ * gets the base URL of the endpoint picked by the {@link BalancingStrategy}, round-robin by default, so requests keep
+ * taking plain paths. The endpoint is picked for every attempt, so retries and hedges of a request can go to another
+ * endpoint than the one that failed or is slow. Cached responses and coalesced requests are keyed by the url before
+ * balancing, so they are shared by all endpoints and a write through one endpoint invalidates the cached response.
+ * </p>
+ *
+ * <p>
+ * The balancer observes the requests sent to each endpoint: the number in flight, the moving average of the latency
+ * and the number of consecutive failures. An endpoint that fails the maximum number of times in a row is ejected for
+ * the eject duration, after which a single failure ejects it again until a request succeeds. If every endpoint is
+ * ejected requests are spread over all of them. A request fails when it throws an exception, other than being rejected
+ * by a {@link RequestGuard}, or when its status code matches the failure status predicate, server errors by default.
+ * </p>
+ */
+public class LoadBalancer implements RequestGuard {
+
+    private final List<Endpoint> endpoints = new CopyOnWriteArrayList<>();
+
+    private volatile BalancingStrategy strategy = BalancingStrategy.roundRobin();
+    private volatile int maxFailures = 5;
+    private volatile long ejectDuration = 30_000;
+    private volatile Predicate<Integer> failureStatus = code -> code >= 500;
+
+    /**
+     * Constructor for a balancer over endpoints of equal weight
+     *
+     * @param baseURLs The base URLs of the endpoints
+     */
+    public LoadBalancer(String... baseURLs) {
+        for (String baseURL : baseURLs) {
+            addEndpoint(baseURL, 1);
+        }
+    }
+
+    /**
+     * Add an endpoint to the pool
+     *
+     * @param baseURL The base URL of the endpoint
+     * @param weight  The weight of the endpoint, used by {@link BalancingStrategy#weighted()}
+     * @return this {@link LoadBalancer} instance to be used for setter chaining
+     */
+    public LoadBalancer addEndpoint(String baseURL, int weight) {
+        endpoints.add(new Endpoint(baseURL, weight));
+        return this;
+    }
+
+    /**
+     * Remove an endpoint from the pool, requests in flight to it are not affected
+     *
+     * @param baseURL The base URL of the endpoint
+     * @return this {@link LoadBalancer} instance to be used for setter chaining
+     */
+    public LoadBalancer removeEndpoint(String baseURL) {
+        endpoints.removeIf(endpoint -> endpoint.getBaseURL().equals(baseURL));
+        return this;
+    }
+
+    /**
+     * Pick the endpoint for the next request
+     *
+     * @return the endpoint
+     * @throws IllegalStateException Thrown when the pool is empty
+     */
+    public Endpoint choose() {
+        List<Endpoint> candidates = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            if (!endpoint.isEjected()) {
+                candidates.add(endpoint);
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            candidates.addAll(endpoints);
+        }
+
+        if (candidates.isEmpty()) {
+            throw new IllegalStateException("The load balancer has no endpoints");
+        }
+
+        return strategy.choose(candidates);
+    }
+
+    /**
+     * Tracks a request to the endpoint with the base URL of the config, requests to other base URLs are not tracked
+     *
+     * @param url    The url of the request
+     * @param config The config of the request
+     * @return the permit
+     */
+    @Override
+    public RequestGuard.Permit acquire(URL url, RequestConfig config) {
+        Endpoint endpoint = getEndpoint(config.getBaseURL());
+        if (endpoint == null) {
+            return NoopPermit.INSTANCE;
+        }
+
+        endpoint.start();
+        return new Permit(endpoint);
+    }
+
+    /**
+     * Get an endpoint of the pool
+     *
+     * @param baseURL The base URL of the endpoint
+     * @return the endpoint, null if it is not in the pool
+     */
+    public Endpoint getEndpoint(String baseURL) {
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.getBaseURL().equals(baseURL)) {
+                return endpoint;
+            }
+        }
+
+        return null;
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return Collections.unmodifiableList(endpoints);
+    }
+
+    boolean isFailure(HttpResponse<?> response, Throwable failure) {
+        if (failure == null) {
+            return response != null && failureStatus.test(response.getResponseCode());
+        }
+
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause()
+                : failure;
+        if (cause instanceof RequestRejectedException) {
+            return false;
+        }
+
+        if (cause instanceof HttpStatusCodeException) {
+            return failureStatus.test(((HttpStatusCodeException) cause).getErrorResponse().getResponseCode());
+        }
+
+        return true;
+    }
+
+    public BalancingStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @param strategy The strategy that picks endpoints, see the factories of {@link BalancingStrategy}
+     * @return this {@link LoadBalancer} instance to be used for setter chaining
+     */
+    public LoadBalancer setStrategy(BalancingStrategy strategy) {
+        this.strategy = strategy;
+        return this;
+    }
+
+    public int getMaxFailures() {
+        return maxFailures;
+    }
+
+    /**
+     * @param maxFailures The number of consecutive failures after which an endpoint is ejected, zero to never eject
+     * @return this {@link LoadBalancer} instance to be used for setter chaining
+     */
+    public LoadBalancer setMaxFailures(int maxFailures) {
+        this.maxFailures = maxFailures;
+        return this;
+    }
+
+    public long getEjectDuration() {
+        return ejectDuration;
+    }
+
+    /**
+     * @param ejectDuration The time in milliseconds an ejected endpoint is left out of the rotation
+     * @return this {@link LoadBalancer} instance to be used for setter chaining
+     */
+    public LoadBalancer setEjectDuration(long ejectDuration) {
+        this.ejectDuration = ejectDuration;
+        return this;
+    }
+
+    public Predicate<Integer> getFailureStatus() {
+        return failureStatus;
+    }
+
+    /**
+     * @param failureStatus Tests whether the status code of a response counts as a failure of the endpoint
+     * @return this {@link LoadBalancer} instance to be used for setter chaining
+     */
+    public LoadBalancer setFailureStatus(Predicate<Integer> failureStatus) {
+        this.failureStatus = failureStatus;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadBalancer{" + "endpoints=" + endpoints +
+                ", maxFailures=" + maxFailures +
+                ", ejectDuration=" + ejectDuration +
+                '}';
+    }
+
+    private final class Permit implements RequestGuard.Permit {
+        private final Endpoint endpoint;
+        private final long start = System.nanoTime();
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private Permit(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public void complete(HttpResponse<?> response, Throwable failure) {
+            if (completed.compareAndSet(false, true)) {
+                double millis = (System.nanoTime() - start) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+                endpoint.record(millis, isFailure(response, failure), maxFailures, ejectDuration);
+            }
+        }
+
+        @Override
+        public void release() {
+            if (completed.compareAndSet(false, true)) {
+                endpoint.release();
+            }
+        }
+    }
+
+    private static final class NoopPermit implements RequestGuard.Permit {
+        private static final NoopPermit INSTANCE = new NoopPermit();
+
+        @Override
+        public void complete(HttpResponse<?> response, Throwable failure) {
+            // Not one of the endpoints
+        }
+
+        @Override
+        public void release() {
+            // Not one of the endpoints
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.cache;
+
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * A cached response. The body is kept as the raw bytes after any Content-Encoding was decoded.
+ * </p>
+ *
+ * <p>
+ * Bodies transformed from an entry are kept with it per requested type, so later requests served from the same
+ * entry receive the same object without parsing the bytes again. These objects are shared and should be treated as
+ * read-only. They are not written by a {@link DiskCacheStore}.
+ * </p>
+ *
+ * <p>
+ * The entry also keeps the values the request had for the headers the response varies on, the names in its Vary
+ * header and Authorization. It is only served to requests with the same values.
+ * </p>
+ */
+public class CacheEntry {
+
+    private final String key;
+    private final int responseCode;
+    private final String responseMessage;
+    private final Map<String, List<String>> headers;
+    private final byte[] body;
+    private final Map<String, String> requestHeaders;
+    private final long storedAt;
+    private final long expiresAt;
+    private final Map<Type, Object> decoded;
+
+    /**
+     * Constructor for CacheEntry
+     *
+     * @param key             The key of the entry
+     * @param responseCode    The status code of the response
+     * @param responseMessage The status message of the response
+     * @param headers         The response headers
+     * @param body            The decoded response body, not copied
+     * @param storedAt        The time the response was received or last revalidated in epoch milliseconds
+     * @param expiresAt       The time after which the entry has to be revalidated in epoch milliseconds
+     */
+    public CacheEntry(String key, int responseCode, String responseMessage, Map<String, List<String>> headers,
+                      byte[] body, long storedAt, long expiresAt) {
+        this(key, responseCode, responseMessage, headers, body, Collections.emptyMap(), storedAt, expiresAt);
+    }
+
+    /**
+     * Constructor for CacheEntry
+     *
+     * @param key             The key of the entry
+     * @param responseCode    The status code of the response
+     * @param responseMessage The status message of the response
+     * @param headers         The response headers
+     * @param body            The decoded response body, not copied
+     * @param requestHeaders  The values of the request headers the response varies on, by header name
+     * @param storedAt        The time the response was received or last revalidated in epoch milliseconds
+     * @param expiresAt       The time after which the entry has to be revalidated in epoch milliseconds
+     */
+    public CacheEntry(String key, int responseCode, String responseMessage, Map<String, List<String>> headers,
+                      byte[] body, Map<String, String> requestHeaders, long storedAt, long expiresAt) {
+        this(key, responseCode, responseMessage, headers, body, requestHeaders, storedAt, expiresAt,
+                new ConcurrentHashMap<>());
+    }
+
+    private CacheEntry(String key, int responseCode, String responseMessage, Map<String, List<String>> headers,
+                       byte[] body, Map<String, String> requestHeaders, long storedAt, long expiresAt,
+                       Map<Type, Object> decoded) {
+        this.key = key;
+        this.responseCode = responseCode;
+        this.responseMessage = responseMessage;
+        this.headers = Collections.unmodifiableMap(headers);
+        this.body = body;
+        this.requestHeaders = Collections.unmodifiableMap(requestHeaders);
+        this.storedAt = storedAt;
+        this.expiresAt = expiresAt;
+        this.decoded = decoded;
+    }
+
+    /**
+     * Create a copy of this entry with new headers and freshness, keeping the body and its decoded objects
+     *
+     * @param headers   The new response headers
+     * @param storedAt  The time of the revalidation in epoch milliseconds
+     * @param expiresAt The new expiry time in epoch milliseconds
+     * @return the revalidated entry
+     */
+    CacheEntry revalidated(Map<String, List<String>> headers, long storedAt, long expiresAt) {
+        return new CacheEntry(key, responseCode, responseMessage, headers, body, requestHeaders, storedAt, expiresAt,
+                decoded);
+    }
+
+    /**
+     * Get the object transformed from the body for a type, transforming the body if this is the first request for
+     * that type
+     *
+     * @param type      The requested type
+     * @param transform The function transforming the body into the type
+     * @return the transformed body, shared with other requests for the same type
+     */
+    public Object getDecoded(Type type, Function<byte[], Object> transform) {
+        Object value = decoded.get(type);
+        if (value == null) {
+            value = transform.apply(body);
+            if (value != null) {
+                decoded.putIfAbsent(type, value);
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * @return whether the entry can be used without revalidating it
+     */
+    public boolean isFresh() {
+        return System.currentTimeMillis() < expiresAt;
+    }
+
+    /**
+     * @return the key of this entry, the method and url of the request
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    public String getResponseMessage() {
+        return responseMessage;
+    }
+
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return the decoded response body, must not be modified
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * @return the values of the request headers the response varies on, by header name
+     */
+    public Map<String, String> getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    public long getStoredAt() {
+        return storedAt;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+}
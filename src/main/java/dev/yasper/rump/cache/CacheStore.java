@@ -0,0 +1,52 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.cache;
+
+/**
+ * Storage for the entries of a {@link HttpCache}. Implementations must be safe for concurrent use.
+ */
+public interface CacheStore {
+
+    /**
+     * Get a stored entry
+     *
+     * @param key The key of the entry, see {@link CacheEntry#getKey()}
+     * @return the entry or null if it isn't stored
+     */
+    CacheEntry get(String key);
+
+    /**
+     * Store an entry, replacing any entry with the same key
+     *
+     * @param entry The entry to store
+     */
+    void put(CacheEntry entry);
+
+    /**
+     * Remove an entry
+     *
+     * @param key The key of the entry
+     */
+    void remove(String key);
+
+    /**
+     * Remove all entries
+     */
+    void clear();
+}
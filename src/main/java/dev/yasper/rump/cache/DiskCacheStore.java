@@ -0,0 +1,243 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * Store that keeps every entry in a file of its own in a directory, so cached responses survive restarts. Once the
+ * files take up more than the maximum size the least recently written entries are removed.
+ * </p>
+ *
+ * <p>
+ * The store is best effort: entries that can't be read or written are treated as not stored.
+ * </p>
+ */
+public class DiskCacheStore implements CacheStore {
+
+    private static final int FORMAT_VERSION = 2;
+    private static final String SUFFIX = ".entry";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final AtomicLong bytes = new AtomicLong();
+
+    /**
+     * Constructor for DiskCacheStore, creates the directory if it doesn't exist
+     *
+     * @param directory The directory to store the entries in
+     * @param maxBytes  The maximum total size of the entry files in bytes
+     * @throws IOException Thrown when the directory can't be created or read
+     */
+    public DiskCacheStore(Path directory, long maxBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        for (Path file : files()) {
+            bytes.addAndGet(Files.size(file));
+        }
+    }
+
+    @Override
+    public CacheEntry get(String key) {
+        Path file = file(key);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(key)) {
+                return null;
+            }
+
+            int responseCode = in.readInt();
+            String responseMessage = in.readUTF();
+            long storedAt = in.readLong();
+            long expiresAt = in.readLong();
+            int headerCount = in.readInt();
+            Map<String, List<String>> headers = new LinkedHashMap<>();
+            for (int i = 0; i < headerCount; i++) {
+                String name = in.readUTF();
+                int valueCount = in.readInt();
+                List<String> values = new ArrayList<>(valueCount);
+                for (int j = 0; j < valueCount; j++) {
+                    values.add(in.readUTF());
+                }
+                headers.put(name, values);
+            }
+
+            int requestHeaderCount = in.readInt();
+            Map<String, String> requestHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (int i = 0; i < requestHeaderCount; i++) {
+                requestHeaders.put(in.readUTF(), in.readUTF());
+            }
+
+            byte[] body = in.readNBytes(in.readInt());
+            return new CacheEntry(key, responseCode, responseMessage, headers, body, requestHeaders, storedAt,
+                    expiresAt);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void put(CacheEntry entry) {
+        Path file = file(entry.getKey());
+        try {
+            Path temp = Files.createTempFile(directory, "rump", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getResponseCode());
+                out.writeUTF(entry.getResponseMessage() == null ? "" : entry.getResponseMessage());
+                out.writeLong(entry.getStoredAt());
+                out.writeLong(entry.getExpiresAt());
+                out.writeInt(entry.getHeaders().size());
+                for (Map.Entry<String, List<String>> header : entry.getHeaders().entrySet()) {
+                    out.writeUTF(header.getKey());
+                    out.writeInt(header.getValue().size());
+                    for (String value : header.getValue()) {
+                        out.writeUTF(value);
+                    }
+                }
+                out.writeInt(entry.getRequestHeaders().size());
+                for (Map.Entry<String, String> header : entry.getRequestHeaders().entrySet()) {
+                    out.writeUTF(header.getKey());
+                    out.writeUTF(header.getValue());
+                }
+                out.writeInt(entry.getBody().length);
+                out.write(entry.getBody());
+            }
+
+            long size = Files.size(temp);
+            long previous = sizeOf(file);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (bytes.addAndGet(size - previous) > maxBytes) {
+                evict();
+            }
+        } catch (IOException e) {
+            remove(entry.getKey());
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        delete(file(key));
+    }
+
+    @Override
+    public void clear() {
+        try {
+            for (Path file : files()) {
+                delete(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the total size of the entry files in bytes
+     */
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    private synchronized void evict() throws IOException {
+        if (bytes.get() <= maxBytes) {
+            return;
+        }
+
+        List<Path> oldestFirst = files().stream()
+                .sorted(Comparator.comparing(DiskCacheStore::lastModified))
+                .collect(Collectors.toList());
+        for (Path file : oldestFirst) {
+            if (bytes.get() <= maxBytes) {
+                return;
+            }
+
+            delete(file);
+        }
+    }
+
+    private void delete(Path file) {
+        long size = sizeOf(file);
+        try {
+            if (Files.deleteIfExists(file)) {
+                bytes.addAndGet(-size);
+            }
+        } catch (IOException ignore) {
+            // Left for the next eviction.
+        }
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private Path file(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(hash.length * 2 + SUFFIX.length());
+            for (byte b : hash) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+
+            return directory.resolve(name.append(SUFFIX).toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
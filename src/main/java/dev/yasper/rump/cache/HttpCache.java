@@ -0,0 +1,323 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.cache;
+
+import dev.yasper.rump.HeaderNames;
+import dev.yasper.rump.Headers;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.request.RequestMethod;
+
+import java.net.HttpURLConnection;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * <p>
+ * Client side cache for GET responses, see {@link RequestConfig#setHttpCache(HttpCache)}.
+ * </p>
+ *
+ * <p>
+ * Successful responses are stored unless they carry Cache-Control: no-store. They are served from the cache for
+ * their max-age (or until their Expires date), afterwards the request is sent with If-None-Match and
+ * If-Modified-Since conditions taken from the ETag and Last-Modified of the entry. A 304 Not Modified response then
+ * renews the entry and the cached response is returned. Responses with neither a lifetime nor a validator are not
+ * stored. Requests with Cache-Control: no-store skip the cache, no-cache forces a revalidation.
+ * </p>
+ *
+ * <p>
+ * Entries are looked up in the passed stores in order, an entry found in a later store is copied into the earlier
+ * ones. A successful request with any other method removes the entry of its url.
+ * </p>
+ *
+ * <p>
+ * An entry is only served to requests with the same values for the request headers named in the Vary header of the
+ * response, and for Authorization, so responses are never shared between credentials. Responses with Vary: * are not
+ * stored. One entry is kept per url, a response for other header values replaces it.
+ * </p>
+ */
+public class HttpCache {
+
+    private static final int DEFAULT_MAX_ENTRIES = 1024;
+    private static final long DEFAULT_MAX_BYTES = 32 * 1024 * 1024;
+
+    private final List<CacheStore> stores;
+
+    /**
+     * Constructor for a cache with an in-memory store of at most 1024 entries and 32MB of bodies
+     */
+    public HttpCache() {
+        this(new MemoryCacheStore(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES));
+    }
+
+    /**
+     * Constructor for HttpCache
+     *
+     * @param stores The stores to keep the entries in, for example a {@link MemoryCacheStore} followed by a
+     *               {@link DiskCacheStore}
+     */
+    public HttpCache(CacheStore... stores) {
+        this.stores = Arrays.asList(stores);
+    }
+
+    /**
+     * Look up the cached response of a request
+     *
+     * @param url    The complete url of the request
+     * @param config The config of the request
+     * @return the entry, fresh or not, or null if there is none or the request can't be served from the cache
+     */
+    public CacheEntry lookup(String url, RequestConfig config) {
+        if (config.getMethod() != RequestMethod.GET
+                || hasDirective(config.getRequestHeaders().getCacheControl(), "no-store")) {
+            return null;
+        }
+
+        String key = key(url);
+        for (int i = 0; i < stores.size(); i++) {
+            CacheEntry entry = stores.get(i).get(key);
+            if (entry != null) {
+                if (!matches(entry, config)) {
+                    return null;
+                }
+
+                for (int j = 0; j < i; j++) {
+                    stores.get(j).put(entry);
+                }
+
+                return entry;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Whether an entry can be returned without revalidating it
+     *
+     * @param entry  The entry returned by {@link #lookup(String, RequestConfig)}
+     * @param config The config of the request
+     * @return true if the entry is fresh and the request doesn't ask for revalidation
+     */
+    public boolean canServe(CacheEntry entry, RequestConfig config) {
+        return entry.isFresh() && !hasDirective(config.getRequestHeaders().getCacheControl(), "no-cache");
+    }
+
+    /**
+     * Add the conditions to revalidate an entry to a request
+     *
+     * @param connection The connection of the request
+     * @param entry      The stale entry
+     */
+    public void addConditions(HttpURLConnection connection, CacheEntry entry) {
+        Headers headers = new Headers(entry.getHeaders());
+        if (!headers.getEtag().isEmpty()) {
+            connection.setRequestProperty(HeaderNames.IF_NONE_MATCH, headers.getEtag());
+        }
+
+        if (!headers.getLastModified().isEmpty()) {
+            connection.setRequestProperty(HeaderNames.IF_MODIFIED_SINCE, headers.getLastModified());
+        }
+    }
+
+    /**
+     * Whether a response to a GET request may be stored
+     *
+     * @param responseCode    The status code of the response
+     * @param responseHeaders The headers of the response
+     * @return true if the response should be read into a {@link CacheEntry} with {@link #store}
+     */
+    public boolean isCacheable(int responseCode, Headers responseHeaders) {
+        if (responseCode != HttpURLConnection.HTTP_OK
+                || hasDirective(responseHeaders.getCacheControl(), "no-store")
+                || varyingNames(responseHeaders).contains("*")) {
+            return false;
+        }
+
+        return lifetime(responseHeaders) > 0 || !responseHeaders.getEtag().isEmpty()
+                || !responseHeaders.getLastModified().isEmpty();
+    }
+
+    /**
+     * Store a response
+     *
+     * @param url             The complete url of the request
+     * @param config          The config of the request
+     * @param responseCode    The status code of the response
+     * @param responseMessage The status message of the response
+     * @param headerFields    The header fields of the response
+     * @param body            The decoded body of the response
+     * @return the stored entry
+     */
+    public CacheEntry store(String url, RequestConfig config, int responseCode, String responseMessage,
+                            Map<String, List<String>> headerFields, byte[] body) {
+        Map<String, List<String>> headers = copy(headerFields);
+        Headers responseHeaders = new Headers(headers);
+        Map<String, String> requestHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (String name : varyingNames(responseHeaders)) {
+            requestHeaders.put(name, value(config.getRequestHeaders(), name));
+        }
+
+        long now = System.currentTimeMillis();
+        CacheEntry entry = new CacheEntry(key(url), responseCode, responseMessage, headers, body, requestHeaders,
+                now, now + lifetime(responseHeaders));
+        stores.forEach(store -> store.put(entry));
+        return entry;
+    }
+
+    /**
+     * Renew an entry after the server answered its conditional request with 304 Not Modified, the headers of that
+     * response replace the stored ones
+     *
+     * @param entry        The revalidated entry
+     * @param headerFields The header fields of the 304 response
+     * @return the renewed entry
+     */
+    public CacheEntry revalidate(CacheEntry entry, Map<String, List<String>> headerFields) {
+        Map<String, List<String>> headers = copy(entry.getHeaders());
+        headers.putAll(copy(headerFields));
+        long now = System.currentTimeMillis();
+        CacheEntry renewed = entry.revalidated(headers, now, now + lifetime(new Headers(headers)));
+        stores.forEach(store -> store.put(renewed));
+        return renewed;
+    }
+
+    /**
+     * Remove the cached response of an url
+     *
+     * @param url The complete url
+     */
+    public void invalidate(String url) {
+        String key = key(url);
+        stores.forEach(store -> store.remove(key));
+    }
+
+    /**
+     * Remove all cached responses
+     */
+    public void clear() {
+        stores.forEach(CacheStore::clear);
+    }
+
+    private static boolean matches(CacheEntry entry, RequestConfig config) {
+        Headers headers = config.getRequestHeaders();
+        if (!entry.getRequestHeaders().containsKey(HeaderNames.AUTHORIZATION)
+                && !value(headers, HeaderNames.AUTHORIZATION).isEmpty()) {
+            return false;
+        }
+
+        for (Map.Entry<String, String> header : entry.getRequestHeaders().entrySet()) {
+            if (!header.getValue().equals(value(headers, header.getKey()))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static String value(Headers headers, String name) {
+        String value = headers.getSafeValue(name);
+        return value == null ? "" : value;
+    }
+
+    /**
+     * Get the names of the request headers a response varies on, Authorization included
+     */
+    private static Set<String> varyingNames(Headers responseHeaders) {
+        Set<String> names = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        names.add(HeaderNames.AUTHORIZATION);
+        for (String name : responseHeaders.getVary().split(",")) {
+            if (!name.isBlank()) {
+                names.add(name.trim());
+            }
+        }
+
+        return names;
+    }
+
+    private static String key(String url) {
+        return RequestMethod.GET + " " + url;
+    }
+
+    private static Map<String, List<String>> copy(Map<String, List<String>> headerFields) {
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headerFields.forEach((name, values) -> {
+            if (name != null) {
+                headers.put(name, values);
+            }
+        });
+
+        return headers;
+    }
+
+    /**
+     * Get the time a response may be used without revalidation in milliseconds
+     */
+    private static long lifetime(Headers headers) {
+        String cacheControl = headers.getCacheControl();
+        if (hasDirective(cacheControl, "no-cache")) {
+            return 0;
+        }
+
+        long age = parseSeconds(headers.getAge()) * 1000;
+        for (String directive : cacheControl.split(",")) {
+            String trimmed = directive.trim().toLowerCase(Locale.ROOT);
+            if (trimmed.startsWith("max-age=")) {
+                return Math.max(0, parseSeconds(trimmed.substring(8)) * 1000 - age);
+            }
+        }
+
+        if (!headers.getExpires().isEmpty()) {
+            try {
+                long expires = ZonedDateTime.parse(headers.getExpires(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                        .toInstant().toEpochMilli();
+                return Math.max(0, expires - System.currentTimeMillis());
+            } catch (DateTimeParseException e) {
+                return 0;
+            }
+        }
+
+        return 0;
+    }
+
+    private static long parseSeconds(String value) {
+        try {
+            return value.isEmpty() ? 0 : Long.parseLong(value.replace("\"", "").trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static boolean hasDirective(String cacheControl, String directive) {
+        for (String part : cacheControl.split(",")) {
+            if (part.trim().equalsIgnoreCase(directive)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory store that evicts the least recently used entries once it holds more entries or body bytes than its
+ * limits.
+ */
+public class MemoryCacheStore implements CacheStore {
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+
+    /**
+     * Constructor for MemoryCacheStore
+     *
+     * @param maxEntries The maximum number of entries
+     * @param maxBytes   The maximum total size of the stored bodies in bytes
+     */
+    public MemoryCacheStore(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public synchronized CacheEntry get(String key) {
+        return entries.get(key);
+    }
+
+    @Override
+    public synchronized void put(CacheEntry entry) {
+        if (entry.getBody().length > maxBytes) {
+            remove(entry.getKey());
+            return;
+        }
+
+        CacheEntry previous = entries.put(entry.getKey(), entry);
+        if (previous != null) {
+            bytes -= previous.getBody().length;
+        }
+
+        bytes += entry.getBody().length;
+        Iterator<Map.Entry<String, CacheEntry>> it = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && it.hasNext()) {
+            bytes -= it.next().getValue().getBody().length;
+            it.remove();
+        }
+    }
+
+    @Override
+    public synchronized void remove(String key) {
+        CacheEntry removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.getBody().length;
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * @return the number of stored entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the total size of the stored bodies in bytes
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,271 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.cache;
+
+import dev.yasper.rump.Headers;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.request.RequestMethod;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Lets concurrent identical GET and HEAD requests share a single exchange with the server, see
+ * {@link RequestConfig#setRequestCoalescer(RequestCoalescer)}. Requests are identical when they have the same method,
+ * url, request headers of the config and response type. The first request is sent, the others wait for its outcome
+ * and receive the same {@link dev.yasper.rump.response.HttpResponse} instance, or the same exception.
+ * </p>
+ *
+ * <p>
+ * Only requests that are in flight at the same time are coalesced, a request that starts after the shared exchange
+ * completed is sent again. Headers added by request interceptors are not part of the key. Cancelling the future of
+ * a non-blocking request only cancels the shared exchange once every request waiting for it was cancelled.
+ * </p>
+ */
+public class RequestCoalescer {
+
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Whether a request can be coalesced
+     *
+     * @param config The config of the request
+     * @return true for GET and HEAD requests
+     */
+    public boolean canCoalesce(RequestConfig config) {
+        return config.getMethod() == RequestMethod.GET || config.getMethod() == RequestMethod.HEAD;
+    }
+
+    /**
+     * Create the key identifying identical requests
+     *
+     * @param url          The complete url of the request
+     * @param responseType The type the response is transformed to
+     * @param config       The config of the request
+     * @return the key
+     */
+    public String key(String url, Type responseType, RequestConfig config) {
+        StringBuilder key = new StringBuilder()
+                .append(config.getMethod()).append(' ')
+                .append(url).append(' ')
+                .append(responseType.getTypeName());
+        Headers headers = config.getRequestHeaders();
+        for (String name : headers.headerKeys()) {
+            key.append('\n').append(name).append(':').append(headers.getSafeValue(name));
+        }
+
+        return key.toString();
+    }
+
+    /**
+     * Run a blocking request, or wait for the identical request that is already in flight
+     *
+     * @param key  The key of the request, see {@link #key(String, Type, RequestConfig)}
+     * @param call The request
+     * @param <T>  The result type
+     * @return the result of the request
+     * @throws IOException Thrown by the request
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Call<T> call) throws IOException {
+        Flight flight = new Flight(key);
+        Flight existing;
+        while ((existing = inFlight.putIfAbsent(key, flight)) != null) {
+            if (existing.join()) {
+                coalesced.increment();
+                return (T) await(existing.shared);
+            }
+        }
+
+        flight.join();
+        try {
+            T result = call.call();
+            flight.shared.complete(result);
+            return result;
+        } catch (IOException | RuntimeException | Error e) {
+            flight.shared.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Start a non-blocking request, or share the identical request that is already in flight. Every caller gets its
+     * own future, the shared request is only cancelled once the futures of all its callers are cancelled.
+     *
+     * @param key  The key of the request, see {@link #key(String, Type, RequestConfig)}
+     * @param call Starts the request
+     * @param <T>  The result type
+     * @return the future of the caller
+     */
+    public <T> CompletableFuture<T> executeAsync(String key, Supplier<CompletableFuture<T>> call) {
+        Flight flight = new Flight(key);
+        Flight existing;
+        while ((existing = inFlight.putIfAbsent(key, flight)) != null) {
+            if (existing.join()) {
+                coalesced.increment();
+                return existing.follow();
+            }
+        }
+
+        flight.join();
+        CompletableFuture<T> own = flight.follow();
+        CompletableFuture<T> started;
+        try {
+            started = call.get();
+        } catch (RuntimeException e) {
+            started = CompletableFuture.failedFuture(e);
+        }
+
+        flight.upstream = started;
+        started.whenComplete((result, e) -> {
+            inFlight.remove(key, flight);
+            if (e != null) {
+                flight.shared.completeExceptionally(e instanceof CompletionException && e.getCause() != null
+                        ? e.getCause() : e);
+            } else {
+                flight.shared.complete(result);
+            }
+        });
+        return own;
+    }
+
+    private static Object await(CompletableFuture<Object> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a coalesced request");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Get the number of requests that shared the exchange of another request
+     *
+     * @return the number of coalesced requests
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return the number of distinct requests currently in flight
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * A blocking request
+     *
+     * @param <T> The result type
+     */
+    @FunctionalInterface
+    public interface Call<T> {
+        T call() throws IOException;
+    }
+
+    /**
+     * The shared exchange of identical requests and the callers waiting for it
+     */
+    private final class Flight {
+        private final CompletableFuture<Object> shared = new CompletableFuture<>();
+        private final String key;
+        private volatile CompletableFuture<?> upstream;
+        private int callers = 0;
+        private int cancelled = 0;
+        private boolean closed = false;
+
+        private Flight(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Add a caller to the exchange
+         *
+         * @return false if the exchange was already cancelled by all of its callers
+         */
+        private synchronized boolean join() {
+            if (closed) {
+                return false;
+            }
+
+            callers++;
+            return true;
+        }
+
+        /**
+         * Get a future of the exchange for a caller that joined, cancelling it only cancels the exchange when no
+         * other caller is waiting for it
+         */
+        @SuppressWarnings("unchecked")
+        private <T> CompletableFuture<T> follow() {
+            CompletableFuture<T> own = shared.thenApply(result -> (T) result);
+            own.whenComplete((result, e) -> {
+                if (own.isCancelled()) {
+                    cancel();
+                }
+            });
+            return own;
+        }
+
+        private void cancel() {
+            synchronized (this) {
+                cancelled++;
+                if (cancelled < callers) {
+                    return;
+                }
+
+                closed = true;
+            }
+
+            inFlight.remove(key, this);
+            CompletableFuture<?> started = upstream;
+            if (started != null) {
+                started.cancel(true);
+            }
+        }
+    }
+}
@@ -18,15 +18,38 @@
  */
 package dev.yasper.rump.client;
 
+import dev.yasper.rump.cache.CacheEntry;
+import dev.yasper.rump.cache.HttpCache;
+import dev.yasper.rump.cache.RequestCoalescer;
 import dev.yasper.rump.config.RequestConfig;
 import dev.yasper.rump.exception.HttpStatusCodeException;
 import dev.yasper.rump.request.RequestMethod;
+import dev.yasper.rump.resilience.HedgePolicy;
+import dev.yasper.rump.resilience.RequestGuard;
+import dev.yasper.rump.resilience.RetryPolicy;
+import dev.yasper.rump.response.CloseableIterator;
+import dev.yasper.rump.response.GenericType;
 import dev.yasper.rump.response.HttpResponse;
+import dev.yasper.rump.transport.AsyncConnection;
+import dev.yasper.rump.transport.ConnectionPool;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 public class AsyncRestClient implements RestClient {
 
@@ -37,7 +60,8 @@ public class AsyncRestClient implements RestClient {
      * Constructor for AsyncRestClient
      *
      * @param backing  The backing default (sync) rest client
-     * @param executor The executor for this rest client
+     * @param executor The executor for this rest client, runs blocking requests and transforms the responses of
+     *                 non-blocking requests
      */
     public AsyncRestClient(DefaultRestClient backing, ExecutorService executor) {
         this.backing = backing;
@@ -203,8 +227,16 @@ public class AsyncRestClient implements RestClient {
     }
 
     /**
-     * Returns a completable version of {@link DefaultRestClient#request(String, RequestMethod, Object, Class, RequestConfig...)} by
-     * executing the request on the passed executor.
+     * <p>
+     * Returns a completable version of {@link DefaultRestClient#request(String, RequestMethod, Object, Class, RequestConfig...)}.
+     * The request is prepared on the passed executor.
+     * </p>
+     *
+     * <p>
+     * If the transport opens an {@link AsyncConnection} (see {@link dev.yasper.rump.transport.HttpClientTransport})
+     * the request is sent without blocking and no thread is held while it is in flight, the response is then
+     * transformed on the passed executor. For any other transport the whole exchange runs on the executor.
+     * </p>
      *
      * @param path         The path of this request, full URL if no base URL is specified in the config or any of the overloads
      * @param method       The method to use for this request
@@ -216,17 +248,548 @@ public class AsyncRestClient implements RestClient {
      */
     public <T> CompletableFuture<HttpResponse<T>> request(String path, RequestMethod method, Object requestBody,
                                                           Class<T> responseType, RequestConfig... merging) {
-        return CompletableFuture.supplyAsync(() -> {
+        return request(path, method, requestBody, GenericType.of(responseType), merging);
+    }
+
+    /**
+     * Same as {@link AsyncRestClient#getForObject(String, Class, RequestConfig...)} for a generic response type
+     *
+     * @param path         The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param responseType The type to parse the response as, for example {@code new GenericType<List<Post>>() {}}
+     * @param merging      The configs to overload the request with
+     * @param <T>          The type of the response
+     * @return A {@link CompletableFuture} containing just the response body of a {@link HttpResponse}.
+     */
+    public <T> CompletableFuture<T> getForObject(String path, GenericType<T> responseType, RequestConfig... merging) {
+        return requestForObject(path, RequestMethod.GET, null, responseType, merging);
+    }
+
+    /**
+     * Same as {@link AsyncRestClient#postForObject(String, Object, Class, RequestConfig...)} for a generic response type
+     *
+     * @param path         The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param requestBody  The body to send with this request, applicable to POST and PUT only
+     * @param responseType The type to parse the response as, for example {@code new GenericType<List<Post>>() {}}
+     * @param merging      The configs to overload the request with
+     * @param <T>          The type of the response
+     * @return A {@link CompletableFuture} containing just the response body of a {@link HttpResponse}.
+     */
+    public <T> CompletableFuture<T> postForObject(String path, Object requestBody, GenericType<T> responseType,
+                                                  RequestConfig... merging) {
+        return requestForObject(path, RequestMethod.POST, requestBody, responseType, merging);
+    }
+
+    /**
+     * Same as {@link AsyncRestClient#putForObject(String, Object, Class, RequestConfig...)} for a generic response type
+     *
+     * @param path         The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param requestBody  The body to send with this request, applicable to POST and PUT only
+     * @param responseType The type to parse the response as, for example {@code new GenericType<List<Post>>() {}}
+     * @param merging      The configs to overload the request with
+     * @param <T>          The type of the response
+     * @return A {@link CompletableFuture} containing just the response body of a {@link HttpResponse}.
+     */
+    public <T> CompletableFuture<T> putForObject(String path, Object requestBody, GenericType<T> responseType,
+                                                 RequestConfig... merging) {
+        return requestForObject(path, RequestMethod.PUT, requestBody, responseType, merging);
+    }
+
+    /**
+     * Same as {@link AsyncRestClient#deleteForObject(String, Class, RequestConfig...)} for a generic response type
+     *
+     * @param path         The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param responseType The type to parse the response as, for example {@code new GenericType<List<Post>>() {}}
+     * @param merging      The configs to overload the request with
+     * @param <T>          The type of the response
+     * @return A {@link CompletableFuture} containing just the response body of a {@link HttpResponse}.
+     */
+    public <T> CompletableFuture<T> deleteForObject(String path, GenericType<T> responseType, RequestConfig... merging) {
+        return requestForObject(path, RequestMethod.DELETE, null, responseType, merging);
+    }
+
+    /**
+     * Same as {@link AsyncRestClient#requestForObject(String, RequestMethod, Object, Class, RequestConfig...)} for a
+     * generic response type
+     *
+     * @param path         The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param method       The method to use for this request
+     * @param requestBody  The body to send with this request, applicable to POST and PUT only
+     * @param responseType The type to parse the response as, for example {@code new GenericType<List<Post>>() {}}
+     * @param merging      The configs to overload the request with
+     * @param <T>          The type of the response
+     * @return A {@link CompletableFuture} containing just the response body of a {@link HttpResponse}.
+     */
+    public <T> CompletableFuture<T> requestForObject(String path, RequestMethod method, Object requestBody,
+                                                     GenericType<T> responseType, RequestConfig... merging) {
+        return request(path, method, requestBody, responseType, merging)
+                .thenApply(HttpResponse::getBody);
+    }
+
+    /**
+     * Same as {@link AsyncRestClient#get(String, Class, RequestConfig...)} for a generic response type
+     *
+     * @param path         The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param responseType The type to parse the response as, for example {@code new GenericType<List<Post>>() {}}
+     * @param merging      The configs to overload the request with
+     * @param <T>          The type of the response
+     * @return A {@link CompletableFuture} containing a {@link HttpResponse} with the response body.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> get(String path, GenericType<T> responseType,
+                                                      RequestConfig... merging) {
+        return request(path, RequestMethod.GET, null, responseType, merging);
+    }
+
+    /**
+     * Same as {@link AsyncRestClient#post(String, Object, Class, RequestConfig...)} for a generic response type
+     *
+     * @param path         The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param requestBody  The body to send with this request, applicable to POST and PUT only
+     * @param responseType The type to parse the response as, for example {@code new GenericType<List<Post>>() {}}
+     * @param merging      The configs to overload the request with
+     * @param <T>          The type of the response
+     * @return A {@link CompletableFuture} containing a {@link HttpResponse} with the response body.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> post(String path, Object requestBody, GenericType<T> responseType,
+                                                       RequestConfig... merging) {
+        return request(path, RequestMethod.POST, requestBody, responseType, merging);
+    }
+
+    /**
+     * Same as {@link AsyncRestClient#put(String, Object, Class, RequestConfig...)} for a generic response type
+     *
+     * @param path         The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param requestBody  The body to send with this request, applicable to POST and PUT only
+     * @param responseType The type to parse the response as, for example {@code new GenericType<List<Post>>() {}}
+     * @param merging      The configs to overload the request with
+     * @param <T>          The type of the response
+     * @return A {@link CompletableFuture} containing a {@link HttpResponse} with the response body.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> put(String path, Object requestBody, GenericType<T> responseType,
+                                                      RequestConfig... merging) {
+        return request(path, RequestMethod.PUT, requestBody, responseType, merging);
+    }
+
+    /**
+     * Same as {@link AsyncRestClient#delete(String, Class, RequestConfig...)} for a generic response type
+     *
+     * @param path         The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param responseType The type to parse the response as, for example {@code new GenericType<List<Post>>() {}}
+     * @param merging      The configs to overload the request with
+     * @param <T>          The type of the response
+     * @return A {@link CompletableFuture} containing a {@link HttpResponse} with the response body.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> delete(String path, GenericType<T> responseType,
+                                                         RequestConfig... merging) {
+        return request(path, RequestMethod.DELETE, null, responseType, merging);
+    }
+
+    /**
+     * Same as {@link AsyncRestClient#request(String, RequestMethod, Object, Class, RequestConfig...)} for a generic
+     * response type
+     *
+     * @param path         The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param method       The method to use for this request
+     * @param requestBody  The body to send with this request, applicable to POST and PUT only
+     * @param responseType The type to parse the response as, for example {@code new GenericType<List<Post>>() {}}
+     * @param merging      The configs to overload the request with
+     * @param <T>          The type of the response
+     * @return A {@link CompletableFuture} containing a {@link HttpResponse} with the response body.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> request(String path, RequestMethod method, Object requestBody,
+                                                          GenericType<T> responseType, RequestConfig... merging) {
+        RequestConfig config = backing.resolve(method, merging);
+        String logicalURL = backing.mergeURL(path, config);
+        boolean streaming = DefaultRestClient.isStreaming(responseType);
+        HttpCache cache = config.getHttpCache();
+        CacheEntry cached = cache == null || streaming ? null : cache.lookup(logicalURL, config);
+        if (cached != null && cache.canServe(cached, config)) {
             try {
-                return backing.request(path, method, requestBody, responseType, merging);
+                return CompletableFuture.completedFuture(backing.fromCache(cached, logicalURL, responseType, config));
             } catch (IOException | HttpStatusCodeException e) {
-                throw new CompletionException(e);
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        RequestCoalescer coalescer = config.getRequestCoalescer();
+        if (coalescer != null && !streaming && coalescer.canCoalesce(config)) {
+            String key = coalescer.key(logicalURL, responseType.getType(), config);
+            return coalescer.executeAsync(key,
+                    () -> execute(path, logicalURL, requestBody, responseType, config, cached));
+        }
+
+        return execute(path, logicalURL, requestBody, responseType, config, cached);
+    }
+
+    /**
+     * Returns a completable version of {@link DefaultRestClient#iterate(String, Class, RequestConfig...)}
+     *
+     * @param path        The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param elementType The type to parse the elements of the response as
+     * @param merging     The configs to overload the request with
+     * @param <T>         The type of the elements
+     * @return A {@link CompletableFuture} containing an iterator over the elements, reading it blocks
+     */
+    public <T> CompletableFuture<CloseableIterator<T>> iterate(String path, Class<T> elementType,
+                                                               RequestConfig... merging) {
+        return iterate(path, RequestMethod.GET, null, GenericType.of(elementType), merging);
+    }
+
+    /**
+     * Returns a completable version of
+     * {@link DefaultRestClient#iterate(String, RequestMethod, Object, GenericType, RequestConfig...)}. The future
+     * completes once the response headers arrived, the elements are read while iterating.
+     *
+     * @param path        The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param method      The method to use for this request
+     * @param requestBody The body to send with this request, applicable to POST and PUT only
+     * @param elementType The type to parse the elements of the response as
+     * @param merging     The configs to overload the request with
+     * @param <T>         The type of the elements
+     * @return A {@link CompletableFuture} containing an iterator over the elements, reading it blocks
+     */
+    public <T> CompletableFuture<CloseableIterator<T>> iterate(String path, RequestMethod method, Object requestBody,
+                                                               GenericType<T> elementType, RequestConfig... merging) {
+        CompletableFuture<HttpResponse<InputStream>> response =
+                request(path, method, requestBody, GenericType.of(InputStream.class), merging);
+        CompletableFuture<CloseableIterator<T>> result = new CompletableFuture<>();
+        result.whenComplete((ignore, e) -> {
+            if (result.isCancelled()) {
+                response.cancel(true);
+            }
+        });
+        response.whenComplete((res, e) -> {
+            if (e != null) {
+                result.completeExceptionally(e);
+                return;
+            }
+
+            CloseableIterator<T> elements;
+            try {
+                elements = DefaultRestClient.elements(res, elementType);
+            } catch (IOException | RuntimeException ex) {
+                result.completeExceptionally(ex);
+                return;
+            }
+
+            if (!result.complete(elements)) {
+                elements.close();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Same as {@link AsyncRestClient#iterate(String, Class, RequestConfig...)} as a {@link Stream}
+     *
+     * @param path        The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param elementType The type to parse the elements of the response as
+     * @param merging     The configs to overload the request with
+     * @param <T>         The type of the elements
+     * @return A {@link CompletableFuture} containing a sequential stream of the elements, closing it releases the
+     * connection
+     */
+    public <T> CompletableFuture<Stream<T>> stream(String path, Class<T> elementType, RequestConfig... merging) {
+        return iterate(path, elementType, merging).thenApply(DefaultRestClient::toStream);
+    }
+
+    /**
+     * Same as {@link AsyncRestClient#iterate(String, RequestMethod, Object, GenericType, RequestConfig...)} as a
+     * {@link Stream}
+     *
+     * @param path        The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param method      The method to use for this request
+     * @param requestBody The body to send with this request, applicable to POST and PUT only
+     * @param elementType The type to parse the elements of the response as
+     * @param merging     The configs to overload the request with
+     * @param <T>         The type of the elements
+     * @return A {@link CompletableFuture} containing a sequential stream of the elements, closing it releases the
+     * connection
+     */
+    public <T> CompletableFuture<Stream<T>> stream(String path, RequestMethod method, Object requestBody,
+                                                   GenericType<T> elementType, RequestConfig... merging) {
+        return iterate(path, method, requestBody, elementType, merging).thenApply(DefaultRestClient::toStream);
+    }
+
+    /**
+     * Same as {@link AsyncRestClient#publish(String, RequestMethod, Object, GenericType, RequestConfig...)} for a
+     * GET request
+     *
+     * @param path        The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param elementType The type to parse the elements of the response as
+     * @param merging     The configs to overload the request with
+     * @param <T>         The type of the elements
+     * @return A publisher of the elements
+     */
+    public <T> Flow.Publisher<T> publish(String path, Class<T> elementType, RequestConfig... merging) {
+        return publish(path, RequestMethod.GET, null, GenericType.of(elementType), merging);
+    }
+
+    /**
+     * Publishes the elements of a streamed response, see
+     * {@link DefaultRestClient#iterate(String, RequestMethod, Object, GenericType, RequestConfig...)}. Every
+     * subscriber sends its own request once it first requests elements. Elements are read on the executor only as far
+     * as the subscriber requested them, cancelling the subscription releases the connection.
+     *
+     * @param path        The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param method      The method to use for this request
+     * @param requestBody The body to send with this request, applicable to POST and PUT only
+     * @param elementType The type to parse the elements of the response as
+     * @param merging     The configs to overload the request with
+     * @param <T>         The type of the elements
+     * @return A publisher of the elements
+     */
+    public <T> Flow.Publisher<T> publish(String path, RequestMethod method, Object requestBody,
+                                         GenericType<T> elementType, RequestConfig... merging) {
+        return new IteratorPublisher<>(() -> iterate(path, method, requestBody, elementType, merging), executor);
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> execute(String path, String logicalURL, Object requestBody,
+                                                           GenericType<T> responseType, RequestConfig config,
+                                                           CacheEntry cached) {
+        Supplier<CompletableFuture<HttpResponse<T>>> call =
+                () -> attempt(path, logicalURL, requestBody, responseType, config, cached);
+        HedgePolicy hedgePolicy = config.getHedgePolicy();
+        // The unread body of the losing attempt of a streamed response would keep its connection
+        if (hedgePolicy != null && hedgePolicy.canHedge(config) && !DefaultRestClient.isStreaming(responseType)) {
+            Supplier<CompletableFuture<HttpResponse<T>>> primary = call;
+            Supplier<CompletableFuture<HttpResponse<T>>> hedge =
+                    hedge(path, logicalURL, requestBody, responseType, config, primary);
+            call = () -> hedgePolicy.execute(primary, hedge, executor);
+        }
+
+        RetryPolicy retryPolicy = config.getRetryPolicy();
+        if (retryPolicy == null) {
+            return call.get();
+        }
+
+        return retryPolicy.executeAsync(config, call, executor, AsyncRestClient::discard);
+    }
+
+    private <T> Supplier<CompletableFuture<HttpResponse<T>>> hedge(String path, String logicalURL, Object requestBody,
+                                                                   GenericType<T> responseType, RequestConfig config,
+                                                                   Supplier<CompletableFuture<HttpResponse<T>>> primary) {
+        String alternateBaseURL = config.getHedgePolicy().getAlternateBaseURL();
+        if (alternateBaseURL == null) {
+            return primary;
+        }
+
+        RequestConfig hedgeConfig = config.merge(new RequestConfig().setBaseURL(alternateBaseURL));
+        String urlMerged = backing.mergeURL(path, hedgeConfig);
+        return () -> {
+            try {
+                return exchange(new URL(urlMerged), urlMerged, logicalURL, requestBody, responseType, hedgeConfig,
+                        null);
+            } catch (MalformedURLException e) {
+                return CompletableFuture.failedFuture(e);
             }
-        }, executor);
+        };
+    }
+
+    /**
+     * Starts a single attempt of a request to the endpoint picked by the load balancer for this attempt
+     */
+    private <T> CompletableFuture<HttpResponse<T>> attempt(String path, String logicalURL, Object requestBody,
+                                                           GenericType<T> responseType, RequestConfig resolved,
+                                                           CacheEntry cached) {
+        RequestConfig config;
+        String urlMerged;
+        URL url;
+        try {
+            config = backing.balance(resolved);
+            urlMerged = backing.mergeURL(path, config);
+            url = new URL(urlMerged);
+        } catch (MalformedURLException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return exchange(url, urlMerged, logicalURL, requestBody, responseType, config, cached);
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> exchange(URL url, String urlMerged, String logicalURL,
+                                                            Object requestBody, GenericType<T> responseType,
+                                                            RequestConfig config, CacheEntry cached) {
+        List<RequestGuard> guards = DefaultRestClient.guards(config);
+        if (guards.isEmpty()) {
+            return send(url, urlMerged, logicalURL, requestBody, responseType, config, cached);
+        }
+
+        GuardedExchange<T> exchange = new GuardedExchange<>(url, config, guards,
+                () -> send(url, urlMerged, logicalURL, requestBody, responseType, config, cached));
+        exchange.next();
+        return exchange.result;
+    }
+
+    /**
+     * Runs a single exchange with the server. Cancelling the returned future gives up waiting for a pooled connection
+     * or disconnects the connection of the exchange.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> send(URL url, String urlMerged, String logicalURL,
+                                                        Object requestBody, GenericType<T> responseType,
+                                                        RequestConfig config, CacheEntry cached) {
+        HttpCache cache = config.getHttpCache();
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        AtomicReference<HttpURLConnection> open = new AtomicReference<>();
+        CompletableFuture<ConnectionPool.Lease> leased = config.getConnectionPool().acquireAsync(url);
+        result.whenComplete((ignore, e) -> {
+            if (result.isCancelled()) {
+                leased.cancel(false);
+                disconnect(open.get());
+            }
+        });
+
+        leased.thenCompose(lease -> {
+            CompletableFuture<HttpResponse<T>> res = CompletableFuture.supplyAsync(() -> {
+                try {
+                    if (result.isDone()) {
+                        throw new CancellationException();
+                    }
+
+                    HttpURLConnection connection = backing.prepare(url, urlMerged, requestBody, config);
+                    open.set(connection);
+                    if (result.isCancelled()) {
+                        disconnect(connection);
+                        throw new CancellationException();
+                    }
+
+                    if (connection != null && cached != null) {
+                        cache.addConditions(connection, cached);
+                    }
+
+                    if (connection instanceof AsyncConnection) {
+                        return ((AsyncConnection) connection)
+                                .connectAsync(DefaultRestClient.isStreaming(responseType))
+                                .thenApplyAsync(ignore -> complete(connection, urlMerged, logicalURL, responseType,
+                                        config, cached), executor);
+                    }
+
+                    HttpResponse<T> completed = connection == null ? null
+                            : backing.complete(connection, urlMerged, logicalURL, responseType, config, cached);
+                    return CompletableFuture.completedFuture(completed);
+                } catch (IOException | HttpStatusCodeException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor).thenCompose(Function.identity());
+            return res.whenComplete((response, e) -> {
+                if (!DefaultRestClient.releaseOnClose(response, lease)) {
+                    lease.release();
+                }
+            });
+        }).whenComplete((response, e) -> {
+            if (e != null) {
+                result.completeExceptionally(e);
+            } else if (!result.complete(response)) {
+                discard(response);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Close the streamed body of a response that arrived after its request was cancelled, nobody will read it
+     */
+    private static void discard(HttpResponse<?> response) {
+        if (response == null || !(response.getBody() instanceof ResponseInputStream)) {
+            return;
+        }
+
+        try {
+            ((ResponseInputStream) response.getBody()).close();
+        } catch (IOException ignore) {
+            // The connection won't be reused, nothing else to clean up.
+        }
+    }
+
+    private static void disconnect(HttpURLConnection connection) {
+        if (connection != null) {
+            connection.disconnect();
+        }
+    }
+
+    private <T> HttpResponse<T> complete(HttpURLConnection connection, String urlMerged, String logicalURL,
+                                         GenericType<T> responseType, RequestConfig config, CacheEntry cached) {
+        try {
+            return backing.complete(connection, urlMerged, logicalURL, responseType, config, cached);
+        } catch (IOException | HttpStatusCodeException e) {
+            throw new CompletionException(e);
+        }
     }
 
     @Override
     public boolean isAsync() {
         return true;
     }
+
+    /**
+     * Acquires the permits of the request guards one after the other without blocking and then sends the request.
+     * Cancelling the result cancels whichever step is in progress.
+     */
+    private final class GuardedExchange<T> {
+        private final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        private final List<RequestGuard.Permit> permits = new ArrayList<>();
+        private final AtomicReference<CompletableFuture<?>> step = new AtomicReference<>();
+        private final URL url;
+        private final RequestConfig config;
+        private final Iterator<RequestGuard> guards;
+        private final Supplier<CompletableFuture<HttpResponse<T>>> send;
+
+        private GuardedExchange(URL url, RequestConfig config, List<RequestGuard> guards,
+                                Supplier<CompletableFuture<HttpResponse<T>>> send) {
+            this.url = url;
+            this.config = config;
+            this.guards = guards.iterator();
+            this.send = send;
+            result.whenComplete((ignore, e) -> {
+                CompletableFuture<?> current = step.get();
+                if (result.isCancelled() && current != null) {
+                    current.cancel(true);
+                }
+            });
+        }
+
+        private void next() {
+            if (result.isDone()) {
+                DefaultRestClient.release(permits);
+                return;
+            }
+
+            if (!guards.hasNext()) {
+                CompletableFuture<HttpResponse<T>> sent = start(send.get());
+                sent.whenComplete((response, e) -> {
+                    if (e instanceof CancellationException) {
+                        DefaultRestClient.release(permits);
+                    } else {
+                        DefaultRestClient.complete(permits, response, e);
+                    }
+
+                    if (e != null) {
+                        result.completeExceptionally(e);
+                    } else {
+                        result.complete(response);
+                    }
+                });
+                return;
+            }
+
+            CompletableFuture<RequestGuard.Permit> acquired = start(guards.next().acquireAsync(url, config, executor));
+            acquired.whenComplete((permit, e) -> {
+                if (e != null) {
+                    DefaultRestClient.release(permits);
+                    result.completeExceptionally(e);
+                    return;
+                }
+
+                permits.add(permit);
+                next();
+            });
+        }
+
+        private <S> CompletableFuture<S> start(CompletableFuture<S> future) {
+            step.set(future);
+            if (result.isCancelled()) {
+                future.cancel(true);
+            }
+
+            return future;
+        }
+    }
 }
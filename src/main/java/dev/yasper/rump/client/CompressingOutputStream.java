@@ -0,0 +1,110 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.client;
+
+import dev.yasper.rump.HeaderNames;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Request body stream that gzips the body once it reaches the compression threshold. Until then the body is held in
+ * memory, as the Content-Encoding header has to be set before the output of the connection is opened.
+ */
+class CompressingOutputStream extends OutputStream {
+
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
+    private final HttpURLConnection connection;
+    private final int chunkSize;
+    private final int threshold;
+    private ByteArrayOutputStream pending;
+    private OutputStream output;
+    private boolean closed;
+
+    /**
+     * @param connection The connection to write the body to
+     * @param chunkSize  The chunk size to stream the body with, zero to let the transport buffer the body
+     * @param length     The length of the body if known up front, else -1
+     * @param threshold  The minimum size of bodies that are compressed
+     * @throws IOException Thrown when opening the output of the connection fails
+     */
+    CompressingOutputStream(HttpURLConnection connection, int chunkSize, long length, int threshold) throws IOException {
+        this.connection = connection;
+        this.chunkSize = chunkSize;
+        this.threshold = threshold;
+        if (length >= threshold) {
+            compress();
+        } else {
+            this.pending = new ByteArrayOutputStream(length >= 0 ? (int) length : Math.min(threshold, GZIP_BUFFER_SIZE));
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (output == null && pending.size() + len >= threshold) {
+            compress();
+        }
+
+        if (output != null) {
+            output.write(b, off, len);
+        } else {
+            pending.write(b, off, len);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (output != null) {
+            output.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        if (output == null) {
+            output = DefaultRestClient.openOutput(connection, chunkSize, pending.size());
+            pending.writeTo(output);
+        }
+
+        output.close();
+    }
+
+    private void compress() throws IOException {
+        connection.setRequestProperty(HeaderNames.CONTENT_ENCODING, "gzip");
+        output = new GZIPOutputStream(DefaultRestClient.openOutput(connection, chunkSize, -1), GZIP_BUFFER_SIZE);
+        if (pending != null) {
+            pending.writeTo(output);
+            pending = null;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Response body stream that decodes a gzip or deflate encoded body. The decoder is only created on the first read, as
+ * it reads the compression header, so handing out the stream never blocks on the body of a streamed response.
+ * Responses without a body, such as those to HEAD requests, can carry a Content-Encoding too and read as empty.
+ */
+class DecodingInputStream extends InputStream {
+
+    private final InputStream input;
+    private final boolean gzip;
+    private final int bufferSize;
+    private InputStream decoded;
+
+    /**
+     * @param input      The encoded response stream
+     * @param gzip       Whether the body is gzip encoded, else it is deflate encoded
+     * @param bufferSize The size of the buffer of the gzip decoder
+     */
+    DecodingInputStream(InputStream input, boolean gzip, int bufferSize) {
+        this.input = input;
+        this.gzip = gzip;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return decoded().read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return decoded().read(b, off, len);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        return decoded().skip(n);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return decoded == null ? 0 : decoded.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (decoded != null) {
+            decoded.close();
+        } else {
+            input.close();
+        }
+    }
+
+    private InputStream decoded() throws IOException {
+        if (decoded != null) {
+            return decoded;
+        }
+
+        PushbackInputStream pushback = new PushbackInputStream(input, 1);
+        int first = pushback.read();
+        if (first == -1) {
+            decoded = pushback;
+            return decoded;
+        }
+
+        pushback.unread(first);
+        decoded = gzip ? new GZIPInputStream(pushback, bufferSize) : new InflaterInputStream(pushback);
+        return decoded;
+    }
+}
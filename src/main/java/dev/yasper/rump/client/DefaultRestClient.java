@@ -18,27 +18,49 @@
  */
 package dev.yasper.rump.client;
 
+import dev.yasper.rump.HeaderNames;
 import dev.yasper.rump.Headers;
 import dev.yasper.rump.Rump;
+import dev.yasper.rump.balancing.LoadBalancer;
+import dev.yasper.rump.cache.CacheEntry;
+import dev.yasper.rump.cache.HttpCache;
+import dev.yasper.rump.cache.RequestCoalescer;
 import dev.yasper.rump.config.RequestConfig;
 import dev.yasper.rump.exception.HttpStatusCodeException;
 import dev.yasper.rump.interceptor.RequestInterceptor;
 import dev.yasper.rump.interceptor.ResponseInterceptor;
+import dev.yasper.rump.request.MultipartBody;
 import dev.yasper.rump.request.RequestMethod;
+import dev.yasper.rump.request.RequestTransformer;
+import dev.yasper.rump.request.StreamingRequestTransformer;
+import dev.yasper.rump.resilience.RequestGuard;
+import dev.yasper.rump.resilience.RetryPolicy;
+import dev.yasper.rump.response.CloseableIterator;
+import dev.yasper.rump.response.GenericType;
 import dev.yasper.rump.response.HttpResponse;
 import dev.yasper.rump.response.PrimitiveBody;
 import dev.yasper.rump.response.ResponseTransformer;
+import dev.yasper.rump.transport.ConnectionPool;
 
-import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.net.ProtocolException;
-import java.net.Proxy;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class DefaultRestClient implements RestClient {
 
@@ -47,10 +69,25 @@ public class DefaultRestClient implements RestClient {
             Short.class, Byte.class, Boolean.class, Character.class
     );
     private static final int LAST_SUCCESSFUL_RESPONSE = 299;
+    private static final int DRAIN_BUFFER_SIZE = 8192;
+    private static final int MAX_DRAIN = 64 * 1024;
+    private static final List<String> GZIP_ENCODINGS = Arrays.asList("gzip", "x-gzip");
+    private static final String DEFLATE_ENCODING = "deflate";
+    private static final String ACCEPTED_ENCODINGS = "gzip, deflate";
     private final RequestConfig config;
+    private final Map<RequestMethod, RequestConfig> methodConfigs = new EnumMap<>(RequestMethod.class);
 
+    /**
+     * Constructor for DefaultRestClient, the config is frozen and resolved for every request method up front so
+     * requests without overloads don't have to merge any configs.
+     *
+     * @param config The config instance for this rest client
+     */
     protected DefaultRestClient(RequestConfig config) {
-        this.config = config;
+        this.config = config.freeze();
+        for (RequestMethod method : RequestMethod.values()) {
+            methodConfigs.put(method, this.config.merge(method.toConfig()));
+        }
     }
 
     /**
@@ -64,6 +101,11 @@ public class DefaultRestClient implements RestClient {
         return new DefaultRestClient(Rump.DEFAULT_CONFIG.merge(config));
     }
 
+    /**
+     * Get the frozen config of this rest client
+     *
+     * @return the config, see {@link RequestConfig#freeze()}
+     */
     public RequestConfig getConfig() {
         return config;
     }
@@ -220,7 +262,7 @@ public class DefaultRestClient implements RestClient {
     }
 
     /**
-     * Calls {@link DefaultRestClient#request(String, Object, Class, RequestConfig)} with the passed parameters
+     * Calls {@link DefaultRestClient#request(String, Object, GenericType, RequestConfig)} with the passed parameters
      * and the configs merged, method is converted into a config too.
      * @param path The path of this request, full URL if no base URL is specified in the config or any of the overloads
      * @param method The request method for this request.
@@ -233,11 +275,11 @@ public class DefaultRestClient implements RestClient {
      */
     public <T> HttpResponse<T> request(String path, RequestMethod method, Object requestBody,
                                        Class<T> responseType, RequestConfig... merging) throws IOException {
-        return request(path, requestBody, responseType, this.config.merge(method.toConfig()).merge(merging));
+        return request(path, requestBody, GenericType.of(responseType), resolve(method, merging));
     }
 
     /**
-     * Calls {@link DefaultRestClient#request(String, Object, Class, RequestConfig)} with the passed parameters
+     * Calls {@link DefaultRestClient#request(String, Object, GenericType, RequestConfig)} with the passed parameters
      * and the configs merged.
      * @param path The path of this request, full URL if no base URL is specified in the config or any of the overloads
      * @param requestBody The body to send with this request, applicable to POST and PUT only
@@ -250,15 +292,272 @@ public class DefaultRestClient implements RestClient {
     public <T> HttpResponse<T> request(String path, Object requestBody, Class<T> responseType,
                                        RequestConfig... merging) throws IOException {
         RequestConfig config = this.config.merge(merging);
-        return request(path, requestBody, responseType, config);
+        return request(path, requestBody, GenericType.of(responseType), config);
+    }
+
+    /**
+     * Same as {@link DefaultRestClient#getForObject(String, Class, RequestConfig...)} for a generic response type
+     * @param path The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param responseType The type to parse the response as, for example {@code new GenericType<List<Post>>() {}}
+     * @param merging The configs from which to construct this request
+     * @return The {@link T} if everything is fine, else null
+     * @param <T> The required type of the response
+     * @throws IOException Thrown by HttpURLConnection methods
+     */
+    public <T> T getForObject(String path, GenericType<T> responseType,
+                              RequestConfig... merging) throws IOException {
+        return requestForObject(path, RequestMethod.GET, null, responseType, merging);
+    }
+
+    /**
+     * Same as {@link DefaultRestClient#postForObject(String, Object, Class, RequestConfig...)} for a generic response
+     * type
+     * @param path The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param requestBody The body to send with this request, applicable to POST and PUT only
+     * @param responseType The type to parse the response as, for example {@code new GenericType<List<Post>>() {}}
+     * @param merging The configs from which to construct this request
+     * @return The {@link T} if everything is fine, else null
+     * @param <T> The required type of the response
+     * @throws IOException Thrown by HttpURLConnection methods
+     */
+    public <T> T postForObject(String path, Object requestBody, GenericType<T> responseType,
+                               RequestConfig... merging) throws IOException {
+        return requestForObject(path, RequestMethod.POST, requestBody, responseType, merging);
+    }
+
+    /**
+     * Same as {@link DefaultRestClient#putForObject(String, Object, Class, RequestConfig...)} for a generic response
+     * type
+     * @param path The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param requestBody The body to send with this request, applicable to POST and PUT only
+     * @param responseType The type to parse the response as, for example {@code new GenericType<List<Post>>() {}}
+     * @param merging The configs from which to construct this request
+     * @return The {@link T} if everything is fine, else null
+     * @param <T> The required type of the response
+     * @throws IOException Thrown by HttpURLConnection methods
+     */
+    public <T> T putForObject(String path, Object requestBody, GenericType<T> responseType,
+                              RequestConfig... merging) throws IOException {
+        return requestForObject(path, RequestMethod.PUT, requestBody, responseType, merging);
+    }
+
+    /**
+     * Same as {@link DefaultRestClient#deleteForObject(String, Class, RequestConfig...)} for a generic response type
+     * @param path The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param responseType The type to parse the response as, for example {@code new GenericType<List<Post>>() {}}
+     * @param merging The configs from which to construct this request
+     * @return The {@link T} if everything is fine, else null
+     * @param <T> The required type of the response
+     * @throws IOException Thrown by HttpURLConnection methods
+     */
+    public <T> T deleteForObject(String path, GenericType<T> responseType,
+                                 RequestConfig... merging) throws IOException {
+        return requestForObject(path, RequestMethod.DELETE, null, responseType, merging);
+    }
+
+    /**
+     * Same as {@link DefaultRestClient#requestForObject(String, RequestMethod, Object, Class, RequestConfig...)} for
+     * a generic response type
+     * @param path The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param method The request method for this request.
+     * @param requestBody The body to send with this request, applicable to POST and PUT only
+     * @param responseType The type to parse the response as, for example {@code new GenericType<List<Post>>() {}}
+     * @param merging The configs from which to construct this request
+     * @return The {@link T} if everything is fine, else null
+     * @param <T> The required type of the response
+     * @throws IOException Thrown by HttpURLConnection methods
+     */
+    public <T> T requestForObject(String path, RequestMethod method, Object requestBody, GenericType<T> responseType,
+                                  RequestConfig... merging) throws IOException {
+        return request(path, method, requestBody, responseType, merging).getBody();
+    }
+
+    /**
+     * Same as {@link DefaultRestClient#get(String, Class, RequestConfig...)} for a generic response type
+     * @param path The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param responseType The type to parse the response as, for example {@code new GenericType<List<Post>>() {}}
+     * @param merging The configs from which to construct this request
+     * @return The {@link HttpResponse} if everything is fine, else null
+     * @param <T> The required type of the response
+     * @throws IOException Thrown by HttpURLConnection methods
+     */
+    public <T> HttpResponse<T> get(String path, GenericType<T> responseType,
+                                   RequestConfig... merging) throws IOException {
+        return request(path, RequestMethod.GET, null, responseType, merging);
+    }
+
+    /**
+     * Same as {@link DefaultRestClient#post(String, Object, Class, RequestConfig...)} for a generic response type
+     * @param path The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param requestBody The body to send with this request, applicable to POST and PUT only
+     * @param responseType The type to parse the response as, for example {@code new GenericType<List<Post>>() {}}
+     * @param merging The configs from which to construct this request
+     * @return The {@link HttpResponse} if everything is fine, else null
+     * @param <T> The required type of the response
+     * @throws IOException Thrown by HttpURLConnection methods
+     */
+    public <T> HttpResponse<T> post(String path, Object requestBody, GenericType<T> responseType,
+                                    RequestConfig... merging) throws IOException {
+        return request(path, RequestMethod.POST, requestBody, responseType, merging);
+    }
+
+    /**
+     * Same as {@link DefaultRestClient#put(String, Object, Class, RequestConfig...)} for a generic response type
+     * @param path The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param requestBody The body to send with this request, applicable to POST and PUT only
+     * @param responseType The type to parse the response as, for example {@code new GenericType<List<Post>>() {}}
+     * @param merging The configs from which to construct this request
+     * @return The {@link HttpResponse} if everything is fine, else null
+     * @param <T> The required type of the response
+     * @throws IOException Thrown by HttpURLConnection methods
+     */
+    public <T> HttpResponse<T> put(String path, Object requestBody, GenericType<T> responseType,
+                                   RequestConfig... merging) throws IOException {
+        return request(path, RequestMethod.PUT, requestBody, responseType, merging);
+    }
+
+    /**
+     * Same as {@link DefaultRestClient#delete(String, Class, RequestConfig...)} for a generic response type
+     * @param path The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param responseType The type to parse the response as, for example {@code new GenericType<List<Post>>() {}}
+     * @param merging The configs from which to construct this request
+     * @return The {@link HttpResponse} if everything is fine, else null
+     * @param <T> The required type of the response
+     * @throws IOException Thrown by HttpURLConnection methods
+     */
+    public <T> HttpResponse<T> delete(String path, GenericType<T> responseType,
+                                      RequestConfig... merging) throws IOException {
+        return request(path, RequestMethod.DELETE, null, responseType, merging);
+    }
+
+    /**
+     * Same as {@link DefaultRestClient#request(String, RequestMethod, Object, Class, RequestConfig...)} for a generic
+     * response type
+     * @param path The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param method The request method for this request.
+     * @param requestBody The body to send with this request, applicable to POST and PUT only
+     * @param responseType The type to parse the response as, for example {@code new GenericType<List<Post>>() {}}
+     * @param merging The configs from which to construct this request
+     * @param <T> The required type of the response
+     * @return The {@link HttpResponse} if everything is fine, else null
+     * @throws IOException Thrown by HttpURLConnection methods
+     */
+    public <T> HttpResponse<T> request(String path, RequestMethod method, Object requestBody,
+                                       GenericType<T> responseType, RequestConfig... merging) throws IOException {
+        return request(path, requestBody, responseType, resolve(method, merging));
+    }
+
+    /**
+     * Sends a GET request and reads the response body lazily, see
+     * {@link DefaultRestClient#iterate(String, RequestMethod, Object, GenericType, RequestConfig...)}
+     * @param path The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param elementType The type to parse the elements of the response as
+     * @param merging The configs from which to construct this request
+     * @param <T> The type of the elements
+     * @return an iterator over the elements, it must be closed unless it is read to the end
+     * @throws IOException Thrown by HttpURLConnection methods
+     */
+    public <T> CloseableIterator<T> iterate(String path, Class<T> elementType,
+                                            RequestConfig... merging) throws IOException {
+        return iterate(path, RequestMethod.GET, null, GenericType.of(elementType), merging);
+    }
+
+    /**
+     * <p>
+     * Sends a request and reads the response body lazily as a sequence of elements with
+     * {@link ResponseTransformer#transformElements(InputStream, GenericType)}. The body is either a top-level JSON
+     * array or a sequence of JSON values such as newline-delimited JSON, only one element is held in memory at a time.
+     * </p>
+     *
+     * <p>
+     * The connection of the response stays in use until the iterator is read to the end or closed. Responses are not
+     * cached and requests are not coalesced.
+     * </p>
+     * @param path The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param method The request method for this request.
+     * @param requestBody The body to send with this request, applicable to POST and PUT only
+     * @param elementType The type to parse the elements of the response as
+     * @param merging The configs from which to construct this request
+     * @param <T> The type of the elements
+     * @return an iterator over the elements, empty if an interceptor canceled the request or response
+     * @throws IOException Thrown by HttpURLConnection methods
+     */
+    public <T> CloseableIterator<T> iterate(String path, RequestMethod method, Object requestBody,
+                                            GenericType<T> elementType, RequestConfig... merging) throws IOException {
+        return elements(request(path, method, requestBody, GenericType.of(InputStream.class), merging), elementType);
+    }
+
+    /**
+     * Same as {@link DefaultRestClient#iterate(String, Class, RequestConfig...)} as a {@link Stream}
+     * @param path The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param elementType The type to parse the elements of the response as
+     * @param merging The configs from which to construct this request
+     * @param <T> The type of the elements
+     * @return a sequential stream of the elements, closing it releases the connection
+     * @throws IOException Thrown by HttpURLConnection methods
+     */
+    public <T> Stream<T> stream(String path, Class<T> elementType, RequestConfig... merging) throws IOException {
+        return toStream(iterate(path, elementType, merging));
+    }
+
+    /**
+     * Same as {@link DefaultRestClient#iterate(String, RequestMethod, Object, GenericType, RequestConfig...)} as a
+     * {@link Stream}
+     * @param path The path of this request, full URL if no base URL is specified in the config or any of the overloads
+     * @param method The request method for this request.
+     * @param requestBody The body to send with this request, applicable to POST and PUT only
+     * @param elementType The type to parse the elements of the response as
+     * @param merging The configs from which to construct this request
+     * @param <T> The type of the elements
+     * @return a sequential stream of the elements, closing it releases the connection
+     * @throws IOException Thrown by HttpURLConnection methods
+     */
+    public <T> Stream<T> stream(String path, RequestMethod method, Object requestBody, GenericType<T> elementType,
+                                RequestConfig... merging) throws IOException {
+        return toStream(iterate(path, method, requestBody, elementType, merging));
+    }
+
+    /**
+     * Reads the unread body of a response as elements
+     *
+     * @param res         The response with the body as {@link InputStream}, may be null
+     * @param elementType The type of the elements
+     * @param <T>         The type of the elements
+     * @return the iterator over the elements
+     * @throws IOException Thrown when the start of the body can't be read
+     */
+    static <T> CloseableIterator<T> elements(HttpResponse<InputStream> res, GenericType<T> elementType)
+            throws IOException {
+        if (res == null || res.getBody() == null) {
+            return CloseableIterator.empty();
+        }
+
+        InputStream body = res.getBody();
+        try {
+            return res.getRequestConfig().getResponseTransformer().transformElements(body, elementType);
+        } catch (IOException | RuntimeException e) {
+            body.close();
+            throw e;
+        }
+    }
+
+    static <T> Stream<T> toStream(CloseableIterator<T> elements) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(elements,
+                Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(elements::close);
     }
 
 
     /**
      * <p>
      * Main method for creating any request. Converts the config into a url using {@link RequestConfig#getBaseURL()} and
-     * {@link RequestConfig#getParams()}. This url is then constructed into a HttpURLConnection using the Proxy defined in the
-     * config if it is present.
+     * {@link RequestConfig#getParams()}. This url is then opened as a HttpURLConnection by the
+     * {@link RequestConfig#getTransport()} of the config.
+     * </p>
+     *
+     * <p>
+     * With a {@link RequestConfig#getLoadBalancer()} the endpoint is picked for every attempt, while the cache and the
+     * request coalescer use the url built from the base URL of the config, so they are shared by all endpoints.
      * </p>
      *
      * <p>
@@ -290,13 +589,248 @@ public class DefaultRestClient implements RestClient {
      * @return The {@link HttpResponse} if everything is fine, else null
      * @throws IOException Thrown by HttpURLConnection methods
      */
-    private <T> HttpResponse<T> request(String path, Object requestBody, Class<T> responseType,
+    private <T> HttpResponse<T> request(String path, Object requestBody, GenericType<T> responseType,
                                         RequestConfig config) throws IOException {
-        String urlMerged = config.getBaseURL() + path + config.getParams().toURLPart();
-        URL url = new URL(urlMerged);
+        String logicalURL = mergeURL(path, config);
+        boolean streaming = isStreaming(responseType);
+        HttpCache cache = config.getHttpCache();
+        CacheEntry cached = cache == null || streaming ? null : cache.lookup(logicalURL, config);
+        if (cached != null && cache.canServe(cached, config)) {
+            return fromCache(cached, logicalURL, responseType, config);
+        }
 
-        HttpURLConnection connection = openWithProxyIfPresent(url, config.getProxy());
+        RequestCoalescer coalescer = config.getRequestCoalescer();
+        if (coalescer != null && !streaming && coalescer.canCoalesce(config)) {
+            String key = coalescer.key(logicalURL, responseType.getType(), config);
+            return coalescer.execute(key, () -> execute(path, logicalURL, requestBody, responseType, config, cached));
+        }
+
+        return execute(path, logicalURL, requestBody, responseType, config, cached);
+    }
+
+    private <T> HttpResponse<T> execute(String path, String logicalURL, Object requestBody,
+                                        GenericType<T> responseType, RequestConfig config,
+                                        CacheEntry cached) throws IOException {
+        RetryPolicy retryPolicy = config.getRetryPolicy();
+        if (retryPolicy == null) {
+            return attempt(path, logicalURL, requestBody, responseType, config, cached);
+        }
+
+        return retryPolicy.execute(config,
+                () -> attempt(path, logicalURL, requestBody, responseType, config, cached));
+    }
+
+    /**
+     * Sends a single attempt of a request to the endpoint picked by the load balancer for this attempt
+     */
+    private <T> HttpResponse<T> attempt(String path, String logicalURL, Object requestBody,
+                                        GenericType<T> responseType, RequestConfig resolved,
+                                        CacheEntry cached) throws IOException {
+        RequestConfig config = balance(resolved);
+        String urlMerged = mergeURL(path, config);
+        return exchange(new URL(urlMerged), urlMerged, logicalURL, requestBody, responseType, config, cached);
+    }
+
+    private <T> HttpResponse<T> exchange(URL url, String urlMerged, String logicalURL, Object requestBody,
+                                         GenericType<T> responseType, RequestConfig config,
+                                         CacheEntry cached) throws IOException {
+        List<RequestGuard> guards = guards(config);
+        if (guards.isEmpty()) {
+            return send(url, urlMerged, logicalURL, requestBody, responseType, config, cached);
+        }
+
+        List<RequestGuard.Permit> permits = new ArrayList<>(guards.size());
+        try {
+            for (RequestGuard guard : guards) {
+                permits.add(guard.acquire(url, config));
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            release(permits);
+            throw e;
+        }
+
+        try {
+            HttpResponse<T> res = send(url, urlMerged, logicalURL, requestBody, responseType, config, cached);
+            complete(permits, res, null);
+            return res;
+        } catch (IOException | RuntimeException | Error e) {
+            complete(permits, null, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Get the guards of a request in the order their permits are acquired
+     *
+     * @param config The config of the request
+     * @return the guards configured in the config
+     */
+    static List<RequestGuard> guards(RequestConfig config) {
+        List<RequestGuard> guards = new ArrayList<>(5);
+        if (config.getRateLimiter() != null) {
+            guards.add(config.getRateLimiter());
+        }
+        if (config.getBulkhead() != null) {
+            guards.add(config.getBulkhead());
+        }
+        if (config.getConcurrencyLimiter() != null) {
+            guards.add(config.getConcurrencyLimiter());
+        }
+        if (config.getCircuitBreaker() != null) {
+            guards.add(config.getCircuitBreaker());
+        }
+        if (config.getLoadBalancer() != null) {
+            guards.add(config.getLoadBalancer());
+        }
+
+        return guards;
+    }
+
+    static void complete(List<RequestGuard.Permit> permits, HttpResponse<?> response, Throwable failure) {
+        for (RequestGuard.Permit permit : permits) {
+            permit.complete(response, failure);
+        }
+    }
+
+    static void release(List<RequestGuard.Permit> permits) {
+        for (RequestGuard.Permit permit : permits) {
+            permit.release();
+        }
+    }
+
+    private <T> HttpResponse<T> send(URL url, String urlMerged, String logicalURL, Object requestBody,
+                                     GenericType<T> responseType, RequestConfig config,
+                                     CacheEntry cached) throws IOException {
+        HttpCache cache = config.getHttpCache();
+        ConnectionPool.Lease lease = config.getConnectionPool().acquire(url, config.getTimeout());
+        boolean released = true;
+        try {
+            HttpURLConnection connection = prepare(url, urlMerged, requestBody, config);
+            if (connection == null) {
+                return null;
+            }
+
+            if (cached != null) {
+                cache.addConditions(connection, cached);
+            }
+
+            HttpResponse<T> res = complete(connection, urlMerged, logicalURL, responseType, config, cached);
+            released = !releaseOnClose(res, lease);
+            return res;
+        } finally {
+            if (released) {
+                lease.release();
+            }
+        }
+    }
+
+    /**
+     * Keeps the connection of a response with an unread body leased until the body is closed
+     *
+     * @param res   The response
+     * @param lease The lease of the connection of the response
+     * @return whether the lease is released by the body
+     */
+    static boolean releaseOnClose(HttpResponse<?> res, ConnectionPool.Lease lease) {
+        if (res == null || !(res.getBody() instanceof ResponseInputStream)) {
+            return false;
+        }
+
+        ((ResponseInputStream) res.getBody()).onClose(lease::release);
+        return true;
+    }
+
+    /**
+     * Whether the body of a response is handed to the caller unread
+     *
+     * @param responseType The type to parse the response as
+     * @return whether the type is {@link InputStream}
+     */
+    static boolean isStreaming(GenericType<?> responseType) {
+        return responseType.getType() == InputStream.class;
+    }
+
+    /**
+     * Merges the config of this client with the request method and the overloads
+     *
+     * @param method  The request method for this request
+     * @param merging The configs from which to construct this request
+     * @return the merged config
+     */
+    RequestConfig resolve(RequestMethod method, RequestConfig... merging) {
+        return methodConfigs.get(method).merge(merging);
+    }
+
+    /**
+     * Appends a config to the overloads that adds headers to the request headers of this client and the overloads,
+     * which would otherwise be replaced. Supplied headers are still evaluated per request.
+     *
+     * @param method  The request method for this request
+     * @param merging The configs from which to construct this request
+     * @param extra   The headers to add, they replace headers with the same name
+     * @return the overloads followed by the config with the merged headers
+     */
+    RequestConfig[] withHeaders(RequestMethod method, RequestConfig[] merging, Headers extra) {
+        Headers merged = resolve(method, merging).getRequestHeaders();
+        Headers headers = new Headers();
+        for (String key : merged.headerKeys()) {
+            headers.setHeader(key, merged.getHeader(key)::getValue);
+        }
+
+        for (String key : extra.headerKeys()) {
+            headers.setHeader(key, extra.getHeader(key)::getValue);
+        }
+
+        RequestConfig[] configs = Arrays.copyOf(merging, merging.length + 1);
+        configs[merging.length] = headers.toConfig();
+        return configs;
+    }
+
+    /**
+     * Picks the base URL of an attempt of a request from the {@link RequestConfig#getLoadBalancer()} of its config.
+     * Every attempt is balanced on its own, so retries and hedges can go to another endpoint.
+     *
+     * @param config The config specifying the request
+     * @return the config with the base URL of the picked endpoint, the same config without a load balancer
+     */
+    RequestConfig balance(RequestConfig config) {
+        LoadBalancer loadBalancer = config.getLoadBalancer();
+        if (loadBalancer == null) {
+            return config;
+        }
+
+        return config.merge(new RequestConfig().setBaseURL(loadBalancer.choose().getBaseURL()));
+    }
+
+    /**
+     * Constructs the complete url for a request
+     *
+     * @param path   The path of this request
+     * @param config The config specifying the request
+     * @return the url including the base, the path and the params
+     */
+    String mergeURL(String path, RequestConfig config) {
+        return config.getBaseURL() + path + config.getParams().toURLPart();
+    }
+
+    /**
+     * Opens the connection for a request, applies the config, calls the request interceptors and writes the
+     * request body. Depending on the transport the request may not have been sent yet.
+     *
+     * @param url         The url of this request
+     * @param urlMerged   The complete url of this request as passed to the request interceptors
+     * @param requestBody The body to send with this request, applicable to POST and PUT only
+     * @param config      The config specifying the request
+     * @return The prepared connection, null if a request interceptor canceled the request
+     * @throws IOException Thrown by HttpURLConnection methods
+     */
+    HttpURLConnection prepare(URL url, String urlMerged, Object requestBody, RequestConfig config) throws IOException {
+        HttpURLConnection connection = config.getTransport().open(url, config);
         applyConfig(connection, config);
+        if (requestBody instanceof MultipartBody && config.isOutputting()) {
+            connection.setRequestProperty(HeaderNames.CONTENT_TYPE, ((MultipartBody) requestBody).getContentType());
+        }
+
         if (!beforeRequest(config, urlMerged, connection)) {
             connection.disconnect();
             return null;
@@ -306,13 +840,40 @@ public class DefaultRestClient implements RestClient {
             writeToConnection(connection, requestBody, config);
         }
 
+        return connection;
+    }
+
+    /**
+     * Reads the response of a prepared connection, handles erroneous status codes and calls the response
+     * interceptors. Responses are stored in and revalidated against the {@link RequestConfig#getHttpCache()}.
+     *
+     * @param connection   The connection returned by {@link #prepare(URL, String, Object, RequestConfig)}
+     * @param urlMerged    The complete url of this request
+     * @param logicalURL   The url of this request before load balancing, identifying it in the cache
+     * @param responseType The type to parse the response as
+     * @param config       The config specifying the request
+     * @param cached       The stale cache entry the request revalidates, null if there is none
+     * @param <T>          The required type of the response
+     * @return The {@link HttpResponse} if everything is fine, else null
+     * @throws IOException Thrown by HttpURLConnection methods
+     */
+    <T> HttpResponse<T> complete(HttpURLConnection connection, String urlMerged, String logicalURL,
+                                 GenericType<T> responseType, RequestConfig config,
+                                 CacheEntry cached) throws IOException {
         Headers responseHeaders = new Headers(connection.getHeaderFields());
-        if (connection.getResponseCode() > LAST_SUCCESSFUL_RESPONSE
-                && !config.getIgnoreStatusCode().test(connection.getResponseCode())) {
-            PrimitiveBody body = new PrimitiveBody(connection.getErrorStream());
+        int responseCode = connection.getResponseCode();
+        HttpCache cache = config.getHttpCache();
+        if (cache != null && cached != null && responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            drain(connection.getInputStream());
+            return fromCache(cache.revalidate(cached, connection.getHeaderFields()), urlMerged, responseType, config);
+        }
+
+        if (responseCode > LAST_SUCCESSFUL_RESPONSE && !config.getIgnoreStatusCode().test(responseCode)) {
+            PrimitiveBody body = new PrimitiveBody(decode(connection.getErrorStream(), responseHeaders, config),
+                    responseHeaders);
             HttpResponse<String> errorResponse = new HttpResponse<>(
                     body.getAsString(), responseHeaders,
-                    connection.getResponseCode(), connection.getResponseMessage(),
+                    responseCode, connection.getResponseMessage(),
                     config, urlMerged
             );
 
@@ -320,10 +881,89 @@ public class DefaultRestClient implements RestClient {
             return null;
         }
 
-        T body = transform(connection.getInputStream(), responseType, config);
+        if (cache != null && config.getMethod() == RequestMethod.GET) {
+            if (!isStreaming(responseType) && cache.isCacheable(responseCode, responseHeaders)) {
+                byte[] bytes;
+                InputStream input = decode(connection.getInputStream(), responseHeaders, config);
+                try {
+                    bytes = input.readAllBytes();
+                } finally {
+                    drain(input);
+                }
+
+                CacheEntry entry = cache.store(logicalURL, config, responseCode, connection.getResponseMessage(),
+                        connection.getHeaderFields(), bytes);
+                return fromCache(entry, urlMerged, responseType, config);
+            }
+        } else if (cache != null && config.getMethod() != RequestMethod.HEAD) {
+            cache.invalidate(logicalURL);
+        }
+
+        T body;
+        InputStream input = decode(connection.getInputStream(), responseHeaders, config);
+        if (isStreaming(responseType)) {
+            body = open(input, connection);
+        } else {
+            try {
+                body = transform(input, responseType, responseHeaders, config);
+            } finally {
+                drain(input);
+            }
+        }
+
+        HttpResponse<T> res = new HttpResponse<>(
+                body, responseHeaders,
+                responseCode, connection.getResponseMessage(),
+                config, urlMerged
+        );
+        if (!beforeResponse(res)) {
+            if (body instanceof ResponseInputStream) {
+                ((ResponseInputStream) body).close();
+            }
+
+            return null;
+        }
+
+        return res;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T open(InputStream input, HttpURLConnection connection) {
+        return (T) new ResponseInputStream(input == null ? InputStream.nullInputStream() : input, this::drain,
+                connection::disconnect);
+    }
+
+    /**
+     * Creates the response of a request from a cache entry, the body is transformed only once per response type
+     *
+     * @param entry        The cache entry
+     * @param urlMerged    The complete url of this request
+     * @param responseType The type to parse the response as
+     * @param config       The config specifying the request
+     * @param <T>          The required type of the response
+     * @return The {@link HttpResponse}, null if a response interceptor canceled it
+     * @throws IOException Thrown when the body can't be transformed
+     */
+    @SuppressWarnings("unchecked")
+    <T> HttpResponse<T> fromCache(CacheEntry entry, String urlMerged, GenericType<T> responseType,
+                                  RequestConfig config) throws IOException {
+        Headers responseHeaders = new Headers(entry.getHeaders());
+        T body;
+        try {
+            body = (T) entry.getDecoded(responseType.getType(), bytes -> {
+                try {
+                    return transform(new ByteArrayInputStream(bytes), responseType, responseHeaders, config);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
         HttpResponse<T> res = new HttpResponse<>(
                 body, responseHeaders,
-                connection.getResponseCode(), connection.getResponseMessage(),
+                entry.getResponseCode(), entry.getResponseMessage(),
                 config, urlMerged
         );
         if (!beforeResponse(res)) {
@@ -333,20 +973,109 @@ public class DefaultRestClient implements RestClient {
         return res;
     }
 
+    /**
+     * Reads what is left of a response body and closes the stream, a connection is only reused for other requests
+     * once its response has been consumed completely.
+     *
+     * @param input The response stream
+     */
+    private void drain(InputStream input) {
+        if (input == null) {
+            return;
+        }
+
+        try (input) {
+            byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+            int drained = 0;
+            int read;
+            while (drained < MAX_DRAIN && (read = input.read(buffer)) != -1) {
+                drained += read;
+            }
+        } catch (IOException ignore) {
+            // The connection won't be reused, nothing else to clean up.
+        }
+    }
+
     private void writeToConnection(HttpURLConnection connection, Object requestBody, RequestConfig config) throws IOException {
-        String mapped = config.getRequestTransformer().transform(requestBody, config.getRequestHeaders())
-                .toString();
-        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream()))) {
-            writer.write(mapped);
+        if (requestBody instanceof MultipartBody) {
+            MultipartBody multipart = (MultipartBody) requestBody;
+            // Buffering is what multipart bodies avoid, so they are streamed even if the config buffers bodies
+            int chunkSize = config.getStreamingChunkSize() > 0
+                    ? config.getStreamingChunkSize()
+                    : MultipartBody.DEFAULT_CHUNK_SIZE;
+            try (OutputStream output = openOutput(connection, config, chunkSize, multipart.getContentLength())) {
+                multipart.writeTo(output);
+            }
+            return;
+        }
+
+        Headers headers = config.getRequestHeaders();
+        RequestTransformer transformer = config.getRequestTransformer();
+        if (transformer instanceof StreamingRequestTransformer) {
+            StreamingRequestTransformer streaming = (StreamingRequestTransformer) transformer;
+            long length = streaming.getContentLength(requestBody, headers);
+            try (OutputStream output = openOutput(connection, config, config.getStreamingChunkSize(), length)) {
+                streaming.transform(requestBody, headers, output);
+            }
+            return;
+        }
+
+        byte[] mapped = transformer.transform(requestBody, headers).toString()
+                .getBytes(headers.getContentCharset());
+        try (OutputStream output = openOutput(connection, config, config.getStreamingChunkSize(), mapped.length)) {
+            output.write(mapped);
         }
     }
 
-    private HttpURLConnection openWithProxyIfPresent(URL url, Proxy proxy) throws IOException {
-        if (proxy == null) {
-            return (HttpURLConnection) url.openConnection();
-        } else {
-            return (HttpURLConnection) url.openConnection(proxy);
+    private static OutputStream openOutput(HttpURLConnection connection, RequestConfig config, int chunkSize,
+                                           long length) throws IOException {
+        if (config.getCompressionThreshold() > 0) {
+            return new CompressingOutputStream(connection, chunkSize, length, config.getCompressionThreshold());
         }
+
+        return openOutput(connection, chunkSize, length);
+    }
+
+    /**
+     * Opens the output of a connection, in streaming mode if a chunk size is passed
+     *
+     * @param connection The connection to write the request body to
+     * @param chunkSize  The chunk size to stream the body with, zero to let the transport buffer the body
+     * @param length     The length of the body if known up front, else -1
+     * @return the output stream of the connection
+     * @throws IOException Thrown by HttpURLConnection methods
+     */
+    static OutputStream openOutput(HttpURLConnection connection, int chunkSize, long length) throws IOException {
+        if (chunkSize > 0) {
+            if (length >= 0) {
+                connection.setFixedLengthStreamingMode(length);
+            } else {
+                connection.setChunkedStreamingMode(chunkSize);
+            }
+        }
+
+        return connection.getOutputStream();
+    }
+
+    /**
+     * Wraps a response stream to decode it according to its Content-Encoding, if enabled in the config
+     *
+     * @param input           The response stream, may be null
+     * @param responseHeaders The response headers
+     * @param config          The config specifying the request
+     * @return the decoded stream, the compression header is only read once the body is read
+     */
+    private static InputStream decode(InputStream input, Headers responseHeaders, RequestConfig config) {
+        if (input == null || !config.isDecompressingResponses()) {
+            return input;
+        }
+
+        String encoding = responseHeaders.getContentEncoding().trim().toLowerCase(Locale.ROOT);
+        if (!GZIP_ENCODINGS.contains(encoding) && !encoding.equals(DEFLATE_ENCODING)) {
+            return input;
+        }
+
+        return new DecodingInputStream(input, GZIP_ENCODINGS.contains(encoding), DRAIN_BUFFER_SIZE);
     }
 
     private boolean beforeResponse(HttpResponse<?> res) {
@@ -384,21 +1113,29 @@ public class DefaultRestClient implements RestClient {
             connection.setRequestProperty(key, config.getRequestHeaders().getSafeValue(key));
         }
 
+        if (config.isDecompressingResponses()
+                && config.getRequestHeaders().getHeader(HeaderNames.ACCEPT_ENCODING) == null) {
+            connection.setRequestProperty(HeaderNames.ACCEPT_ENCODING, ACCEPTED_ENCODINGS);
+        }
+
         connection.setUseCaches(config.isUsingCaches());
         config.getConnectionConsumer().accept(connection);
     }
 
-    private <T> T transform(InputStream input, Class<T> responseType, RequestConfig config) throws IOException {
+    @SuppressWarnings("unchecked")
+    private <T> T transform(InputStream input, GenericType<T> responseType, Headers responseHeaders,
+                            RequestConfig config) throws IOException {
         if (config.getMethod() == RequestMethod.HEAD) {
             return null;
         }
 
-        if (responseType == PrimitiveBody.class || PRIMITIVE_CLASSES.contains(responseType)) {
-            PrimitiveBody body = new PrimitiveBody(input);
-            if (responseType == PrimitiveBody.class) {
-                return responseType.cast(body);
+        Type type = responseType.getType();
+        if (type == PrimitiveBody.class || PRIMITIVE_CLASSES.contains(type)) {
+            PrimitiveBody body = new PrimitiveBody(input, responseHeaders);
+            if (type == PrimitiveBody.class) {
+                return (T) body;
             } else {
-                return body.getAs(responseType);
+                return body.getAs((Class<T>) type);
             }
         }
 
@@ -0,0 +1,169 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.client;
+
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.response.CloseableIterator;
+import dev.yasper.rump.sse.EventListener;
+import dev.yasper.rump.sse.ServerSentEvent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+
+/**
+ * <p>
+ * Client for Server-Sent Events, {@code text/event-stream} endpoints that push events over a single long-lived
+ * response. Requests are made by the backing {@link DefaultRestClient} and use its config: base URL, headers,
+ * interceptors, authenticator, connection pool and request guards all apply to every (re)connect.
+ * </p>
+ *
+ * <p>
+ * Events are parsed as they arrive and are received by iterating an {@link EventStream}, by an {@link EventListener}
+ * or by subscribing to a {@link Flow.Publisher} that only reads events as they are requested. Streams reconnect after
+ * the retry delay when the connection ends and send the id of the last event as Last-Event-ID. Consecutive failed
+ * reconnects back off exponentially up to the maximum retry delay. Since a stream may be idle between events, the read
+ * timeout of the config should be zero or longer than the interval of the heartbeats the server sends.
+ * </p>
+ */
+public class EventSourceClient {
+
+    private final DefaultRestClient backing;
+    private final ExecutorService executor;
+
+    private volatile long retryDelay = 3000;
+    private volatile long maxRetryDelay = 30_000;
+    private volatile int maxReconnects = -1;
+
+    /**
+     * Constructor for EventSourceClient
+     *
+     * @param backing  The backing default (sync) rest client that makes the requests
+     * @param executor The executor that reads the events of subscriptions and publishers, every open subscription
+     *                 occupies a thread while it waits for events
+     */
+    public EventSourceClient(DefaultRestClient backing, ExecutorService executor) {
+        this.backing = backing;
+        this.executor = executor;
+    }
+
+    /**
+     * Open an event stream to be iterated on the calling thread, it connects when it is first iterated
+     *
+     * @param path    The path of the event stream, full URL if no base URL is specified in the config or any of the
+     *                overloads
+     * @param merging The configs to overload the requests with
+     * @return the stream, it must be closed unless it ended
+     */
+    public EventStream open(String path, RequestConfig... merging) {
+        return new EventStream(backing, executor, path, merging, retryDelay, maxRetryDelay, maxReconnects);
+    }
+
+    /**
+     * Subscribe a listener to an event stream, the events are read and dispatched on the executor
+     *
+     * @param path     The path of the event stream, full URL if no base URL is specified in the config or any of the
+     *                 overloads
+     * @param listener The listener that receives the events
+     * @param merging  The configs to overload the requests with
+     * @return the stream of the subscription, closing it ends the subscription
+     */
+    public EventStream subscribe(String path, EventListener listener, RequestConfig... merging) {
+        EventStream stream = open(path, merging);
+        executor.execute(() -> {
+            try {
+                while (stream.hasNext()) {
+                    listener.onEvent(stream.next());
+                }
+            } catch (RuntimeException e) {
+                stream.close();
+                listener.onError(e);
+                return;
+            }
+
+            listener.onClosed();
+        });
+
+        return stream;
+    }
+
+    /**
+     * Publish the events of an event stream, every subscriber gets its own stream that connects once it first
+     * signals demand. Events are only read as far as the subscriber requested them, cancelling closes the stream.
+     *
+     * @param path    The path of the event stream, full URL if no base URL is specified in the config or any of the
+     *                overloads
+     * @param merging The configs to overload the requests with
+     * @return the publisher
+     */
+    public Flow.Publisher<ServerSentEvent> publish(String path, RequestConfig... merging) {
+        return new IteratorPublisher<>(
+                () -> CompletableFuture.<CloseableIterator<ServerSentEvent>>completedFuture(open(path, merging)),
+                executor, true);
+    }
+
+    public DefaultRestClient getBacking() {
+        return backing;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    public long getRetryDelay() {
+        return retryDelay;
+    }
+
+    /**
+     * @param retryDelay The time in milliseconds to wait before reconnecting, until the server sets it with a retry
+     *                   field
+     * @return this {@link EventSourceClient} instance to be used for setter chaining
+     */
+    public EventSourceClient setRetryDelay(long retryDelay) {
+        this.retryDelay = retryDelay;
+        return this;
+    }
+
+    public long getMaxRetryDelay() {
+        return maxRetryDelay;
+    }
+
+    /**
+     * @param maxRetryDelay The maximum time in milliseconds to wait before reconnecting while reconnects keep failing
+     * @return this {@link EventSourceClient} instance to be used for setter chaining
+     */
+    public EventSourceClient setMaxRetryDelay(long maxRetryDelay) {
+        this.maxRetryDelay = maxRetryDelay;
+        return this;
+    }
+
+    public int getMaxReconnects() {
+        return maxReconnects;
+    }
+
+    /**
+     * @param maxReconnects The number of consecutive failed reconnects after which a stream fails, -1 to keep
+     *                      reconnecting
+     * @return this {@link EventSourceClient} instance to be used for setter chaining
+     */
+    public EventSourceClient setMaxReconnects(int maxReconnects) {
+        this.maxReconnects = maxReconnects;
+        return this;
+    }
+}
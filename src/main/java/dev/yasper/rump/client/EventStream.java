@@ -0,0 +1,331 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.client;
+
+import dev.yasper.rump.HeaderNames;
+import dev.yasper.rump.Headers;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.request.RequestMethod;
+import dev.yasper.rump.response.CloseableIterator;
+import dev.yasper.rump.response.GenericType;
+import dev.yasper.rump.response.HttpResponse;
+import dev.yasper.rump.sse.EventReader;
+import dev.yasper.rump.sse.ServerSentEvent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * <p>
+ * The events of a {@code text/event-stream} endpoint, see {@link EventSourceClient}. The stream connects when it is
+ * first iterated and reconnects whenever the connection ends or fails, sending the id of the last event received as
+ * Last-Event-ID so the server can continue where it left off.
+ * </p>
+ *
+ * <p>
+ * Iterating ends when the stream is closed or the server responds with 204 No Content. It throws the
+ * {@link dev.yasper.rump.exception.HttpStatusCodeException} of an error response, an {@link UncheckedIOException} when
+ * the response is not an event stream or reconnecting failed the maximum number of times in a row.
+ * </p>
+ *
+ * <p>
+ * Closing the stream drops its connection. A thread blocked reading from a connection of the
+ * {@link dev.yasper.rump.transport.URLConnectionTransport} can't be woken up though, with that transport the stream
+ * stops once the next bytes, such as a heartbeat, arrive or the read timeout passes.
+ * </p>
+ */
+public final class EventStream implements CloseableIterator<ServerSentEvent> {
+
+    private static final String EVENT_STREAM = "text/event-stream";
+    private static final GenericType<InputStream> BODY_TYPE = GenericType.of(InputStream.class);
+
+    private final DefaultRestClient client;
+    private final Executor executor;
+    private final String path;
+    private final RequestConfig[] merging;
+    private final long maxRetryDelay;
+    private final int maxReconnects;
+    private final Object lock = new Object();
+    private volatile long retryDelay;
+    private volatile String lastEventId = "";
+    private volatile InputStream body = null;
+    private volatile boolean closed = false;
+    private volatile boolean reading = false;
+    private EventReader reader = null;
+    private ServerSentEvent next = null;
+    private int failures = 0;
+    private volatile long reconnects = 0;
+
+    EventStream(DefaultRestClient client, Executor executor, String path, RequestConfig[] merging, long retryDelay,
+                long maxRetryDelay, int maxReconnects) {
+        this.client = client;
+        this.executor = executor;
+        this.path = path;
+        this.merging = merging;
+        this.retryDelay = retryDelay;
+        this.maxRetryDelay = maxRetryDelay;
+        this.maxReconnects = maxReconnects;
+    }
+
+    /**
+     * Blocks until the next event arrives, connecting and reconnecting as needed
+     *
+     * @return whether an event arrived, false once the stream is closed
+     */
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+
+        while (!closed) {
+            try {
+                if (reader == null && !connect()) {
+                    close();
+                    return false;
+                }
+
+                ServerSentEvent event = read();
+                if (closed) {
+                    break;
+                }
+
+                update();
+                if (event != null) {
+                    next = event;
+                    return true;
+                }
+
+                // The server ended the response, connections are expected to be reopened
+                disconnect(false);
+            } catch (ProtocolException e) {
+                close();
+                throw new UncheckedIOException(e);
+            } catch (IOException e) {
+                disconnect(true);
+                if (closed) {
+                    break;
+                }
+
+                if (maxReconnects >= 0 && failures++ >= maxReconnects) {
+                    close();
+                    throw new UncheckedIOException(e);
+                }
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+
+            pause(delay());
+            reconnects++;
+        }
+
+        disconnect(true);
+        return false;
+    }
+
+    private ServerSentEvent read() throws IOException {
+        reading = true;
+        try {
+            // Checked after flagging the read, so either this thread sees the close or close() sees the read
+            return closed ? null : reader.read();
+        } finally {
+            reading = false;
+        }
+    }
+
+    @Override
+    public ServerSentEvent next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        ServerSentEvent event = next;
+        next = null;
+        return event;
+    }
+
+    private boolean connect() throws IOException {
+        RequestConfig[] configs = client.withHeaders(RequestMethod.GET, merging, headers());
+        HttpResponse<InputStream> res = client.request(path, RequestMethod.GET, null, BODY_TYPE, configs);
+        if (res == null) {
+            // An interceptor canceled the request or response
+            return false;
+        }
+
+        InputStream input = res.getBody();
+        body = input;
+        if (closed) {
+            abort(input);
+            return false;
+        }
+
+        if (res.getResponseCode() == HttpURLConnection.HTTP_NO_CONTENT) {
+            input.close();
+            return false;
+        }
+
+        String contentType = res.getResponseHeaders().getContentType();
+        if (!contentType.toLowerCase(Locale.ROOT).startsWith(EVENT_STREAM)) {
+            abort(input);
+            throw new ProtocolException("Expected an event stream from " + res.getUrl() + " but got '"
+                    + contentType + "'");
+        }
+
+        reader = new EventReader(input, lastEventId);
+        failures = 0;
+        return true;
+    }
+
+    private Headers headers() {
+        Headers headers = new Headers()
+                .setAccept(EVENT_STREAM)
+                .setCacheControl("no-cache");
+        if (!lastEventId.isEmpty()) {
+            headers.setHeader(HeaderNames.LAST_EVENT_ID, lastEventId);
+        }
+
+        return headers;
+    }
+
+    private void update() {
+        lastEventId = reader.getLastEventId();
+        if (reader.getRetry() >= 0) {
+            retryDelay = reader.getRetry();
+        }
+    }
+
+    private long delay() {
+        if (failures == 0) {
+            return retryDelay;
+        }
+
+        // Back off exponentially while the server can't be reached
+        long delay = retryDelay << Math.min(failures - 1, 16);
+        return delay < 0 ? maxRetryDelay : Math.min(delay, Math.max(maxRetryDelay, retryDelay));
+    }
+
+    private void pause(long millis) {
+        long deadline = System.nanoTime() + millis * 1_000_000;
+        synchronized (lock) {
+            try {
+                long remaining = millis;
+                while (!closed && remaining > 0) {
+                    lock.wait(remaining);
+                    remaining = (deadline - System.nanoTime()) / 1_000_000;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                closed = true;
+            }
+        }
+    }
+
+    private void disconnect(boolean failed) {
+        reader = null;
+        InputStream input = body;
+        body = null;
+        if (input == null) {
+            return;
+        }
+
+        if (failed) {
+            abort(input);
+            return;
+        }
+
+        try {
+            input.close();
+        } catch (IOException ignore) {
+            // Reconnecting with a new connection either way.
+        }
+    }
+
+    private static void abort(InputStream input) {
+        if (input instanceof ResponseInputStream) {
+            ((ResponseInputStream) input).abort();
+            return;
+        }
+
+        try {
+            input.close();
+        } catch (IOException ignore) {
+            // The connection is being discarded, nothing left to clean up.
+        }
+    }
+
+    /**
+     * @return the id of the last event received, sent as Last-Event-ID when reconnecting, empty if there is none
+     */
+    public String getLastEventId() {
+        return lastEventId;
+    }
+
+    /**
+     * @return the time in milliseconds to wait before reconnecting, the server can change it with a retry field
+     */
+    public long getRetryDelay() {
+        return retryDelay;
+    }
+
+    /**
+     * @return the number of times the stream reconnected
+     */
+    public long getReconnects() {
+        return reconnects;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes the stream and its connection, can be called from any thread to stop a thread blocked waiting for events
+     */
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+
+        InputStream input = body;
+        if (input == null) {
+            return;
+        }
+
+        if (reading) {
+            // Dropping the connection may wait for the blocked read, the reading thread drops it too once it wakes up
+            try {
+                executor.execute(() -> abort(input));
+            } catch (RejectedExecutionException ignore) {
+                // Left to the reading thread.
+            }
+        } else {
+            abort(input);
+        }
+    }
+}
@@ -0,0 +1,757 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.client;
+
+import dev.yasper.rump.Headers;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.download.Download;
+import dev.yasper.rump.download.DownloadResult;
+import dev.yasper.rump.download.ProgressListener;
+import dev.yasper.rump.exception.ChecksumMismatchException;
+import dev.yasper.rump.exception.HttpStatusCodeException;
+import dev.yasper.rump.request.RequestMethod;
+import dev.yasper.rump.response.GenericType;
+import dev.yasper.rump.response.HttpResponse;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Downloads files straight to disk. The response body is copied to a {@link FileChannel} through a fixed direct buffer
+ * so the size of a file doesn't affect the heap, see {@link Download} for the options of a download. Requests are made
+ * by the backing {@link DefaultRestClient} and use its config.
+ * </p>
+ *
+ * <p>
+ * Bytes are written to a partial file that is moved to the target once complete. When the transfer fails, for example
+ * on a read timeout, it is resumed from the end of the partial file with a Range request. The ETag or Last-Modified
+ * date of the file is kept next to the partial file and sent as If-Range, so a file that changed on the server is
+ * downloaded from the start instead of being stitched together. A partial file left by an earlier call is resumed the
+ * same way.
+ * </p>
+ *
+ * <p>
+ * A downloader with an executor can split a download into segments, see {@link Download#setSegments(int)}. A HEAD
+ * request tells the size of the file and whether the server serves byte ranges, after which the segments are requested
+ * concurrently by an {@link AsyncRestClient} and written at their offsets into a partial file of the full size. Each
+ * segment is resumed on its own when it fails. Servers that don't advertise byte ranges, a size and a strong validator
+ * get a single stream instead.
+ * </p>
+ */
+public class FileDownloader {
+
+    private static final String VALIDATOR_SUFFIX = ".if-range";
+    private static final String IDENTITY_ENCODING = "identity";
+    private static final String WEAK_ETAG_PREFIX = "W/";
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes\\s+(?:(\\d+)-\\d+|\\*)/(\\d+|\\*)");
+    private static final GenericType<InputStream> BODY_TYPE = GenericType.of(InputStream.class);
+
+    private static final String BYTES_UNIT = "bytes";
+
+    private final DefaultRestClient backing;
+    private final AsyncRestClient async;
+    private final ExecutorService executor;
+
+    private volatile int bufferSize = 64 * 1024;
+    private volatile int maxResumes = 3;
+    private volatile long minSegmentSize = 4 * 1024 * 1024;
+
+    /**
+     * Constructor for FileDownloader, downloads are never split into segments
+     *
+     * @param backing The backing default (sync) rest client that makes the requests
+     */
+    public FileDownloader(DefaultRestClient backing) {
+        this(backing, null);
+    }
+
+    /**
+     * Constructor for FileDownloader
+     *
+     * @param backing  The backing default (sync) rest client that makes the requests
+     * @param executor The executor the segments of a download are copied to disk on, it should have a thread for
+     *                 every segment to transfer them concurrently
+     */
+    public FileDownloader(DefaultRestClient backing, ExecutorService executor) {
+        this.backing = backing;
+        this.executor = executor;
+        this.async = executor == null ? null : new AsyncRestClient(backing, executor);
+    }
+
+    /**
+     * Calls {@link FileDownloader#download(Download)} with the default options
+     *
+     * @param path    The path of the file, full URL if no base URL is specified in the config or any of the overloads
+     * @param target  The file to download to, it is replaced once the download completes
+     * @param merging The configs to overload the requests with
+     * @return the result, null if an interceptor canceled the request or response
+     * @throws IOException Thrown when the download failed more often in a row than it may be resumed
+     */
+    public DownloadResult download(String path, Path target, RequestConfig... merging) throws IOException {
+        return download(new Download(path, target).setConfigs(merging));
+    }
+
+    /**
+     * Download a file, blocks until it is complete
+     *
+     * @param download The file to download and the options of the download
+     * @return the result, null if an interceptor canceled the request or response
+     * @throws IOException Thrown when the download failed more often in a row than it may be resumed, or a
+     *                     {@link ChecksumMismatchException} when the file doesn't have the expected digest
+     */
+    public DownloadResult download(Download download) throws IOException {
+        if (download.getSegments() > 1 && async != null) {
+            HttpResponse<Void> head;
+            try {
+                head = backing.head(download.getPath(), configs(RequestMethod.HEAD, download,
+                        new Headers().setAcceptEncoding(IDENTITY_ENCODING)));
+                if (head == null) {
+                    return null;
+                }
+            } catch (HttpStatusCodeException e) {
+                // Not every server allows HEAD, the file is downloaded in a single stream instead
+                head = null;
+            }
+
+            int segments = head == null ? 1 : segments(download, head.getResponseHeaders());
+            if (segments > 1) {
+                return downloadSegments(download, head.getResponseHeaders(), segments);
+            }
+        }
+
+        Path partial = download.getPartialFile();
+        if (!download.isResuming()) {
+            discard(partial);
+        }
+
+        Transfer transfer = new Transfer(download, digest(download), ByteBuffer.allocateDirect(bufferSize));
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            int failures = 0;
+            while (true) {
+                long before = channel.size();
+                try {
+                    if (!attempt(transfer, channel)) {
+                        return null;
+                    }
+
+                    break;
+                } catch (IOException e) {
+                    // Only failures in a row that didn't add to the file count towards the maximum
+                    failures = channel.size() > before ? 1 : failures + 1;
+                    if (failures > maxResumes) {
+                        throw e;
+                    }
+
+                    transfer.resumed();
+                }
+            }
+
+            channel.force(false);
+        }
+
+        return complete(transfer, 1);
+    }
+
+    /**
+     * Verifies the digest of the partial file and moves it to the target
+     */
+    private static DownloadResult complete(Transfer transfer, int segments) throws IOException {
+        Download download = transfer.download;
+        Path partial = download.getPartialFile();
+        String digest = transfer.digest == null ? null : hex(transfer.digest.digest());
+        String expected = download.getExpectedDigest();
+        if (expected != null && !expected.equalsIgnoreCase(digest)) {
+            discard(partial);
+            throw new ChecksumMismatchException(expected.toLowerCase(Locale.ROOT), digest);
+        }
+
+        long size = Files.size(partial);
+        moveToTarget(partial, download.getTarget());
+        Files.deleteIfExists(validatorFile(partial));
+        return new DownloadResult(download.getTarget(), size, transfer.resumedFrom, transfer.resumes, segments,
+                digest);
+    }
+
+    /**
+     * The number of segments to split the download into, one if the server can't serve them
+     */
+    private int segments(Download download, Headers headers) {
+        long length = length(headers);
+        if (length <= 0 || validator(headers) == null
+                || !headers.getAcceptRanges().toLowerCase(Locale.ROOT).contains(BYTES_UNIT)) {
+            return 1;
+        }
+
+        return (int) Math.min(download.getSegments(), length / Math.max(1, minSegmentSize));
+    }
+
+    /**
+     * Downloads the segments concurrently into a partial file of the full size. A partial file of an earlier call is
+     * not resumed, nor is the partial file kept when the download fails, as it has a hole for every unfinished segment.
+     */
+    private DownloadResult downloadSegments(Download download, Headers head, int count) throws IOException {
+        Path partial = download.getPartialFile();
+        Files.deleteIfExists(validatorFile(partial));
+        long length = length(head);
+        String validator = validator(head);
+        Transfer transfer = new Transfer(download, digest(download), ByteBuffer.allocateDirect(bufferSize));
+        transfer.start(0);
+        boolean complete = false;
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Sized up front so no segment has to extend the file while others write to it
+            channel.write(ByteBuffer.allocate(1), length - 1);
+            transfer.progress(0, length);
+            CompletableFuture<?>[] segments = new CompletableFuture<?>[count];
+            long size = length / count;
+            for (int i = 0; i < count; i++) {
+                long start = i * size;
+                long end = i == count - 1 ? length - 1 : start + size - 1;
+                segments[i] = fetch(transfer, new Segment(start, end), channel, validator, length, 0);
+            }
+
+            await(transfer, segments);
+            channel.force(false);
+            // Segments finish out of order, so the digest takes a pass over the complete file
+            transfer.digestTo(channel, length);
+            complete = true;
+        } finally {
+            if (!complete) {
+                discard(partial);
+            }
+        }
+
+        return complete(transfer, count);
+    }
+
+    /**
+     * Requests the rest of a segment and copies it to disk, resuming it when it fails
+     */
+    private CompletableFuture<Void> fetch(Transfer transfer, Segment segment, FileChannel channel, String validator,
+                                          long total, int failures) {
+        Headers headers = new Headers()
+                .setAcceptEncoding(IDENTITY_ENCODING)
+                .setRange("bytes=" + segment.position + "-" + segment.end)
+                .setIfRange(validator);
+        long before = segment.position;
+        return async.request(transfer.download.getPath(), RequestMethod.GET, null, BODY_TYPE,
+                configs(RequestMethod.GET, transfer.download, headers))
+                .thenAcceptAsync(res -> {
+                    try {
+                        copy(res, segment, channel, total, transfer);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor)
+                .handle((ignore, e) -> e instanceof CompletionException && e.getCause() != null ? e.getCause() : e)
+                .thenCompose(e -> {
+                    if (e == null) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+
+                    int inRow = segment.position > before ? 1 : failures + 1;
+                    if (!resumable(e, transfer) || inRow > maxResumes) {
+                        transfer.fail(e);
+                        return CompletableFuture.failedFuture(e);
+                    }
+
+                    transfer.resumed();
+                    return fetch(transfer, segment, channel, validator, total, inRow);
+                });
+    }
+
+    private void copy(HttpResponse<InputStream> res, Segment segment, FileChannel channel, long total,
+                      Transfer transfer) throws IOException {
+        String path = transfer.download.getPath();
+        if (res == null) {
+            throw new CancellationException("An interceptor canceled the request for bytes " + segment + " of "
+                    + path);
+        }
+
+        InputStream body = res.getBody();
+        try {
+            if (res.getResponseCode() != HttpURLConnection.HTTP_PARTIAL
+                    || start(res.getResponseHeaders()) != segment.position) {
+                throw new ProtocolException("The server didn't send bytes " + segment + " of " + path
+                        + ", the file may have changed");
+            }
+
+            ReadableByteChannel source = Channels.newChannel(body);
+            ByteBuffer buffer = segment.buffer(bufferSize);
+            while (segment.position <= segment.end) {
+                if (transfer.failure != null) {
+                    throw new IOException("Another segment of " + path + " failed");
+                }
+
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), segment.end - segment.position + 1));
+                int read = source.read(buffer);
+                if (read < 0) {
+                    throw new EOFException("The response of " + path + " ended at byte " + segment.position
+                            + " of bytes " + segment);
+                }
+
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    segment.position += channel.write(buffer, segment.position);
+                }
+
+                transfer.progress(read, total);
+            }
+        } catch (IOException | RuntimeException e) {
+            abort(body);
+            throw e;
+        }
+
+        body.close();
+    }
+
+    /**
+     * Whether a failed segment is requested again, a closed file or a changed file can't be resumed
+     */
+    private static boolean resumable(Throwable e, Transfer transfer) {
+        return e instanceof IOException && !(e instanceof ProtocolException)
+                && !(e instanceof ClosedChannelException) && transfer.failure == null;
+    }
+
+    /**
+     * Waits for all segments, once one of them fails the others stop at their next buffer
+     */
+    private static void await(Transfer transfer, CompletableFuture<?>[] segments) throws IOException {
+        try {
+            CompletableFuture.allOf(segments).get();
+        } catch (InterruptedException e) {
+            transfer.fail(e);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while downloading " + transfer.download.getPath());
+        } catch (ExecutionException e) {
+            Throwable failure = transfer.failure == null ? e.getCause() : transfer.failure;
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+
+            throw new IOException(failure);
+        }
+    }
+
+    /**
+     * Requests the part of the file that is missing from the partial file and appends it
+     *
+     * @return false if an interceptor canceled the request or response
+     */
+    private boolean attempt(Transfer transfer, FileChannel channel) throws IOException {
+        Download download = transfer.download;
+        Path validatorFile = validatorFile(download.getPartialFile());
+        long offset = channel.size();
+        String validator = offset > 0 ? readValidator(validatorFile) : null;
+        if (offset > 0 && validator == null) {
+            // Can't tell whether the partial file is still part of the same file on the server
+            offset = restart(transfer, channel);
+        }
+
+        transfer.digestTo(channel, offset);
+        Headers headers = new Headers().setAcceptEncoding(IDENTITY_ENCODING);
+        if (offset > 0) {
+            headers.setRange("bytes=" + offset + "-").setIfRange(validator);
+        }
+
+        HttpResponse<InputStream> res;
+        try {
+            res = backing.request(download.getPath(), RequestMethod.GET, null, BODY_TYPE,
+                    configs(RequestMethod.GET, download, headers));
+        } catch (HttpStatusCodeException e) {
+            if (offset == 0 || e.getErrorResponse().getResponseCode() != HTTP_RANGE_NOT_SATISFIABLE) {
+                throw e;
+            }
+
+            long total = total(e.getErrorResponse().getResponseHeaders());
+            if (total == offset) {
+                // The partial file is already complete
+                transfer.start(offset);
+                return true;
+            }
+
+            restart(transfer, channel);
+            throw new IOException("The server can't resume at byte " + offset + " of " + download.getPath());
+        }
+
+        if (res == null) {
+            return false;
+        }
+
+        InputStream body = res.getBody();
+        try {
+            long total;
+            if (res.getResponseCode() == HttpURLConnection.HTTP_PARTIAL) {
+                total = total(res.getResponseHeaders());
+                if (start(res.getResponseHeaders()) != offset) {
+                    restart(transfer, channel);
+                    throw new IOException("The server resumed " + download.getPath() + " at another byte than "
+                            + offset);
+                }
+            } else {
+                // The server sent the whole file, because the file changed or it doesn't support ranges
+                offset = restart(transfer, channel);
+                writeValidator(validatorFile, validator(res.getResponseHeaders()));
+                total = length(res.getResponseHeaders());
+            }
+
+            transfer.start(offset);
+            copy(body, channel, offset, total, transfer);
+            if (total >= 0 && channel.size() < total) {
+                throw new EOFException("The response of " + download.getPath() + " ended at byte "
+                        + channel.size() + " of " + total);
+            }
+        } catch (IOException | RuntimeException e) {
+            abort(body);
+            throw e;
+        }
+
+        body.close();
+        return true;
+    }
+
+    private void copy(InputStream body, FileChannel channel, long offset, long total, Transfer transfer)
+            throws IOException {
+        ReadableByteChannel source = Channels.newChannel(body);
+        ByteBuffer buffer = transfer.buffer;
+        ProgressListener listener = transfer.download.getProgressListener();
+        long position = offset;
+        if (listener != null) {
+            listener.onProgress(position, total);
+        }
+
+        while (true) {
+            buffer.clear();
+            if (source.read(buffer) < 0) {
+                return;
+            }
+
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+
+            if (transfer.digest != null) {
+                buffer.rewind();
+                transfer.digest.update(buffer);
+            }
+
+            transfer.digested = position;
+            if (listener != null) {
+                listener.onProgress(position, total);
+            }
+        }
+    }
+
+    private RequestConfig[] configs(RequestMethod method, Download download, Headers headers) {
+        RequestConfig[] configs = backing.withHeaders(method, download.getConfigs(), headers);
+        configs = Arrays.copyOf(configs, configs.length + 1);
+        // Ranges are offsets into the encoded body, so the body is requested and written as is
+        configs[configs.length - 1] = new RequestConfig().setDecompressResponses(false);
+        return configs;
+    }
+
+    private static long restart(Transfer transfer, FileChannel channel) throws IOException {
+        channel.truncate(0);
+        Files.deleteIfExists(validatorFile(transfer.download.getPartialFile()));
+        transfer.digestTo(channel, 0);
+        return 0;
+    }
+
+    private static void abort(InputStream body) {
+        if (body instanceof ResponseInputStream) {
+            ((ResponseInputStream) body).abort();
+            return;
+        }
+
+        try {
+            body.close();
+        } catch (IOException ignore) {
+            // The connection is being discarded, nothing left to clean up.
+        }
+    }
+
+    private static MessageDigest digest(Download download) {
+        if (download.getDigestAlgorithm() == null) {
+            return null;
+        }
+
+        try {
+            return MessageDigest.getInstance(download.getDigestAlgorithm());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Unknown digest algorithm " + download.getDigestAlgorithm(), e);
+        }
+    }
+
+    /**
+     * The validator sent as If-Range, weak ETags can't be used to resume
+     */
+    private static String validator(Headers headers) {
+        String etag = headers.getEtag();
+        if (!etag.isEmpty() && !etag.startsWith(WEAK_ETAG_PREFIX)) {
+            return etag;
+        }
+
+        String lastModified = headers.getLastModified();
+        return lastModified.isEmpty() ? null : lastModified;
+    }
+
+    private static long start(Headers headers) {
+        Matcher matcher = CONTENT_RANGE.matcher(headers.getContentRange());
+        return matcher.matches() && matcher.group(1) != null ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    private static long total(Headers headers) {
+        Matcher matcher = CONTENT_RANGE.matcher(headers.getContentRange());
+        return matcher.matches() && !matcher.group(2).equals("*") ? Long.parseLong(matcher.group(2)) : -1;
+    }
+
+    private static long length(Headers headers) {
+        try {
+            return Long.parseLong(headers.getContentLength().trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static Path validatorFile(Path partial) {
+        return partial.resolveSibling(partial.getFileName() + VALIDATOR_SUFFIX);
+    }
+
+    private static String readValidator(Path validatorFile) throws IOException {
+        if (!Files.exists(validatorFile)) {
+            return null;
+        }
+
+        String validator = new String(Files.readAllBytes(validatorFile), StandardCharsets.UTF_8).trim();
+        return validator.isEmpty() ? null : validator;
+    }
+
+    private static void writeValidator(Path validatorFile, String validator) throws IOException {
+        if (validator == null) {
+            Files.deleteIfExists(validatorFile);
+        } else {
+            Files.write(validatorFile, validator.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void discard(Path partial) throws IOException {
+        Files.deleteIfExists(partial);
+        Files.deleteIfExists(validatorFile(partial));
+    }
+
+    private static void moveToTarget(Path partial, Path target) throws IOException {
+        try {
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+
+        return hex.toString();
+    }
+
+    public DefaultRestClient getBacking() {
+        return backing;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @param bufferSize The size in bytes of the direct buffer the response is copied to disk with, 64 KiB by default
+     * @return this {@link FileDownloader} instance to be used for setter chaining
+     */
+    public FileDownloader setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    public int getMaxResumes() {
+        return maxResumes;
+    }
+
+    /**
+     * @param maxResumes The number of times in a row a failed transfer is resumed without receiving any bytes in
+     *                   between, zero to fail on the first error
+     * @return this {@link FileDownloader} instance to be used for setter chaining
+     */
+    public FileDownloader setMaxResumes(int maxResumes) {
+        this.maxResumes = maxResumes;
+        return this;
+    }
+
+    public long getMinSegmentSize() {
+        return minSegmentSize;
+    }
+
+    /**
+     * @param minSegmentSize The minimum size in bytes of a segment, smaller files are split into fewer segments than
+     *                       requested, 4 MiB by default
+     * @return this {@link FileDownloader} instance to be used for setter chaining
+     */
+    public FileDownloader setMinSegmentSize(long minSegmentSize) {
+        this.minSegmentSize = minSegmentSize;
+        return this;
+    }
+
+    /**
+     * The state of a download across the attempts of a single call, shared by the segments of a segmented download
+     */
+    private static final class Transfer {
+        private final Download download;
+        private final MessageDigest digest;
+        private final ByteBuffer buffer;
+        private long digested = 0;
+        private long resumedFrom = -1;
+        private int resumes = 0;
+        private long transferred = 0;
+        private volatile Throwable failure;
+
+        private Transfer(Download download, MessageDigest digest, ByteBuffer buffer) {
+            this.download = download;
+            this.digest = digest;
+            this.buffer = buffer;
+        }
+
+        private void start(long offset) {
+            if (resumedFrom < 0) {
+                resumedFrom = offset;
+            }
+        }
+
+        private synchronized void resumed() {
+            resumes++;
+        }
+
+        private synchronized void fail(Throwable e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+
+        /**
+         * Reports the bytes written by a segment, the listener is called by one segment at a time
+         */
+        private synchronized void progress(long written, long total) {
+            transferred += written;
+            ProgressListener listener = download.getProgressListener();
+            if (listener != null) {
+                listener.onProgress(transferred, total);
+            }
+        }
+
+        /**
+         * Brings the digest up to the offset the transfer continues at, hashing a partial file left by an earlier
+         * call or starting over
+         */
+        private void digestTo(FileChannel channel, long offset) throws IOException {
+            if (digest == null) {
+                digested = offset;
+                return;
+            }
+
+            if (offset < digested) {
+                digest.reset();
+                digested = 0;
+            }
+
+            while (digested < offset) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), offset - digested));
+                int read = channel.read(buffer, digested);
+                if (read < 0) {
+                    throw new EOFException("The partial file ended at byte " + digested);
+                }
+
+                buffer.flip();
+                digest.update(buffer);
+                digested += read;
+            }
+        }
+    }
+
+    /**
+     * An inclusive byte range of a segmented download and the position it has been written up to
+     */
+    private static final class Segment {
+        private final long end;
+        private long position;
+        private ByteBuffer buffer;
+
+        private Segment(long start, long end) {
+            this.position = start;
+            this.end = end;
+        }
+
+        private ByteBuffer buffer(int size) {
+            if (buffer == null) {
+                buffer = ByteBuffer.allocateDirect(size);
+            }
+
+            return buffer;
+        }
+
+        @Override
+        public String toString() {
+            return position + "-" + end;
+        }
+    }
+}
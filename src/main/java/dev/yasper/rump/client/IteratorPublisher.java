@@ -0,0 +1,199 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.client;
+
+import dev.yasper.rump.response.CloseableIterator;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Publishes the elements of a streamed response. Every subscriber gets its own request, sent once it first signals
+ * demand. Elements are read on the executor and only as far as the subscriber requested them, so a slow subscriber
+ * slows down reading the response instead of buffering it.
+ *
+ * @param <T> The type of the elements
+ */
+class IteratorPublisher<T> implements Flow.Publisher<T> {
+
+    private final Supplier<CompletableFuture<CloseableIterator<T>>> open;
+    private final Executor executor;
+    private final boolean closeOnCancel;
+
+    /**
+     * @param open     Sends the request and reads the elements of its response
+     * @param executor The executor the elements are read and emitted on
+     */
+    IteratorPublisher(Supplier<CompletableFuture<CloseableIterator<T>>> open, Executor executor) {
+        this(open, executor, false);
+    }
+
+    /**
+     * @param open          Sends the request and reads the elements of its response
+     * @param executor      The executor the elements are read and emitted on
+     * @param closeOnCancel Whether cancelling closes the iterator right away instead of once it stops reading, for
+     *                      iterators that can be closed while another thread waits for their next element
+     */
+    IteratorPublisher(Supplier<CompletableFuture<CloseableIterator<T>>> open, Executor executor,
+                      boolean closeOnCancel) {
+        this.open = open;
+        this.executor = executor;
+        this.closeOnCancel = closeOnCancel;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        subscriber.onSubscribe(new Subscription(subscriber));
+    }
+
+    private final class Subscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        // Number of times the drain loop was asked to run, only the caller that raises it from zero runs it
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile CompletableFuture<CloseableIterator<T>> opening = null;
+        private volatile CloseableIterator<T> elements = null;
+        private volatile Throwable failure = null;
+        private volatile boolean cancelled = false;
+        private boolean done = false;
+
+        private Subscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                failure = new IllegalArgumentException("Demand must be positive, was " + n);
+            } else {
+                demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+
+            start();
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            CompletableFuture<CloseableIterator<T>> current = opening;
+            if (current != null) {
+                current.cancel(true);
+            }
+
+            CloseableIterator<T> reading = elements;
+            if (closeOnCancel && reading != null) {
+                reading.close();
+            }
+
+            schedule();
+        }
+
+        private synchronized void start() {
+            if (opening != null || cancelled) {
+                return;
+            }
+
+            CompletableFuture<CloseableIterator<T>> started = open.get();
+            opening = started;
+            started.whenComplete((iterator, e) -> {
+                if (e != null) {
+                    failure = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                } else {
+                    elements = iterator;
+                }
+
+                schedule();
+            });
+        }
+
+        private void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                emit();
+            } while (pending.decrementAndGet() != 0);
+        }
+
+        private void emit() {
+            if (done) {
+                return;
+            }
+
+            CloseableIterator<T> current = elements;
+            if (cancelled) {
+                finish(current);
+                return;
+            }
+
+            if (failure != null) {
+                finish(current);
+                subscriber.onError(failure);
+                return;
+            }
+
+            if (current == null) {
+                // Not opened yet, runs again once it is
+                return;
+            }
+
+            try {
+                while (demand.get() > 0 && !cancelled) {
+                    if (!current.hasNext()) {
+                        finish(current);
+                        if (!cancelled) {
+                            subscriber.onComplete();
+                        }
+                        return;
+                    }
+
+                    T next = current.next();
+                    demand.decrementAndGet();
+                    subscriber.onNext(next);
+                }
+            } catch (RuntimeException e) {
+                finish(current);
+                if (!cancelled) {
+                    subscriber.onError(e);
+                }
+                return;
+            }
+
+            if (cancelled) {
+                finish(current);
+            }
+        }
+
+        private void finish(CloseableIterator<T> current) {
+            done = true;
+            if (current != null) {
+                current.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.client;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Response body handed to the caller unread, for the {@link InputStream} response type. Closing it finishes the
+ * response and gives the connection back.
+ */
+class ResponseInputStream extends FilterInputStream {
+
+    private final Consumer<InputStream> finish;
+    private final Runnable abort;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile Runnable onClose = null;
+
+    /**
+     * @param input  The decoded response stream
+     * @param finish Reads what is left of the response stream and closes it
+     * @param abort  Drops the connection of the response without reading what is left
+     */
+    ResponseInputStream(InputStream input, Consumer<InputStream> finish, Runnable abort) {
+        super(input);
+        this.finish = finish;
+        this.abort = abort;
+    }
+
+    /**
+     * Run an action once the stream is closed, such as releasing the pooled connection of the response
+     *
+     * @param onClose The action
+     */
+    void onClose(Runnable onClose) {
+        this.onClose = onClose;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed.compareAndSet(false, true)) {
+            finish(() -> finish.accept(in));
+        }
+    }
+
+    /**
+     * Close the stream by dropping the connection instead of reading what is left of the response, for responses
+     * that may never end. Unlike {@link #close()} this can be called while another thread is blocked reading.
+     */
+    void abort() {
+        if (closed.compareAndSet(false, true)) {
+            finish(abort);
+        }
+    }
+
+    private void finish(Runnable action) {
+        try {
+            action.run();
+        } finally {
+            Runnable closeAction = onClose;
+            if (closeAction != null) {
+                closeAction.run();
+            }
+        }
+    }
+}
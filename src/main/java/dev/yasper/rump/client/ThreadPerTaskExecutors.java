@@ -0,0 +1,94 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.client;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Factory for executors that start a new thread for every task, meant for the {@link AsyncRestClient} when requests
+ * are made with a blocking transport. Every blocking request then gets its own thread instead of queueing for a
+ * thread of a fixed size pool.
+ * </p>
+ *
+ * <p>
+ * Virtual threads are used when the running JVM supports them (Java 21 or newer), they are looked up at runtime so
+ * Rump itself can still be compiled for older Java versions.
+ * </p>
+ */
+public final class ThreadPerTaskExecutors {
+
+    private static final MethodHandle VIRTUAL_EXECUTOR = findVirtualExecutor();
+
+    private ThreadPerTaskExecutors() {
+    }
+
+    /**
+     * Whether the running JVM supports virtual threads
+     *
+     * @return true if {@link #newVirtualThreadPerTaskExecutor()} creates virtual threads
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VIRTUAL_EXECUTOR != null;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task. On JVMs without virtual thread support an
+     * unbounded executor of daemon platform threads is returned instead, idle threads are discarded after a minute.
+     *
+     * @return the executor
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (VIRTUAL_EXECUTOR != null) {
+            try {
+                return (ExecutorService) VIRTUAL_EXECUTOR.invokeExact();
+            } catch (Throwable ignore) {
+                // Fall back to platform threads below.
+            }
+        }
+
+        return Executors.newCachedThreadPool(new DaemonThreadFactory());
+    }
+
+    private static MethodHandle findVirtualExecutor() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "rump-request-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
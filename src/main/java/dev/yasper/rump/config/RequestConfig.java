@@ -19,18 +19,31 @@
 package dev.yasper.rump.config;
 
 import dev.yasper.rump.Headers;
+import dev.yasper.rump.balancing.LoadBalancer;
+import dev.yasper.rump.cache.HttpCache;
+import dev.yasper.rump.cache.RequestCoalescer;
 import dev.yasper.rump.exception.ExceptionHandler;
 import dev.yasper.rump.interceptor.RequestInterceptor;
 import dev.yasper.rump.interceptor.ResponseInterceptor;
 import dev.yasper.rump.request.RequestMethod;
 import dev.yasper.rump.request.RequestParams;
 import dev.yasper.rump.request.RequestTransformer;
+import dev.yasper.rump.resilience.Bulkhead;
+import dev.yasper.rump.resilience.CircuitBreaker;
+import dev.yasper.rump.resilience.ConcurrencyLimiter;
+import dev.yasper.rump.resilience.HedgePolicy;
+import dev.yasper.rump.resilience.RateLimiter;
+import dev.yasper.rump.resilience.RetryPolicy;
 import dev.yasper.rump.response.ResponseTransformer;
+import dev.yasper.rump.transport.ConnectionPool;
+import dev.yasper.rump.transport.HttpVersion;
+import dev.yasper.rump.transport.Transport;
 
-import java.lang.reflect.Field;
 import java.net.Authenticator;
 import java.net.HttpURLConnection;
 import java.net.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.function.Consumer;
@@ -54,31 +67,217 @@ public class RequestConfig {
     private ExceptionHandler exceptionHandler = null;
     private Predicate<Integer> ignoreStatusCode = null;
     private Consumer<HttpURLConnection> connectionConsumer = null;
+    private Transport transport = null;
+    private ConnectionPool connectionPool = null;
+    private HttpVersion httpVersion = null;
+    private Integer maxConcurrentStreams = null;
+    private Integer streamingChunkSize = null;
+    private Boolean decompressResponses = null;
+    private Integer compressionThreshold = null;
+    private HttpCache httpCache = null;
+    private RequestCoalescer requestCoalescer = null;
+    private RetryPolicy retryPolicy = null;
+    private Boolean idempotent = null;
+    private HedgePolicy hedgePolicy = null;
+    private CircuitBreaker circuitBreaker = null;
+    private RateLimiter rateLimiter = null;
+    private ConcurrencyLimiter concurrencyLimiter = null;
+    private Bulkhead bulkhead = null;
+    private String bulkheadGroup = null;
+    private LoadBalancer loadBalancer = null;
+    private boolean frozen = false;
 
     /**
      * Method to copy properties from a config instance into another config instance. Checks if the values in
-     * from are not null to prevent the config from overwriting all the other values in to. We can ignore the type
-     * safety because the fields will always hold the same types.
+     * from are not null to prevent the config from overwriting all the other values in to. The interceptor lists of
+     * from are appended to the lists of to.
      *
-     * @param to   The RequestConfig to copy the properties into
+     * @param to   The RequestConfig to copy the properties into, can not be frozen
      * @param from The RequestConfig to copy the properties from
      */
-    @SuppressWarnings({"unchecked", "rawtypes"})
     public static void copyProperties(RequestConfig to, RequestConfig from) {
-        for (Field field : from.getClass().getDeclaredFields()) {
-            try {
-                field.setAccessible(true);
-                Object value = field.get(from);
-                Object current = field.get(to);
-                if (value instanceof List && current instanceof List) {
-                    List list = (List) value;
-                    ((List) current).addAll(list);
-                } else if (value != null) {
-                    field.set(to, value);
-                }
-            } catch (IllegalAccessException e) {
-                e.printStackTrace();
-            }
+        to.checkMutable();
+        to.copyValues(from);
+        if (to.requestInterceptors == null) {
+            to.requestInterceptors = from.requestInterceptors;
+        } else if (from.requestInterceptors != null) {
+            to.requestInterceptors.addAll(from.requestInterceptors);
+        }
+
+        if (to.responseInterceptors == null) {
+            to.responseInterceptors = from.responseInterceptors;
+        } else if (from.responseInterceptors != null) {
+            to.responseInterceptors.addAll(from.responseInterceptors);
+        }
+    }
+
+    private void copyValues(RequestConfig from) {
+        if (from.baseURL != null) {
+            this.baseURL = from.baseURL;
+        }
+        if (from.timeout != null) {
+            this.timeout = from.timeout;
+        }
+        if (from.readTimeout != null) {
+            this.readTimeout = from.readTimeout;
+        }
+        if (from.useCaches != null) {
+            this.useCaches = from.useCaches;
+        }
+        if (from.proxy != null) {
+            this.proxy = from.proxy;
+        }
+        if (from.authenticator != null) {
+            this.authenticator = from.authenticator;
+        }
+        if (from.requestHeaders != null) {
+            this.requestHeaders = from.requestHeaders;
+        }
+        if (from.params != null) {
+            this.params = from.params;
+        }
+        if (from.requestTransformer != null) {
+            this.requestTransformer = from.requestTransformer;
+        }
+        if (from.responseTransformer != null) {
+            this.responseTransformer = from.responseTransformer;
+        }
+        if (from.method != null) {
+            this.method = from.method;
+        }
+        if (from.exceptionHandler != null) {
+            this.exceptionHandler = from.exceptionHandler;
+        }
+        if (from.ignoreStatusCode != null) {
+            this.ignoreStatusCode = from.ignoreStatusCode;
+        }
+        if (from.connectionConsumer != null) {
+            this.connectionConsumer = from.connectionConsumer;
+        }
+        if (from.transport != null) {
+            this.transport = from.transport;
+        }
+        if (from.connectionPool != null) {
+            this.connectionPool = from.connectionPool;
+        }
+        if (from.httpVersion != null) {
+            this.httpVersion = from.httpVersion;
+        }
+        if (from.maxConcurrentStreams != null) {
+            this.maxConcurrentStreams = from.maxConcurrentStreams;
+        }
+        if (from.streamingChunkSize != null) {
+            this.streamingChunkSize = from.streamingChunkSize;
+        }
+        if (from.decompressResponses != null) {
+            this.decompressResponses = from.decompressResponses;
+        }
+        if (from.compressionThreshold != null) {
+            this.compressionThreshold = from.compressionThreshold;
+        }
+        if (from.httpCache != null) {
+            this.httpCache = from.httpCache;
+        }
+        if (from.requestCoalescer != null) {
+            this.requestCoalescer = from.requestCoalescer;
+        }
+        if (from.retryPolicy != null) {
+            this.retryPolicy = from.retryPolicy;
+        }
+        if (from.idempotent != null) {
+            this.idempotent = from.idempotent;
+        }
+        if (from.hedgePolicy != null) {
+            this.hedgePolicy = from.hedgePolicy;
+        }
+        if (from.circuitBreaker != null) {
+            this.circuitBreaker = from.circuitBreaker;
+        }
+        if (from.rateLimiter != null) {
+            this.rateLimiter = from.rateLimiter;
+        }
+        if (from.concurrencyLimiter != null) {
+            this.concurrencyLimiter = from.concurrencyLimiter;
+        }
+        if (from.bulkhead != null) {
+            this.bulkhead = from.bulkhead;
+        }
+        if (from.bulkheadGroup != null) {
+            this.bulkheadGroup = from.bulkheadGroup;
+        }
+        if (from.loadBalancer != null) {
+            this.loadBalancer = from.loadBalancer;
+        }
+    }
+
+    /**
+     * <p>
+     * Create an immutable snapshot of this config. Any setter called on the snapshot throws an
+     * {@link IllegalStateException}, the values themselves (such as the {@link Headers} instance) are not copied.
+     * </p>
+     *
+     * <p>
+     * Merging configs into a frozen config results in a frozen config that shares the values of this instance, when
+     * nothing is merged the snapshot itself is returned.
+     * </p>
+     *
+     * @return the frozen config, this instance if it is already frozen
+     */
+    public RequestConfig freeze() {
+        if (frozen) {
+            return this;
+        }
+
+        RequestConfig result = new RequestConfig();
+        result.copyValues(this);
+        result.requestInterceptors = immutableCopy(Collections.emptyList(), this.requestInterceptors);
+        result.responseInterceptors = immutableCopy(Collections.emptyList(), this.responseInterceptors);
+        result.frozen = true;
+        return result;
+    }
+
+    /**
+     * Whether this config is an immutable snapshot, see {@link #freeze()}
+     *
+     * @return true if this config can not be modified
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private RequestConfig overlay(RequestConfig... merging) {
+        if (merging.length == 0) {
+            return this;
+        }
+
+        RequestConfig result = new RequestConfig();
+        result.copyValues(this);
+        result.requestInterceptors = this.requestInterceptors;
+        result.responseInterceptors = this.responseInterceptors;
+        for (RequestConfig merge : merging) {
+            result.copyValues(merge);
+            result.requestInterceptors = immutableCopy(result.requestInterceptors, merge.requestInterceptors);
+            result.responseInterceptors = immutableCopy(result.responseInterceptors, merge.responseInterceptors);
+        }
+
+        result.frozen = true;
+        return result;
+    }
+
+    private static <T> List<T> immutableCopy(List<T> base, List<T> extra) {
+        if (extra == null || extra.isEmpty()) {
+            return base;
+        }
+
+        List<T> joined = new ArrayList<>(base.size() + extra.size());
+        joined.addAll(base);
+        joined.addAll(extra);
+        return Collections.unmodifiableList(joined);
+    }
+
+    private void checkMutable() {
+        if (frozen) {
+            throw new IllegalStateException("This RequestConfig is frozen and can not be modified");
         }
     }
 
@@ -99,6 +298,24 @@ public class RequestConfig {
                 ", method=" + method +
                 ", ignoreStatusCode=" + ignoreStatusCode +
                 ", connectionConsumer=" + connectionConsumer +
+                ", transport=" + transport +
+                ", connectionPool=" + connectionPool +
+                ", httpVersion=" + httpVersion +
+                ", maxConcurrentStreams=" + maxConcurrentStreams +
+                ", streamingChunkSize=" + streamingChunkSize +
+                ", decompressResponses=" + decompressResponses +
+                ", compressionThreshold=" + compressionThreshold +
+                ", httpCache=" + httpCache +
+                ", requestCoalescer=" + requestCoalescer +
+                ", retryPolicy=" + retryPolicy +
+                ", idempotent=" + idempotent +
+                ", hedgePolicy=" + hedgePolicy +
+                ", circuitBreaker=" + circuitBreaker +
+                ", rateLimiter=" + rateLimiter +
+                ", concurrencyLimiter=" + concurrencyLimiter +
+                ", bulkhead=" + bulkhead +
+                ", bulkheadGroup='" + bulkheadGroup + '\'' +
+                ", loadBalancer=" + loadBalancer +
                 '}';
     }
 
@@ -111,6 +328,7 @@ public class RequestConfig {
     }
 
     public RequestConfig setAuthenticator(Authenticator authenticator) {
+        checkMutable();
         this.authenticator = authenticator;
         return this;
     }
@@ -120,6 +338,7 @@ public class RequestConfig {
     }
 
     public RequestConfig setExceptionHandler(ExceptionHandler exceptionHandler) {
+        checkMutable();
         this.exceptionHandler = exceptionHandler;
         return this;
     }
@@ -129,6 +348,7 @@ public class RequestConfig {
     }
 
     public RequestConfig setIgnoreStatusCode(Predicate<Integer> ignoreStatusCode) {
+        checkMutable();
         this.ignoreStatusCode = ignoreStatusCode;
         return this;
     }
@@ -138,17 +358,343 @@ public class RequestConfig {
     }
 
     public RequestConfig setConnectionConsumer(Consumer<HttpURLConnection> connectionConsumer) {
+        checkMutable();
         this.connectionConsumer = connectionConsumer;
         return this;
     }
 
     /**
-     * Create a new request config that is a non-null merger of this instance and the passed merging instances
+     * Get the transport used to open connections for requests made with this config
+     *
+     * @return the transport
+     */
+    public Transport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Set the transport used to open connections, see {@link dev.yasper.rump.transport.URLConnectionTransport} and
+     * {@link dev.yasper.rump.transport.HttpClientTransport}
+     *
+     * @param transport the transport to use
+     * @return this {@link RequestConfig} instance to be used for setter chaining
+     */
+    public RequestConfig setTransport(Transport transport) {
+        checkMutable();
+        this.transport = transport;
+        return this;
+    }
+
+    /**
+     * Get the connection pool that limits and manages the connections of requests made with this config
+     *
+     * @return the connection pool
+     */
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * Set the connection pool, rest clients using the same pool instance share its limits
+     *
+     * @param connectionPool the connection pool to use
+     * @return this {@link RequestConfig} instance to be used for setter chaining
+     */
+    public RequestConfig setConnectionPool(ConnectionPool connectionPool) {
+        checkMutable();
+        this.connectionPool = connectionPool;
+        return this;
+    }
+
+    public HttpVersion getHttpVersion() {
+        return httpVersion;
+    }
+
+    /**
+     * Set the preferred HTTP version, see {@link HttpVersion}
+     *
+     * @param httpVersion the preferred HTTP version
+     * @return this {@link RequestConfig} instance to be used for setter chaining
+     */
+    public RequestConfig setHttpVersion(HttpVersion httpVersion) {
+        checkMutable();
+        this.httpVersion = httpVersion;
+        return this;
+    }
+
+    public int getMaxConcurrentStreams() {
+        return this.maxConcurrentStreams;
+    }
+
+    /**
+     * Set the maximum number of concurrent requests (streams) per origin sent by a transport that multiplexes
+     * requests, see {@link dev.yasper.rump.transport.HttpClientTransport}
+     *
+     * @param maxConcurrentStreams the maximum number of concurrent streams, zero for no limit
+     * @return this {@link RequestConfig} instance to be used for setter chaining
+     */
+    public RequestConfig setMaxConcurrentStreams(int maxConcurrentStreams) {
+        checkMutable();
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        return this;
+    }
+
+    public int getStreamingChunkSize() {
+        return this.streamingChunkSize;
+    }
+
+    /**
+     * Stream the request body to the server instead of letting the transport buffer it. The body is sent with a
+     * fixed Content-Length when its length is known up front, else with chunked transfer encoding using chunks of the
+     * passed size. Streamed requests can't be resent by the transport, for example to answer an authentication
+     * challenge of the {@link #setAuthenticator(Authenticator)}.
+     *
+     * @param streamingChunkSize the chunk size in bytes, zero to buffer the request body
+     * @return this {@link RequestConfig} instance to be used for setter chaining
+     */
+    public RequestConfig setStreamingChunkSize(int streamingChunkSize) {
+        checkMutable();
+        this.streamingChunkSize = streamingChunkSize;
+        return this;
+    }
+
+    public boolean isDecompressingResponses() {
+        return this.decompressResponses;
+    }
+
+    /**
+     * Decode gzip and deflate compressed responses before they are transformed. When enabled and no Accept-Encoding
+     * request header is set the request accepts both encodings.
+     *
+     * @param decompressResponses whether responses should be decompressed
+     * @return this {@link RequestConfig} instance to be used for setter chaining
+     */
+    public RequestConfig setDecompressResponses(boolean decompressResponses) {
+        checkMutable();
+        this.decompressResponses = decompressResponses;
+        return this;
+    }
+
+    public int getCompressionThreshold() {
+        return this.compressionThreshold;
+    }
+
+    /**
+     * Gzip request bodies of at least the passed size. Up to this many bytes of the body are held in memory to decide
+     * whether it should be compressed, the rest is compressed while it is written.
+     *
+     * @param compressionThreshold the minimum body size in bytes, zero to never compress request bodies
+     * @return this {@link RequestConfig} instance to be used for setter chaining
+     */
+    public RequestConfig setCompressionThreshold(int compressionThreshold) {
+        checkMutable();
+        this.compressionThreshold = compressionThreshold;
+        return this;
+    }
+
+    public HttpCache getHttpCache() {
+        return this.httpCache;
+    }
+
+    /**
+     * Cache GET responses in the passed cache. Unlike {@link #setUseCaches(boolean)} this doesn't depend on a
+     * system wide {@link java.net.ResponseCache}.
+     *
+     * @param httpCache the cache to use, shared by every request with this config
+     * @return this {@link RequestConfig} instance to be used for setter chaining
+     */
+    public RequestConfig setHttpCache(HttpCache httpCache) {
+        checkMutable();
+        this.httpCache = httpCache;
+        return this;
+    }
+
+    public RequestCoalescer getRequestCoalescer() {
+        return this.requestCoalescer;
+    }
+
+    /**
+     * Let concurrent identical GET and HEAD requests share one exchange with the server, see
+     * {@link RequestCoalescer}
+     *
+     * @param requestCoalescer the coalescer to use, requests are only coalesced with requests using the same instance
+     * @return this {@link RequestConfig} instance to be used for setter chaining
+     */
+    public RequestConfig setRequestCoalescer(RequestCoalescer requestCoalescer) {
+        checkMutable();
+        this.requestCoalescer = requestCoalescer;
+        return this;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return this.retryPolicy;
+    }
+
+    /**
+     * Retry failed requests according to the passed policy, see {@link RetryPolicy}
+     *
+     * @param retryPolicy the policy to use
+     * @return this {@link RequestConfig} instance to be used for setter chaining
+     */
+    public RequestConfig setRetryPolicy(RetryPolicy retryPolicy) {
+        checkMutable();
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * Whether sending the request more than once has the same effect as sending it once
+     *
+     * @return the value set by {@link #setIdempotent(Boolean)}, else {@link RequestMethod#isIdempotent()}
+     */
+    public boolean isIdempotent() {
+        if (idempotent != null) {
+            return idempotent;
+        }
+
+        return getMethod() != null && getMethod().isIdempotent();
+    }
+
+    /**
+     * Mark a request as safe to send more than once, such as a POST with an idempotency key. Only idempotent
+     * requests are retried after the server may have received them.
+     *
+     * @param idempotent true to mark the request as idempotent, null to derive it from the request method
+     * @return this {@link RequestConfig} instance to be used for setter chaining
+     */
+    public RequestConfig setIdempotent(Boolean idempotent) {
+        checkMutable();
+        this.idempotent = idempotent;
+        return this;
+    }
+
+    public HedgePolicy getHedgePolicy() {
+        return this.hedgePolicy;
+    }
+
+    /**
+     * Hedge slow requests made with the {@link dev.yasper.rump.client.AsyncRestClient}, see {@link HedgePolicy}
+     *
+     * @param hedgePolicy the policy to use, share one instance per upstream
+     * @return this {@link RequestConfig} instance to be used for setter chaining
+     */
+    public RequestConfig setHedgePolicy(HedgePolicy hedgePolicy) {
+        checkMutable();
+        this.hedgePolicy = hedgePolicy;
+        return this;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return this.circuitBreaker;
+    }
+
+    /**
+     * Fail requests immediately while their upstream keeps failing, see {@link CircuitBreaker}
+     *
+     * @param circuitBreaker the circuit breaker to use, share one instance between the clients calling the same
+     *                       upstreams
+     * @return this {@link RequestConfig} instance to be used for setter chaining
+     */
+    public RequestConfig setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        checkMutable();
+        this.circuitBreaker = circuitBreaker;
+        return this;
+    }
+
+    public RateLimiter getRateLimiter() {
+        return this.rateLimiter;
+    }
+
+    /**
+     * Limit the rate at which requests are sent, see {@link RateLimiter}
+     *
+     * @param rateLimiter the limiter to use, requests only share a rate with requests using the same instance
+     * @return this {@link RequestConfig} instance to be used for setter chaining
+     */
+    public RequestConfig setRateLimiter(RateLimiter rateLimiter) {
+        checkMutable();
+        this.rateLimiter = rateLimiter;
+        return this;
+    }
+
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return this.concurrencyLimiter;
+    }
+
+    /**
+     * Limit the number of requests in flight per upstream to a limit that adapts to its latency and errors, see
+     * {@link ConcurrencyLimiter}
+     *
+     * @param concurrencyLimiter the limiter to use, requests only share a limit with requests using the same instance
+     * @return this {@link RequestConfig} instance to be used for setter chaining
+     */
+    public RequestConfig setConcurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+        checkMutable();
+        this.concurrencyLimiter = concurrencyLimiter;
+        return this;
+    }
+
+    public Bulkhead getBulkhead() {
+        return this.bulkhead;
+    }
+
+    /**
+     * Give the requests to every upstream their own bounded concurrency and wait queue, see {@link Bulkhead}
+     *
+     * @param bulkhead the bulkhead to use, requests only share compartments with requests using the same instance
+     * @return this {@link RequestConfig} instance to be used for setter chaining
+     */
+    public RequestConfig setBulkhead(Bulkhead bulkhead) {
+        checkMutable();
+        this.bulkhead = bulkhead;
+        return this;
+    }
+
+    public String getBulkheadGroup() {
+        return this.bulkheadGroup;
+    }
+
+    /**
+     * Put requests in a named compartment of the {@link Bulkhead} instead of the compartment of their upstream
+     *
+     * @param bulkheadGroup the name of the compartment
+     * @return this {@link RequestConfig} instance to be used for setter chaining
+     */
+    public RequestConfig setBulkheadGroup(String bulkheadGroup) {
+        checkMutable();
+        this.bulkheadGroup = bulkheadGroup;
+        return this;
+    }
+
+    public LoadBalancer getLoadBalancer() {
+        return this.loadBalancer;
+    }
+
+    /**
+     * Spread requests over a pool of base URLs, the base URL of every request is replaced by the endpoint the balancer
+     * picks, see {@link LoadBalancer}
+     *
+     * @param loadBalancer the balancer to use
+     * @return this {@link RequestConfig} instance to be used for setter chaining
+     */
+    public RequestConfig setLoadBalancer(LoadBalancer loadBalancer) {
+        checkMutable();
+        this.loadBalancer = loadBalancer;
+        return this;
+    }
+
+    /**
+     * Create a new request config that is a non-null merger of this instance and the passed merging instances. If this
+     * config is frozen the result is frozen too, see {@link #freeze()}.
      *
      * @param merging varag request config array to merge this instance with
      * @return The create request config
      */
     public RequestConfig merge(RequestConfig... merging) {
+        if (frozen) {
+            return overlay(merging);
+        }
+
         RequestConfig result = new RequestConfig();
         RequestConfig.copyProperties(result, this);
         for (RequestConfig merge : merging) {
@@ -163,16 +709,19 @@ public class RequestConfig {
     }
 
     public RequestConfig setProxy(Proxy proxy) {
+        checkMutable();
         this.proxy = proxy;
         return this;
     }
 
     public RequestConfig addRequestInterceptor(RequestInterceptor interceptor) {
+        checkMutable();
         this.requestInterceptors.add(interceptor);
         return this;
     }
 
     public RequestConfig addResponseInterceptor(ResponseInterceptor interceptor) {
+        checkMutable();
         this.responseInterceptors.add(interceptor);
         return this;
     }
@@ -182,6 +731,7 @@ public class RequestConfig {
     }
 
     public RequestConfig setBaseURL(String baseURL) {
+        checkMutable();
         this.baseURL = baseURL;
         return this;
     }
@@ -191,6 +741,7 @@ public class RequestConfig {
     }
 
     public RequestConfig setTimeout(int timeout) {
+        checkMutable();
         this.timeout = timeout;
         return this;
     }
@@ -200,6 +751,7 @@ public class RequestConfig {
     }
 
     public RequestConfig setReadTimeout(int readTimeout) {
+        checkMutable();
         this.readTimeout = readTimeout;
         return this;
     }
@@ -209,6 +761,7 @@ public class RequestConfig {
     }
 
     public RequestConfig setRequestHeaders(Headers requestHeaders) {
+        checkMutable();
         this.requestHeaders = requestHeaders;
         return this;
     }
@@ -222,6 +775,7 @@ public class RequestConfig {
     }
 
     public RequestConfig setParams(RequestParams params) {
+        checkMutable();
         this.params = params;
         return this;
     }
@@ -231,6 +785,7 @@ public class RequestConfig {
     }
 
     public RequestConfig setRequestTransformer(RequestTransformer requestTransformer) {
+        checkMutable();
         this.requestTransformer = requestTransformer;
         return this;
     }
@@ -240,6 +795,7 @@ public class RequestConfig {
     }
 
     public RequestConfig setResponseTransformer(ResponseTransformer responseTransformer) {
+        checkMutable();
         this.responseTransformer = responseTransformer;
         return this;
     }
@@ -249,6 +805,7 @@ public class RequestConfig {
     }
 
     public RequestConfig setRequestInterceptors(List<RequestInterceptor> requestInterceptors) {
+        checkMutable();
         this.requestInterceptors = requestInterceptors;
         return this;
     }
@@ -258,6 +815,7 @@ public class RequestConfig {
     }
 
     public RequestConfig setResponseInterceptors(List<ResponseInterceptor> responseInterceptors) {
+        checkMutable();
         this.responseInterceptors = responseInterceptors;
         return this;
     }
@@ -267,11 +825,13 @@ public class RequestConfig {
     }
 
     public RequestConfig setMethod(RequestMethod method) {
+        checkMutable();
         this.method = method;
         return this;
     }
 
     public RequestConfig setUseCaches(boolean useCaches) {
+        checkMutable();
         this.useCaches = useCaches;
         return this;
     }
@@ -0,0 +1,167 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.download;
+
+import dev.yasper.rump.config.RequestConfig;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A file to download, see {@link dev.yasper.rump.client.FileDownloader}. The bytes are written to a partial file next
+ * to the target, named after it with a {@code .part} suffix, which is moved to the target once complete.
+ */
+public class Download {
+
+    private final String path;
+    private final Path target;
+    private RequestConfig[] configs = new RequestConfig[0];
+    private boolean resuming = true;
+    private int segments = 1;
+    private String digestAlgorithm = null;
+    private String expectedDigest = null;
+    private ProgressListener progressListener = null;
+
+    /**
+     * Constructor for Download
+     *
+     * @param path   The path of the file, full URL if no base URL is specified in the config or any of the overloads
+     * @param target The file to download to, it is replaced once the download completes
+     */
+    public Download(String path, Path target) {
+        this.path = path;
+        this.target = target;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public Path getTarget() {
+        return target;
+    }
+
+    /**
+     * @return the partial file the bytes are written to until the download completes
+     */
+    public Path getPartialFile() {
+        return target.resolveSibling(target.getFileName() + ".part");
+    }
+
+    public RequestConfig[] getConfigs() {
+        return configs;
+    }
+
+    /**
+     * @param configs The configs to overload the requests of the download with
+     * @return this {@link Download} instance to be used for setter chaining
+     */
+    public Download setConfigs(RequestConfig... configs) {
+        this.configs = Arrays.copyOf(configs, configs.length);
+        return this;
+    }
+
+    public boolean isResuming() {
+        return resuming;
+    }
+
+    /**
+     * @param resuming Whether a partial file left by an earlier attempt is continued with a Range request, true by
+     *                 default. The download starts over if the file changed on the server in the meantime.
+     * @return this {@link Download} instance to be used for setter chaining
+     */
+    public Download setResuming(boolean resuming) {
+        this.resuming = resuming;
+        return this;
+    }
+
+    public int getSegments() {
+        return segments;
+    }
+
+    /**
+     * Split the download into byte ranges that are transferred concurrently, for servers that cap the throughput of a
+     * single connection. Only used by a {@link dev.yasper.rump.client.FileDownloader} with an executor and when the
+     * server advertises byte ranges, the size of the file and a strong validator, the file is downloaded in a single
+     * stream otherwise. A segmented download starts over on every call.
+     *
+     * @param segments The maximum number of segments, one by default
+     * @return this {@link Download} instance to be used for setter chaining
+     */
+    public Download setSegments(int segments) {
+        this.segments = segments;
+        return this;
+    }
+
+    public String getDigestAlgorithm() {
+        return digestAlgorithm;
+    }
+
+    public String getExpectedDigest() {
+        return expectedDigest;
+    }
+
+    /**
+     * Compute the digest of the file while downloading it, see {@link DownloadResult#getDigest()}
+     *
+     * @param digestAlgorithm The {@link java.security.MessageDigest} algorithm, such as SHA-256
+     * @return this {@link Download} instance to be used for setter chaining
+     */
+    public Download setDigestAlgorithm(String digestAlgorithm) {
+        this.digestAlgorithm = digestAlgorithm;
+        return this;
+    }
+
+    /**
+     * Verify the digest of the file once downloaded, a mismatch throws a
+     * {@link dev.yasper.rump.exception.ChecksumMismatchException} and discards the file
+     *
+     * @param digestAlgorithm The {@link java.security.MessageDigest} algorithm, such as SHA-256
+     * @param expectedDigest  The expected digest as hex, case is ignored
+     * @return this {@link Download} instance to be used for setter chaining
+     */
+    public Download setChecksum(String digestAlgorithm, String expectedDigest) {
+        this.digestAlgorithm = digestAlgorithm;
+        this.expectedDigest = expectedDigest;
+        return this;
+    }
+
+    public ProgressListener getProgressListener() {
+        return progressListener;
+    }
+
+    /**
+     * @param progressListener Receives the progress of the download
+     * @return this {@link Download} instance to be used for setter chaining
+     */
+    public Download setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "Download{" + "path='" + path + '\'' +
+                ", target=" + target +
+                ", resuming=" + resuming +
+                ", segments=" + segments +
+                ", digestAlgorithm='" + digestAlgorithm + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.download;
+
+import java.nio.file.Path;
+
+/**
+ * The outcome of a completed download
+ */
+public final class DownloadResult {
+
+    private final Path file;
+    private final long size;
+    private final long resumedFrom;
+    private final int resumes;
+    private final int segments;
+    private final String digest;
+
+    /**
+     * @param file        The downloaded file
+     * @param size        The size of the file in bytes
+     * @param resumedFrom The number of bytes of a partial file left by an earlier call that were kept
+     * @param resumes     The number of times the transfer was resumed after failing during this call
+     * @param segments    The number of segments the file was downloaded in
+     * @param digest      The digest of the file as hex, null if no digest algorithm was set
+     */
+    public DownloadResult(Path file, long size, long resumedFrom, int resumes, int segments, String digest) {
+        this.file = file;
+        this.size = size;
+        this.resumedFrom = resumedFrom;
+        this.resumes = resumes;
+        this.segments = segments;
+        this.digest = digest;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the number of bytes of a partial file left by an earlier call that were kept, zero if it started over
+     */
+    public long getResumedFrom() {
+        return resumedFrom;
+    }
+
+    /**
+     * @return the number of times the transfer was resumed after failing during this call
+     */
+    public int getResumes() {
+        return resumes;
+    }
+
+    /**
+     * @return the number of segments the file was downloaded in, one for a single stream
+     */
+    public int getSegments() {
+        return segments;
+    }
+
+    /**
+     * @return the digest of the file as lowercase hex, null if no digest algorithm was set
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+    @Override
+    public String toString() {
+        return "DownloadResult{" + "file=" + file +
+                ", size=" + size +
+                ", resumedFrom=" + resumedFrom +
+                ", resumes=" + resumes +
+                ", segments=" + segments +
+                ", digest='" + digest + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,34 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.download;
+
+/**
+ * Receives the progress of a download, called on the downloading thread after every buffer written to disk. The
+ * segments of a segmented download call it from the threads of the executor, one at a time.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /**
+     * @param transferred The number of bytes of the file on disk, including those of a resumed partial file, summed
+     *                    over the segments of a segmented download
+     * @param total       The size of the file, -1 if the server didn't tell
+     */
+    void onProgress(long transferred, long total);
+}
@@ -0,0 +1,49 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.exception;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the digest of a downloaded file doesn't match the expected digest, the file is discarded
+ */
+public class ChecksumMismatchException extends IOException {
+
+    private final String expected;
+    private final String actual;
+
+    /**
+     * Constructor for this exception
+     * @param expected The expected digest as hex
+     * @param actual The digest of the downloaded bytes as hex
+     */
+    public ChecksumMismatchException(String expected, String actual) {
+        super("Expected digest " + expected + " but the download has " + actual);
+        this.expected = expected;
+        this.actual = actual;
+    }
+
+    public String getExpected() {
+        return expected;
+    }
+
+    public String getActual() {
+        return actual;
+    }
+}
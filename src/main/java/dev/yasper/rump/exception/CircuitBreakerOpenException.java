@@ -0,0 +1,47 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.exception;
+
+/**
+ * Thrown instead of sending a request when the circuit breaker for its upstream is open, see
+ * {@link dev.yasper.rump.resilience.CircuitBreaker}
+ */
+public class CircuitBreakerOpenException extends RequestRejectedException {
+
+    private final long remaining;
+
+    /**
+     * Constructor for this exception
+     * @param key The key of the upstream the circuit belongs to
+     * @param remaining The time in milliseconds until the circuit lets trial requests through, zero if it is
+     *                  half-open and all trial requests are in flight
+     */
+    public CircuitBreakerOpenException(String key, long remaining) {
+        super(key, "Circuit breaker for " + key + " is open");
+        this.remaining = remaining;
+    }
+
+    /**
+     * Get the time until the circuit lets trial requests through
+     * @return the time in milliseconds
+     */
+    public long getRemaining() {
+        return remaining;
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.exception;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of sending a request when a {@link dev.yasper.rump.resilience.RequestGuard} rejects it, the request
+ * never reached the server
+ */
+public class RequestRejectedException extends IOException {
+
+    private final String key;
+
+    /**
+     * Constructor for this exception
+     * @param key The key of the upstream or group the request was rejected for
+     * @param message The reason the request was rejected
+     */
+    public RequestRejectedException(String key, String message) {
+        super(message);
+        this.key = key;
+    }
+
+    /**
+     * Get the key of the upstream or group the request was rejected for
+     * @return the key, such as the host or base URL
+     */
+    public String getKey() {
+        return key;
+    }
+}
@@ -20,21 +20,92 @@ package dev.yasper.rump.request;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.LRUMap;
 import dev.yasper.rump.Headers;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
 /**
- * Request transformer implementation to map objects to a json string to be sent in the request.
+ * Request transformer implementation to map objects to json to be sent in the request. When streamed the json is
+ * written directly to the request in the charset of the Content-Type header.
+ * The writers for the request body types are cached, the cache is cleared once it holds more types than the maximum.
  */
-public class JacksonRequestTransformer implements RequestTransformer {
+public class JacksonRequestTransformer implements StreamingRequestTransformer {
+
+    /**
+     * Default maximum number of request body types for which a writer is cached
+     */
+    public static final int DEFAULT_MAX_CACHED_TYPES = 256;
+
+    private final ObjectMapper om;
+    private final LRUMap<Class<?>, ObjectWriter> writers;
+
+    /**
+     * Constructor for a transformer with its own {@link ObjectMapper}
+     */
+    public JacksonRequestTransformer() {
+        this(new ObjectMapper());
+    }
 
-    private final ObjectMapper om = new ObjectMapper();
+    /**
+     * Constructor for a transformer that uses a shared, pre-configured {@link ObjectMapper}
+     *
+     * @param om The mapper to write the request bodies with
+     */
+    public JacksonRequestTransformer(ObjectMapper om) {
+        this(om, DEFAULT_MAX_CACHED_TYPES);
+    }
+
+    /**
+     * Constructor for a transformer that uses a shared, pre-configured {@link ObjectMapper}
+     *
+     * @param om             The mapper to write the request bodies with
+     * @param maxCachedTypes The maximum number of request body types for which a writer is cached
+     */
+    public JacksonRequestTransformer(ObjectMapper om, int maxCachedTypes) {
+        this.om = om;
+        this.writers = new LRUMap<>(Math.min(16, maxCachedTypes), maxCachedTypes);
+    }
 
     @Override
     public Object transform(Object data, Headers headers) {
         try {
-            return om.writeValueAsString(data);
+            return writer(data).writeValueAsString(data);
         } catch (JsonProcessingException e) {
             return "";
         }
     }
+
+    @Override
+    public void transform(Object data, Headers headers, OutputStream output) throws IOException {
+        Charset charset = headers.getContentCharset();
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            writer(data).writeValue(output, data);
+            return;
+        }
+
+        Writer writer = new OutputStreamWriter(output, charset);
+        writer(data).writeValue(writer, data);
+    }
+
+    private ObjectWriter writer(Object data) {
+        if (data == null) {
+            return om.writer();
+        }
+
+        Class<?> type = data.getClass();
+        ObjectWriter writer = writers.get(type);
+        if (writer == null) {
+            writer = om.writerFor(type);
+            writers.put(type, writer);
+        }
+
+        return writer;
+    }
 }
@@ -0,0 +1,159 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.request;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * <p>
+ * A multipart/form-data request body, pass it as the request body of a POST or PUT such as
+ * {@link dev.yasper.rump.client.DefaultRestClient#postForObject}.
+ * The Content-Type of the request is set to multipart/form-data with the boundary of the body.
+ * </p>
+ *
+ * <p>
+ * The body is always streamed to the connection instead of being transformed by the request transformer: with a
+ * fixed Content-Length when the length of every {@link Part} is known up front, else with chunked transfer encoding
+ * using the {@link dev.yasper.rump.config.RequestConfig#setStreamingChunkSize(int)} or
+ * {@link #DEFAULT_CHUNK_SIZE} when the config buffers request bodies. Both transports send a streamed body while it
+ * is written.
+ * </p>
+ */
+public class MultipartBody {
+
+    /**
+     * The chunk size multipart bodies are streamed with when the config has none
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    private static final String MULTIPART_FORM_DATA = "multipart/form-data";
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String boundary;
+    private final List<Part> parts = new ArrayList<>();
+
+    /**
+     * Constructor for a body with a random boundary
+     */
+    public MultipartBody() {
+        this("rump-" + UUID.randomUUID().toString().replace("-", ""));
+    }
+
+    /**
+     * @param boundary The boundary between the parts, it may not occur in any of them
+     */
+    public MultipartBody(String boundary) {
+        this.boundary = boundary;
+    }
+
+    /**
+     * @param part The part to add
+     * @return this {@link MultipartBody} instance to be used for setter chaining
+     */
+    public MultipartBody addPart(Part part) {
+        parts.add(part);
+        return this;
+    }
+
+    /**
+     * Adds a text field, see {@link Part#of(String, String)}
+     *
+     * @return this {@link MultipartBody} instance to be used for setter chaining
+     */
+    public MultipartBody addField(String name, String value) {
+        return addPart(Part.of(name, value));
+    }
+
+    /**
+     * Adds a file, see {@link Part#of(String, Path)}
+     *
+     * @return this {@link MultipartBody} instance to be used for setter chaining
+     */
+    public MultipartBody addFile(String name, Path file) {
+        return addPart(Part.of(name, file));
+    }
+
+    public List<Part> getParts() {
+        return Collections.unmodifiableList(parts);
+    }
+
+    public String getBoundary() {
+        return boundary;
+    }
+
+    /**
+     * @return the Content-Type of the request, including the boundary
+     */
+    public String getContentType() {
+        return MULTIPART_FORM_DATA + "; boundary=" + boundary;
+    }
+
+    /**
+     * @return the number of bytes {@link #writeTo(OutputStream)} will write, -1 if a part has an unknown length
+     */
+    public long getContentLength() {
+        long length = closeDelimiter().length;
+        for (Part part : parts) {
+            long content = part.getContentLength();
+            if (content < 0) {
+                return -1;
+            }
+
+            length += part.head(boundary).length + content + CRLF.length;
+        }
+
+        return length;
+    }
+
+    /**
+     * Write the parts to the output, reading each of them from its source
+     *
+     * @param output The stream to write the body to, not closed
+     * @throws IOException Thrown when reading a part or writing to the output fails
+     */
+    public void writeTo(OutputStream output) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for (Part part : parts) {
+            output.write(part.head(boundary));
+            part.writeTo(output, buffer);
+            output.write(CRLF);
+        }
+
+        output.write(closeDelimiter());
+    }
+
+    private byte[] closeDelimiter() {
+        return ("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return "MultipartBody{" + "boundary='" + boundary + '\'' +
+                ", parts=" + parts +
+                '}';
+    }
+}
@@ -0,0 +1,288 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.request;
+
+import dev.yasper.rump.HeaderNames;
+import dev.yasper.rump.Headers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A part of a {@link MultipartBody}. The content of a part is read from its source while the body is written to the
+ * connection, so files and streams are never held in memory as a whole.
+ */
+public class Part {
+
+    /**
+     * The Content-Type of files and streams whose type is not set or can't be determined
+     */
+    public static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    private static final String CRLF = "\r\n";
+
+    private final String name;
+    private final Source source;
+    private final Headers headers = new Headers();
+    private String fileName;
+
+    private Part(String name, Source source) {
+        this.name = name;
+        this.source = source;
+    }
+
+    /**
+     * A text field, encoded as UTF-8
+     *
+     * @param name  The name of the field
+     * @param value The value of the field
+     * @return the part
+     */
+    public static Part of(String name, String value) {
+        return of(name, ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * A file, read when the body is written. The file name is sent along and the Content-Type is guessed from it.
+     *
+     * @param name The name of the field
+     * @param file The file to upload
+     * @return the part
+     */
+    public static Part of(String name, Path file) {
+        String contentType;
+        try {
+            contentType = Files.probeContentType(file);
+        } catch (IOException e) {
+            contentType = null;
+        }
+
+        return new Part(name, new FileSource(file))
+                .setFileName(String.valueOf(file.getFileName()))
+                .setContentType(contentType == null ? DEFAULT_CONTENT_TYPE : contentType);
+    }
+
+    /**
+     * A stream, which is read once and closed when the body is written. A body with a stream of unknown length is
+     * sent with chunked transfer encoding.
+     *
+     * @param name   The name of the field
+     * @param input  The stream to upload
+     * @param length The number of bytes in the stream, -1 if not known
+     * @return the part
+     */
+    public static Part of(String name, InputStream input, long length) {
+        return new Part(name, new StreamSource(input, length)).setContentType(DEFAULT_CONTENT_TYPE);
+    }
+
+    /**
+     * The remaining bytes of a buffer, the position of the buffer is left as is
+     *
+     * @param name    The name of the field
+     * @param content The bytes to upload
+     * @return the part
+     */
+    public static Part of(String name, ByteBuffer content) {
+        return new Part(name, new BufferSource(content.duplicate()));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * @param fileName The file name sent in the Content-Disposition of the part, null to send none
+     * @return this {@link Part} instance to be used for setter chaining
+     */
+    public Part setFileName(String fileName) {
+        this.fileName = fileName;
+        return this;
+    }
+
+    public String getContentType() {
+        return headers.getContentType();
+    }
+
+    public Part setContentType(String contentType) {
+        headers.setContentType(contentType);
+        return this;
+    }
+
+    public Headers getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @param key   The name of the header
+     * @param value The value of the header, sent in the headers of the part
+     * @return this {@link Part} instance to be used for setter chaining
+     */
+    public Part setHeader(String key, String value) {
+        headers.setHeader(key, value);
+        return this;
+    }
+
+    /**
+     * @return the number of bytes of the content, -1 if not known up front
+     */
+    public long getContentLength() {
+        return source.length();
+    }
+
+    /**
+     * The delimiter and headers that precede the content
+     */
+    byte[] head(String boundary) {
+        StringBuilder head = new StringBuilder("--").append(boundary).append(CRLF)
+                .append(HeaderNames.CONTENT_DISPOSITION).append(": form-data; name=\"").append(escape(name))
+                .append('"');
+        if (fileName != null) {
+            head.append("; filename=\"").append(escape(fileName)).append('"');
+        }
+
+        head.append(CRLF);
+        for (String key : headers.headerKeys()) {
+            head.append(key).append(": ").append(headers.getSafeValue(key)).append(CRLF);
+        }
+
+        return head.append(CRLF).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    void writeTo(OutputStream output, byte[] buffer) throws IOException {
+        source.writeTo(output, buffer);
+    }
+
+    /**
+     * Escapes quoted names and file names the way browsers do for form-data
+     */
+    private static String escape(String value) {
+        return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+    }
+
+    @Override
+    public String toString() {
+        return "Part{" + "name='" + name + '\'' +
+                ", fileName='" + fileName + '\'' +
+                ", contentLength=" + getContentLength() +
+                '}';
+    }
+
+    private interface Source {
+        long length();
+
+        void writeTo(OutputStream output, byte[] buffer) throws IOException;
+    }
+
+    private static final class FileSource implements Source {
+        private final Path file;
+
+        private FileSource(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public long length() {
+            try {
+                return Files.size(file);
+            } catch (IOException e) {
+                // The error surfaces once the file is read
+                return -1;
+            }
+        }
+
+        @Override
+        public void writeTo(OutputStream output, byte[] buffer) throws IOException {
+            try (InputStream input = Files.newInputStream(file)) {
+                copy(input, output, buffer);
+            }
+        }
+    }
+
+    private static final class StreamSource implements Source {
+        private final InputStream input;
+        private final long length;
+        private boolean consumed;
+
+        private StreamSource(InputStream input, long length) {
+            this.input = input;
+            this.length = length;
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public synchronized void writeTo(OutputStream output, byte[] buffer) throws IOException {
+            if (consumed) {
+                throw new IOException("The stream of a part can only be sent once, the request can't be resent");
+            }
+
+            consumed = true;
+            try (input) {
+                copy(input, output, buffer);
+            }
+        }
+    }
+
+    private static final class BufferSource implements Source {
+        private final ByteBuffer content;
+
+        private BufferSource(ByteBuffer content) {
+            this.content = content;
+        }
+
+        @Override
+        public long length() {
+            return content.remaining();
+        }
+
+        @Override
+        public void writeTo(OutputStream output, byte[] buffer) throws IOException {
+            ByteBuffer remaining = content.duplicate();
+            if (remaining.hasArray()) {
+                output.write(remaining.array(), remaining.arrayOffset() + remaining.position(), remaining.remaining());
+                return;
+            }
+
+            while (remaining.hasRemaining()) {
+                int length = Math.min(buffer.length, remaining.remaining());
+                remaining.get(buffer, 0, length);
+                output.write(buffer, 0, length);
+            }
+        }
+    }
+
+    private static void copy(InputStream input, OutputStream output, byte[] buffer) throws IOException {
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+    }
+}
@@ -26,6 +26,15 @@ import dev.yasper.rump.config.RequestConfig;
 public enum RequestMethod {
     GET, POST, PUT, DELETE, PATCH, HEAD;
 
+    /**
+     * Whether sending a request with this method more than once has the same effect as sending it once
+     *
+     * @return true for every method except POST and PATCH
+     */
+    public boolean isIdempotent() {
+        return this != POST && this != PATCH;
+    }
+
     /**
      * <p>
      * Transforms the request method to a configurable value usable as a config overload.
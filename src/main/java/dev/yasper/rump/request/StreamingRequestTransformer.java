@@ -0,0 +1,50 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.request;
+
+import dev.yasper.rump.Headers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Request transformer that writes the request body directly to the connection instead of creating the whole body in
+ * memory first.
+ */
+public interface StreamingRequestTransformer extends RequestTransformer {
+
+    /**
+     * Write a request body object to the output of the request.
+     * @param data The request body that is to be written
+     * @param headers The headers of the request, the charset of the body is taken from the Content-Type
+     * @param output The stream to write the body to, closed by the caller
+     * @throws IOException Thrown when writing to the output fails
+     */
+    void transform(Object data, Headers headers, OutputStream output) throws IOException;
+
+    /**
+     * Get the number of bytes {@link #transform(Object, Headers, OutputStream)} will write, if known up front.
+     * @param data The request body that is to be written
+     * @param headers The headers of the request
+     * @return The length in bytes or -1 if it is not known
+     */
+    default long getContentLength(Object data, Headers headers) {
+        return -1;
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.resilience;
+
+import dev.yasper.rump.exception.RequestRejectedException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * A counting semaphore with a bounded queue whose waiters are futures, so waiting for a permit does not hold a thread.
+ * Used by the guards that bound the number of requests in flight.
+ */
+final class AsyncSemaphore {
+
+    private final String key;
+    private final String name;
+    private final Deque<Waiter> queue = new ArrayDeque<>();
+    private int limit;
+    private int inFlight = 0;
+    private long accepted = 0;
+    private long rejected = 0;
+
+    /**
+     * @param key   The key of the upstream or group the semaphore belongs to
+     * @param name  The name of the guard, used in the messages of rejections
+     * @param limit The number of permits
+     */
+    AsyncSemaphore(String key, String name, int limit) {
+        this.key = key;
+        this.name = name;
+        this.limit = limit;
+    }
+
+    /**
+     * Take a permit, or wait for one in the queue
+     *
+     * @param maxQueue The number of waiters the queue holds
+     * @param maxWait  The time in milliseconds a waiter waits before it is rejected, zero to wait indefinitely
+     * @param grant    Creates the permit from the number of permits taken including it
+     * @return a future completed with the permit, or with a {@link RequestRejectedException} when the queue is full or
+     * the wait timed out. Cancelling the future leaves the queue.
+     */
+    CompletableFuture<RequestGuard.Permit> acquire(int maxQueue, long maxWait,
+                                                   IntFunction<RequestGuard.Permit> grant) {
+        Waiter waiter;
+        synchronized (this) {
+            if (inFlight < limit) {
+                inFlight++;
+                accepted++;
+                return CompletableFuture.completedFuture(grant.apply(inFlight));
+            }
+
+            if (queue.size() >= maxQueue) {
+                rejected++;
+                return CompletableFuture.failedFuture(
+                        new RequestRejectedException(key, "No room in the " + name + " of " + key));
+            }
+
+            waiter = new Waiter(grant);
+            queue.add(waiter);
+        }
+
+        // Leave the queue when the wait is cancelled
+        waiter.future.whenComplete((permit, e) -> {
+            if (e != null) {
+                synchronized (this) {
+                    queue.remove(waiter);
+                }
+            }
+        });
+
+        if (maxWait > 0) {
+            CompletableFuture.delayedExecutor(maxWait, TimeUnit.MILLISECONDS).execute(() -> {
+                synchronized (this) {
+                    if (!queue.remove(waiter)) {
+                        // Got a permit or was cancelled already
+                        return;
+                    }
+
+                    rejected++;
+                }
+
+                waiter.future.completeExceptionally(
+                        new RequestRejectedException(key, "Waited too long for the " + name + " of " + key));
+            });
+        }
+
+        return waiter.future;
+    }
+
+    /**
+     * Give back a permit and hand it to the next waiter
+     */
+    void release() {
+        synchronized (this) {
+            inFlight--;
+        }
+
+        dispatch();
+    }
+
+    /**
+     * Change the number of permits, permits already taken stay valid when it shrinks
+     *
+     * @param limit The number of permits
+     */
+    void setLimit(int limit) {
+        synchronized (this) {
+            this.limit = limit;
+        }
+
+        dispatch();
+    }
+
+    private void dispatch() {
+        while (true) {
+            Waiter waiter;
+            RequestGuard.Permit permit;
+            synchronized (this) {
+                if (queue.isEmpty() || inFlight >= limit) {
+                    return;
+                }
+
+                waiter = queue.poll();
+                inFlight++;
+                permit = waiter.grant.apply(inFlight);
+            }
+
+            if (waiter.future.complete(permit)) {
+                synchronized (this) {
+                    accepted++;
+                }
+            } else {
+                // Timed out or cancelled in the meantime, give the permit to the next waiter
+                synchronized (this) {
+                    inFlight--;
+                }
+            }
+        }
+    }
+
+    synchronized int getLimit() {
+        return limit;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    synchronized int getQueued() {
+        return queue.size();
+    }
+
+    synchronized long getAccepted() {
+        return accepted;
+    }
+
+    synchronized long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Wait for a permit on the current thread
+     *
+     * @param permit The future returned by {@link #acquire(int, long, IntFunction)}
+     * @return the permit
+     * @throws IOException Thrown when the permit was rejected or the thread was interrupted
+     */
+    static RequestGuard.Permit await(CompletableFuture<RequestGuard.Permit> permit) throws IOException {
+        try {
+            return permit.get();
+        } catch (InterruptedException e) {
+            if (!permit.cancel(false) && !permit.isCompletedExceptionally()) {
+                permit.join().release();
+            }
+
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a permit");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static final class Waiter {
+        private final CompletableFuture<RequestGuard.Permit> future = new CompletableFuture<>();
+        private final IntFunction<RequestGuard.Permit> grant;
+
+        private Waiter(IntFunction<RequestGuard.Permit> grant) {
+            this.grant = grant;
+        }
+    }
+}
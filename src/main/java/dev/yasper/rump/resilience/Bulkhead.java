@@ -0,0 +1,324 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.resilience;
+
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.response.HttpResponse;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ * Splits the requests of a client into compartments that each have their own bounded number of requests in flight and
+ * their own bounded wait queue, see {@link RequestConfig#setBulkhead(Bulkhead)}. A dependency that slows down can only
+ * fill its own compartment, so it cannot take the executor threads or connections meant for the others.
+ * </p>
+ *
+ * <p>
+ * A request belongs to the compartment named by {@link RequestConfig#setBulkheadGroup(String)}, or else to the
+ * compartment of its base URL or host depending on the {@link Scope}. Every compartment has the default size unless
+ * it was sized with {@link #setCompartment(String, int, int)}. Requests that find the queue full, or wait longer than
+ * the maximum wait, are rejected with a {@link dev.yasper.rump.exception.RequestRejectedException}. Asynchronous
+ * requests wait without holding a thread.
+ * </p>
+ *
+ * <p>
+ * To isolate the threads of the {@link dev.yasper.rump.client.AsyncRestClient} the sum of the compartment sizes
+ * should not exceed the size of its executor when the transport blocks while a request is in flight.
+ * </p>
+ */
+public class Bulkhead implements RequestGuard {
+
+    private final Map<String, AsyncSemaphore> compartments = new ConcurrentHashMap<>();
+    private final Map<String, int[]> sizes = new ConcurrentHashMap<>();
+
+    private volatile Scope scope = Scope.BASE_URL;
+    private volatile int maxConcurrent;
+    private volatile int maxQueue;
+    private volatile long maxWait = 0;
+
+    /**
+     * Constructor for a bulkhead
+     *
+     * @param maxConcurrent The default number of requests in flight per compartment
+     * @param maxQueue      The default number of requests that can wait per compartment
+     */
+    public Bulkhead(int maxConcurrent, int maxQueue) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+    }
+
+    /**
+     * Create the key of the compartment a request belongs to
+     *
+     * @param url    The url of the request
+     * @param config The config of the request
+     * @return the group, the base URL or the host and port of the request
+     */
+    public String key(URL url, RequestConfig config) {
+        if (config.getBulkheadGroup() != null) {
+            return config.getBulkheadGroup();
+        }
+
+        if (scope == Scope.BASE_URL && config.getBaseURL() != null && !config.getBaseURL().isEmpty()) {
+            return config.getBaseURL();
+        }
+
+        int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+        return url.getHost() + ":" + port;
+    }
+
+    @Override
+    public RequestGuard.Permit acquire(URL url, RequestConfig config) throws IOException {
+        return AsyncSemaphore.await(acquireAsync(url, config, null));
+    }
+
+    @Override
+    public CompletableFuture<RequestGuard.Permit> acquireAsync(URL url, RequestConfig config, Executor executor) {
+        String key = key(url, config);
+        AsyncSemaphore compartment = compartments.computeIfAbsent(key,
+                ignore -> new AsyncSemaphore(key, "bulkhead", getSize(key)[0]));
+        return compartment.acquire(getSize(key)[1], maxWait, inFlight -> new Permit(compartment));
+    }
+
+    private int[] getSize(String key) {
+        int[] size = sizes.get(key);
+        return size == null ? new int[]{maxConcurrent, maxQueue} : size;
+    }
+
+    /**
+     * Size a compartment differently from the default
+     *
+     * @param key           The group name, base URL or host and port of the compartment, see
+     *                      {@link #key(URL, RequestConfig)}
+     * @param maxConcurrent The number of requests in flight in the compartment
+     * @param maxQueue      The number of requests that can wait in the compartment
+     * @return this {@link Bulkhead} instance to be used for setter chaining
+     */
+    public Bulkhead setCompartment(String key, int maxConcurrent, int maxQueue) {
+        sizes.put(key, new int[]{maxConcurrent, maxQueue});
+        AsyncSemaphore compartment = compartments.get(key);
+        if (compartment != null) {
+            compartment.setLimit(maxConcurrent);
+        }
+
+        return this;
+    }
+
+    /**
+     * Get the metrics of a compartment
+     *
+     * @param key The key of the compartment, see {@link #key(URL, RequestConfig)}
+     * @return the metrics, all zero if no request was made in the compartment yet
+     */
+    public Metrics getMetrics(String key) {
+        AsyncSemaphore compartment = compartments.get(key);
+        if (compartment == null) {
+            int[] size = getSize(key);
+            return new Metrics(size[0], size[1], 0, 0, 0, 0);
+        }
+
+        return metrics(key, compartment);
+    }
+
+    /**
+     * Get the metrics of every compartment
+     *
+     * @return the metrics by key
+     */
+    public Map<String, Metrics> getMetrics() {
+        Map<String, Metrics> metrics = new TreeMap<>();
+        compartments.forEach((key, compartment) -> metrics.put(key, metrics(key, compartment)));
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    private Metrics metrics(String key, AsyncSemaphore compartment) {
+        return new Metrics(compartment.getLimit(), getSize(key)[1], compartment.getInFlight(),
+                compartment.getQueued(), compartment.getAccepted(), compartment.getRejected());
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * @param scope Whether requests without a group share a compartment per base URL or per host
+     * @return this {@link Bulkhead} instance to be used for setter chaining
+     */
+    public Bulkhead setScope(Scope scope) {
+        this.scope = scope;
+        return this;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * @param maxConcurrent The default number of requests in flight per compartment, applies to compartments created
+     *                      after the change
+     * @return this {@link Bulkhead} instance to be used for setter chaining
+     */
+    public Bulkhead setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+        return this;
+    }
+
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+
+    /**
+     * @param maxQueue The default number of requests that can wait per compartment, zero to reject requests that find
+     *                 the compartment full immediately
+     * @return this {@link Bulkhead} instance to be used for setter chaining
+     */
+    public Bulkhead setMaxQueue(int maxQueue) {
+        this.maxQueue = maxQueue;
+        return this;
+    }
+
+    public long getMaxWait() {
+        return maxWait;
+    }
+
+    /**
+     * @param maxWait The time in milliseconds a queued request waits before it is rejected, zero to wait indefinitely
+     * @return this {@link Bulkhead} instance to be used for setter chaining
+     */
+    public Bulkhead setMaxWait(long maxWait) {
+        this.maxWait = maxWait;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "Bulkhead{" + "scope=" + scope +
+                ", maxConcurrent=" + maxConcurrent +
+                ", maxQueue=" + maxQueue +
+                ", maxWait=" + maxWait +
+                ", compartments=" + getMetrics() +
+                '}';
+    }
+
+    /**
+     * What requests without a group share a compartment
+     */
+    public enum Scope {
+        /**
+         * Requests to the same host and port
+         */
+        HOST,
+        /**
+         * Requests with the same base URL, requests without a base URL share a compartment per host
+         */
+        BASE_URL
+    }
+
+    /**
+     * A snapshot of the state of a compartment
+     */
+    public static final class Metrics {
+        private final int maxConcurrent;
+        private final int maxQueue;
+        private final int inFlight;
+        private final int queued;
+        private final long accepted;
+        private final long rejected;
+
+        private Metrics(int maxConcurrent, int maxQueue, int inFlight, int queued, long accepted, long rejected) {
+            this.maxConcurrent = maxConcurrent;
+            this.maxQueue = maxQueue;
+            this.inFlight = inFlight;
+            this.queued = queued;
+            this.accepted = accepted;
+            this.rejected = rejected;
+        }
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public int getMaxQueue() {
+            return maxQueue;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public int getQueued() {
+            return queued;
+        }
+
+        /**
+         * @return the number of requests that got a permit, directly or after waiting
+         */
+        public long getAccepted() {
+            return accepted;
+        }
+
+        /**
+         * @return the number of requests rejected because the queue was full or they waited too long
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        @Override
+        public String toString() {
+            return "Metrics{" + "maxConcurrent=" + maxConcurrent +
+                    ", maxQueue=" + maxQueue +
+                    ", inFlight=" + inFlight +
+                    ", queued=" + queued +
+                    ", accepted=" + accepted +
+                    ", rejected=" + rejected +
+                    '}';
+        }
+    }
+
+    private static final class Permit implements RequestGuard.Permit {
+        private final AsyncSemaphore compartment;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(AsyncSemaphore compartment) {
+            this.compartment = compartment;
+        }
+
+        @Override
+        public void complete(HttpResponse<?> response, Throwable failure) {
+            release();
+        }
+
+        @Override
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                compartment.release();
+            }
+        }
+    }
+}
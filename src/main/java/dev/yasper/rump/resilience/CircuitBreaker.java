@@ -0,0 +1,519 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.resilience;
+
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.exception.CircuitBreakerOpenException;
+import dev.yasper.rump.exception.HttpStatusCodeException;
+import dev.yasper.rump.exception.RequestRejectedException;
+import dev.yasper.rump.response.HttpResponse;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * <p>
+ * Stops sending requests to an upstream that keeps failing or responding slowly, see
+ * {@link RequestConfig#setCircuitBreaker(CircuitBreaker)}. Every upstream, a host or a base URL depending on the
+ * {@link Scope}, has its own circuit.
+ * </p>
+ *
+ * <p>
+ * A closed circuit records the outcome of the most recent requests in a sliding window. Once the window holds the
+ * minimum number of calls and the failure rate or the slow call rate reaches its threshold the circuit opens. An open
+ * circuit fails requests immediately with a {@link CircuitBreakerOpenException}. After the open duration the circuit
+ * is half-open and lets a limited number of trial requests through, depending on their outcome it closes or opens
+ * again.
+ * </p>
+ *
+ * <p>
+ * A request fails when it throws an exception, other than being rejected by a {@link RequestGuard}, or when its status
+ * code matches the failure status predicate, server errors by default. A status code is only seen when the
+ * {@link dev.yasper.rump.exception.ExceptionHandler} throws the {@link HttpStatusCodeException}.
+ * </p>
+ */
+public class CircuitBreaker implements RequestGuard {
+
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    private volatile Scope scope = Scope.HOST;
+    private volatile double failureRateThreshold = 50;
+    private volatile double slowCallRateThreshold = 100;
+    private volatile long slowCallDuration = 5000;
+    private volatile int windowSize = 100;
+    private volatile int minimumCalls = 20;
+    private volatile long openDuration = 30_000;
+    private volatile int halfOpenCalls = 5;
+    private volatile Predicate<Integer> failureStatus = code -> code >= 500;
+    private volatile Listener listener = null;
+
+    /**
+     * Create the key of the circuit a request belongs to
+     *
+     * @param url    The url of the request
+     * @param config The config of the request
+     * @return the host and port, or the base URL, of the request
+     */
+    public String key(URL url, RequestConfig config) {
+        if (scope == Scope.BASE_URL && config.getBaseURL() != null && !config.getBaseURL().isEmpty()) {
+            return config.getBaseURL();
+        }
+
+        int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+        return url.getHost() + ":" + port;
+    }
+
+    /**
+     * Ask the circuit of a request for permission to send it
+     *
+     * @param url    The url of the request
+     * @param config The config of the request
+     * @return the permit, {@link Permit#complete(HttpResponse, Throwable)} must be called with the outcome of the
+     * request
+     * @throws CircuitBreakerOpenException Thrown when the circuit is open
+     */
+    @Override
+    public Permit acquire(URL url, RequestConfig config) throws CircuitBreakerOpenException {
+        String key = key(url, config);
+        Circuit circuit = circuits.computeIfAbsent(key, Circuit::new);
+        return new Permit(circuit, circuit.acquire());
+    }
+
+    /**
+     * Get the state of a circuit
+     *
+     * @param key The key of the circuit, see {@link #key(URL, RequestConfig)}
+     * @return the state, closed if no request was made to the upstream yet
+     */
+    public State getState(String key) {
+        Circuit circuit = circuits.get(key);
+        return circuit == null ? State.CLOSED : circuit.getState();
+    }
+
+    /**
+     * Get the state of every circuit
+     *
+     * @return the states by key
+     */
+    public Map<String, State> getStates() {
+        Map<String, State> states = new TreeMap<>();
+        for (Circuit circuit : circuits.values()) {
+            states.put(circuit.key, circuit.getState());
+        }
+
+        return Collections.unmodifiableMap(states);
+    }
+
+    /**
+     * Close every circuit and forget the recorded outcomes
+     */
+    public void reset() {
+        for (Circuit circuit : circuits.values()) {
+            circuit.reset();
+        }
+    }
+
+    boolean isFailure(Throwable failure) {
+        Throwable cause = RetryPolicy.unwrap(failure);
+        if (cause instanceof RequestRejectedException) {
+            return false;
+        }
+
+        if (cause instanceof HttpStatusCodeException) {
+            return failureStatus.test(((HttpStatusCodeException) cause).getErrorResponse().getResponseCode());
+        }
+
+        return true;
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * @param scope Whether requests share a circuit per host or per base URL
+     * @return this {@link CircuitBreaker} instance to be used for setter chaining
+     */
+    public CircuitBreaker setScope(Scope scope) {
+        this.scope = scope;
+        return this;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    /**
+     * @param failureRateThreshold The percentage of failed calls in the window at which the circuit opens
+     * @return this {@link CircuitBreaker} instance to be used for setter chaining
+     */
+    public CircuitBreaker setFailureRateThreshold(double failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+        return this;
+    }
+
+    public double getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    /**
+     * @param slowCallRateThreshold The percentage of slow calls in the window at which the circuit opens
+     * @return this {@link CircuitBreaker} instance to be used for setter chaining
+     */
+    public CircuitBreaker setSlowCallRateThreshold(double slowCallRateThreshold) {
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        return this;
+    }
+
+    public long getSlowCallDuration() {
+        return slowCallDuration;
+    }
+
+    /**
+     * @param slowCallDuration The duration in milliseconds above which a call is slow
+     * @return this {@link CircuitBreaker} instance to be used for setter chaining
+     */
+    public CircuitBreaker setSlowCallDuration(long slowCallDuration) {
+        this.slowCallDuration = slowCallDuration;
+        return this;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * @param windowSize The number of most recent calls the rates are computed over, applies to circuits created
+     *                   after the change
+     * @return this {@link CircuitBreaker} instance to be used for setter chaining
+     */
+    public CircuitBreaker setWindowSize(int windowSize) {
+        this.windowSize = windowSize;
+        return this;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    /**
+     * @param minimumCalls The number of calls the window must hold before the circuit can open
+     * @return this {@link CircuitBreaker} instance to be used for setter chaining
+     */
+    public CircuitBreaker setMinimumCalls(int minimumCalls) {
+        this.minimumCalls = minimumCalls;
+        return this;
+    }
+
+    public long getOpenDuration() {
+        return openDuration;
+    }
+
+    /**
+     * @param openDuration The time in milliseconds a circuit stays open before it lets trial requests through
+     * @return this {@link CircuitBreaker} instance to be used for setter chaining
+     */
+    public CircuitBreaker setOpenDuration(long openDuration) {
+        this.openDuration = openDuration;
+        return this;
+    }
+
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+
+    /**
+     * @param halfOpenCalls The number of trial requests a half-open circuit lets through
+     * @return this {@link CircuitBreaker} instance to be used for setter chaining
+     */
+    public CircuitBreaker setHalfOpenCalls(int halfOpenCalls) {
+        this.halfOpenCalls = halfOpenCalls;
+        return this;
+    }
+
+    public Predicate<Integer> getFailureStatus() {
+        return failureStatus;
+    }
+
+    /**
+     * @param failureStatus Tests whether the status code of an {@link HttpStatusCodeException} counts as a failure
+     * @return this {@link CircuitBreaker} instance to be used for setter chaining
+     */
+    public CircuitBreaker setFailureStatus(Predicate<Integer> failureStatus) {
+        this.failureStatus = failureStatus;
+        return this;
+    }
+
+    public Listener getListener() {
+        return listener;
+    }
+
+    /**
+     * @param listener Called whenever a circuit changes state, for example to raise an alert
+     * @return this {@link CircuitBreaker} instance to be used for setter chaining
+     */
+    public CircuitBreaker setListener(Listener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreaker{" + "scope=" + scope +
+                ", failureRateThreshold=" + failureRateThreshold +
+                ", slowCallRateThreshold=" + slowCallRateThreshold +
+                ", slowCallDuration=" + slowCallDuration +
+                ", windowSize=" + windowSize +
+                ", minimumCalls=" + minimumCalls +
+                ", openDuration=" + openDuration +
+                ", halfOpenCalls=" + halfOpenCalls +
+                ", states=" + getStates() +
+                '}';
+    }
+
+    /**
+     * The states of a circuit
+     */
+    public enum State {
+        /**
+         * Requests are sent and their outcomes recorded
+         */
+        CLOSED,
+        /**
+         * Requests fail immediately
+         */
+        OPEN,
+        /**
+         * A limited number of trial requests is sent to decide whether the circuit closes again
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * What requests share a circuit
+     */
+    public enum Scope {
+        /**
+         * Requests to the same host and port
+         */
+        HOST,
+        /**
+         * Requests with the same base URL, requests without a base URL share a circuit per host
+         */
+        BASE_URL
+    }
+
+    /**
+     * Listener for state changes of circuits
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Called when a circuit changes state
+         *
+         * @param key  The key of the circuit
+         * @param from The previous state
+         * @param to   The new state
+         */
+        void onStateChange(String key, State from, State to);
+    }
+
+    /**
+     * Permission to send a request, records the outcome of the request in its circuit
+     */
+    public final class Permit implements RequestGuard.Permit {
+        private final Circuit circuit;
+        private final long generation;
+        private final long start = System.nanoTime();
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private Permit(Circuit circuit, long generation) {
+            this.circuit = circuit;
+            this.generation = generation;
+        }
+
+        @Override
+        public void complete(HttpResponse<?> response, Throwable failure) {
+            if (completed.compareAndSet(false, true)) {
+                long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                circuit.record(generation, failure != null && isFailure(failure), duration >= slowCallDuration);
+            }
+        }
+
+        @Override
+        public void release() {
+            if (completed.compareAndSet(false, true)) {
+                circuit.release(generation);
+            }
+        }
+    }
+
+    private final class Circuit {
+        private static final byte FAILED = 1;
+        private static final byte SLOW = 2;
+
+        private final String key;
+        private final byte[] window = new byte[Math.max(1, windowSize)];
+        private int calls = 0;
+        private int index = 0;
+        private int failures = 0;
+        private int slowCalls = 0;
+        private State state = State.CLOSED;
+        private long openedAt = 0;
+        private int trials = 0;
+        private int trialsCompleted = 0;
+        private long generation = 0;
+
+        private Circuit(String key) {
+            this.key = key;
+        }
+
+        private long acquire() throws CircuitBreakerOpenException {
+            State from;
+            State to;
+            long acquired;
+            synchronized (this) {
+                from = state;
+                if (state == State.OPEN) {
+                    long remaining = openDuration - (System.currentTimeMillis() - openedAt);
+                    if (remaining > 0) {
+                        throw new CircuitBreakerOpenException(key, remaining);
+                    }
+
+                    transition(State.HALF_OPEN);
+                }
+
+                if (state == State.HALF_OPEN) {
+                    if (trials >= halfOpenCalls) {
+                        throw new CircuitBreakerOpenException(key, 0);
+                    }
+
+                    trials++;
+                }
+
+                to = state;
+                acquired = generation;
+            }
+
+            notifyListener(from, to);
+            return acquired;
+        }
+
+        private void record(long permitGeneration, boolean failed, boolean slow) {
+            State from;
+            State to;
+            synchronized (this) {
+                from = state;
+                if (permitGeneration != generation) {
+                    // Outcome of a request that was sent before the circuit last changed state
+                    return;
+                }
+
+                add((byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0)));
+                if (state == State.HALF_OPEN) {
+                    trialsCompleted++;
+                    if (trialsCompleted >= halfOpenCalls) {
+                        transition(exceedsThresholds() ? State.OPEN : State.CLOSED);
+                    }
+                } else if (calls >= minimumCalls && exceedsThresholds()) {
+                    transition(State.OPEN);
+                }
+
+                to = state;
+            }
+
+            notifyListener(from, to);
+        }
+
+        private synchronized void release(long permitGeneration) {
+            if (permitGeneration == generation && state == State.HALF_OPEN) {
+                trials--;
+            }
+        }
+
+        private void reset() {
+            State from;
+            synchronized (this) {
+                from = state;
+                transition(State.CLOSED);
+            }
+
+            notifyListener(from, State.CLOSED);
+        }
+
+        private synchronized State getState() {
+            if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openDuration) {
+                return State.HALF_OPEN;
+            }
+
+            return state;
+        }
+
+        private void add(byte outcome) {
+            if (calls == window.length) {
+                byte evicted = window[index];
+                failures -= evicted & FAILED;
+                slowCalls -= (evicted & SLOW) >> 1;
+            } else {
+                calls++;
+            }
+
+            window[index] = outcome;
+            index = (index + 1) % window.length;
+            failures += outcome & FAILED;
+            slowCalls += (outcome & SLOW) >> 1;
+        }
+
+        private boolean exceedsThresholds() {
+            if (calls == 0) {
+                return false;
+            }
+
+            return failures * 100.0 / calls >= failureRateThreshold
+                    || slowCalls * 100.0 / calls >= slowCallRateThreshold;
+        }
+
+        private void transition(State to) {
+            state = to;
+            calls = 0;
+            index = 0;
+            failures = 0;
+            slowCalls = 0;
+            trials = 0;
+            trialsCompleted = 0;
+            generation++;
+            if (to == State.OPEN) {
+                openedAt = System.currentTimeMillis();
+            }
+        }
+
+        private void notifyListener(State from, State to) {
+            Listener current = listener;
+            if (current != null && from != to) {
+                current.onStateChange(key, from, to);
+            }
+        }
+    }
+}
@@ -0,0 +1,379 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.resilience;
+
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.exception.HttpStatusCodeException;
+import dev.yasper.rump.exception.RequestRejectedException;
+import dev.yasper.rump.response.HttpResponse;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * <p>
+ * Limits the number of requests in flight to an upstream and adapts the limit to how the upstream copes, see
+ * {@link RequestConfig#setConcurrencyLimiter(ConcurrencyLimiter)}. Every upstream, a host or a base URL depending on
+ * the {@link Scope}, has its own limit.
+ * </p>
+ *
+ * <p>
+ * The limit follows TCP Vegas: the lowest latency seen recently is the latency without queueing, so the ratio between
+ * it and the latency of a request estimates how many of the requests in flight are queued at the upstream. While
+ * fewer than {@value #ALPHA} are queued the limit grows by one, above {@value #BETA} it shrinks by one. A dropped
+ * request, a request that failed or got a status code matching the drop status predicate, multiplies the limit by the
+ * backoff ratio. The limit only grows while at least half of it is in use, so an idle client does not build up a limit
+ * it never tested.
+ * </p>
+ *
+ * <p>
+ * Requests over the limit wait in a queue of the configured size and are rejected with a
+ * {@link RequestRejectedException} when the queue is full or they waited longer than the maximum wait. With the
+ * default queue size of zero excess requests are rejected immediately. Asynchronous requests wait without holding a
+ * thread.
+ * </p>
+ */
+public class ConcurrencyLimiter implements RequestGuard {
+
+    private static final int ALPHA = 3;
+    private static final int BETA = 6;
+    // Samples after which the latency without queueing is measured again, in case the upstream got slower for good
+    private static final int PROBE_SAMPLES = 1000;
+
+    private final Map<String, Limit> limits = new ConcurrentHashMap<>();
+
+    private volatile Scope scope = Scope.HOST;
+    private volatile int initialLimit = 20;
+    private volatile int minLimit = 1;
+    private volatile int maxLimit = 200;
+    private volatile double backoffRatio = 0.9;
+    private volatile int maxQueue = 0;
+    private volatile long maxWait = 0;
+    private volatile Predicate<Integer> dropStatus = code -> code == 429 || code >= 500;
+
+    /**
+     * Create the key of the limit a request shares
+     *
+     * @param url    The url of the request
+     * @param config The config of the request
+     * @return the host and port, or the base URL, of the request
+     */
+    public String key(URL url, RequestConfig config) {
+        if (scope == Scope.BASE_URL && config.getBaseURL() != null && !config.getBaseURL().isEmpty()) {
+            return config.getBaseURL();
+        }
+
+        int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+        return url.getHost() + ":" + port;
+    }
+
+    @Override
+    public RequestGuard.Permit acquire(URL url, RequestConfig config) throws IOException {
+        return AsyncSemaphore.await(acquireAsync(url, config, null));
+    }
+
+    @Override
+    public CompletableFuture<RequestGuard.Permit> acquireAsync(URL url, RequestConfig config, Executor executor) {
+        Limit limit = limits.computeIfAbsent(key(url, config), Limit::new);
+        return limit.semaphore.acquire(maxQueue, maxWait, inFlight -> new Permit(limit, inFlight));
+    }
+
+    /**
+     * Get the current limit of an upstream
+     *
+     * @param key The key of the limit, see {@link #key(URL, RequestConfig)}
+     * @return the limit, the initial limit if no request was made to the upstream yet
+     */
+    public int getLimit(String key) {
+        Limit limit = limits.get(key);
+        return limit == null ? initialLimit : limit.getLimit();
+    }
+
+    /**
+     * Get the current limit of every upstream
+     *
+     * @return the limits by key
+     */
+    public Map<String, Integer> getLimits() {
+        Map<String, Integer> result = new TreeMap<>();
+        for (Limit limit : limits.values()) {
+            result.put(limit.key, limit.getLimit());
+        }
+
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Get the number of requests in flight to an upstream
+     *
+     * @param key The key of the limit, see {@link #key(URL, RequestConfig)}
+     * @return the number of requests that hold a permit
+     */
+    public int getInFlight(String key) {
+        Limit limit = limits.get(key);
+        return limit == null ? 0 : limit.getInFlight();
+    }
+
+    boolean isDrop(HttpResponse<?> response, Throwable failure) {
+        if (failure == null) {
+            return response != null && dropStatus.test(response.getResponseCode());
+        }
+
+        Throwable cause = RetryPolicy.unwrap(failure);
+        if (cause instanceof RequestRejectedException) {
+            return false;
+        }
+
+        if (cause instanceof HttpStatusCodeException) {
+            return dropStatus.test(((HttpStatusCodeException) cause).getErrorResponse().getResponseCode());
+        }
+
+        return true;
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * @param scope Whether requests share a limit per host or per base URL
+     * @return this {@link ConcurrencyLimiter} instance to be used for setter chaining
+     */
+    public ConcurrencyLimiter setScope(Scope scope) {
+        this.scope = scope;
+        return this;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    /**
+     * @param initialLimit The limit of an upstream before any request to it completed
+     * @return this {@link ConcurrencyLimiter} instance to be used for setter chaining
+     */
+    public ConcurrencyLimiter setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+        return this;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    /**
+     * @param minLimit The lowest the limit can get
+     * @return this {@link ConcurrencyLimiter} instance to be used for setter chaining
+     */
+    public ConcurrencyLimiter setMinLimit(int minLimit) {
+        if (minLimit < 1) {
+            throw new IllegalArgumentException("The minimum limit must be at least 1");
+        }
+
+        this.minLimit = minLimit;
+        return this;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * @param maxLimit The highest the limit can get
+     * @return this {@link ConcurrencyLimiter} instance to be used for setter chaining
+     */
+    public ConcurrencyLimiter setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+        return this;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    /**
+     * @param backoffRatio The factor, between 0 and 1, the limit is multiplied with when a request is dropped
+     * @return this {@link ConcurrencyLimiter} instance to be used for setter chaining
+     */
+    public ConcurrencyLimiter setBackoffRatio(double backoffRatio) {
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("The backoff ratio must be between 0 and 1");
+        }
+
+        this.backoffRatio = backoffRatio;
+        return this;
+    }
+
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+
+    /**
+     * @param maxQueue The number of requests that can wait for the limit per upstream, zero to reject requests over
+     *                 the limit immediately
+     * @return this {@link ConcurrencyLimiter} instance to be used for setter chaining
+     */
+    public ConcurrencyLimiter setMaxQueue(int maxQueue) {
+        this.maxQueue = maxQueue;
+        return this;
+    }
+
+    public long getMaxWait() {
+        return maxWait;
+    }
+
+    /**
+     * @param maxWait The time in milliseconds a queued request waits before it is rejected, zero to wait indefinitely
+     * @return this {@link ConcurrencyLimiter} instance to be used for setter chaining
+     */
+    public ConcurrencyLimiter setMaxWait(long maxWait) {
+        this.maxWait = maxWait;
+        return this;
+    }
+
+    public Predicate<Integer> getDropStatus() {
+        return dropStatus;
+    }
+
+    /**
+     * @param dropStatus Tests whether a status code means the upstream is overloaded, 429 and server errors by default
+     * @return this {@link ConcurrencyLimiter} instance to be used for setter chaining
+     */
+    public ConcurrencyLimiter setDropStatus(Predicate<Integer> dropStatus) {
+        this.dropStatus = dropStatus;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrencyLimiter{" + "scope=" + scope +
+                ", initialLimit=" + initialLimit +
+                ", minLimit=" + minLimit +
+                ", maxLimit=" + maxLimit +
+                ", backoffRatio=" + backoffRatio +
+                ", maxQueue=" + maxQueue +
+                ", maxWait=" + maxWait +
+                ", limits=" + getLimits() +
+                '}';
+    }
+
+    /**
+     * What requests share a limit
+     */
+    public enum Scope {
+        /**
+         * Requests to the same host and port
+         */
+        HOST,
+        /**
+         * Requests with the same base URL, requests without a base URL share a limit per host
+         */
+        BASE_URL
+    }
+
+    private final class Permit implements RequestGuard.Permit {
+        private final Limit limit;
+        private final int inFlight;
+        private final long start = System.nanoTime();
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private Permit(Limit limit, int inFlight) {
+            this.limit = limit;
+            this.inFlight = inFlight;
+        }
+
+        @Override
+        public void complete(HttpResponse<?> response, Throwable failure) {
+            if (completed.compareAndSet(false, true)) {
+                Throwable cause = RetryPolicy.unwrap(failure);
+                if (!(cause instanceof RequestRejectedException)) {
+                    limit.sample(System.nanoTime() - start, isDrop(response, failure), inFlight);
+                }
+
+                limit.release();
+            }
+        }
+
+        @Override
+        public void release() {
+            if (completed.compareAndSet(false, true)) {
+                limit.release();
+            }
+        }
+    }
+
+    private final class Limit {
+        private final String key;
+        private final AsyncSemaphore semaphore;
+        private double limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        private long noLoadLatency = Long.MAX_VALUE;
+        private int samples = 0;
+
+        private Limit(String key) {
+            this.key = key;
+            this.semaphore = new AsyncSemaphore(key, "concurrency limit", (int) limit);
+        }
+
+        private void release() {
+            semaphore.release();
+        }
+
+        private void sample(long latency, boolean dropped, int inFlightAtStart) {
+            int current;
+            synchronized (this) {
+                if (dropped) {
+                    limit = limit * backoffRatio;
+                } else {
+                    if (latency < noLoadLatency || ++samples >= PROBE_SAMPLES) {
+                        noLoadLatency = Math.max(1, latency);
+                        samples = 0;
+                    }
+
+                    double queued = limit * (1 - (double) noLoadLatency / Math.max(1, latency));
+                    if (queued < ALPHA && inFlightAtStart * 2 >= limit) {
+                        limit++;
+                    } else if (queued > BETA) {
+                        limit--;
+                    }
+                }
+
+                limit = Math.max(minLimit, Math.min(maxLimit, limit));
+                current = (int) limit;
+            }
+
+            semaphore.setLimit(current);
+        }
+
+        private synchronized int getLimit() {
+            return (int) limit;
+        }
+
+        private int getInFlight() {
+            return semaphore.getInFlight();
+        }
+    }
+}
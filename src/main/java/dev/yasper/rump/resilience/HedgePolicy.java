@@ -0,0 +1,377 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.resilience;
+
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.request.RequestMethod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Sends a second, hedged, request when the first one is slow and uses whichever response arrives first, see
+ * {@link RequestConfig#setHedgePolicy(HedgePolicy)}. The other request is cancelled, which disconnects its connection.
+ * Hedging is only done by the {@link dev.yasper.rump.client.AsyncRestClient}, which doesn't block a thread while
+ * waiting for the hedge delay.
+ * </p>
+ *
+ * <p>
+ * The hedge is sent after a fixed delay, or once the request takes longer than a percentile of the latencies this
+ * policy observed. Share one policy per upstream so the percentile reflects the latency of that upstream. The hedge
+ * can be sent to an alternate base URL, such as another replica of the same service.
+ * </p>
+ *
+ * <p>
+ * Only GET and HEAD requests are hedged by default. To limit the extra load the budget caps the number of hedges to a
+ * percentage of the requests made with this policy.
+ * </p>
+ */
+public class HedgePolicy {
+
+    private static final int DEFAULT_WINDOW_SIZE = 128;
+
+    private final LongAdder hedgeWins = new LongAdder();
+    private final Object lock = new Object();
+    private long requests = 0;
+    private long hedges = 0;
+    private long[] latencies = new long[DEFAULT_WINDOW_SIZE];
+    private int latencyCount = 0;
+    private int latencyIndex = 0;
+
+    private volatile long delay = 100;
+    private volatile double percentile = 0;
+    private volatile int minSamples = 20;
+    private volatile double budget = 10;
+    private volatile String alternateBaseURL = null;
+    private volatile Set<RequestMethod> methods = Collections.unmodifiableSet(
+            EnumSet.of(RequestMethod.GET, RequestMethod.HEAD));
+
+    /**
+     * Whether a request can be hedged
+     *
+     * @param config The config of the request
+     * @return true if the request method is one of the hedged methods
+     */
+    public boolean canHedge(RequestConfig config) {
+        return methods.contains(config.getMethod());
+    }
+
+    /**
+     * Get the time after which a hedge is sent
+     *
+     * @return the configured percentile of the observed latencies once enough were observed, else the fixed delay
+     */
+    public long getHedgeDelay() {
+        if (percentile <= 0) {
+            return delay;
+        }
+
+        long[] window;
+        synchronized (lock) {
+            if (latencyCount < minSamples || latencyCount == 0) {
+                return delay;
+            }
+
+            window = Arrays.copyOf(latencies, latencyCount);
+        }
+
+        Arrays.sort(window);
+        int index = (int) Math.ceil(percentile / 100 * window.length) - 1;
+        return window[Math.max(0, Math.min(window.length - 1, index))];
+    }
+
+    /**
+     * Start a request and hedge it when it is slow
+     *
+     * @param primary  Starts the request
+     * @param hedge    Starts the hedged request
+     * @param executor The executor to start the hedge on
+     * @param <T>      The result type
+     * @return the future of the first successful request, failed if every started request failed. Cancelling it
+     * cancels the started requests.
+     */
+    public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> primary,
+                                            Supplier<CompletableFuture<T>> hedge, Executor executor) {
+        synchronized (lock) {
+            requests++;
+        }
+
+        Hedged<T> request = new Hedged<>();
+        request.start(primary, false);
+        if (!request.result.isDone()) {
+            CompletableFuture.delayedExecutor(getHedgeDelay(), TimeUnit.MILLISECONDS, executor).execute(() -> {
+                if (!request.result.isDone() && tryAcquireHedge()) {
+                    request.start(hedge, true);
+                }
+            });
+        }
+
+        return request.result;
+    }
+
+    private boolean tryAcquireHedge() {
+        synchronized (lock) {
+            if (hedges + 1 > requests * budget / 100) {
+                return false;
+            }
+
+            hedges++;
+        }
+
+        return true;
+    }
+
+    private void recordLatency(long latency) {
+        synchronized (lock) {
+            latencies[latencyIndex] = latency;
+            latencyIndex = (latencyIndex + 1) % latencies.length;
+            latencyCount = Math.min(latencyCount + 1, latencies.length);
+        }
+    }
+
+    /**
+     * Get the number of hedged requests that were sent
+     *
+     * @return the number of hedges
+     */
+    public long getHedgeCount() {
+        synchronized (lock) {
+            return hedges;
+        }
+    }
+
+    /**
+     * Get the number of hedged requests that responded before the request they hedged
+     *
+     * @return the number of hedges that won
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.sum();
+    }
+
+    public long getDelay() {
+        return delay;
+    }
+
+    /**
+     * @param delay The time in milliseconds after which a hedge is sent, used until enough latencies are observed
+     *              when a percentile is set
+     * @return this {@link HedgePolicy} instance to be used for setter chaining
+     */
+    public HedgePolicy setDelay(long delay) {
+        this.delay = delay;
+        return this;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    /**
+     * @param percentile The percentile of the observed latencies after which a hedge is sent, for example 95, zero to
+     *                   always use the fixed delay
+     * @return this {@link HedgePolicy} instance to be used for setter chaining
+     */
+    public HedgePolicy setPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+
+        this.percentile = percentile;
+        return this;
+    }
+
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    /**
+     * @param minSamples The number of latencies to observe before the percentile is used
+     * @return this {@link HedgePolicy} instance to be used for setter chaining
+     */
+    public HedgePolicy setMinSamples(int minSamples) {
+        this.minSamples = minSamples;
+        return this;
+    }
+
+    /**
+     * @param windowSize The number of most recent latencies the percentile is computed over
+     * @return this {@link HedgePolicy} instance to be used for setter chaining
+     */
+    public HedgePolicy setWindowSize(int windowSize) {
+        synchronized (lock) {
+            latencies = new long[windowSize];
+            latencyCount = 0;
+            latencyIndex = 0;
+        }
+
+        return this;
+    }
+
+    public double getBudget() {
+        return budget;
+    }
+
+    /**
+     * @param budget The maximum number of hedges as a percentage of the requests made with this policy
+     * @return this {@link HedgePolicy} instance to be used for setter chaining
+     */
+    public HedgePolicy setBudget(double budget) {
+        this.budget = budget;
+        return this;
+    }
+
+    public String getAlternateBaseURL() {
+        return alternateBaseURL;
+    }
+
+    /**
+     * @param alternateBaseURL The base URL to send hedges to, null to send them to the base URL of the request or to
+     *                         the endpoint its load balancer picks for the hedge
+     * @return this {@link HedgePolicy} instance to be used for setter chaining
+     */
+    public HedgePolicy setAlternateBaseURL(String alternateBaseURL) {
+        this.alternateBaseURL = alternateBaseURL;
+        return this;
+    }
+
+    public Set<RequestMethod> getMethods() {
+        return methods;
+    }
+
+    /**
+     * @param methods The request methods to hedge, only pass methods of requests that are safe to send twice
+     * @return this {@link HedgePolicy} instance to be used for setter chaining
+     */
+    public HedgePolicy setMethods(RequestMethod... methods) {
+        Set<RequestMethod> set = EnumSet.noneOf(RequestMethod.class);
+        set.addAll(Arrays.asList(methods));
+        this.methods = Collections.unmodifiableSet(set);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "HedgePolicy{" + "delay=" + delay +
+                ", percentile=" + percentile +
+                ", minSamples=" + minSamples +
+                ", budget=" + budget +
+                ", alternateBaseURL=" + alternateBaseURL +
+                ", methods=" + methods +
+                '}';
+    }
+
+    /**
+     * The requests started for one hedged request
+     */
+    private final class Hedged<T> {
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final List<CompletableFuture<T>> attempts = new ArrayList<>(2);
+        private final long start = System.nanoTime();
+        private int failed = 0;
+        private boolean closed = false;
+
+        private Hedged() {
+            result.whenComplete((value, e) -> {
+                if (result.isCancelled()) {
+                    cancel(null);
+                }
+            });
+        }
+
+        private void start(Supplier<CompletableFuture<T>> call, boolean hedge) {
+            CompletableFuture<T> started;
+            synchronized (this) {
+                if (closed || result.isDone()) {
+                    return;
+                }
+
+                try {
+                    started = call.get();
+                } catch (RuntimeException e) {
+                    started = CompletableFuture.failedFuture(e);
+                }
+
+                attempts.add(started);
+            }
+
+            CompletableFuture<T> attempt = started;
+            attempt.whenComplete((value, e) -> onComplete(attempt, value, e, hedge));
+        }
+
+        private void onComplete(CompletableFuture<T> attempt, T value, Throwable e, boolean hedge) {
+            if (e == null) {
+                boolean won;
+                synchronized (this) {
+                    won = !closed;
+                    closed = true;
+                }
+
+                if (won) {
+                    recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    if (hedge) {
+                        hedgeWins.increment();
+                    }
+
+                    result.complete(value);
+                    cancel(attempt);
+                }
+                return;
+            }
+
+            boolean allFailed;
+            synchronized (this) {
+                failed++;
+                allFailed = !closed && failed == attempts.size();
+                if (allFailed) {
+                    closed = true;
+                }
+            }
+
+            if (allFailed) {
+                result.completeExceptionally(e instanceof CompletionException && e.getCause() != null
+                        ? e.getCause() : e);
+            }
+        }
+
+        private void cancel(CompletableFuture<T> winner) {
+            List<CompletableFuture<T>> started;
+            synchronized (this) {
+                started = new ArrayList<>(attempts);
+            }
+
+            for (CompletableFuture<T> attempt : started) {
+                if (attempt != winner) {
+                    attempt.cancel(true);
+                }
+            }
+        }
+    }
+}
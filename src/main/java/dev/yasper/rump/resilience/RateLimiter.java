@@ -0,0 +1,409 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.resilience;
+
+import dev.yasper.rump.Headers;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.exception.HttpStatusCodeException;
+import dev.yasper.rump.exception.RequestRejectedException;
+import dev.yasper.rump.response.HttpResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Limits the rate at which requests are sent, see {@link RequestConfig#setRateLimiter(RateLimiter)}. The limiter is a
+ * generic cell rate algorithm (GCRA): requests are spaced evenly at the configured rate, up to the burst size of
+ * requests can be sent at once after a quiet period. A request over the rate waits for its turn, the
+ * {@link dev.yasper.rump.client.DefaultRestClient} blocks while the
+ * {@link dev.yasper.rump.client.AsyncRestClient} dispatches the request once its turn has come. Requests that would
+ * have to wait longer than the maximum wait are rejected with a {@link RequestRejectedException}.
+ * </p>
+ *
+ * <p>
+ * Depending on the {@link Scope} all requests using the limiter share a rate, or every base URL or path template has
+ * its own rate.
+ * </p>
+ *
+ * <p>
+ * When adaptive, the limiter follows the quota the server reports. A Retry-After header on a 429 or 503 response and
+ * a remaining quota of zero (X-RateLimit-Remaining or RateLimit-Remaining) pause the requests until the time given by
+ * the header or by the quota reset (X-RateLimit-Reset or RateLimit-Reset). A remaining quota above zero spreads the
+ * remaining requests evenly until the reset, if that is slower than the configured rate.
+ * </p>
+ */
+public class RateLimiter implements RequestGuard {
+
+    private static final String[] REMAINING_HEADERS = {"X-RateLimit-Remaining", "RateLimit-Remaining"};
+    private static final String[] RESET_HEADERS = {"X-RateLimit-Reset", "RateLimit-Reset"};
+    // Reset values above this are epoch seconds rather than seconds from now
+    private static final long EPOCH_SECONDS_THRESHOLD = 1_000_000_000L;
+    private static final Pattern ID_SEGMENT = Pattern.compile(
+            "\\d+|[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final String SHARED_KEY = "*";
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private volatile double rate;
+    private volatile int burst;
+    private volatile Scope scope = Scope.CLIENT;
+    private volatile long maxWait = 0;
+    private volatile boolean adaptive = true;
+
+    /**
+     * Constructor for a limiter allowing the passed rate with bursts of a single request
+     *
+     * @param rate The number of requests per second
+     */
+    public RateLimiter(double rate) {
+        this(rate, 1);
+    }
+
+    /**
+     * Constructor for a limiter
+     *
+     * @param rate  The number of requests per second
+     * @param burst The number of requests that can be sent at once after a quiet period
+     */
+    public RateLimiter(double rate, int burst) {
+        setRate(rate);
+        setBurst(burst);
+    }
+
+    /**
+     * Create the key of the rate a request shares
+     *
+     * @param url    The url of the request
+     * @param config The config of the request
+     * @return the key
+     */
+    public String key(URL url, RequestConfig config) {
+        switch (scope) {
+            case BASE_URL:
+                return config.getBaseURL() == null || config.getBaseURL().isEmpty()
+                        ? url.getProtocol() + "://" + url.getAuthority() + "/"
+                        : config.getBaseURL();
+            case PATH_TEMPLATE:
+                StringBuilder key = new StringBuilder(url.getProtocol()).append("://").append(url.getAuthority());
+                for (String segment : url.getPath().split("/")) {
+                    if (segment.isEmpty()) {
+                        continue;
+                    }
+
+                    key.append('/').append(ID_SEGMENT.matcher(segment).matches() ? "{}" : segment);
+                }
+
+                return key.toString();
+            default:
+                return SHARED_KEY;
+        }
+    }
+
+    @Override
+    public RequestGuard.Permit acquire(URL url, RequestConfig config) throws IOException {
+        String key = key(url, config);
+        long wait = reserve(key);
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the rate limit of " + key);
+            }
+        }
+
+        return new Permit(key);
+    }
+
+    @Override
+    public CompletableFuture<RequestGuard.Permit> acquireAsync(URL url, RequestConfig config, Executor executor) {
+        String key = key(url, config);
+        long wait;
+        try {
+            wait = reserve(key);
+        } catch (RequestRejectedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        if (wait <= 0) {
+            return CompletableFuture.completedFuture(new Permit(key));
+        }
+
+        return CompletableFuture.supplyAsync(() -> new Permit(key),
+                CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS, executor));
+    }
+
+    /**
+     * Reserve the next turn to send a request
+     *
+     * @param key The key of the rate, see {@link #key(URL, RequestConfig)}
+     * @return the time in nanoseconds to wait before the request may be sent
+     * @throws RequestRejectedException Thrown when the wait would exceed the maximum wait, no turn is reserved then
+     */
+    public long reserve(String key) throws RequestRejectedException {
+        long wait = buckets.computeIfAbsent(key, ignore -> new Bucket()).reserve(System.nanoTime());
+        if (wait < 0) {
+            throw new RequestRejectedException(key, "Rate limit of " + key + " exceeded");
+        }
+
+        return wait;
+    }
+
+    /**
+     * Adapt the rate of a key to the quota reported in the headers of a response
+     *
+     * @param key     The key of the rate, see {@link #key(URL, RequestConfig)}
+     * @param code    The status code of the response
+     * @param headers The headers of the response
+     */
+    public void update(String key, int code, Headers headers) {
+        if (!adaptive) {
+            return;
+        }
+
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (code == 429 || code == 503) {
+            long retryAfter = RetryPolicy.parseRetryAfter(headers);
+            if (retryAfter >= 0) {
+                bucket.pause(now + TimeUnit.MILLISECONDS.toNanos(retryAfter));
+            }
+        }
+
+        long remaining = parseLong(headers, REMAINING_HEADERS);
+        long reset = parseLong(headers, RESET_HEADERS);
+        if (remaining < 0 || reset < 0) {
+            return;
+        }
+
+        long untilReset = reset > EPOCH_SECONDS_THRESHOLD
+                ? TimeUnit.MILLISECONDS.toNanos(Math.max(0, reset * 1000 - System.currentTimeMillis()))
+                : TimeUnit.SECONDS.toNanos(reset);
+        if (remaining == 0) {
+            bucket.pause(now + untilReset);
+        } else {
+            bucket.slowDown(untilReset / remaining, now + untilReset);
+        }
+    }
+
+    private static long parseLong(Headers headers, String[] names) {
+        for (String name : names) {
+            String value = headers.getSafeValue(name).trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException ignore) {
+                return -1;
+            }
+        }
+
+        return -1;
+    }
+
+    private long interval() {
+        return (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * @param rate The number of requests per second
+     * @return this {@link RateLimiter} instance to be used for setter chaining
+     */
+    public RateLimiter setRate(double rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Rate must be positive");
+        }
+
+        this.rate = rate;
+        return this;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * @param burst The number of requests that can be sent at once after a quiet period
+     * @return this {@link RateLimiter} instance to be used for setter chaining
+     */
+    public RateLimiter setBurst(int burst) {
+        if (burst < 1) {
+            throw new IllegalArgumentException("Burst must be at least 1");
+        }
+
+        this.burst = burst;
+        return this;
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * @param scope Which requests share a rate
+     * @return this {@link RateLimiter} instance to be used for setter chaining
+     */
+    public RateLimiter setScope(Scope scope) {
+        this.scope = scope;
+        return this;
+    }
+
+    public long getMaxWait() {
+        return maxWait;
+    }
+
+    /**
+     * @param maxWait The maximum time in milliseconds a request waits for its turn, zero to wait as long as needed
+     * @return this {@link RateLimiter} instance to be used for setter chaining
+     */
+    public RateLimiter setMaxWait(long maxWait) {
+        this.maxWait = maxWait;
+        return this;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * @param adaptive Whether the rate follows the Retry-After and rate limit headers of responses
+     * @return this {@link RateLimiter} instance to be used for setter chaining
+     */
+    public RateLimiter setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimiter{" + "rate=" + rate +
+                ", burst=" + burst +
+                ", scope=" + scope +
+                ", maxWait=" + maxWait +
+                ", adaptive=" + adaptive +
+                '}';
+    }
+
+    /**
+     * Which requests share a rate
+     */
+    public enum Scope {
+        /**
+         * Every request made with the limiter, use one limiter per client
+         */
+        CLIENT,
+        /**
+         * Requests with the same base URL, requests without a base URL share a rate per origin
+         */
+        BASE_URL,
+        /**
+         * Requests to the same path, where numeric and UUID path segments are treated as the same parameter so
+         * posts/1 and posts/2 share a rate. The query is not part of the key.
+         */
+        PATH_TEMPLATE
+    }
+
+    private final class Permit implements RequestGuard.Permit {
+        private final String key;
+
+        private Permit(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public void complete(HttpResponse<?> response, Throwable failure) {
+            if (response != null) {
+                update(key, response.getResponseCode(), response.getResponseHeaders());
+                return;
+            }
+
+            Throwable cause = RetryPolicy.unwrap(failure);
+            if (cause instanceof HttpStatusCodeException) {
+                HttpResponse<String> error = ((HttpStatusCodeException) cause).getErrorResponse();
+                update(key, error.getResponseCode(), error.getResponseHeaders());
+            }
+        }
+
+        @Override
+        public void release() {
+            // The turn of the request has passed, there is nothing to give back
+        }
+    }
+
+    /**
+     * The state of one rate, all times are in {@link System#nanoTime()}
+     */
+    private final class Bucket {
+        private long arrival = System.nanoTime();
+        private long pausedUntil = arrival;
+        private long adaptedInterval = 0;
+        private long adaptedUntil = arrival;
+
+        private synchronized long reserve(long now) {
+            long interval = interval();
+            if (now - adaptedUntil < 0) {
+                interval = Math.max(interval, adaptedInterval);
+            }
+
+            long start = now - pausedUntil < 0 ? pausedUntil : now;
+            long tat = arrival - start > 0 ? arrival : start;
+            long allowAt = tat - interval * (burst - 1);
+            if (allowAt - start < 0) {
+                allowAt = start;
+            }
+
+            long wait = allowAt - now;
+            if (maxWait > 0 && wait > TimeUnit.MILLISECONDS.toNanos(maxWait)) {
+                return -1;
+            }
+
+            arrival = tat + interval;
+            return wait;
+        }
+
+        private synchronized void pause(long until) {
+            if (until - pausedUntil > 0) {
+                pausedUntil = until;
+            }
+        }
+
+        private synchronized void slowDown(long interval, long until) {
+            adaptedInterval = interval;
+            adaptedUntil = until;
+        }
+    }
+}
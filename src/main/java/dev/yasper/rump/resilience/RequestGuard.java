@@ -0,0 +1,87 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.resilience;
+
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.response.HttpResponse;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>
+ * Decides whether, and when, a request may be sent. The rest clients ask every guard in the config for a permit
+ * before each attempt of a request and pass the outcome of the attempt to the permits afterwards.
+ * </p>
+ *
+ * <p>
+ * A guard either grants a permit, makes the request wait for one or rejects the request with a
+ * {@link dev.yasper.rump.exception.RequestRejectedException}.
+ * </p>
+ */
+public interface RequestGuard {
+
+    /**
+     * Get a permit for a request, blocks while the request has to wait
+     *
+     * @param url    The url of the request
+     * @param config The config of the request
+     * @return the permit, it must be completed or released
+     * @throws IOException Thrown when the request is rejected or the thread was interrupted while waiting
+     */
+    Permit acquire(URL url, RequestConfig config) throws IOException;
+
+    /**
+     * Get a permit for a request without blocking
+     *
+     * @param url      The url of the request
+     * @param config   The config of the request
+     * @param executor The executor the request is dispatched on
+     * @return a future completed with the permit once the request may be sent, cancelling the future gives up the
+     * wait
+     */
+    default CompletableFuture<Permit> acquireAsync(URL url, RequestConfig config, Executor executor) {
+        try {
+            return CompletableFuture.completedFuture(acquire(url, config));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Permission to send a request
+     */
+    interface Permit {
+
+        /**
+         * Called with the outcome of the request, calling this more than once has no effect
+         *
+         * @param response The response, null if the request failed or was canceled by an interceptor
+         * @param failure  The exception the request failed with, null if it succeeded
+         */
+        void complete(HttpResponse<?> response, Throwable failure);
+
+        /**
+         * Give up the permit without an outcome, such as when the request was cancelled
+         */
+        void release();
+    }
+}
@@ -0,0 +1,535 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.resilience;
+
+import dev.yasper.rump.Headers;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.exception.HttpStatusCodeException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Retries failed requests with exponential backoff, see {@link RequestConfig#setRetryPolicy(RetryPolicy)}. Every
+ * failure is classified as a {@link Failure}, only the failures and status codes enabled in the policy are retried.
+ * The delay before the next attempt grows by the multiplier for every attempt up to the maximum backoff and is
+ * randomized by the jitter so clients that failed at the same moment don't retry in lockstep. A Retry-After header on
+ * the error response replaces the computed delay.
+ * </p>
+ *
+ * <p>
+ * Requests that are not idempotent, POST and PATCH unless marked with {@link RequestConfig#setIdempotent(Boolean)},
+ * are only retried when the connection could not be established, the server has not seen those requests.
+ * </p>
+ *
+ * <p>
+ * Retrying stops after the maximum number of attempts, or when the next attempt would start after the maximum
+ * elapsed time. The last failure is then thrown to the caller.
+ * </p>
+ */
+public class RetryPolicy {
+
+    /**
+     * The status codes retried by default, Too Many Requests and Service Unavailable
+     */
+    public static final Set<Integer> DEFAULT_RETRY_STATUS_CODES = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList(429, 503)));
+
+    private volatile int maxAttempts = 3;
+    private volatile long initialBackoff = 100;
+    private volatile long maxBackoff = 10_000;
+    private volatile double multiplier = 2;
+    private volatile double jitter = 0.5;
+    private volatile long maxElapsed = 30_000;
+    private volatile boolean respectingRetryAfter = true;
+    private volatile Set<Failure> retryFailures = Collections.unmodifiableSet(EnumSet.of(
+            Failure.CONNECT_TIMEOUT, Failure.CONNECTION_REFUSED, Failure.READ_TIMEOUT,
+            Failure.CONNECTION_RESET, Failure.STATUS));
+    private volatile Set<Integer> retryStatusCodes = DEFAULT_RETRY_STATUS_CODES;
+
+    /**
+     * Classify the failure of a request
+     *
+     * @param failure The exception the request failed with, wrapping exceptions of futures are unwrapped
+     * @return the kind of failure
+     */
+    public static Failure classify(Throwable failure) {
+        Throwable cause = unwrap(failure);
+        if (cause instanceof HttpStatusCodeException) {
+            return Failure.STATUS;
+        }
+
+        if (cause instanceof HttpConnectTimeoutException) {
+            return Failure.CONNECT_TIMEOUT;
+        }
+
+        if (cause instanceof HttpTimeoutException) {
+            return Failure.READ_TIMEOUT;
+        }
+
+        if (cause instanceof SocketTimeoutException) {
+            // HttpURLConnection and the ConnectionPool tell connect timeouts apart by their message only
+            String message = String.valueOf(cause.getMessage()).toLowerCase(Locale.ROOT);
+            return message.contains("connect") ? Failure.CONNECT_TIMEOUT : Failure.READ_TIMEOUT;
+        }
+
+        if (cause instanceof ConnectException || cause instanceof NoRouteToHostException) {
+            return Failure.CONNECTION_REFUSED;
+        }
+
+        // The HttpClient reports a connection closed by the server as a plain IOException
+        if (cause instanceof SocketException || cause instanceof EOFException
+                || (cause != null && cause.getClass() == IOException.class)) {
+            return Failure.CONNECTION_RESET;
+        }
+
+        return Failure.OTHER;
+    }
+
+    /**
+     * Get the time to wait before the next attempt of a failed request
+     *
+     * @param attempt The number of the attempt that failed, starting at 1
+     * @param elapsed The time in milliseconds since the first attempt started
+     * @param failure The exception the attempt failed with
+     * @param config  The config of the request
+     * @return the delay in milliseconds, -1 if the request should not be retried
+     */
+    public long getDelay(int attempt, long elapsed, Throwable failure, RequestConfig config) {
+        if (attempt >= maxAttempts) {
+            return -1;
+        }
+
+        Throwable cause = unwrap(failure);
+        Failure type = classify(cause);
+        if (!retryFailures.contains(type)) {
+            return -1;
+        }
+
+        if (!config.isIdempotent() && type != Failure.CONNECT_TIMEOUT && type != Failure.CONNECTION_REFUSED) {
+            return -1;
+        }
+
+        long delay = getBackoff(attempt);
+        if (type == Failure.STATUS) {
+            HttpStatusCodeException status = (HttpStatusCodeException) cause;
+            if (!retryStatusCodes.contains(status.getErrorResponse().getResponseCode())) {
+                return -1;
+            }
+
+            long retryAfter = respectingRetryAfter ? parseRetryAfter(status.getErrorResponse().getResponseHeaders())
+                    : -1;
+            if (retryAfter >= 0) {
+                delay = retryAfter;
+            }
+        }
+
+        if (maxElapsed > 0 && elapsed + delay > maxElapsed) {
+            return -1;
+        }
+
+        return delay;
+    }
+
+    /**
+     * Get the randomized backoff after a failed attempt, without Retry-After
+     *
+     * @param attempt The number of the attempt that failed, starting at 1
+     * @return the delay in milliseconds
+     */
+    public long getBackoff(int attempt) {
+        double backoff = Math.min(maxBackoff, initialBackoff * Math.pow(multiplier, attempt - 1));
+        return Math.round(backoff - backoff * jitter * ThreadLocalRandom.current().nextDouble());
+    }
+
+    /**
+     * Run a blocking request, retrying it according to this policy
+     *
+     * @param config The config of the request
+     * @param call   The request
+     * @param <T>    The result type
+     * @return the result of the first successful attempt
+     * @throws IOException Thrown by the last attempt, or when the thread was interrupted during the backoff
+     */
+    public <T> T execute(RequestConfig config, Call<T> call) throws IOException {
+        long start = System.nanoTime();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.call();
+            } catch (IOException | HttpStatusCodeException e) {
+                long delay = getDelay(attempt, elapsedSince(start), e, config);
+                if (delay < 0 || e instanceof InterruptedIOException) {
+                    throw e;
+                }
+
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting to retry a request");
+                }
+            }
+        }
+    }
+
+    /**
+     * Start a non-blocking request, retrying it according to this policy. No thread is held during the backoff, the
+     * next attempt is started on the passed executor once the delay has passed.
+     *
+     * @param config   The config of the request
+     * @param call     Starts an attempt of the request
+     * @param executor The executor to start retries on
+     * @param <T>      The result type
+     * @return the future of the request, cancelling it cancels the attempt in flight and stops any further attempts
+     */
+    public <T> CompletableFuture<T> executeAsync(RequestConfig config, Supplier<CompletableFuture<T>> call,
+                                                 Executor executor) {
+        return executeAsync(config, call, executor, value -> {
+        });
+    }
+
+    /**
+     * Start a non-blocking request, retrying it according to this policy. No thread is held during the backoff, the
+     * next attempt is started on the passed executor once the delay has passed.
+     *
+     * @param config   The config of the request
+     * @param call     Starts an attempt of the request
+     * @param executor The executor to start retries on
+     * @param discard  Disposes of a result that arrives after the request was cancelled, such as a streamed body
+     * @param <T>      The result type
+     * @return the future of the request, cancelling it cancels the attempt in flight and stops any further attempts
+     */
+    public <T> CompletableFuture<T> executeAsync(RequestConfig config, Supplier<CompletableFuture<T>> call,
+                                                 Executor executor, Consumer<? super T> discard) {
+        Retried<T> retried = new Retried<>(config, call, executor, discard);
+        retried.attempt(1);
+        return retried.result;
+    }
+
+    private static long elapsedSince(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    static Throwable unwrap(Throwable failure) {
+        Throwable cause = failure;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException
+                || cause instanceof UncheckedIOException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+
+        return cause;
+    }
+
+    /**
+     * Parse the Retry-After header of a response
+     *
+     * @param headers The response headers
+     * @return the delay in milliseconds, -1 if the header is absent or invalid
+     */
+    public static long parseRetryAfter(Headers headers) {
+        String value = headers.getRetryAfter().trim();
+        if (value.isEmpty()) {
+            return -1;
+        }
+
+        try {
+            return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(value)));
+        } catch (NumberFormatException ignore) {
+            // Not delta seconds, try an HTTP date below.
+        }
+
+        try {
+            Instant at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return Math.max(0, at.toEpochMilli() - System.currentTimeMillis());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @param maxAttempts The maximum number of attempts including the first one
+     * @return this {@link RetryPolicy} instance to be used for setter chaining
+     */
+    public RetryPolicy setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    public long getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    /**
+     * @param initialBackoff The delay in milliseconds before the second attempt, before jitter
+     * @return this {@link RetryPolicy} instance to be used for setter chaining
+     */
+    public RetryPolicy setInitialBackoff(long initialBackoff) {
+        this.initialBackoff = initialBackoff;
+        return this;
+    }
+
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    /**
+     * @param maxBackoff The maximum delay in milliseconds between attempts, before jitter
+     * @return this {@link RetryPolicy} instance to be used for setter chaining
+     */
+    public RetryPolicy setMaxBackoff(long maxBackoff) {
+        this.maxBackoff = maxBackoff;
+        return this;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    /**
+     * @param multiplier The factor the delay grows by for every attempt
+     * @return this {@link RetryPolicy} instance to be used for setter chaining
+     */
+    public RetryPolicy setMultiplier(double multiplier) {
+        this.multiplier = multiplier;
+        return this;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    /**
+     * @param jitter The fraction of the delay that is randomized, zero for fixed delays and one for a delay anywhere
+     *               between zero and the computed backoff
+     * @return this {@link RetryPolicy} instance to be used for setter chaining
+     */
+    public RetryPolicy setJitter(double jitter) {
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("Jitter must be between 0 and 1");
+        }
+
+        this.jitter = jitter;
+        return this;
+    }
+
+    public long getMaxElapsed() {
+        return maxElapsed;
+    }
+
+    /**
+     * @param maxElapsed The time in milliseconds after the first attempt after which no attempts are started, zero
+     *                   for no limit
+     * @return this {@link RetryPolicy} instance to be used for setter chaining
+     */
+    public RetryPolicy setMaxElapsed(long maxElapsed) {
+        this.maxElapsed = maxElapsed;
+        return this;
+    }
+
+    public boolean isRespectingRetryAfter() {
+        return respectingRetryAfter;
+    }
+
+    /**
+     * @param respectingRetryAfter Whether a Retry-After header on the error response replaces the computed delay
+     * @return this {@link RetryPolicy} instance to be used for setter chaining
+     */
+    public RetryPolicy setRespectingRetryAfter(boolean respectingRetryAfter) {
+        this.respectingRetryAfter = respectingRetryAfter;
+        return this;
+    }
+
+    public Set<Failure> getRetryFailures() {
+        return retryFailures;
+    }
+
+    /**
+     * @param retryFailures The kinds of failure to retry, {@link Failure#OTHER} is never retried
+     * @return this {@link RetryPolicy} instance to be used for setter chaining
+     */
+    public RetryPolicy setRetryFailures(Failure... retryFailures) {
+        Set<Failure> failures = EnumSet.noneOf(Failure.class);
+        failures.addAll(Arrays.asList(retryFailures));
+        failures.remove(Failure.OTHER);
+        this.retryFailures = Collections.unmodifiableSet(failures);
+        return this;
+    }
+
+    public Set<Integer> getRetryStatusCodes() {
+        return retryStatusCodes;
+    }
+
+    /**
+     * @param retryStatusCodes The status codes of {@link HttpStatusCodeException}s to retry
+     * @return this {@link RetryPolicy} instance to be used for setter chaining
+     */
+    public RetryPolicy setRetryStatusCodes(Integer... retryStatusCodes) {
+        this.retryStatusCodes = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(retryStatusCodes)));
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{" + "maxAttempts=" + maxAttempts +
+                ", initialBackoff=" + initialBackoff +
+                ", maxBackoff=" + maxBackoff +
+                ", multiplier=" + multiplier +
+                ", jitter=" + jitter +
+                ", maxElapsed=" + maxElapsed +
+                ", respectingRetryAfter=" + respectingRetryAfter +
+                ", retryFailures=" + retryFailures +
+                ", retryStatusCodes=" + retryStatusCodes +
+                '}';
+    }
+
+    /**
+     * The kinds of failure a request can fail with
+     */
+    public enum Failure {
+        /**
+         * The connection could not be established in time, or no pooled connection became available
+         */
+        CONNECT_TIMEOUT,
+        /**
+         * The connection was refused or the host could not be reached
+         */
+        CONNECTION_REFUSED,
+        /**
+         * The response did not arrive in time
+         */
+        READ_TIMEOUT,
+        /**
+         * The connection was reset or closed before the response was read
+         */
+        CONNECTION_RESET,
+        /**
+         * The server responded with an erroneous status code, see {@link HttpStatusCodeException}
+         */
+        STATUS,
+        /**
+         * Any other failure, such as an unknown host or a response that can't be transformed
+         */
+        OTHER
+    }
+
+    /**
+     * A blocking request
+     *
+     * @param <T> The result type
+     */
+    @FunctionalInterface
+    public interface Call<T> {
+        T call() throws IOException;
+    }
+
+    /**
+     * The attempts of one retried request
+     */
+    private final class Retried<T> {
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final AtomicReference<CompletableFuture<T>> current = new AtomicReference<>();
+        private final long start = System.nanoTime();
+        private final RequestConfig config;
+        private final Supplier<CompletableFuture<T>> call;
+        private final Executor executor;
+        private final Consumer<? super T> discard;
+
+        private Retried(RequestConfig config, Supplier<CompletableFuture<T>> call, Executor executor,
+                        Consumer<? super T> discard) {
+            this.config = config;
+            this.call = call;
+            this.executor = executor;
+            this.discard = discard;
+            result.whenComplete((value, e) -> {
+                CompletableFuture<T> attempt = current.get();
+                if (result.isCancelled() && attempt != null) {
+                    attempt.cancel(true);
+                }
+            });
+        }
+
+        private void attempt(int attempt) {
+            if (result.isDone()) {
+                return;
+            }
+
+            CompletableFuture<T> started;
+            try {
+                started = call.get();
+            } catch (RuntimeException e) {
+                started = CompletableFuture.failedFuture(e);
+            }
+
+            current.set(started);
+            if (result.isCancelled()) {
+                started.cancel(true);
+            }
+
+            started.whenComplete((value, e) -> {
+                if (e == null) {
+                    if (!result.complete(value)) {
+                        discard.accept(value);
+                    }
+                    return;
+                }
+
+                long delay = getDelay(attempt, elapsedSince(start), e, config);
+                if (delay < 0) {
+                    result.completeExceptionally(unwrap(e));
+                    return;
+                }
+
+                CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, executor)
+                        .execute(() -> attempt(attempt + 1));
+            });
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.response;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * <p>
+ * Type token for response types with type parameters such as {@code List<Post>}, which can't be expressed as a class
+ * literal. Create it as an anonymous subclass so the type argument is kept:
+ * </p>
+ *
+ * <pre>{@code
+ * List<Post> posts = Rump.getForObject("posts", new GenericType<List<Post>>() {});
+ * }</pre>
+ *
+ * <p>
+ * Tokens are equal when they represent the same type, transformers can use them as cache keys.
+ * </p>
+ *
+ * @param <T> The represented type
+ */
+public abstract class GenericType<T> {
+
+    private final Type type;
+
+    /**
+     * Constructor for anonymous subclasses, takes the type from the type argument of the subclass
+     */
+    protected GenericType() {
+        Type superclass = getClass().getGenericSuperclass();
+        if (!(superclass instanceof ParameterizedType)) {
+            throw new IllegalArgumentException("GenericType must be created with a type argument");
+        }
+
+        this.type = ((ParameterizedType) superclass).getActualTypeArguments()[0];
+    }
+
+    private GenericType(Type type) {
+        this.type = type;
+    }
+
+    /**
+     * Create a token for a type without type parameters
+     *
+     * @param type The class of the type
+     * @param <T>  The represented type
+     * @return the token
+     */
+    public static <T> GenericType<T> of(Class<T> type) {
+        return new ClassType<>(type);
+    }
+
+    /**
+     * @return the represented type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the class of the represented type, without its type parameters
+     */
+    public Class<?> getRawType() {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+
+        if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+
+        return Object.class;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof GenericType)) {
+            return false;
+        }
+
+        return type.equals(((GenericType<?>) o).type);
+    }
+
+    @Override
+    public int hashCode() {
+        return type.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "GenericType{" + type.getTypeName() + '}';
+    }
+
+    private static final class ClassType<T> extends GenericType<T> {
+        private ClassType(Class<T> type) {
+            super(type);
+        }
+    }
+}
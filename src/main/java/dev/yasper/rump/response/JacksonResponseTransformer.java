@@ -18,21 +18,101 @@
  */
 package dev.yasper.rump.response;
 
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.LRUMap;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Type;
 
 /**
  * Response transformer implementation that uses Jackson to transform the response object to the
- * requested type.
+ * requested type. The resolved type and reader are cached per requested type, the cache is cleared once it holds more
+ * types than the maximum. Streamed elements are parsed one at a time with Jackson's streaming parser.
  */
 public class JacksonResponseTransformer implements ResponseTransformer {
 
-    private final ObjectMapper om = new ObjectMapper();
+    /**
+     * Default maximum number of response types for which a reader is cached
+     */
+    public static final int DEFAULT_MAX_CACHED_TYPES = 256;
+
+    private final ObjectMapper om;
+    private final LRUMap<Type, ObjectReader> readers;
+
+    /**
+     * Constructor for a transformer with its own {@link ObjectMapper}
+     */
+    public JacksonResponseTransformer() {
+        this(new ObjectMapper());
+    }
+
+    /**
+     * Constructor for a transformer that uses a shared, pre-configured {@link ObjectMapper}
+     *
+     * @param om The mapper to read the responses with
+     */
+    public JacksonResponseTransformer(ObjectMapper om) {
+        this(om, DEFAULT_MAX_CACHED_TYPES);
+    }
+
+    /**
+     * Constructor for a transformer that uses a shared, pre-configured {@link ObjectMapper}
+     *
+     * @param om             The mapper to read the responses with
+     * @param maxCachedTypes The maximum number of response types for which a reader is cached
+     */
+    public JacksonResponseTransformer(ObjectMapper om, int maxCachedTypes) {
+        this.om = om;
+        this.readers = new LRUMap<>(Math.min(16, maxCachedTypes), maxCachedTypes);
+    }
 
     @Override
     public <T> T transform(InputStream from, Class<T> toType) throws IOException {
-        return om.readValue(from, toType);
+        return reader(toType).readValue(from);
+    }
+
+    @Override
+    public <T> T transform(InputStream from, GenericType<T> toType) throws IOException {
+        return reader(toType.getType()).readValue(from);
+    }
+
+    @Override
+    public <T> CloseableIterator<T> transformElements(InputStream from, GenericType<T> elementType)
+            throws IOException {
+        // Unwraps a top-level array, any other input is read as a sequence of root values
+        MappingIterator<T> values = reader(elementType.getType()).readValues(from);
+        return new CloseableIterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return values.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return values.next();
+            }
+
+            @Override
+            public void close() {
+                try {
+                    values.close();
+                } catch (IOException ignore) {
+                    // The connection won't be reused, nothing else to clean up.
+                }
+            }
+        };
+    }
+
+    private ObjectReader reader(Type type) {
+        ObjectReader reader = readers.get(type);
+        if (reader == null) {
+            reader = om.readerFor(om.getTypeFactory().constructType(type));
+            readers.put(type, reader);
+        }
+
+        return reader;
     }
 }
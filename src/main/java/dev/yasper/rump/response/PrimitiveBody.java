@@ -18,34 +18,100 @@
  */
 package dev.yasper.rump.response;
 
+import dev.yasper.rump.Headers;
+
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
+ * <p>
  * Used for parsing primitive body types that won't be properly accepted using a json parser.
+ * </p>
+ *
+ * <p>
+ * The body is read into a byte array in one go, using the Content-Length of the response to size the array. It is
+ * only decoded to a String when requested, using the charset of the Content-Type. Numbers and booleans are parsed
+ * straight from the bytes, surrounding whitespace is ignored.
+ * </p>
  */
 public class PrimitiveBody {
 
-    private final InputStream responseStream;
-    private final String parsed;
+    private static final byte[] EMPTY = new byte[0];
+    private static final int MAX_LENGTH_HINT = 16 * 1024 * 1024;
+
+    private final byte[] bytes;
+    private final Charset charset;
+    private String decoded;
 
     /**
-     * Construct a primitive body
+     * Construct a primitive body from an UTF-8 response, the stream is read and closed
      * @param responseStream the response stream to parse from
+     * @throws UncheckedIOException if reading the stream fails
      */
     public PrimitiveBody(InputStream responseStream) {
-        this.responseStream = responseStream;
-        this.parsed = parse();
+        this(read(responseStream), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Construct a primitive body from a response, the stream is read and closed
+     * @param responseStream the response stream to parse from, null for an empty body
+     * @param responseHeaders the response headers, used for the Content-Length and the charset of the Content-Type
+     * @throws IOException if reading the stream fails
+     */
+    public PrimitiveBody(InputStream responseStream, Headers responseHeaders) throws IOException {
+        this(read(responseStream, lengthHint(responseHeaders)), responseHeaders.getContentCharset());
+    }
+
+    /**
+     * Construct a primitive body from bytes that have already been read
+     * @param bytes the body, not copied
+     * @param charset the charset to decode the body with
+     */
+    public PrimitiveBody(byte[] bytes, Charset charset) {
+        this.bytes = bytes;
+        this.charset = charset;
     }
 
     /**
-     * Get the body as a buffered reader
+     * Get the body as a buffered reader, can be called more than once
      * @return a {@link BufferedReader} instsance
      */
     public BufferedReader getAsReader() {
-        return new BufferedReader(new InputStreamReader(responseStream));
+        return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(bytes), charset));
+    }
+
+    /**
+     * @return a copy of the raw body
+     */
+    public byte[] getAsBytes() {
+        return bytes.clone();
+    }
+
+    /**
+     * @return a read-only view on the raw body
+     */
+    public ByteBuffer getAsByteBuffer() {
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    /**
+     * @return the number of bytes in the body
+     */
+    public int length() {
+        return bytes.length;
+    }
+
+    public Charset getCharset() {
+        return charset;
     }
 
     /**
@@ -58,63 +124,128 @@ public class PrimitiveBody {
             return getAsString();
         }
 
-        return getAsString().replaceAll("\n", "");
+        return getAsString().replaceAll("\r?\n", "");
     }
 
     /**
-     * @return body as String
+     * @return body as String, decoded on the first call
      */
     public String getAsString() {
-        return parsed;
+        String result = decoded;
+        if (result == null) {
+            result = new String(bytes, charset);
+            decoded = result;
+        }
+
+        return result;
     }
 
     /**
      * @return body as int
      */
     public int getAsInt() {
-        return Integer.parseInt(getAsString());
+        long value = getAsLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw numberFormat();
+        }
+
+        return (int) value;
     }
 
     /**
      * @return body as double
      */
     public double getAsDouble() {
-        return Double.parseDouble(getAsString());
+        return Double.parseDouble(getAsNumberString());
     }
 
     /**
      * @return body as short
      */
     public short getAsShort() {
-        return Short.parseShort(getAsString());
+        long value = getAsLong();
+        if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+            throw numberFormat();
+        }
+
+        return (short) value;
     }
 
     /**
      * @return body as byte
      */
     public byte getAsByte() {
-        return Byte.parseByte(getAsString());
+        long value = getAsLong();
+        if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) {
+            throw numberFormat();
+        }
+
+        return (byte) value;
     }
 
     /**
      * @return body as long
      */
     public long getAsLong() {
-        return Long.parseLong(getAsString());
+        if (!isAsciiCompatible()) {
+            return Long.parseLong(getAsString().trim());
+        }
+
+        int start = start();
+        int end = end(start);
+        if (start == end) {
+            throw numberFormat();
+        }
+
+        boolean negative = bytes[start] == '-';
+        int i = negative || bytes[start] == '+' ? start + 1 : start;
+        if (i == end) {
+            throw numberFormat();
+        }
+
+        // Accumulate negatively so Long.MIN_VALUE can be parsed as well
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9 || result < limit / 10) {
+                throw numberFormat();
+            }
+
+            result *= 10;
+            if (result < limit + digit) {
+                throw numberFormat();
+            }
+
+            result -= digit;
+        }
+
+        return negative ? result : -result;
     }
 
     /**
      * @return body as float
      */
     public float getAsFloat() {
-        return Float.parseFloat(getAsString());
+        return Float.parseFloat(getAsNumberString());
     }
 
     /**
-     * @return body as boolean
+     * @return body as boolean, true only if the body is "true" ignoring case
      */
     public boolean getAsBoolean() {
-        return Boolean.parseBoolean(getAsString());
+        if (!isAsciiCompatible()) {
+            return Boolean.parseBoolean(getAsString().trim());
+        }
+
+        int start = start();
+        int end = end(start);
+        if (end - start != 4) {
+            return false;
+        }
+
+        return (bytes[start] | 0x20) == 't' && (bytes[start + 1] | 0x20) == 'r'
+                && (bytes[start + 2] | 0x20) == 'u' && (bytes[start + 3] | 0x20) == 'e';
     }
 
     /**
@@ -136,9 +267,8 @@ public class PrimitiveBody {
      * @return the value as type T
      */
     public <T> T getAs(Class<T> type) {
-        String asString = getAsString();
         if (type == String.class) {
-            return type.cast(asString);
+            return type.cast(getAsString());
         } else if (type == Integer.class) {
             return type.cast(getAsInt());
         } else if (type == Double.class) {
@@ -153,26 +283,101 @@ public class PrimitiveBody {
             return type.cast(getAsByte());
         } else if (type == Boolean.class) {
             return type.cast(getAsBoolean());
+        } else if (type == Character.class) {
+            return type.cast(getAsCharacter());
         } else {
             throw new IllegalStateException("This state should not be reachable");
         }
     }
 
-    private String parse() {
+    private String getAsNumberString() {
+        if (!isAsciiCompatible()) {
+            return getAsString().trim();
+        }
+
+        int start = start();
+        return new String(bytes, start, end(start) - start, StandardCharsets.ISO_8859_1);
+    }
+
+    private boolean isAsciiCompatible() {
+        return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)
+                || charset.equals(StandardCharsets.ISO_8859_1);
+    }
+
+    private int start() {
+        int start = 0;
+        while (start < bytes.length && isWhitespace(bytes[start])) {
+            start++;
+        }
+
+        return start;
+    }
+
+    private int end(int start) {
+        int end = bytes.length;
+        while (end > start && isWhitespace(bytes[end - 1])) {
+            end--;
+        }
+
+        return end;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private NumberFormatException numberFormat() {
+        return new NumberFormatException("For input string: \"" + getAsString() + "\"");
+    }
+
+    private static long lengthHint(Headers headers) {
+        String contentLength = headers.getContentLength();
+        if (contentLength.isEmpty()) {
+            return -1;
+        }
+
+        try {
+            return Long.parseLong(contentLength.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static byte[] read(InputStream responseStream) {
         try {
-            try (BufferedReader reader = this.getAsReader()) {
-                String line;
-                StringBuilder resultB = new StringBuilder();
-                while ((line = reader.readLine()) != null) {
-                    resultB.append(line);
-                    resultB.append("\n");
-                }
-
-                return resultB.toString();
-            }
+            return read(responseStream, -1);
         } catch (IOException e) {
-            e.printStackTrace();
-            return "";
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] read(InputStream responseStream, long lengthHint) throws IOException {
+        if (responseStream == null) {
+            return EMPTY;
+        }
+
+        try (responseStream) {
+            if (lengthHint < 0 || lengthHint > MAX_LENGTH_HINT) {
+                return responseStream.readAllBytes();
+            }
+
+            byte[] buffer = new byte[(int) lengthHint];
+            int read = responseStream.readNBytes(buffer, 0, buffer.length);
+            if (read < buffer.length) {
+                return Arrays.copyOf(buffer, read);
+            }
+
+            // The hint was too small, for example because the body was decoded after it was received
+            int next = responseStream.read();
+            if (next == -1) {
+                return buffer;
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(buffer.length * 2 + 1);
+            out.write(buffer);
+            out.write(next);
+            responseStream.transferTo(out);
+            return out.toByteArray();
         }
     }
 }
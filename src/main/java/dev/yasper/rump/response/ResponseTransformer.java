@@ -34,4 +34,39 @@ public interface ResponseTransformer {
      */
     <T> T transform(InputStream from, Class<T> toType) throws IOException;
 
+    /**
+     * Transforms the response from an input stream to a generic type such as {@code List<Post>}. The default
+     * implementation only supports tokens of types without type parameters.
+     *
+     * @param from   The input stream from which to extract the response
+     * @param toType The token of the type to which to convert the input
+     * @param <T>    The requested type to return
+     * @return the transformed object in the requested type
+     * @throws IOException for InputStream processing
+     */
+    @SuppressWarnings("unchecked")
+    default <T> T transform(InputStream from, GenericType<T> toType) throws IOException {
+        if (toType.getType() instanceof Class) {
+            return transform(from, (Class<T>) toType.getType());
+        }
+
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support generic type "
+                + toType.getType().getTypeName());
+    }
+
+    /**
+     * Transforms the response lazily into a sequence of elements, either the elements of a top-level array or a
+     * sequence of values such as newline-delimited JSON. The default implementation doesn't support this.
+     *
+     * @param from        The input stream from which to read the elements, closed when the iterator is closed
+     * @param elementType The token of the type of the elements
+     * @param <T>         The type of the elements
+     * @return an iterator that reads one element at a time
+     * @throws IOException for InputStream processing
+     */
+    default <T> CloseableIterator<T> transformElements(InputStream from, GenericType<T> elementType)
+            throws IOException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support streaming elements");
+    }
+
 }
@@ -0,0 +1,47 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.sse;
+
+/**
+ * Receives the events of a subscription to an event stream, all methods are called on the same thread one at a time
+ */
+public interface EventListener {
+
+    /**
+     * Called for every event received
+     *
+     * @param event The event
+     */
+    void onEvent(ServerSentEvent event);
+
+    /**
+     * Called once when the subscription fails, no other methods are called after this
+     *
+     * @param error The error the subscription failed with, or the exception thrown by {@link #onEvent(ServerSentEvent)}
+     */
+    default void onError(Throwable error) {
+    }
+
+    /**
+     * Called once when the subscription is closed or the server asked the client not to reconnect, no other methods
+     * are called after this
+     */
+    default void onClosed() {
+    }
+}
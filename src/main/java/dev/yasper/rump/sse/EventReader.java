@@ -0,0 +1,161 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.sse;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses a {@code text/event-stream} one event at a time, as specified by the HTML standard. Only the lines of the
+ * event being read are held in memory and an event is returned as soon as its terminating blank line arrives.
+ */
+public class EventReader implements Closeable {
+
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final BufferedReader reader;
+    private boolean firstLine = true;
+    private String lastEventId;
+    private long retry = -1;
+
+    /**
+     * @param input The event stream, always decoded as UTF-8
+     */
+    public EventReader(InputStream input) {
+        this(input, "");
+    }
+
+    /**
+     * @param input       The event stream, always decoded as UTF-8
+     * @param lastEventId The last event id of a previous connection to the stream, ids are inherited until the stream
+     *                    sets one
+     */
+    public EventReader(InputStream input, String lastEventId) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.lastEventId = lastEventId;
+    }
+
+    /**
+     * Read the next event, blocks until it arrives completely
+     *
+     * @return the event, null if the stream ended, an event that isn't terminated by a blank line is discarded
+     * @throws IOException Thrown when the stream can't be read
+     */
+    public ServerSentEvent read() throws IOException {
+        StringBuilder data = null;
+        String event = "";
+        String id = lastEventId;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (firstLine) {
+                firstLine = false;
+                if (!line.isEmpty() && line.charAt(0) == BYTE_ORDER_MARK) {
+                    line = line.substring(1);
+                }
+            }
+
+            if (line.isEmpty()) {
+                // Dispatch, an id without data still updates the last event id
+                lastEventId = id;
+                if (data != null) {
+                    return new ServerSentEvent(id, event.isEmpty() ? ServerSentEvent.DEFAULT_EVENT : event,
+                            data.toString());
+                }
+
+                event = "";
+                continue;
+            }
+
+            if (line.charAt(0) == ':') {
+                // Comment, usually a heartbeat that keeps the connection open
+                continue;
+            }
+
+            int colon = line.indexOf(':');
+            String field = colon == -1 ? line : line.substring(0, colon);
+            String value = "";
+            if (colon != -1) {
+                int start = colon + 1 < line.length() && line.charAt(colon + 1) == ' ' ? colon + 2 : colon + 1;
+                value = line.substring(start);
+            }
+
+            switch (field) {
+                case "event":
+                    event = value;
+                    break;
+                case "data":
+                    data = data == null ? new StringBuilder(value) : data.append('\n').append(value);
+                    break;
+                case "id":
+                    if (value.indexOf('\0') == -1) {
+                        id = value;
+                    }
+                    break;
+                case "retry":
+                    retry = parseRetry(value, retry);
+                    break;
+                default:
+                    // Unknown fields are ignored
+            }
+        }
+
+        return null;
+    }
+
+    private static long parseRetry(String value, long current) {
+        if (value.isEmpty()) {
+            return current;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                return current;
+            }
+        }
+
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return current;
+        }
+    }
+
+    /**
+     * @return the last event id of the stream, empty if there is none
+     */
+    public String getLastEventId() {
+        return lastEventId;
+    }
+
+    /**
+     * @return the reconnection time in milliseconds the stream asked for, -1 if it didn't
+     */
+    public long getRetry() {
+        return retry;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
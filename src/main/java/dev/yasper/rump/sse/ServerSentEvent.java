@@ -0,0 +1,71 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.sse;
+
+/**
+ * An event received from a {@code text/event-stream} response
+ */
+public final class ServerSentEvent {
+
+    /**
+     * The type of events that don't name one
+     */
+    public static final String DEFAULT_EVENT = "message";
+
+    private final String id;
+    private final String event;
+    private final String data;
+
+    /**
+     * @param id    The last event id of the stream when the event was dispatched
+     * @param event The type of the event
+     * @param data  The data of the event, lines of multiple data fields are joined with a line feed
+     */
+    public ServerSentEvent(String id, String event, String data) {
+        this.id = id;
+        this.event = event;
+        this.data = data;
+    }
+
+    /**
+     * @return the last event id of the stream, which is sent as Last-Event-ID on reconnect, empty if there is none
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the type of the event, {@link #DEFAULT_EVENT} if it didn't name one
+     */
+    public String getEvent() {
+        return event;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        return "ServerSentEvent{" + "id='" + id + '\'' +
+                ", event='" + event + '\'' +
+                ", data='" + data + '\'' +
+                '}';
+    }
+}
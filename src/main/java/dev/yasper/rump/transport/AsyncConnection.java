@@ -0,0 +1,51 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.transport;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Implemented by connections that can send their request without blocking the calling thread. The
+ * {@link dev.yasper.rump.client.AsyncRestClient} uses this to avoid holding a thread while a request is in flight.
+ */
+public interface AsyncConnection {
+
+    /**
+     * Send the request without blocking. Once the returned future completes the response code, headers and body are
+     * available on the connection without further I/O.
+     *
+     * @return a future completed when the response has been received, completed exceptionally with an
+     * {@link java.io.IOException} if the exchange failed
+     */
+    CompletableFuture<Void> connectAsync();
+
+    /**
+     * Send the request without blocking. When the response body is streamed the returned future may complete once the
+     * response code and headers arrived, reading the body then blocks until its bytes arrive. Connections that can't
+     * stream their body receive it in full, as {@link #connectAsync()} does.
+     *
+     * @param streaming Whether the response body is read as a stream
+     * @return a future completed when the response, or its headers for a streamed body, has been received, completed
+     * exceptionally with an {@link java.io.IOException} if the exchange failed
+     */
+    default CompletableFuture<Void> connectAsync(boolean streaming) {
+        return connectAsync();
+    }
+
+}
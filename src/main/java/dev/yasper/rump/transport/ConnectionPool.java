@@ -0,0 +1,273 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.transport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ * Connection management settings shared by every rest client that uses the same instance, see
+ * {@link dev.yasper.rump.config.RequestConfig#setConnectionPool(ConnectionPool)}.
+ * </p>
+ *
+ * <p>
+ * The pool limits the number of exchanges that can be open per host and in total. A request has to lease a slot
+ * before its connection is opened and releases it once the response has been read, requests over the limit wait for
+ * a slot to be released. A limit of zero means unlimited.
+ * </p>
+ *
+ * <p>
+ * The keep-alive settings are applied by the transports. When keep-alive is disabled {@link URLConnectionTransport}
+ * and {@link HttpClientTransport} ask the server to close the connection, see the transports for their limitations.
+ * The idle timeout and max lifetime are applied by {@link HttpClientTransport}, which retires its client once it
+ * was idle or lived for that long. {@link URLConnectionTransport} shares the JVM-wide keep-alive cache of
+ * {@link java.net.HttpURLConnection}, which closes connections after its own keep-alive time and ignores both.
+ * </p>
+ */
+public class ConnectionPool {
+
+    private final Object lock = new Object();
+    private final Map<String, Integer> leased = new HashMap<>();
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private int totalLeased = 0;
+
+    private volatile int maxConnectionsPerHost = 0;
+    private volatile int maxConnections = 0;
+    private volatile long idleTimeout = 0;
+    private volatile long maxLifetime = 0;
+    private volatile boolean keepAlive = true;
+
+    /**
+     * Lease a slot for a request to the passed url, blocks until a slot is available.
+     *
+     * @param url     The url the request is made to
+     * @param timeout The maximum time to wait in milliseconds, zero to wait indefinitely
+     * @return The lease, {@link Lease#release()} must be called when the exchange is done
+     * @throws IOException Thrown when no slot became available within the timeout or the thread was interrupted
+     */
+    public Lease acquire(URL url, int timeout) throws IOException {
+        CompletableFuture<Lease> future = acquireAsync(url);
+        try {
+            return timeout > 0 ? future.get(timeout, TimeUnit.MILLISECONDS) : future.get();
+        } catch (TimeoutException e) {
+            if (future.cancel(false)) {
+                throw new SocketTimeoutException("Timed out waiting for a pooled connection to " + hostKey(url));
+            }
+
+            return future.join();
+        } catch (InterruptedException e) {
+            if (!future.cancel(false)) {
+                future.join().release();
+            }
+
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a pooled connection");
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Lease a slot for a request to the passed url without blocking.
+     *
+     * @param url The url the request is made to
+     * @return A future completed with the lease once a slot is available, cancelling the future gives up the wait
+     */
+    public CompletableFuture<Lease> acquireAsync(URL url) {
+        if (maxConnections <= 0 && maxConnectionsPerHost <= 0) {
+            return CompletableFuture.completedFuture(new Lease(null));
+        }
+
+        String host = hostKey(url);
+        synchronized (lock) {
+            if (canLease(host)) {
+                return CompletableFuture.completedFuture(lease(host));
+            }
+
+            Waiter waiter = new Waiter(host);
+            waiters.add(waiter);
+            return waiter.future;
+        }
+    }
+
+    private void release(String host) {
+        List<Waiter> granted = new ArrayList<>();
+        synchronized (lock) {
+            totalLeased--;
+            leased.computeIfPresent(host, (key, count) -> count > 1 ? count - 1 : null);
+
+            Iterator<Waiter> it = waiters.iterator();
+            while (it.hasNext()) {
+                Waiter waiter = it.next();
+                if (waiter.future.isDone()) {
+                    it.remove();
+                } else if (canLease(waiter.host)) {
+                    it.remove();
+                    waiter.lease = lease(waiter.host);
+                    granted.add(waiter);
+                }
+            }
+        }
+
+        for (Waiter waiter : granted) {
+            if (!waiter.future.complete(waiter.lease)) {
+                waiter.lease.release();
+            }
+        }
+    }
+
+    private boolean canLease(String host) {
+        if (maxConnections > 0 && totalLeased >= maxConnections) {
+            return false;
+        }
+
+        return maxConnectionsPerHost <= 0 || leased.getOrDefault(host, 0) < maxConnectionsPerHost;
+    }
+
+    private Lease lease(String host) {
+        totalLeased++;
+        leased.merge(host, 1, Integer::sum);
+        return new Lease(host);
+    }
+
+    private static String hostKey(URL url) {
+        int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+        return url.getHost() + ":" + port;
+    }
+
+    /**
+     * Get the number of slots currently leased
+     *
+     * @return the number of open exchanges
+     */
+    public int getLeased() {
+        synchronized (lock) {
+            return totalLeased;
+        }
+    }
+
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public ConnectionPool setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        return this;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public ConnectionPool setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+        return this;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * @param idleTimeout Time in milliseconds after which idle connections are no longer reused, zero to keep them
+     * @return this {@link ConnectionPool} instance to be used for setter chaining
+     */
+    public ConnectionPool setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+        return this;
+    }
+
+    public long getMaxLifetime() {
+        return maxLifetime;
+    }
+
+    /**
+     * @param maxLifetime Time in milliseconds after which connections are no longer reused, zero for no limit
+     * @return this {@link ConnectionPool} instance to be used for setter chaining
+     */
+    public ConnectionPool setMaxLifetime(long maxLifetime) {
+        this.maxLifetime = maxLifetime;
+        return this;
+    }
+
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    public ConnectionPool setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool{" + "maxConnectionsPerHost=" + maxConnectionsPerHost +
+                ", maxConnections=" + maxConnections +
+                ", idleTimeout=" + idleTimeout +
+                ", maxLifetime=" + maxLifetime +
+                ", keepAlive=" + keepAlive +
+                '}';
+    }
+
+    /**
+     * A leased slot in the pool
+     */
+    public final class Lease {
+        private final String host;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(String host) {
+            this.host = host;
+        }
+
+        /**
+         * Release the slot so it can be leased by another request, calling this more than once has no effect.
+         */
+        public void release() {
+            if (host != null && released.compareAndSet(false, true)) {
+                ConnectionPool.this.release(host);
+            }
+        }
+    }
+
+    private static final class Waiter {
+        private final String host;
+        private final CompletableFuture<Lease> future = new CompletableFuture<>();
+        private Lease lease;
+
+        private Waiter(String host) {
+            this.host = host;
+        }
+    }
+}
@@ -0,0 +1,580 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.transport;
+
+import dev.yasper.rump.HeaderNames;
+import dev.yasper.rump.config.RequestConfig;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.Authenticator;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.net.SocketTimeoutException;
+import java.net.Proxy;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>
+ * {@link HttpURLConnection} view on an exchange performed by a {@link HttpClient}. All request properties are
+ * recorded on this instance until the response is requested, at which point the request is built and sent.
+ * </p>
+ *
+ * <p>
+ * Without a streaming mode the request body is buffered in memory and sent with a known length once the response is
+ * requested, keeping the request in memory allows it to be sent without blocking. With a fixed length or chunked
+ * streaming mode the request is sent as soon as the output stream is opened and the body is handed to the client
+ * while it is written, request properties set after that are ignored.
+ * </p>
+ *
+ * <p>
+ * The read timeout applies to the response headers and to every read of the response body, a read that times out
+ * cancels the exchange and fails with a {@link java.net.SocketTimeoutException}.
+ * </p>
+ *
+ * <p>
+ * The exchange is sent with the HTTP version of the config, when the config limits the number of concurrent streams a
+ * stream slot for the origin is held until the response body is closed.
+ * </p>
+ *
+ * <p>
+ * The exchange can also be sent without blocking using {@link #connectAsync()}, in which case the response body is
+ * received in full by the client's I/O threads before the returned future completes. A streamed body is handed out
+ * as soon as the headers arrived when using {@link #connectAsync(boolean)}, reading it blocks like the body of
+ * {@link #connect()} does.
+ * </p>
+ */
+class HttpClientConnection extends HttpURLConnection implements AsyncConnection {
+
+    private static final Set<String> RESTRICTED_HEADERS = Set.of(
+            "connection", "content-length", "expect", "host", "upgrade"
+    );
+    private static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    private final HttpClientTransport transport;
+    private final Proxy proxy;
+    private final ConnectionPool pool;
+    private final HttpVersion version;
+    private final ConnectionPool streams;
+    private Authenticator authenticator;
+    private ByteArrayOutputStream requestBody;
+    private RequestBodyPipe pipe;
+    private OutputStream output;
+    private CompletableFuture<HttpResponse<Flow.Publisher<List<ByteBuffer>>>> started;
+    private volatile ConnectionPool.Lease stream;
+    private HttpHeaders responseHeaders;
+    private InputStream responseBody;
+    private IOException failure;
+    private volatile CompletableFuture<?> inFlight;
+    private volatile TimedBodySubscriber<?> receiving;
+
+    HttpClientConnection(URL url, HttpClientTransport transport, RequestConfig config) {
+        super(url);
+        this.transport = transport;
+        this.proxy = config.getProxy();
+        this.pool = config.getConnectionPool();
+        this.version = config.getHttpVersion();
+        this.streams = transport.getStreamLimiter(config.getMaxConcurrentStreams());
+    }
+
+    @Override
+    public void connect() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+
+        if (connected) {
+            return;
+        }
+
+        try {
+            HttpResponse<Flow.Publisher<List<ByteBuffer>>> response;
+            if (started == null) {
+                HttpRequest request = buildRequest(bufferedBody(), true);
+                response = send(request, streams == null ? null : streams.acquire(url, getConnectTimeout())).get();
+            } else {
+                output.close();
+                response = getReadTimeout() > 0
+                        ? started.get(getReadTimeout(), TimeUnit.MILLISECONDS)
+                        : started.get();
+            }
+
+            TimedBodyInputStream body = new TimedBodyInputStream(getReadTimeout());
+            response.body().subscribe(body);
+            ConnectionPool.Lease lease = stream;
+            onResponse(response, lease == null ? body : new StreamInputStream(body, lease));
+        } catch (InterruptedException e) {
+            disconnect();
+            release(stream);
+            Thread.currentThread().interrupt();
+            this.failure = new InterruptedIOException(e.getMessage());
+            throw failure;
+        } catch (ExecutionException | TimeoutException e) {
+            disconnect();
+            release(stream);
+            this.failure = toIOException(e);
+            throw failure;
+        } catch (IOException e) {
+            release(stream);
+            this.failure = e;
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> connectAsync() {
+        return connectAsync(false);
+    }
+
+    @Override
+    public CompletableFuture<Void> connectAsync(boolean streaming) {
+        if (failure != null) {
+            return CompletableFuture.failedFuture(failure);
+        }
+
+        if (connected) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<HttpResponse<Flow.Publisher<List<ByteBuffer>>>> sent;
+        try {
+            if (started == null) {
+                HttpRequest request = buildRequest(bufferedBody(), true);
+                CompletableFuture<ConnectionPool.Lease> lease = streams == null
+                        ? CompletableFuture.completedFuture(null)
+                        : streams.acquireAsync(url);
+                sent = lease.thenCompose(acquired -> send(request, acquired));
+            } else {
+                output.close();
+                sent = getReadTimeout() > 0
+                        ? started.copy().orTimeout(getReadTimeout(), TimeUnit.MILLISECONDS)
+                        : started;
+            }
+        } catch (IOException e) {
+            disconnect();
+            release(stream);
+            this.failure = e;
+            return CompletableFuture.failedFuture(e);
+        }
+
+        if (streaming) {
+            return sent.thenAccept(response -> {
+                        TimedBodyInputStream body = new TimedBodyInputStream(getReadTimeout());
+                        response.body().subscribe(body);
+                        ConnectionPool.Lease lease = stream;
+                        onResponse(response, lease == null ? body : new StreamInputStream(body, lease));
+                    })
+                    .handle((ignore, e) -> {
+                        if (e != null) {
+                            disconnect();
+                            release(stream);
+                            this.failure = toIOException(e);
+                            throw new CompletionException(failure);
+                        }
+
+                        return null;
+                    });
+        }
+
+        return sent.thenCompose(response -> {
+                    TimedBodySubscriber<byte[]> body = new TimedBodySubscriber<>(
+                            HttpResponse.BodySubscribers.ofByteArray(), getReadTimeout());
+                    this.receiving = body;
+                    response.body().subscribe(body);
+                    return body.getBody().thenApply(bytes -> {
+                        onResponse(response, new ByteArrayInputStream(bytes));
+                        return (Void) null;
+                    });
+                })
+                .whenComplete((ignore, e) -> release(stream))
+                .handle((ignore, e) -> {
+                    if (e != null) {
+                        disconnect();
+                        this.failure = toIOException(e);
+                        throw new CompletionException(failure);
+                    }
+
+                    return null;
+                });
+    }
+
+    /**
+     * Send a request, the response completes once its headers arrived
+     *
+     * @param request The request
+     * @param lease   The stream slot of the exchange, null if streams are not limited
+     * @return the future of the response
+     */
+    private CompletableFuture<HttpResponse<Flow.Publisher<List<ByteBuffer>>>> send(HttpRequest request,
+                                                                                  ConnectionPool.Lease lease) {
+        this.stream = lease;
+        HttpClient client = transport.getClient(proxy, authenticator, getConnectTimeout(), pool);
+        CompletableFuture<HttpResponse<Flow.Publisher<List<ByteBuffer>>>> sent = client.sendAsync(request,
+                HttpResponse.BodyHandlers.ofPublisher());
+        this.inFlight = sent;
+        RequestBodyPipe body = pipe;
+        if (body != null) {
+            sent.whenComplete((response, e) -> {
+                if (e != null) {
+                    body.fail(toIOException(e));
+                }
+            });
+        }
+
+        return sent;
+    }
+
+    private static IOException toIOException(Throwable e) {
+        Throwable cause = e;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+
+        if (cause instanceof TimeoutException) {
+            return new SocketTimeoutException("Read timed out");
+        }
+
+        return cause instanceof IOException ? (IOException) cause : new IOException(cause);
+    }
+
+    private static void release(ConnectionPool.Lease stream) {
+        if (stream != null) {
+            stream.release();
+        }
+    }
+
+    private void onResponse(HttpResponse<?> response, InputStream body) {
+        this.responseHeaders = response.headers();
+        this.responseBody = body;
+        this.responseCode = response.statusCode();
+        this.responseMessage = reasonPhrase(responseCode);
+        this.connected = true;
+    }
+
+    private HttpRequest.BodyPublisher bufferedBody() {
+        return requestBody == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofByteArray(requestBody.toByteArray());
+    }
+
+    /**
+     * Build the request from the recorded properties
+     *
+     * @param publisher The publisher of the request body
+     * @param timed     Whether the read timeout applies from the moment the request is sent, streamed requests are
+     *                  only timed once their body has been written
+     * @return the request
+     */
+    private HttpRequest buildRequest(HttpRequest.BodyPublisher publisher, boolean timed) throws IOException {
+        HttpRequest.Builder builder;
+        try {
+            builder = HttpRequest.newBuilder(url.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            throw new IOException("Invalid request URL " + url, e);
+        }
+
+        if (timed && getReadTimeout() > 0) {
+            builder.timeout(Duration.ofMillis(getReadTimeout()));
+        }
+
+        if (version != null) {
+            builder.version(version.toClientVersion());
+        }
+
+        for (Map.Entry<String, List<String>> entry : getRequestProperties().entrySet()) {
+            String key = entry.getKey();
+            if (key == null || RESTRICTED_HEADERS.contains(key.toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+
+            for (String value : entry.getValue()) {
+                builder.header(key, value);
+            }
+        }
+
+        if (HttpClientTransport.isClosingConnection(pool, version)) {
+            builder.header(HeaderNames.CONNECTION, "close");
+        }
+
+        return builder.method(method, publisher).build();
+    }
+
+    @Override
+    public void setRequestMethod(String method) throws ProtocolException {
+        if (connected) {
+            throw new ProtocolException("Can't reset method: already connected");
+        }
+
+        this.method = method;
+    }
+
+    @Override
+    public void setAuthenticator(Authenticator auth) {
+        if (connected) {
+            throw new IllegalStateException("Already connected");
+        }
+
+        this.authenticator = auth;
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        if (!doOutput) {
+            throw new ProtocolException("cannot write to a URLConnection if doOutput=false - call setDoOutput(true)");
+        }
+
+        if (connected) {
+            throw new ProtocolException("Cannot write output after reading input.");
+        }
+
+        if (output != null) {
+            return output;
+        }
+
+        long length = fixedContentLengthLong != -1 ? fixedContentLengthLong : fixedContentLength;
+        if (length == -1 && chunkLength == -1) {
+            if (requestBody == null) {
+                requestBody = new ByteArrayOutputStream();
+            }
+
+            return requestBody;
+        }
+
+        pipe = new RequestBodyPipe(getReadTimeout());
+        HttpRequest.BodyPublisher publisher = HttpRequest.BodyPublishers.ofInputStream(pipe::getInputStream);
+        if (length == 0) {
+            publisher = HttpRequest.BodyPublishers.noBody();
+        } else if (length > 0) {
+            publisher = HttpRequest.BodyPublishers.fromPublisher(publisher, length);
+        }
+
+        HttpRequest request = buildRequest(publisher, false);
+        started = send(request, streams == null ? null : streams.acquire(url, getConnectTimeout()));
+        output = new BufferedOutputStream(pipe.getOutputStream(), chunkLength > 0 ? chunkLength : DEFAULT_CHUNK_SIZE);
+        return output;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        connect();
+        return responseBody;
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+        if (!connected || responseCode < HTTP_BAD_REQUEST) {
+            return null;
+        }
+
+        return responseBody;
+    }
+
+    @Override
+    public int getResponseCode() throws IOException {
+        connect();
+        return responseCode;
+    }
+
+    @Override
+    public String getResponseMessage() throws IOException {
+        connect();
+        return responseMessage;
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaderFields() {
+        try {
+            connect();
+        } catch (IOException e) {
+            return Collections.emptyMap();
+        }
+
+        return responseHeaders.map();
+    }
+
+    @Override
+    public String getHeaderField(String name) {
+        if (name == null || getHeaderFields().isEmpty()) {
+            return null;
+        }
+
+        List<String> values = responseHeaders.allValues(name);
+        if (values.isEmpty()) {
+            return null;
+        }
+
+        return values.get(values.size() - 1);
+    }
+
+    @Override
+    public String getHeaderFieldKey(int n) {
+        if (n == 0) {
+            return null;
+        }
+
+        String[] field = headerField(n);
+        return field == null ? null : field[0];
+    }
+
+    @Override
+    public String getHeaderField(int n) {
+        if (n == 0) {
+            return connected ? "HTTP/1.1 " + responseCode + " " + responseMessage : null;
+        }
+
+        String[] field = headerField(n);
+        return field == null ? null : field[1];
+    }
+
+    private String[] headerField(int n) {
+        List<String[]> fields = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : getHeaderFields().entrySet()) {
+            for (String value : entry.getValue()) {
+                fields.add(new String[]{entry.getKey(), value});
+            }
+        }
+
+        return n > 0 && n <= fields.size() ? fields.get(n - 1) : null;
+    }
+
+    @Override
+    public void disconnect() {
+        CompletableFuture<?> sent = inFlight;
+        if (sent != null) {
+            // Aborts an exchange that is still waiting for its response headers
+            sent.cancel(true);
+        }
+
+        TimedBodySubscriber<?> body = receiving;
+        if (body != null) {
+            body.cancel();
+        }
+
+        if (pipe != null) {
+            pipe.fail(new IOException("The connection was disconnected"));
+        }
+
+        if (responseBody == null) {
+            return;
+        }
+
+        try {
+            responseBody.close();
+        } catch (IOException ignore) {
+            // The exchange is being discarded, nothing left to clean up.
+        }
+    }
+
+    @Override
+    public boolean usingProxy() {
+        return proxy != null && proxy.type() != Proxy.Type.DIRECT;
+    }
+
+    /**
+     * Response stream that releases the stream slot of its exchange once it is closed.
+     */
+    private static final class StreamInputStream extends FilterInputStream {
+        private final ConnectionPool.Lease stream;
+
+        private StreamInputStream(InputStream in, ConnectionPool.Lease stream) {
+            super(in);
+            this.stream = stream;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                stream.release();
+            }
+        }
+    }
+
+    private static String reasonPhrase(int code) {
+        switch (code) {
+            case HTTP_OK:
+                return "OK";
+            case HTTP_CREATED:
+                return "Created";
+            case HTTP_ACCEPTED:
+                return "Accepted";
+            case HTTP_NO_CONTENT:
+                return "No Content";
+            case HTTP_PARTIAL:
+                return "Partial Content";
+            case HTTP_MOVED_PERM:
+                return "Moved Permanently";
+            case HTTP_MOVED_TEMP:
+                return "Found";
+            case HTTP_NOT_MODIFIED:
+                return "Not Modified";
+            case HTTP_BAD_REQUEST:
+                return "Bad Request";
+            case HTTP_UNAUTHORIZED:
+                return "Unauthorized";
+            case HTTP_FORBIDDEN:
+                return "Forbidden";
+            case HTTP_NOT_FOUND:
+                return "Not Found";
+            case HTTP_BAD_METHOD:
+                return "Method Not Allowed";
+            case HTTP_CONFLICT:
+                return "Conflict";
+            case 429:
+                return "Too Many Requests";
+            case HTTP_INTERNAL_ERROR:
+                return "Internal Server Error";
+            case HTTP_BAD_GATEWAY:
+                return "Bad Gateway";
+            case HTTP_UNAVAILABLE:
+                return "Service Unavailable";
+            case HTTP_GATEWAY_TIMEOUT:
+                return "Gateway Timeout";
+            default:
+                return null;
+        }
+    }
+}
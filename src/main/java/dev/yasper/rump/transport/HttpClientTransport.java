@@ -0,0 +1,234 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.transport;
+
+import dev.yasper.rump.HeaderNames;
+import dev.yasper.rump.config.RequestConfig;
+
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Transport implementation backed by {@link HttpClient}. Connections opened by this transport are sent through a
+ * shared client so the underlying sockets are reused between requests and rest client instances.
+ * </p>
+ *
+ * <p>
+ * A {@link HttpClient} fixes the proxy, authenticator and connect timeout when it is built, so one client is kept
+ * for every distinct combination of those config values. The read timeout is applied as the request timeout.
+ * </p>
+ *
+ * <p>
+ * Requests are sent with the {@link HttpVersion} of the config. With {@link HttpVersion#HTTP_2} concurrent requests to
+ * the same origin are multiplexed over a single connection, servers without HTTP/2 support are spoken to over
+ * HTTP/1.1. The number of concurrent streams per origin can be capped with
+ * {@link RequestConfig#setMaxConcurrentStreams(int)}.
+ * </p>
+ *
+ * <p>
+ * A client can't evict single connections, so the idle timeout and max lifetime of the {@link ConnectionPool} are
+ * applied to the client as a whole: a client that sent no request for the idle timeout, or that is older than the max
+ * lifetime, is retired and the next request is sent through a new client on new connections. The connections of a
+ * retired client are never reused, the JDK closes them once they were idle for the JVM-wide
+ * {@code jdk.httpclient.keepalive.timeout} in seconds or when the client is garbage collected. Exchanges in flight on
+ * a retired client are not affected. When keep-alive is disabled in the pool, HTTP/1.1 requests
+ * ask the server to close the connection with Connection: close. The HttpClient only lets that header through when
+ * the JVM is started with {@code -Djdk.httpclient.allowRestrictedHeaders=connection}, without it connections are
+ * kept alive.
+ * </p>
+ */
+public class HttpClientTransport implements Transport {
+
+    private static final boolean CONNECTION_HEADER_ALLOWED = isConnectionHeaderAllowed();
+
+    private final Map<ClientKey, SharedClient> clients = new ConcurrentHashMap<>();
+    private final Map<Integer, ConnectionPool> streamLimiters = new ConcurrentHashMap<>();
+
+    @Override
+    public HttpURLConnection open(URL url, RequestConfig config) throws IOException {
+        Proxy proxy = config.getProxy();
+        if (proxy != null && proxy.type() == Proxy.Type.SOCKS) {
+            throw new IOException("SOCKS proxies are not supported by " + getClass().getSimpleName());
+        }
+
+        return new HttpClientConnection(url, this, config);
+    }
+
+    /**
+     * Get the client for the passed connection properties, builds one if none exists yet or the existing one was idle
+     * for longer than the idle timeout or lived longer than the max lifetime of the pool.
+     *
+     * @param proxy          The proxy to send requests through, null for the default proxy selector
+     * @param authenticator  The authenticator to use, may be null
+     * @param connectTimeout The connect timeout in milliseconds, zero for no timeout
+     * @param pool           The connection pool of the request, may be null
+     * @return the shared client
+     */
+    HttpClient getClient(Proxy proxy, Authenticator authenticator, int connectTimeout, ConnectionPool pool) {
+        ClientKey key = new ClientKey(proxy, authenticator, connectTimeout,
+                pool == null ? 0 : pool.getIdleTimeout(), pool == null ? 0 : pool.getMaxLifetime());
+        long now = System.nanoTime();
+        SharedClient shared = clients.compute(key, (k, current) -> current == null || current.isRetired(k, now)
+                ? new SharedClient(buildClient(k), now)
+                : current);
+        shared.lastUsed = now;
+        return shared.client;
+    }
+
+    /**
+     * Whether requests can ask the server to close the connection when keep-alive is disabled in the pool
+     *
+     * @param pool    The connection pool of the request, may be null
+     * @param version The HTTP version of the request, may be null
+     * @return true if the request should be sent with Connection: close
+     */
+    static boolean isClosingConnection(ConnectionPool pool, HttpVersion version) {
+        return CONNECTION_HEADER_ALLOWED && pool != null && !pool.isKeepAlive() && version != HttpVersion.HTTP_2;
+    }
+
+    private static boolean isConnectionHeaderAllowed() {
+        try {
+            HttpRequest.newBuilder().header(HeaderNames.CONNECTION, "close");
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Get the limiter for the number of concurrent streams per origin
+     *
+     * @param maxConcurrentStreams The maximum number of concurrent streams per origin, zero for no limit
+     * @return the limiter shared by all connections with the same limit, null if there is no limit
+     */
+    ConnectionPool getStreamLimiter(int maxConcurrentStreams) {
+        if (maxConcurrentStreams <= 0) {
+            return null;
+        }
+
+        return streamLimiters.computeIfAbsent(maxConcurrentStreams,
+                max -> new ConnectionPool().setMaxConnectionsPerHost(max));
+    }
+
+    /**
+     * Create the builder for a new client, can be overridden to customize the clients built by this transport.
+     *
+     * @return the builder
+     */
+    protected HttpClient.Builder newBuilder() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NORMAL);
+    }
+
+    private HttpClient buildClient(ClientKey key) {
+        HttpClient.Builder builder = newBuilder();
+        if (key.proxy != null) {
+            if (key.proxy.type() == Proxy.Type.DIRECT) {
+                builder.proxy(HttpClient.Builder.NO_PROXY);
+            } else {
+                builder.proxy(ProxySelector.of((InetSocketAddress) key.proxy.address()));
+            }
+        }
+
+        if (key.authenticator != null) {
+            builder.authenticator(key.authenticator);
+        }
+
+        if (key.connectTimeout > 0) {
+            builder.connectTimeout(Duration.ofMillis(key.connectTimeout));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * A client shared by the requests with the same {@link ClientKey}
+     */
+    private static final class SharedClient {
+        private final HttpClient client;
+        private final long createdAt;
+        private volatile long lastUsed;
+
+        private SharedClient(HttpClient client, long createdAt) {
+            this.client = client;
+            this.createdAt = createdAt;
+            this.lastUsed = createdAt;
+        }
+
+        private boolean isRetired(ClientKey key, long now) {
+            return key.maxLifetime > 0 && now - createdAt >= TimeUnit.MILLISECONDS.toNanos(key.maxLifetime)
+                    || key.idleTimeout > 0 && now - lastUsed >= TimeUnit.MILLISECONDS.toNanos(key.idleTimeout);
+        }
+    }
+
+    private static final class ClientKey {
+        private final Proxy proxy;
+        private final Authenticator authenticator;
+        private final int connectTimeout;
+        private final long idleTimeout;
+        private final long maxLifetime;
+
+        private ClientKey(Proxy proxy, Authenticator authenticator, int connectTimeout, long idleTimeout,
+                          long maxLifetime) {
+            this.proxy = proxy;
+            this.authenticator = authenticator;
+            this.connectTimeout = connectTimeout;
+            this.idleTimeout = idleTimeout;
+            this.maxLifetime = maxLifetime;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof ClientKey)) {
+                return false;
+            }
+
+            ClientKey other = (ClientKey) o;
+            return connectTimeout == other.connectTimeout
+                    && idleTimeout == other.idleTimeout
+                    && maxLifetime == other.maxLifetime
+                    && Objects.equals(proxy, other.proxy)
+                    && authenticator == other.authenticator;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(proxy, System.identityHashCode(authenticator), connectTimeout, idleTimeout,
+                    maxLifetime);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.transport;
+
+import java.net.http.HttpClient;
+
+/**
+ * Enum containing the preferred HTTP protocol version of a request. Only {@link HttpClientTransport} can speak
+ * HTTP/2, the {@link URLConnectionTransport} always uses HTTP/1.1.
+ */
+public enum HttpVersion {
+    HTTP_1_1(HttpClient.Version.HTTP_1_1),
+    /**
+     * HTTP/2, falls back to HTTP/1.1 for servers that don't support it
+     */
+    HTTP_2(HttpClient.Version.HTTP_2);
+
+    private final HttpClient.Version clientVersion;
+
+    HttpVersion(HttpClient.Version clientVersion) {
+        this.clientVersion = clientVersion;
+    }
+
+    /**
+     * @return the matching {@link HttpClient.Version}
+     */
+    public HttpClient.Version toClientVersion() {
+        return clientVersion;
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands the request body written to a connection to the {@link java.net.http.HttpClient} while the request is being
+ * sent. At most a few chunks are held, writes wait for the client to catch up, so the body is never held in memory as a
+ * whole.
+ */
+final class RequestBodyPipe {
+
+    private static final int MAX_CHUNKS = 4;
+
+    private final Deque<byte[]> chunks = new ArrayDeque<>();
+    private final long writeTimeout;
+    private final OutputStream output = new Output();
+    private final InputStream input = new Input();
+    private byte[] current;
+    private int position;
+    private boolean closed;
+    private IOException failure;
+
+    /**
+     * Constructor for RequestBodyPipe
+     *
+     * @param writeTimeout The maximum time a write waits for the client in milliseconds, zero to wait indefinitely
+     */
+    RequestBodyPipe(int writeTimeout) {
+        this.writeTimeout = writeTimeout;
+    }
+
+    /**
+     * @return the stream the request body is written to, closing it ends the body
+     */
+    OutputStream getOutputStream() {
+        return output;
+    }
+
+    /**
+     * @return the stream the client reads the request body from
+     */
+    InputStream getInputStream() {
+        return input;
+    }
+
+    /**
+     * Abort the body, blocked and later reads and writes fail with the passed exception
+     *
+     * @param e The reason the exchange failed
+     */
+    synchronized void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+
+        chunks.clear();
+        notifyAll();
+    }
+
+    private synchronized void write(byte[] b, int off, int len) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(writeTimeout);
+        while (chunks.size() >= MAX_CHUNKS && failure == null) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (writeTimeout > 0 && remaining <= 0) {
+                throw new SocketTimeoutException("Write timed out");
+            }
+
+            await(writeTimeout > 0 ? remaining : 0);
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+
+        chunks.add(Arrays.copyOfRange(b, off, off + len));
+        notifyAll();
+    }
+
+    private synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    private synchronized int read(byte[] b, int off, int len) throws IOException {
+        while (current == null || position == current.length) {
+            if (failure != null) {
+                throw failure;
+            }
+
+            if (!chunks.isEmpty()) {
+                current = chunks.poll();
+                position = 0;
+                notifyAll();
+            } else if (closed) {
+                return -1;
+            } else {
+                await(0);
+            }
+        }
+
+        int read = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, read);
+        position += read;
+        return read;
+    }
+
+    private void await(long timeout) throws InterruptedIOException {
+        try {
+            wait(timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while streaming the request body");
+        }
+    }
+
+    private final class Output extends OutputStream {
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > 0) {
+                RequestBodyPipe.this.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void close() {
+            RequestBodyPipe.this.close();
+        }
+    }
+
+    private final class Input extends InputStream {
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return len == 0 ? 0 : RequestBodyPipe.this.read(b, off, len);
+        }
+    }
+}
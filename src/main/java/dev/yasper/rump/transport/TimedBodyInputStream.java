@@ -0,0 +1,181 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response body of a {@link java.net.http.HttpClient} exchange as a blocking stream. Every read waits at most the read
+ * timeout for the next bytes, a read that times out cancels the exchange and throws a {@link SocketTimeoutException},
+ * like the stream of a {@link java.net.HttpURLConnection} does.
+ */
+final class TimedBodyInputStream extends InputStream implements Flow.Subscriber<List<ByteBuffer>> {
+
+    private static final Object END = new Object();
+
+    private final BlockingQueue<Object> items = new LinkedBlockingQueue<>();
+    private final int readTimeout;
+    private volatile Flow.Subscription subscription;
+    private volatile boolean closed;
+    private Iterator<ByteBuffer> buffers = Collections.emptyIterator();
+    private ByteBuffer current;
+    private IOException failure;
+    private boolean done;
+
+    /**
+     * Constructor for TimedBodyInputStream
+     *
+     * @param readTimeout The maximum time to wait for bytes in milliseconds, zero to wait indefinitely
+     */
+    TimedBodyInputStream(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        if (closed) {
+            subscription.cancel();
+        } else {
+            subscription.request(1);
+        }
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> item) {
+        items.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        items.add(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        items.add(END);
+    }
+
+    @Override
+    public int read() throws IOException {
+        ByteBuffer buffer = next();
+        return buffer == null ? -1 : buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        ByteBuffer buffer = next();
+        if (buffer == null) {
+            return -1;
+        }
+
+        int read = Math.min(len, buffer.remaining());
+        buffer.get(b, off, read);
+        return read;
+    }
+
+    @Override
+    public int available() {
+        return current == null ? 0 : current.remaining();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        cancel();
+        items.add(END);
+    }
+
+    /**
+     * Get the buffer holding the next bytes of the body, waits for them to arrive
+     *
+     * @return the buffer with remaining bytes, null at the end of the body
+     */
+    private ByteBuffer next() throws IOException {
+        while (current == null || !current.hasRemaining()) {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+
+            if (buffers.hasNext()) {
+                current = buffers.next();
+                continue;
+            }
+
+            if (done) {
+                return null;
+            }
+
+            receive();
+        }
+
+        return current;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void receive() throws IOException {
+        Object item;
+        try {
+            item = readTimeout > 0 ? items.poll(readTimeout, TimeUnit.MILLISECONDS) : items.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+            throw new InterruptedIOException("Interrupted while reading the response body");
+        }
+
+        if (item == null) {
+            cancel();
+            failure = new SocketTimeoutException("Read timed out");
+        } else if (item == END) {
+            done = true;
+        } else if (item instanceof Throwable) {
+            Throwable cause = (Throwable) item;
+            failure = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } else {
+            buffers = ((List<ByteBuffer>) item).iterator();
+            subscription.request(1);
+        }
+    }
+
+    private void cancel() {
+        Flow.Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.transport;
+
+import java.net.SocketTimeoutException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Body subscriber that fails with a {@link SocketTimeoutException} and cancels the exchange when no bytes arrived
+ * for the read timeout, the body is otherwise collected by the wrapped subscriber.
+ *
+ * @param <T> The body type
+ */
+final class TimedBodySubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+    private final HttpResponse.BodySubscriber<T> delegate;
+    private final long readTimeout;
+    private final CompletableFuture<T> body = new CompletableFuture<>();
+    private volatile Flow.Subscription subscription;
+    private volatile long lastRead = System.nanoTime();
+
+    /**
+     * Constructor for TimedBodySubscriber
+     *
+     * @param delegate    The subscriber collecting the body
+     * @param readTimeout The maximum time between bytes in milliseconds, zero to wait indefinitely
+     */
+    TimedBodySubscriber(HttpResponse.BodySubscriber<T> delegate, int readTimeout) {
+        this.delegate = delegate;
+        this.readTimeout = readTimeout;
+        delegate.getBody().whenComplete((value, e) -> {
+            if (e != null) {
+                body.completeExceptionally(e);
+            } else {
+                body.complete(value);
+            }
+        });
+    }
+
+    @Override
+    public CompletionStage<T> getBody() {
+        return body;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        delegate.onSubscribe(subscription);
+        if (readTimeout > 0) {
+            schedule(readTimeout);
+        }
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> item) {
+        lastRead = System.nanoTime();
+        delegate.onNext(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        delegate.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        delegate.onComplete();
+    }
+
+    /**
+     * Stop receiving the body, the body completes with a {@link java.util.concurrent.CancellationException}
+     */
+    void cancel() {
+        Flow.Subscription current = subscription;
+        if (body.cancel(false) && current != null) {
+            current.cancel();
+        }
+    }
+
+    private void schedule(long delay) {
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(this::check);
+    }
+
+    private void check() {
+        if (body.isDone()) {
+            return;
+        }
+
+        long idle = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastRead);
+        if (idle < readTimeout) {
+            schedule(readTimeout - idle);
+        } else if (body.completeExceptionally(new SocketTimeoutException("Read timed out"))) {
+            subscription.cancel();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.transport;
+
+import dev.yasper.rump.config.RequestConfig;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * <p>
+ * Transport interface that opens the connections used by {@link dev.yasper.rump.client.DefaultRestClient}. The
+ * connection is exposed as a {@link HttpURLConnection} so request interceptors and connection consumers keep working
+ * regardless of the engine performing the exchange.
+ * </p>
+ *
+ * <p>
+ * See {@link RequestConfig#setTransport(Transport)} to change the transport used by a rest client.
+ * </p>
+ */
+public interface Transport {
+
+    /**
+     * Open a connection for the passed url. The connection is not connected yet, the rest client applies the config
+     * values and calls the request interceptors before the request is sent.
+     *
+     * @param url    The complete URL for this request (includes the base, the path and the params)
+     * @param config The request configuration from which the request is constructed
+     * @return The unconnected connection
+     * @throws IOException Thrown when the connection can not be opened
+     */
+    HttpURLConnection open(URL url, RequestConfig config) throws IOException;
+
+}
@@ -0,0 +1,53 @@
+/**
+ * Rump is a REST client for Java that allows for easy configuration and default values.
+ *
+ * Copyright (C) 2020 Jasper Ketelaar
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package dev.yasper.rump.transport;
+
+import dev.yasper.rump.HeaderNames;
+import dev.yasper.rump.config.RequestConfig;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URL;
+
+/**
+ * Default transport implementation, opens connections using {@link URL#openConnection()} and uses the proxy defined
+ * in the config if it is present. Connections are kept alive by the JDK unless keep-alive is disabled in the
+ * {@link ConnectionPool} of the config.
+ */
+public class URLConnectionTransport implements Transport {
+
+    @Override
+    public HttpURLConnection open(URL url, RequestConfig config) throws IOException {
+        Proxy proxy = config.getProxy();
+        HttpURLConnection connection;
+        if (proxy == null) {
+            connection = (HttpURLConnection) url.openConnection();
+        } else {
+            connection = (HttpURLConnection) url.openConnection(proxy);
+        }
+
+        ConnectionPool pool = config.getConnectionPool();
+        if (pool != null && !pool.isKeepAlive()) {
+            connection.setRequestProperty(HeaderNames.CONNECTION, "close");
+        }
+
+        return connection;
+    }
+}
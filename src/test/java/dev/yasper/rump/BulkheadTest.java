@@ -0,0 +1,121 @@
+package dev.yasper.rump;
+
+import dev.yasper.rump.client.AsyncRestClient;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.exception.RequestRejectedException;
+import dev.yasper.rump.resilience.Bulkhead;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class BulkheadTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch arrived = new CountDownLatch(1);
+    private TestServer slow;
+    private TestServer fast;
+    private ExecutorService executor;
+
+    @Before
+    public void init() throws IOException {
+        slow = new TestServer().handle("/", exchange -> {
+            arrived.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            TestServer.respond(exchange, 200, "text/plain", "slow");
+        });
+        fast = new TestServer().handle("/", exchange -> TestServer.respond(exchange, 200, "text/plain", "fast"));
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void close() {
+        release.countDown();
+        executor.shutdownNow();
+        slow.close();
+        fast.close();
+    }
+
+    private AsyncRestClient client(Bulkhead bulkhead) {
+        return new AsyncRestClient(Rump.createDefault(new RequestConfig().setBulkhead(bulkhead)), executor);
+    }
+
+    private static void assertRejected(CompletableFuture<?> future) throws Exception {
+        try {
+            future.get(3, TimeUnit.SECONDS);
+            Assert.fail("Expected the request to be rejected");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof RequestRejectedException);
+        }
+    }
+
+    @Test
+    public void testSlowUpstreamDoesNotStarveOthers() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(1, 1);
+        AsyncRestClient client = client(bulkhead);
+        RequestConfig slowConfig = new RequestConfig().setBaseURL(slow.getBaseURL());
+        RequestConfig fastConfig = new RequestConfig().setBaseURL(fast.getBaseURL());
+
+        CompletableFuture<String> first = client.getForObject("", String.class, slowConfig);
+        Assert.assertTrue(arrived.await(3, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = client.getForObject("", String.class, slowConfig);
+        assertRejected(client.getForObject("", String.class, slowConfig));
+
+        Assert.assertEquals("fast", client.getForObject("", String.class, fastConfig).get(3, TimeUnit.SECONDS));
+        Assert.assertEquals("fast", client.getForObject("", String.class, fastConfig).get(3, TimeUnit.SECONDS));
+
+        Bulkhead.Metrics metrics = bulkhead.getMetrics(slow.getBaseURL());
+        Assert.assertEquals(1, metrics.getInFlight());
+        Assert.assertEquals(1, metrics.getQueued());
+        Assert.assertEquals(1, metrics.getRejected());
+
+        release.countDown();
+        Assert.assertEquals("slow", first.get(3, TimeUnit.SECONDS));
+        Assert.assertEquals("slow", queued.get(3, TimeUnit.SECONDS));
+        metrics = bulkhead.getMetrics(slow.getBaseURL());
+        Assert.assertEquals(0, metrics.getInFlight());
+        Assert.assertEquals(2, metrics.getAccepted());
+        Assert.assertEquals(2, bulkhead.getMetrics(fast.getBaseURL()).getAccepted());
+    }
+
+    @Test
+    public void testNamedGroup() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(10, 10).setCompartment("reports", 1, 0);
+        AsyncRestClient client = client(bulkhead);
+        RequestConfig reports = new RequestConfig().setBulkheadGroup("reports");
+
+        CompletableFuture<String> first = client.getForObject(slow.getBaseURL(), String.class, reports);
+        Assert.assertTrue(arrived.await(3, TimeUnit.SECONDS));
+        assertRejected(client.getForObject(fast.getBaseURL(), String.class, reports));
+        Assert.assertEquals("fast", client.getForObject(fast.getBaseURL(), String.class).get(3, TimeUnit.SECONDS));
+
+        release.countDown();
+        Assert.assertEquals("slow", first.get(3, TimeUnit.SECONDS));
+        Assert.assertEquals(1, bulkhead.getMetrics("reports").getRejected());
+    }
+
+    @Test
+    public void testRejectsAfterMaxWait() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(1, 5).setMaxWait(100);
+        AsyncRestClient client = client(bulkhead);
+        client.getForObject(slow.getBaseURL(), String.class);
+        Assert.assertTrue(arrived.await(3, TimeUnit.SECONDS));
+        assertRejected(client.getForObject(slow.getBaseURL(), String.class));
+
+        String key = slow.getBaseURL().replace("http://", "").replace("/", "");
+        Assert.assertEquals(0, bulkhead.getMetrics(key).getQueued());
+        Assert.assertEquals(1, bulkhead.getMetrics(key).getRejected());
+    }
+}
@@ -0,0 +1,171 @@
+package dev.yasper.rump;
+
+import dev.yasper.rump.client.AsyncRestClient;
+import dev.yasper.rump.client.DefaultRestClient;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.exception.CircuitBreakerOpenException;
+import dev.yasper.rump.exception.HttpStatusCodeException;
+import dev.yasper.rump.resilience.CircuitBreaker;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CircuitBreakerTest {
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final List<String> transitions = Collections.synchronizedList(new ArrayList<>());
+    private TestServer server;
+    private CircuitBreaker breaker;
+    private DefaultRestClient client;
+    private String key;
+
+    @Before
+    public void init() throws IOException {
+        server = new TestServer()
+                .handle("/fail", exchange -> {
+                    hits.incrementAndGet();
+                    TestServer.respond(exchange, 500, "text/plain", "broken");
+                })
+                .handle("/missing", exchange -> {
+                    hits.incrementAndGet();
+                    TestServer.respond(exchange, 404, "text/plain", "nope");
+                })
+                .handle("/slow", exchange -> {
+                    hits.incrementAndGet();
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    TestServer.respond(exchange, 200, "text/plain", "slow");
+                })
+                .handle("/ok", exchange -> {
+                    hits.incrementAndGet();
+                    TestServer.respond(exchange, 200, "text/plain", "ok");
+                });
+        breaker = new CircuitBreaker()
+                .setWindowSize(4)
+                .setMinimumCalls(4)
+                .setOpenDuration(200)
+                .setHalfOpenCalls(2)
+                .setListener((circuit, from, to) -> transitions.add(from + "->" + to));
+        client = Rump.createDefault(new RequestConfig()
+                .setBaseURL(server.getBaseURL())
+                .setCircuitBreaker(breaker));
+        key = server.getBaseURL().replace("http://", "").replace("/", "");
+    }
+
+    @After
+    public void close() {
+        server.close();
+    }
+
+    private void fail(int times) throws IOException {
+        for (int i = 0; i < times; i++) {
+            try {
+                client.get("fail", String.class);
+                Assert.fail("Expected a status code exception");
+            } catch (HttpStatusCodeException e) {
+                Assert.assertEquals(500, e.getErrorResponse().getResponseCode());
+            }
+        }
+    }
+
+    @Test
+    public void testOpensOnFailureRate() throws IOException {
+        client.get("ok", String.class);
+        client.get("ok", String.class);
+        fail(2);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState(key));
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getStates().get(key));
+
+        try {
+            client.get("ok", String.class);
+            Assert.fail("Expected the circuit to be open");
+        } catch (CircuitBreakerOpenException e) {
+            Assert.assertEquals(key, e.getKey());
+            Assert.assertTrue(e.getRemaining() > 0);
+        }
+        Assert.assertEquals(4, hits.get());
+        Assert.assertEquals(Collections.singletonList("CLOSED->OPEN"), transitions);
+    }
+
+    @Test
+    public void testClientErrorsAreNotFailures() throws IOException {
+        for (int i = 0; i < 4; i++) {
+            try {
+                client.get("missing", String.class);
+            } catch (HttpStatusCodeException ignore) {
+                // Expected
+            }
+        }
+
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(key));
+    }
+
+    @Test
+    public void testClosesAfterSuccessfulTrials() throws Exception {
+        fail(4);
+        Thread.sleep(250);
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState(key));
+        Assert.assertEquals("ok", client.getForObject("ok", String.class));
+        Assert.assertEquals("ok", client.getForObject("ok", String.class));
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(key));
+        Assert.assertEquals("[CLOSED->OPEN, OPEN->HALF_OPEN, HALF_OPEN->CLOSED]", transitions.toString());
+    }
+
+    @Test
+    public void testReopensAfterFailedTrials() throws Exception {
+        fail(4);
+        Thread.sleep(250);
+        fail(2);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState(key));
+    }
+
+    @Test
+    public void testOpensOnSlowCallRate() throws IOException {
+        breaker.setSlowCallDuration(50).setSlowCallRateThreshold(50);
+        client.get("ok", String.class);
+        client.get("ok", String.class);
+        client.get("slow", String.class);
+        client.get("slow", String.class);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState(key));
+    }
+
+    @Test
+    public void testAsyncFailsFast() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            AsyncRestClient async = new AsyncRestClient(client, executor);
+            for (int i = 0; i < 4; i++) {
+                try {
+                    async.get("fail", String.class).get(5, TimeUnit.SECONDS);
+                    Assert.fail("Expected a status code exception");
+                } catch (ExecutionException e) {
+                    Assert.assertTrue(e.getCause() instanceof HttpStatusCodeException);
+                }
+            }
+
+            try {
+                async.get("ok", String.class).get(5, TimeUnit.SECONDS);
+                Assert.fail("Expected the circuit to be open");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof CircuitBreakerOpenException);
+            }
+            Assert.assertEquals(4, hits.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
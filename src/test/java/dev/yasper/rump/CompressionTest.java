@@ -0,0 +1,140 @@
+package dev.yasper.rump;
+
+import com.sun.net.httpserver.HttpExchange;
+import dev.yasper.rump.client.DefaultRestClient;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.model.Post;
+import dev.yasper.rump.response.HttpResponse;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class CompressionTest {
+
+    private static final String POST_JSON = "{\"userId\":1,\"id\":1,\"title\":\"title\",\"body\":\"body\"}";
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private TestServer server;
+    private DefaultRestClient drs;
+
+    @Before
+    public void init() throws IOException {
+        server = new TestServer()
+                .handle("/gzip", exchange -> {
+                    String accepted = String.valueOf(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+                    if (!accepted.contains("gzip")) {
+                        TestServer.respond(exchange, 200, "application/json", POST_JSON);
+                        return;
+                    }
+
+                    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                    try (OutputStream out = new GZIPOutputStream(compressed)) {
+                        out.write(POST_JSON.getBytes(StandardCharsets.UTF_8));
+                    }
+                    respondEncoded(exchange, "gzip", compressed.toByteArray());
+                })
+                .handle("/deflate", exchange -> {
+                    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                    try (OutputStream out = new DeflaterOutputStream(compressed)) {
+                        out.write("42".getBytes(StandardCharsets.UTF_8));
+                    }
+                    respondEncoded(exchange, "deflate", compressed.toByteArray());
+                })
+                .handle("/gzip-stream", exchange -> {
+                    exchange.getResponseHeaders().set("Content-Type", "application/json");
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                    exchange.sendResponseHeaders(200, 0);
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    try (OutputStream out = new GZIPOutputStream(exchange.getResponseBody())) {
+                        out.write(POST_JSON.getBytes(StandardCharsets.UTF_8));
+                    }
+                })
+                .handle("/upload", exchange -> {
+                    String encoding = String.valueOf(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+                    InputStream body = exchange.getRequestBody();
+                    if (encoding.equals("gzip")) {
+                        body = new GZIPInputStream(body);
+                    }
+                    int length = body.readAllBytes().length;
+                    TestServer.respond(exchange, 200, "text/plain", encoding + " " + length);
+                });
+        drs = Rump.createDefault(new RequestConfig()
+                .setBaseURL(server.getBaseURL()));
+    }
+
+    private static void respondEncoded(HttpExchange exchange, String encoding,
+                                       byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Content-Encoding", encoding);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @After
+    public void close() {
+        release.countDown();
+        server.close();
+    }
+
+    @Test
+    public void testGzipResponseIsDecoded() throws IOException {
+        HttpResponse<Post> res = drs.get("gzip", Post.class);
+        Assert.assertEquals("gzip", res.getResponseHeaders().getContentEncoding());
+        Assert.assertEquals("title", res.getBody().getTitle());
+    }
+
+    @Test
+    public void testDeflateResponseIsDecoded() throws IOException {
+        Assert.assertEquals(Integer.valueOf(42), drs.getForObject("deflate", Integer.class));
+    }
+
+    @Test
+    public void testStreamedResponseIsDecodedLazily() throws IOException {
+        long start = System.nanoTime();
+        try (InputStream body = drs.getForObject("gzip-stream", InputStream.class)) {
+            Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+            release.countDown();
+            Assert.assertEquals(POST_JSON, new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testHeadWithEncodingHasNoBody() throws IOException {
+        Assert.assertNull(drs.head("gzip").getBody());
+    }
+
+    @Test
+    public void testLargeRequestBodyIsCompressed() throws IOException {
+        Post post = new Post().setBody("x".repeat(4096));
+        String res = drs.postForObject("upload", post, String.class, new RequestConfig()
+                .setCompressionThreshold(1024)
+                .setStreamingChunkSize(512));
+        Assert.assertTrue(res, res.startsWith("gzip "));
+        Assert.assertTrue(Integer.parseInt(res.substring(5)) > 4096);
+    }
+
+    @Test
+    public void testSmallRequestBodyIsNotCompressed() throws IOException {
+        String res = drs.postForObject("upload", new Post(), String.class, new RequestConfig()
+                .setCompressionThreshold(1024));
+        Assert.assertTrue(res, res.startsWith("null "));
+    }
+}
@@ -0,0 +1,154 @@
+package dev.yasper.rump;
+
+import dev.yasper.rump.client.AsyncRestClient;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.exception.HttpStatusCodeException;
+import dev.yasper.rump.exception.RequestRejectedException;
+import dev.yasper.rump.resilience.ConcurrencyLimiter;
+import dev.yasper.rump.resilience.RequestGuard;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class ConcurrencyLimiterTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch arrived = new CountDownLatch(1);
+    private TestServer server;
+    private ExecutorService executor;
+    private String key;
+
+    @Before
+    public void init() throws IOException {
+        server = new TestServer()
+                .handle("/slow", exchange -> {
+                    arrived.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    TestServer.respond(exchange, 200, "text/plain", "slow");
+                })
+                .handle("/ok", exchange -> TestServer.respond(exchange, 200, "text/plain", "ok"))
+                .handle("/overloaded", exchange -> TestServer.respond(exchange, 503, "text/plain", "busy"));
+        executor = Executors.newFixedThreadPool(4);
+        key = server.getBaseURL().replace("http://", "").replace("/", "");
+    }
+
+    @After
+    public void close() {
+        release.countDown();
+        executor.shutdownNow();
+        server.close();
+    }
+
+    private AsyncRestClient client(ConcurrencyLimiter limiter) {
+        return new AsyncRestClient(Rump.createDefault(new RequestConfig()
+                .setBaseURL(server.getBaseURL())
+                .setConcurrencyLimiter(limiter)), executor);
+    }
+
+    @Test
+    public void testRejectsOverLimit() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter().setInitialLimit(1).setMaxLimit(1);
+        AsyncRestClient client = client(limiter);
+        CompletableFuture<String> slow = client.getForObject("slow", String.class);
+        Assert.assertTrue(arrived.await(3, TimeUnit.SECONDS));
+        Assert.assertEquals(1, limiter.getInFlight(key));
+
+        try {
+            client.getForObject("ok", String.class).get(3, TimeUnit.SECONDS);
+            Assert.fail("Expected the request to be rejected");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof RequestRejectedException);
+        }
+
+        release.countDown();
+        Assert.assertEquals("slow", slow.get(3, TimeUnit.SECONDS));
+        Assert.assertEquals("ok", client.getForObject("ok", String.class).get(3, TimeUnit.SECONDS));
+        Assert.assertEquals(0, limiter.getInFlight(key));
+    }
+
+    @Test
+    public void testQueuesOverLimit() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter().setInitialLimit(1).setMaxLimit(1).setMaxQueue(1);
+        AsyncRestClient client = client(limiter);
+        CompletableFuture<String> slow = client.getForObject("slow", String.class);
+        Assert.assertTrue(arrived.await(3, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = client.getForObject("ok", String.class);
+        try {
+            client.getForObject("ok", String.class).get(3, TimeUnit.SECONDS);
+            Assert.fail("Expected the request to be rejected");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof RequestRejectedException);
+        }
+
+        Thread.sleep(100);
+        Assert.assertFalse(queued.isDone());
+        release.countDown();
+        Assert.assertEquals("slow", slow.get(3, TimeUnit.SECONDS));
+        Assert.assertEquals("ok", queued.get(3, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRejectsAfterMaxWait() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter().setInitialLimit(1).setMaxLimit(1)
+                .setMaxQueue(1)
+                .setMaxWait(100);
+        AsyncRestClient client = client(limiter);
+        client.getForObject("slow", String.class);
+        Assert.assertTrue(arrived.await(3, TimeUnit.SECONDS));
+        try {
+            client.getForObject("ok", String.class).get(3, TimeUnit.SECONDS);
+            Assert.fail("Expected the request to be rejected");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof RequestRejectedException);
+        }
+    }
+
+    @Test
+    public void testDropsReduceLimit() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter().setInitialLimit(10);
+        try {
+            client(limiter).getForObject("overloaded", String.class).get(3, TimeUnit.SECONDS);
+            Assert.fail("Expected a status code exception");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof HttpStatusCodeException);
+        }
+
+        Assert.assertEquals(9, limiter.getLimit(key));
+        Assert.assertEquals(0, limiter.getInFlight(key));
+    }
+
+    @Test
+    public void testLimitFollowsLatency() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter().setInitialLimit(2);
+        URL url = new URL(server.getBaseURL() + "ok");
+        RequestConfig config = new RequestConfig();
+        RequestGuard.Permit first = limiter.acquire(url, config);
+        RequestGuard.Permit second = limiter.acquire(url, config);
+        first.complete(null, null);
+        second.complete(null, null);
+        Assert.assertEquals(4, limiter.getLimit(key));
+
+        limiter.setInitialLimit(20);
+        String other = "localhost:1";
+        URL otherUrl = new URL("http://localhost:1/");
+        limiter.acquire(otherUrl, config).complete(null, null);
+        RequestGuard.Permit slow = limiter.acquire(otherUrl, config);
+        Thread.sleep(50);
+        slow.complete(null, null);
+        Assert.assertEquals(19, limiter.getLimit(other));
+    }
+}
@@ -0,0 +1,174 @@
+package dev.yasper.rump;
+
+import dev.yasper.rump.client.AsyncRestClient;
+import dev.yasper.rump.client.DefaultRestClient;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.transport.ConnectionPool;
+import dev.yasper.rump.transport.HttpClientTransport;
+import dev.yasper.rump.transport.HttpVersion;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConnectionPoolTest {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final Set<Integer> ports = ConcurrentHashMap.newKeySet();
+    private TestServer server;
+    private ExecutorService executor;
+
+    @Before
+    public void init() throws IOException {
+        server = new TestServer()
+                .handle("/slow", exchange -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                    TestServer.respond(exchange, 200, "text/plain", "ok");
+                })
+                .handle("/port", exchange -> {
+                    ports.add(exchange.getRemoteAddress().getPort());
+                    TestServer.respond(exchange, 200, "text/plain", "ok");
+                });
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @After
+    public void close() {
+        executor.shutdownNow();
+        server.close();
+    }
+
+    @Test
+    public void testMaxConnectionsPerHost() throws Exception {
+        ConnectionPool pool = new ConnectionPool()
+                .setMaxConnectionsPerHost(2);
+        AsyncRestClient ars = Rump.createAsync(new RequestConfig()
+                .setBaseURL(server.getBaseURL())
+                .setConnectionPool(pool), executor);
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(ars.getForObject("slow", String.class));
+        }
+
+        for (CompletableFuture<String> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+
+        Assert.assertTrue(maxInFlight.get() <= 2);
+        Assert.assertEquals(0, pool.getLeased());
+    }
+
+    @Test
+    public void testMaxConcurrentStreamsWithHttp2Fallback() throws Exception {
+        AsyncRestClient ars = Rump.createAsync(new RequestConfig()
+                .setBaseURL(server.getBaseURL())
+                .setTransport(new HttpClientTransport())
+                .setHttpVersion(HttpVersion.HTTP_2)
+                .setMaxConcurrentStreams(3), executor);
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            futures.add(ars.getForObject("slow", String.class));
+        }
+
+        for (CompletableFuture<String> future : futures) {
+            Assert.assertEquals("ok", future.get(10, TimeUnit.SECONDS));
+        }
+
+        Assert.assertTrue(maxInFlight.get() <= 3);
+    }
+
+    @Test
+    public void testHttpClientTransportReusesConnections() throws Exception {
+        DefaultRestClient drs = portClient(new ConnectionPool());
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals("ok", drs.getForObject("port", String.class));
+        }
+
+        Assert.assertEquals(1, ports.size());
+    }
+
+    @Test
+    public void testHttpClientTransportMaxLifetime() throws Exception {
+        DefaultRestClient drs = portClient(new ConnectionPool()
+                .setMaxLifetime(300));
+        drs.getForObject("port", String.class);
+        drs.getForObject("port", String.class);
+        Assert.assertEquals(1, ports.size());
+
+        Thread.sleep(400);
+        drs.getForObject("port", String.class);
+        Assert.assertEquals(2, ports.size());
+    }
+
+    @Test
+    public void testHttpClientTransportIdleTimeout() throws Exception {
+        DefaultRestClient drs = portClient(new ConnectionPool()
+                .setIdleTimeout(300));
+        for (int i = 0; i < 4; i++) {
+            // Used more often than the idle timeout, the connection outlives it
+            drs.getForObject("port", String.class);
+            Thread.sleep(100);
+        }
+        Assert.assertEquals(1, ports.size());
+
+        Thread.sleep(400);
+        drs.getForObject("port", String.class);
+        Assert.assertEquals(2, ports.size());
+    }
+
+    private DefaultRestClient portClient(ConnectionPool pool) {
+        return Rump.createDefault(new RequestConfig()
+                .setBaseURL(server.getBaseURL())
+                .setTransport(new HttpClientTransport())
+                .setConnectionPool(pool));
+    }
+
+    @Test(expected = SocketTimeoutException.class)
+    public void testAcquireTimesOut() throws IOException {
+        ConnectionPool pool = new ConnectionPool()
+                .setMaxConnections(1);
+        URL url = new URL(server.getBaseURL());
+        pool.acquire(url, 0);
+        pool.acquire(url, 50);
+    }
+
+    @Test
+    public void testReleaseHandsOverSlot() throws Exception {
+        ConnectionPool pool = new ConnectionPool()
+                .setMaxConnections(1);
+        URL url = new URL(server.getBaseURL());
+        ConnectionPool.Lease first = pool.acquire(url, 0);
+        CompletableFuture<ConnectionPool.Lease> second = pool.acquireAsync(url);
+        Assert.assertFalse(second.isDone());
+
+        first.release();
+        first.release();
+        Assert.assertTrue(second.isDone());
+        Assert.assertEquals(1, pool.getLeased());
+        second.get().release();
+        Assert.assertEquals(0, pool.getLeased());
+    }
+}
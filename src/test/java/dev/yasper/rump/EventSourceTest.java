@@ -0,0 +1,280 @@
+package dev.yasper.rump;
+
+import com.sun.net.httpserver.HttpExchange;
+import dev.yasper.rump.client.EventSourceClient;
+import dev.yasper.rump.client.EventStream;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.exception.HttpStatusCodeException;
+import dev.yasper.rump.sse.EventListener;
+import dev.yasper.rump.sse.EventReader;
+import dev.yasper.rump.sse.ServerSentEvent;
+import dev.yasper.rump.transport.ConnectionPool;
+import dev.yasper.rump.transport.HttpClientTransport;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EventSourceTest {
+
+    private final List<String> lastEventIds = new CopyOnWriteArrayList<>();
+    private final List<String> tokens = new CopyOnWriteArrayList<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private TestServer server;
+    private ConnectionPool pool;
+    private ExecutorService executor;
+    private EventSourceClient client;
+
+    @Before
+    public void init() throws IOException {
+        server = new TestServer()
+                .handle("/events", exchange -> {
+                    lastEventIds.add(String.valueOf(exchange.getRequestHeaders().getFirst("Last-Event-ID")));
+                    tokens.add(String.valueOf(exchange.getRequestHeaders().getFirst("X-Token")));
+                    if (connections.incrementAndGet() == 1) {
+                        send(exchange, "retry: 50\n\nid: 1\ndata: one\n\n: heartbeat\n"
+                                + "event: update\nid: 2\ndata: two\ndata: lines\n\n", false);
+                    } else {
+                        send(exchange, "id: 3\ndata: three\n\n", true);
+                    }
+                })
+                .handle("/done", exchange -> TestServer.respond(exchange, 204, "text/event-stream", ""))
+                .handle("/error", exchange -> TestServer.respond(exchange, 500, "text/plain", "down"))
+                .handle("/json", exchange -> TestServer.respond(exchange, 200, "application/json", "{}"));
+        pool = new ConnectionPool().setMaxConnectionsPerHost(2);
+        AtomicInteger token = new AtomicInteger();
+        executor = Executors.newCachedThreadPool();
+        client = new EventSourceClient(Rump.createDefault(new RequestConfig()
+                .setBaseURL(server.getBaseURL())
+                .setReadTimeout(0)
+                .setConnectionPool(pool)
+                .setRequestHeaders(new Headers().setHeader("X-Token", () -> "t" + token.incrementAndGet()))),
+                executor).setRetryDelay(10);
+    }
+
+    @After
+    public void close() {
+        release.countDown();
+        executor.shutdownNow();
+        server.close();
+    }
+
+    private void send(HttpExchange exchange, String events, boolean hold) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(events.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            if (hold) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void testReader() throws IOException {
+        String stream = "﻿data: first\r\n\r\n"
+                + ":comment\n"
+                + "event: custom\rdata:no space\rdata\r\r"
+                + "id: 7\n\n"
+                + "retry: soon\nretry: 1500\ndata:  padded\n\n"
+                + "data: unterminated\n";
+        EventReader reader = new EventReader(new ByteArrayInputStream(stream.getBytes(StandardCharsets.UTF_8)));
+
+        ServerSentEvent first = reader.read();
+        Assert.assertEquals(ServerSentEvent.DEFAULT_EVENT, first.getEvent());
+        Assert.assertEquals("first", first.getData());
+        Assert.assertEquals("", first.getId());
+
+        ServerSentEvent custom = reader.read();
+        Assert.assertEquals("custom", custom.getEvent());
+        Assert.assertEquals("no space\n", custom.getData());
+
+        ServerSentEvent padded = reader.read();
+        Assert.assertEquals(" padded", padded.getData());
+        Assert.assertEquals("7", padded.getId());
+        Assert.assertEquals(1500, reader.getRetry());
+
+        Assert.assertNull(reader.read());
+        Assert.assertEquals("7", reader.getLastEventId());
+    }
+
+    @Test
+    public void testReconnectsWithLastEventId() throws Exception {
+        EventStream stream = client.open("events");
+        List<ServerSentEvent> events = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            events.add(stream.next());
+        }
+
+        Assert.assertEquals("one", events.get(0).getData());
+        Assert.assertEquals("update", events.get(1).getEvent());
+        Assert.assertEquals("two\nlines", events.get(1).getData());
+        Assert.assertEquals("3", events.get(2).getId());
+        Assert.assertEquals(List.of("null", "2"), lastEventIds);
+        Assert.assertEquals(List.of("t1", "t2"), tokens);
+        Assert.assertEquals(1, stream.getReconnects());
+        Assert.assertEquals(50, stream.getRetryDelay());
+
+        // The blocked read of the url connection notices the close once the server sends more
+        CompletableFuture.runAsync(() -> {
+            stream.close();
+            release.countDown();
+        }, CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS));
+        Assert.assertFalse(stream.hasNext());
+        Assert.assertEquals(2, connections.get());
+
+        // The connection may be dropped by the thread close() handed it to
+        long deadline = System.currentTimeMillis() + 2000;
+        while (pool.getLeased() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        Assert.assertEquals(0, pool.getLeased());
+    }
+
+    @Test
+    public void testCloseWakesBlockedReader() throws Exception {
+        EventStream stream = new EventSourceClient(Rump.createDefault(new RequestConfig()
+                .setBaseURL(server.getBaseURL())
+                .setReadTimeout(0)
+                .setTransport(new HttpClientTransport())), executor)
+                .setRetryDelay(10)
+                .open("events");
+        for (int i = 0; i < 3; i++) {
+            stream.next();
+        }
+
+        CompletableFuture.runAsync(stream::close, CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS));
+        long start = System.nanoTime();
+        Assert.assertFalse(stream.hasNext());
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test
+    public void testListener() throws Exception {
+        List<String> data = new CopyOnWriteArrayList<>();
+        CountDownLatch received = new CountDownLatch(3);
+        CountDownLatch closed = new CountDownLatch(1);
+        EventStream stream = client.subscribe("events", new EventListener() {
+            @Override
+            public void onEvent(ServerSentEvent event) {
+                data.add(event.getData());
+                received.countDown();
+            }
+
+            @Override
+            public void onClosed() {
+                closed.countDown();
+            }
+        });
+
+        Assert.assertTrue(received.await(3, TimeUnit.SECONDS));
+        stream.close();
+        release.countDown();
+        Assert.assertTrue(closed.await(3, TimeUnit.SECONDS));
+        Assert.assertEquals(List.of("one", "two\nlines", "three"), data);
+    }
+
+    @Test
+    public void testPublisherHonoursDemand() throws Exception {
+        List<String> data = new CopyOnWriteArrayList<>();
+        CompletableFuture<Flow.Subscription> subscribed = new CompletableFuture<>();
+        client.publish("events").subscribe(new Flow.Subscriber<ServerSentEvent>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscribed.complete(subscription);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(ServerSentEvent item) {
+                data.add(item.getData());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                data.add("error");
+            }
+
+            @Override
+            public void onComplete() {
+                data.add("complete");
+            }
+        });
+
+        Flow.Subscription subscription = subscribed.get(3, TimeUnit.SECONDS);
+        Thread.sleep(200);
+        Assert.assertEquals(List.of("one"), data);
+
+        subscription.request(2);
+        long deadline = System.currentTimeMillis() + 3000;
+        while (data.size() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        subscription.cancel();
+        release.countDown();
+        Thread.sleep(200);
+        Assert.assertEquals(List.of("one", "two\nlines", "three"), data);
+        Assert.assertEquals(0, pool.getLeased());
+    }
+
+    @Test
+    public void testNoContentEndsStream() {
+        EventStream stream = client.open("done");
+        Assert.assertFalse(stream.hasNext());
+        Assert.assertTrue(stream.isClosed());
+        Assert.assertEquals(0, stream.getReconnects());
+    }
+
+    @Test(expected = HttpStatusCodeException.class)
+    public void testErrorStatusFails() {
+        client.open("error").hasNext();
+    }
+
+    @Test
+    public void testWrongContentTypeFails() {
+        try {
+            client.open("json").hasNext();
+            Assert.fail("Expected the stream to fail");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("application/json"));
+        }
+
+        Assert.assertEquals(0, pool.getLeased());
+    }
+
+    @Test
+    public void testGivesUpAfterMaxReconnects() throws IOException {
+        TestServer down = new TestServer();
+        String baseURL = down.getBaseURL();
+        down.close();
+        EventStream stream = client.setMaxReconnects(2).open("events", new RequestConfig().setBaseURL(baseURL));
+        try {
+            stream.hasNext();
+            Assert.fail("Expected the stream to fail");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(stream.isClosed());
+            Assert.assertEquals(2, stream.getReconnects());
+        }
+    }
+}
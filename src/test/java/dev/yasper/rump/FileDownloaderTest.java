@@ -0,0 +1,345 @@
+package dev.yasper.rump;
+
+import dev.yasper.rump.client.DefaultRestClient;
+import dev.yasper.rump.client.FileDownloader;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.download.Download;
+import dev.yasper.rump.download.DownloadResult;
+import dev.yasper.rump.exception.ChecksumMismatchException;
+import dev.yasper.rump.transport.ConnectionPool;
+import dev.yasper.rump.transport.HttpClientTransport;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class FileDownloaderTest {
+
+    private static final String ETAG = "\"v1\"";
+    private static final byte[] CONTENT = new byte[1024 * 1024];
+
+    static {
+        new Random(42).nextBytes(CONTENT);
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger heads = new AtomicInteger();
+    private final AtomicReference<String> acceptRanges = new AtomicReference<>("bytes");
+    private final AtomicReference<String> headEtag = new AtomicReference<>(ETAG);
+    private final AtomicReference<CountDownLatch> stall = new AtomicReference<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private TestServer server;
+    private ConnectionPool pool;
+    private FileDownloader downloader;
+    private FileDownloader segmented;
+    private Path target;
+
+    @Before
+    public void init() throws IOException {
+        server = new TestServer().handle("/file", exchange -> {
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+            exchange.getResponseHeaders().set("Accept-Ranges", acceptRanges.get());
+            exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+            if (exchange.getRequestMethod().equals("HEAD")) {
+                heads.incrementAndGet();
+                exchange.getResponseHeaders().set("ETag", headEtag.get());
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(CONTENT.length));
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+                return;
+            }
+
+            ranges.add(range + " " + ifRange);
+            boolean partial = range != null && ETAG.equals(ifRange);
+            int start = 0;
+            int end = CONTENT.length - 1;
+            if (partial) {
+                String[] bounds = range.substring("bytes=".length()).split("-", -1);
+                start = Integer.parseInt(bounds[0]);
+                end = bounds[1].isEmpty() ? end : Integer.parseInt(bounds[1]);
+            }
+
+            int length = end - start + 1;
+            exchange.getResponseHeaders().set("ETag", ETAG);
+            if (partial) {
+                exchange.getResponseHeaders().set("Content-Range",
+                        "bytes " + start + "-" + end + "/" + CONTENT.length);
+                exchange.sendResponseHeaders(206, length);
+            } else {
+                exchange.sendResponseHeaders(200, length);
+            }
+
+            OutputStream out = exchange.getResponseBody();
+            if (failures.getAndDecrement() > 0) {
+                // Cut the response off halfway
+                out.write(CONTENT, start, length / 2);
+                out.flush();
+                throw new IOException("Connection dropped");
+            }
+
+            CountDownLatch stalled = stall.get();
+            if (stalled != null) {
+                // Hold back the second half until the client wrote the first half
+                out.write(CONTENT, start, length / 2);
+                out.flush();
+                try {
+                    stalled.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                out.write(CONTENT, start + length / 2, length - length / 2);
+                out.close();
+                return;
+            }
+
+            out.write(CONTENT, start, length);
+            out.close();
+        });
+        pool = new ConnectionPool().setMaxConnectionsPerHost(2);
+        DefaultRestClient client = Rump.createDefault(new RequestConfig()
+                .setBaseURL(server.getBaseURL())
+                .setConnectionPool(pool));
+        downloader = new FileDownloader(client).setBufferSize(8192);
+        segmented = new FileDownloader(client, executor).setBufferSize(8192).setMinSegmentSize(128 * 1024);
+        target = folder.getRoot().toPath().resolve("model.bin");
+    }
+
+    @After
+    public void close() {
+        CountDownLatch stalled = stall.get();
+        if (stalled != null) {
+            stalled.countDown();
+        }
+        executor.shutdownNow();
+        server.close();
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+            hex.append(String.format("%02x", b));
+        }
+
+        return hex.toString();
+    }
+
+    @Test
+    public void testDownload() throws Exception {
+        AtomicLong progress = new AtomicLong();
+        AtomicLong total = new AtomicLong();
+        DownloadResult result = downloader.download(new Download("file", target)
+                .setChecksum("SHA-256", sha256(CONTENT).toUpperCase())
+                .setProgressListener((transferred, size) -> {
+                    progress.set(transferred);
+                    total.set(size);
+                }));
+
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        Assert.assertEquals(CONTENT.length, result.getSize());
+        Assert.assertEquals(sha256(CONTENT), result.getDigest());
+        Assert.assertEquals(0, result.getResumes());
+        Assert.assertEquals(CONTENT.length, progress.get());
+        Assert.assertEquals(CONTENT.length, total.get());
+        Assert.assertFalse(Files.exists(new Download("file", target).getPartialFile()));
+        Assert.assertEquals(0, pool.getLeased());
+    }
+
+    @Test
+    public void testResumesAfterFailure() throws Exception {
+        failures.set(2);
+        DownloadResult result = downloader.download(new Download("file", target)
+                .setChecksum("SHA-256", sha256(CONTENT)));
+
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        Assert.assertEquals(2, result.getResumes());
+        Assert.assertEquals(0, result.getResumedFrom());
+        Assert.assertEquals("null null", ranges.get(0));
+        Assert.assertEquals("bytes=" + CONTENT.length / 2 + "- " + ETAG, ranges.get(1));
+        Assert.assertEquals(3, ranges.size());
+        Assert.assertEquals(0, pool.getLeased());
+    }
+
+    @Test
+    public void testResumesPartialFile() throws Exception {
+        Download download = new Download("file", target).setChecksum("SHA-256", sha256(CONTENT));
+        int kept = 300_000;
+        Files.write(download.getPartialFile(), Arrays.copyOf(CONTENT, kept));
+        Files.write(download.getPartialFile().resolveSibling("model.bin.part.if-range"),
+                ETAG.getBytes(StandardCharsets.UTF_8));
+
+        DownloadResult result = downloader.download(download);
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        Assert.assertEquals(kept, result.getResumedFrom());
+        Assert.assertEquals(List.of("bytes=" + kept + "- " + ETAG), ranges);
+    }
+
+    @Test
+    public void testRestartsWhenFileChanged() throws Exception {
+        Download download = new Download("file", target);
+        Files.write(download.getPartialFile(), new byte[1000]);
+        Files.write(download.getPartialFile().resolveSibling("model.bin.part.if-range"),
+                "\"v0\"".getBytes(StandardCharsets.UTF_8));
+
+        DownloadResult result = downloader.download(download);
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        Assert.assertEquals(0, result.getResumedFrom());
+    }
+
+    @Test
+    public void testChecksumMismatch() throws Exception {
+        Download download = new Download("file", target).setChecksum("SHA-256", sha256(new byte[1]));
+        try {
+            downloader.download(download);
+            Assert.fail("Expected a checksum mismatch");
+        } catch (ChecksumMismatchException e) {
+            Assert.assertEquals(sha256(CONTENT), e.getActual());
+        }
+
+        Assert.assertFalse(Files.exists(target));
+        Assert.assertFalse(Files.exists(download.getPartialFile()));
+    }
+
+    @Test
+    public void testGivesUpAfterMaxResumes() throws Exception {
+        failures.set(Integer.MAX_VALUE);
+        Download download = new Download("file", target);
+        try {
+            downloader.setMaxResumes(0).download(download);
+            Assert.fail("Expected the download to fail");
+        } catch (IOException e) {
+            // Expected
+        }
+
+        // The partial file is kept to be resumed by a later call
+        Assert.assertEquals(CONTENT.length / 2, Files.size(download.getPartialFile()));
+        Assert.assertFalse(Files.exists(target));
+        Assert.assertEquals(0, pool.getLeased());
+    }
+
+    @Test
+    public void testSegmentedDownload() throws Exception {
+        AtomicLong progress = new AtomicLong();
+        DownloadResult result = segmented.download(new Download("file", target)
+                .setSegments(4)
+                .setChecksum("SHA-256", sha256(CONTENT))
+                .setProgressListener((transferred, total) -> progress.set(transferred)));
+
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        Assert.assertEquals(4, result.getSegments());
+        Assert.assertEquals(sha256(CONTENT), result.getDigest());
+        Assert.assertEquals(CONTENT.length, progress.get());
+        Assert.assertEquals(1, heads.get());
+        Assert.assertEquals(4, ranges.size());
+        int quarter = CONTENT.length / 4;
+        Assert.assertTrue(ranges.contains("bytes=0-" + (quarter - 1) + " " + ETAG));
+        Assert.assertTrue(ranges.contains("bytes=" + 3 * quarter + "-" + (CONTENT.length - 1) + " " + ETAG));
+        Assert.assertEquals(0, pool.getLeased());
+    }
+
+    @Test
+    public void testSegmentsStreamOnHttpClientTransport() throws Exception {
+        CountDownLatch stalled = new CountDownLatch(1);
+        stall.set(stalled);
+        FileDownloader downloader = new FileDownloader(Rump.createDefault(new RequestConfig()
+                .setBaseURL(server.getBaseURL())
+                .setTransport(new HttpClientTransport())), executor)
+                .setBufferSize(8192)
+                .setMinSegmentSize(128 * 1024);
+        AtomicLong progress = new AtomicLong();
+        CompletableFuture<DownloadResult> result = CompletableFuture.supplyAsync(() -> {
+            try {
+                return downloader.download(new Download("file", target)
+                        .setSegments(4)
+                        .setProgressListener((transferred, total) -> progress.set(transferred)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        long deadline = System.currentTimeMillis() + 3000;
+        while (progress.get() < CONTENT.length / 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // The first halves of the segments are on disk while the server still holds back the rest
+        Assert.assertEquals(CONTENT.length / 2, progress.get());
+        stalled.countDown();
+
+        Assert.assertEquals(4, result.get(5, TimeUnit.SECONDS).getSegments());
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(target));
+    }
+
+    @Test
+    public void testSegmentResumesAfterFailure() throws Exception {
+        failures.set(1);
+        DownloadResult result = segmented.download(new Download("file", target)
+                .setSegments(4)
+                .setChecksum("SHA-256", sha256(CONTENT)));
+
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        Assert.assertEquals(1, result.getResumes());
+        Assert.assertEquals(5, ranges.size());
+        Assert.assertEquals(0, pool.getLeased());
+    }
+
+    @Test
+    public void testSegmentsLimitedByMinimumSize() throws Exception {
+        DownloadResult result = segmented.setMinSegmentSize(CONTENT.length / 2)
+                .download(new Download("file", target).setSegments(8));
+
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        Assert.assertEquals(2, result.getSegments());
+    }
+
+    @Test
+    public void testSingleStreamWithoutRanges() throws Exception {
+        acceptRanges.set("none");
+        DownloadResult result = segmented.download(new Download("file", target).setSegments(4));
+
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        Assert.assertEquals(1, result.getSegments());
+        Assert.assertEquals(List.of("null null"), ranges);
+    }
+
+    @Test
+    public void testSegmentedFailsWhenFileChanged() throws Exception {
+        headEtag.set("\"v2\"");
+        Download download = new Download("file", target).setSegments(4);
+        try {
+            segmented.download(download);
+            Assert.fail("Expected the download to fail");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("changed"));
+        }
+
+        Assert.assertFalse(Files.exists(download.getPartialFile()));
+        Assert.assertFalse(Files.exists(target));
+        Assert.assertEquals(0, pool.getLeased());
+    }
+}
@@ -0,0 +1,134 @@
+package dev.yasper.rump;
+
+import dev.yasper.rump.client.AsyncRestClient;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.request.RequestMethod;
+import dev.yasper.rump.resilience.HedgePolicy;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HedgePolicyTest {
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private TestServer server;
+    private TestServer replica;
+    private ExecutorService executor;
+
+    @Before
+    public void init() throws IOException {
+        server = new TestServer()
+                .handle("/first-slow", exchange -> {
+                    if (hits.incrementAndGet() == 1) {
+                        await();
+                    }
+                    TestServer.respond(exchange, 200, "text/plain", "attempt " + hits.get());
+                })
+                .handle("/slow", exchange -> {
+                    hits.incrementAndGet();
+                    await();
+                    TestServer.respond(exchange, 200, "text/plain", "slow");
+                });
+        replica = new TestServer()
+                .handle("/slow", exchange -> TestServer.respond(exchange, 200, "text/plain", "replica"));
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    private void await() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @After
+    public void close() {
+        release.countDown();
+        executor.shutdownNow();
+        server.close();
+        replica.close();
+    }
+
+    private AsyncRestClient client(HedgePolicy policy) {
+        return new AsyncRestClient(Rump.createDefault(new RequestConfig()
+                .setBaseURL(server.getBaseURL())
+                .setHedgePolicy(policy)), executor);
+    }
+
+    @Test
+    public void testHedgeWinsFromSlowRequest() throws Exception {
+        HedgePolicy policy = new HedgePolicy()
+                .setDelay(50)
+                .setBudget(100);
+        String body = client(policy).getForObject("first-slow", String.class).get(3, TimeUnit.SECONDS);
+        Assert.assertEquals("attempt 2", body);
+        Assert.assertEquals(1, policy.getHedgeCount());
+        Assert.assertEquals(1, policy.getHedgeWinCount());
+    }
+
+    @Test
+    public void testHedgeToAlternateBaseURL() throws Exception {
+        HedgePolicy policy = new HedgePolicy()
+                .setDelay(50)
+                .setBudget(100)
+                .setAlternateBaseURL(replica.getBaseURL());
+        Assert.assertEquals("replica", client(policy).getForObject("slow", String.class).get(3, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testBudgetLimitsHedges() throws Exception {
+        HedgePolicy policy = new HedgePolicy()
+                .setDelay(20)
+                .setBudget(0);
+        CompletableFuture<String> res = client(policy).getForObject("first-slow", String.class);
+        Thread.sleep(200);
+        Assert.assertFalse(res.isDone());
+        release.countDown();
+        Assert.assertEquals("attempt 1", res.get(3, TimeUnit.SECONDS));
+        Assert.assertEquals(0, policy.getHedgeCount());
+    }
+
+    @Test
+    public void testOnlyGetAndHeadByDefault() {
+        HedgePolicy policy = new HedgePolicy();
+        Assert.assertTrue(policy.canHedge(RequestMethod.GET.toConfig()));
+        Assert.assertTrue(policy.canHedge(RequestMethod.HEAD.toConfig()));
+        Assert.assertFalse(policy.canHedge(RequestMethod.POST.toConfig()));
+        Assert.assertFalse(policy.canHedge(RequestMethod.PUT.toConfig()));
+        Assert.assertTrue(policy.setMethods(RequestMethod.PUT).canHedge(RequestMethod.PUT.toConfig()));
+    }
+
+    @Test
+    public void testDelayFromPercentile() throws Exception {
+        HedgePolicy policy = new HedgePolicy()
+                .setDelay(5000)
+                .setPercentile(50)
+                .setMinSamples(5)
+                .setBudget(0);
+        Assert.assertEquals(5000, policy.getHedgeDelay());
+        for (int i = 0; i < 5; i++) {
+            policy.execute(() -> CompletableFuture.supplyAsync(() -> {
+                try {
+                    Thread.sleep(30);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "done";
+            }, executor), CompletableFuture::new, executor).get(3, TimeUnit.SECONDS);
+        }
+
+        long delay = policy.getHedgeDelay();
+        Assert.assertTrue("delay " + delay, delay >= 25 && delay < 5000);
+    }
+}
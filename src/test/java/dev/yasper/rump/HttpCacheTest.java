@@ -0,0 +1,194 @@
+package dev.yasper.rump;
+
+import dev.yasper.rump.cache.CacheEntry;
+import dev.yasper.rump.cache.DiskCacheStore;
+import dev.yasper.rump.cache.HttpCache;
+import dev.yasper.rump.cache.MemoryCacheStore;
+import dev.yasper.rump.client.AsyncRestClient;
+import dev.yasper.rump.client.DefaultRestClient;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.model.Post;
+import dev.yasper.rump.response.HttpResponse;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HttpCacheTest {
+
+    private static final String POST_JSON = "{\"userId\":1,\"id\":1,\"title\":\"title\",\"body\":\"body\"}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private TestServer server;
+    private DefaultRestClient drs;
+
+    @Before
+    public void init() throws IOException {
+        server = new TestServer()
+                .handle("/fresh", exchange -> {
+                    hits.incrementAndGet();
+                    if (exchange.getRequestMethod().equals("GET")) {
+                        exchange.getResponseHeaders().set("Cache-Control", "max-age=60");
+                    }
+                    TestServer.respond(exchange, 200, "application/json", POST_JSON);
+                })
+                .handle("/etag", exchange -> {
+                    hits.incrementAndGet();
+                    exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+                    exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                    if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                        notModified.incrementAndGet();
+                        exchange.sendResponseHeaders(304, -1);
+                        exchange.close();
+                        return;
+                    }
+                    TestServer.respond(exchange, 200, "application/json", POST_JSON);
+                })
+                .handle("/private", exchange -> {
+                    hits.incrementAndGet();
+                    exchange.getResponseHeaders().set("Cache-Control", "max-age=60");
+                    exchange.getResponseHeaders().set("Vary", "Accept-Language");
+                    String user = exchange.getRequestHeaders().getFirst("Authorization");
+                    TestServer.respond(exchange, 200, "text/plain", user + " "
+                            + exchange.getRequestHeaders().getFirst("Accept-Language"));
+                })
+                .handle("/nostore", exchange -> {
+                    hits.incrementAndGet();
+                    exchange.getResponseHeaders().set("Cache-Control", "no-store, max-age=60");
+                    TestServer.respond(exchange, 200, "application/json", POST_JSON);
+                });
+        drs = Rump.createDefault(new RequestConfig()
+                .setBaseURL(server.getBaseURL())
+                .setHttpCache(new HttpCache()));
+    }
+
+    @After
+    public void close() {
+        server.close();
+    }
+
+    @Test
+    public void testFreshResponseIsServedFromCache() throws IOException {
+        Post first = drs.getForObject("fresh", Post.class);
+        Post second = drs.getForObject("fresh", Post.class);
+
+        Assert.assertEquals(1, hits.get());
+        Assert.assertSame(first, second);
+        Assert.assertTrue(drs.getForObject("fresh", String.class).contains("title"));
+        Assert.assertEquals(1, hits.get());
+    }
+
+    @Test
+    public void testStaleResponseIsRevalidated() throws Exception {
+        HttpResponse<Post> first = drs.get("etag", Post.class);
+        HttpResponse<Post> second = drs.get("etag", Post.class);
+        AsyncRestClient ars = new AsyncRestClient(drs, Executors.newSingleThreadExecutor());
+        HttpResponse<Post> third = ars.get("etag", Post.class).get(5, TimeUnit.SECONDS);
+
+        Assert.assertEquals(3, hits.get());
+        Assert.assertEquals(2, notModified.get());
+        Assert.assertEquals(200, second.getResponseCode());
+        Assert.assertEquals(first.getBody(), second.getBody());
+        Assert.assertEquals(first.getBody(), third.getBody());
+        ars.getExecutor().shutdown();
+    }
+
+    @Test
+    public void testNoStoreIsNotCached() throws IOException {
+        drs.getForObject("nostore", Post.class);
+        drs.getForObject("nostore", Post.class);
+        Assert.assertEquals(2, hits.get());
+    }
+
+    @Test
+    public void testRequestNoStoreSkipsCache() throws IOException {
+        drs.getForObject("fresh", Post.class);
+        drs.getForObject("fresh", Post.class, new Headers().setCacheControl("no-store").toConfig());
+        Assert.assertEquals(2, hits.get());
+    }
+
+    @Test
+    public void testEntryIsOnlyServedToSameAuthorization() throws IOException {
+        RequestConfig alice = new Headers().setAuthorization("Bearer alice").toConfig();
+        RequestConfig bob = new Headers().setAuthorization("Bearer bob").toConfig();
+
+        Assert.assertEquals("Bearer alice null", drs.getForObject("private", String.class, alice));
+        Assert.assertEquals("Bearer bob null", drs.getForObject("private", String.class, bob));
+        Assert.assertEquals("null null", drs.getForObject("private", String.class));
+        Assert.assertEquals(3, hits.get());
+
+        Assert.assertEquals("null null", drs.getForObject("private", String.class));
+        Assert.assertEquals(3, hits.get());
+    }
+
+    @Test
+    public void testEntryIsOnlyServedToSameVaryingHeaders() throws IOException {
+        RequestConfig dutch = new Headers().setAcceptLanguage("nl").toConfig();
+        RequestConfig english = new Headers().setAcceptLanguage("en").toConfig();
+
+        Assert.assertEquals("null nl", drs.getForObject("private", String.class, dutch));
+        Assert.assertEquals("null nl", drs.getForObject("private", String.class, dutch));
+        Assert.assertEquals("null en", drs.getForObject("private", String.class, english));
+        Assert.assertEquals(2, hits.get());
+    }
+
+    @Test
+    public void testPostInvalidates() throws IOException {
+        drs.getForObject("fresh", Post.class);
+        drs.postForObject("fresh", new Post(), Post.class);
+        drs.getForObject("fresh", Post.class);
+        Assert.assertEquals(3, hits.get());
+    }
+
+    @Test
+    public void testMemoryStoreEvictsLeastRecentlyUsed() {
+        MemoryCacheStore store = new MemoryCacheStore(2, 1024);
+        store.put(entry("a", 10));
+        store.put(entry("b", 10));
+        store.get("a");
+        store.put(entry("c", 10));
+
+        Assert.assertNotNull(store.get("a"));
+        Assert.assertNull(store.get("b"));
+        Assert.assertEquals(20, store.getBytes());
+    }
+
+    @Test
+    public void testDiskStoreRoundTripAndEviction() throws IOException {
+        DiskCacheStore store = new DiskCacheStore(folder.getRoot().toPath(), 2048);
+        store.put(entry("a", 1000));
+        CacheEntry read = store.get("a");
+        Assert.assertEquals(1000, read.getBody().length);
+        Assert.assertEquals("Bearer a", read.getRequestHeaders().get("authorization"));
+        Assert.assertEquals("max-age=60", read.getHeaders().get("Cache-Control").get(0));
+        Assert.assertTrue(read.isFresh());
+
+        store.put(entry("b", 1000));
+        store.put(entry("c", 1000));
+        Assert.assertTrue(store.getBytes() <= 2048);
+        Assert.assertNotNull(new DiskCacheStore(folder.getRoot().toPath(), 2048).get("c"));
+    }
+
+    private static CacheEntry entry(String key, int size) {
+        Map<String, List<String>> headers = Map.of("Cache-Control", Collections.singletonList("max-age=60"));
+        byte[] body = "x".repeat(size).getBytes(StandardCharsets.UTF_8);
+        long now = System.currentTimeMillis();
+        return new CacheEntry(key, 200, "OK", headers, body, Map.of("Authorization", "Bearer " + key), now,
+                now + 60_000);
+    }
+}
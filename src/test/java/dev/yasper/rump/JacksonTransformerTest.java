@@ -0,0 +1,46 @@
+package dev.yasper.rump;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import dev.yasper.rump.model.Post;
+import dev.yasper.rump.request.JacksonRequestTransformer;
+import dev.yasper.rump.response.GenericType;
+import dev.yasper.rump.response.JacksonResponseTransformer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class JacksonTransformerTest {
+
+    private static ByteArrayInputStream json(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testSharedMapperConfigurationIsUsed() throws IOException {
+        ObjectMapper om = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .enable(SerializationFeature.INDENT_OUTPUT);
+        JacksonResponseTransformer response = new JacksonResponseTransformer(om);
+        JacksonRequestTransformer request = new JacksonRequestTransformer(om);
+
+        Post post = response.transform(json("{\"id\":3,\"unknown\":true}"), Post.class);
+        Assert.assertEquals(3, post.getId());
+        Assert.assertTrue(request.transform(post, new Headers()).toString().contains("\n"));
+    }
+
+    @Test
+    public void testCachedReadersAreReused() throws IOException {
+        JacksonResponseTransformer transformer = new JacksonResponseTransformer(new ObjectMapper(), 1);
+        for (int i = 0; i < 3; i++) {
+            List<Post> posts = transformer.transform(json("[{\"id\":" + i + "}]"), new GenericType<List<Post>>() {});
+            Assert.assertEquals(i, posts.get(0).getId());
+            Assert.assertEquals(i, transformer.transform(json("{\"id\":" + i + "}"), Post.class).getId());
+        }
+    }
+}
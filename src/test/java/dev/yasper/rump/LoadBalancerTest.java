@@ -0,0 +1,176 @@
+package dev.yasper.rump;
+
+import com.sun.net.httpserver.HttpExchange;
+import dev.yasper.rump.balancing.BalancingStrategy;
+import dev.yasper.rump.balancing.LoadBalancer;
+import dev.yasper.rump.cache.HttpCache;
+import dev.yasper.rump.client.AsyncRestClient;
+import dev.yasper.rump.client.DefaultRestClient;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.exception.HttpStatusCodeException;
+import dev.yasper.rump.resilience.RequestGuard;
+import dev.yasper.rump.resilience.RetryPolicy;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LoadBalancerTest {
+
+    private final AtomicInteger firstHits = new AtomicInteger();
+    private final AtomicInteger secondHits = new AtomicInteger();
+    private TestServer first;
+    private TestServer second;
+    private TestServer broken;
+
+    @Before
+    public void init() throws IOException {
+        first = new TestServer().handle("/posts", exchange -> {
+            firstHits.incrementAndGet();
+            TestServer.respond(exchange, 200, "text/plain", "first");
+        }).handle("/cached", exchange -> cached(exchange, firstHits, "first"));
+        second = new TestServer().handle("/posts", exchange -> {
+            secondHits.incrementAndGet();
+            TestServer.respond(exchange, 200, "text/plain", "second");
+        }).handle("/cached", exchange -> cached(exchange, secondHits, "second"));
+        broken = new TestServer().handle("/posts", exchange -> TestServer.respond(exchange, 500, "text/plain", "down"));
+    }
+
+    private static void cached(HttpExchange exchange, AtomicInteger hits, String name) throws IOException {
+        hits.incrementAndGet();
+        exchange.getResponseHeaders().set("Cache-Control", "max-age=60");
+        TestServer.respond(exchange, 200, "text/plain", name);
+    }
+
+    @After
+    public void close() {
+        first.close();
+        second.close();
+        broken.close();
+    }
+
+    @Test
+    public void testRoundRobin() throws IOException {
+        DefaultRestClient client = Rump.createDefault(new RequestConfig()
+                .setLoadBalancer(new LoadBalancer(first.getBaseURL(), second.getBaseURL())));
+        for (int i = 0; i < 4; i++) {
+            client.getForObject("posts", String.class);
+        }
+
+        Assert.assertEquals(2, firstHits.get());
+        Assert.assertEquals(2, secondHits.get());
+    }
+
+    @Test
+    public void testEjectsFailingEndpoint() throws IOException {
+        LoadBalancer balancer = new LoadBalancer(first.getBaseURL(), broken.getBaseURL())
+                .setMaxFailures(2);
+        DefaultRestClient client = Rump.createDefault(new RequestConfig().setLoadBalancer(balancer));
+        int failures = 0;
+        for (int i = 0; i < 10; i++) {
+            try {
+                Assert.assertEquals("first", client.getForObject("posts", String.class));
+            } catch (HttpStatusCodeException e) {
+                failures++;
+            }
+        }
+
+        Assert.assertEquals(2, failures);
+        Assert.assertEquals(8, firstHits.get());
+        Assert.assertTrue(balancer.getEndpoint(broken.getBaseURL()).isEjected());
+        Assert.assertFalse(balancer.getEndpoint(first.getBaseURL()).isEjected());
+        Assert.assertEquals(0, balancer.getEndpoint(first.getBaseURL()).getOutstanding());
+    }
+
+    @Test
+    public void testLeastOutstanding() {
+        LoadBalancer balancer = new LoadBalancer(first.getBaseURL(), second.getBaseURL())
+                .setStrategy(BalancingStrategy.leastOutstanding());
+        RequestGuard.Permit permit = balancer.acquire(null, new RequestConfig().setBaseURL(first.getBaseURL()));
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(second.getBaseURL(), balancer.choose().getBaseURL());
+        }
+
+        permit.release();
+        Assert.assertEquals(0, balancer.getEndpoint(first.getBaseURL()).getOutstanding());
+    }
+
+    @Test
+    public void testPowerOfTwoChoicesPrefersFastEndpoint() throws Exception {
+        LoadBalancer balancer = new LoadBalancer(first.getBaseURL(), second.getBaseURL())
+                .setStrategy(BalancingStrategy.powerOfTwoChoices());
+        RequestGuard.Permit slow = balancer.acquire(null, new RequestConfig().setBaseURL(first.getBaseURL()));
+        Thread.sleep(20);
+        slow.complete(null, null);
+        balancer.acquire(null, new RequestConfig().setBaseURL(second.getBaseURL())).complete(null, null);
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(second.getBaseURL(), balancer.choose().getBaseURL());
+        }
+    }
+
+    @Test
+    public void testWeighted() {
+        LoadBalancer balancer = new LoadBalancer()
+                .addEndpoint(first.getBaseURL(), 1)
+                .addEndpoint(second.getBaseURL(), 9)
+                .setStrategy(BalancingStrategy.weighted());
+        int picked = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (balancer.choose().getBaseURL().equals(second.getBaseURL())) {
+                picked++;
+            }
+        }
+
+        Assert.assertTrue("picked " + picked, picked > 800 && picked < 980);
+    }
+
+    @Test
+    public void testAsync() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            AsyncRestClient client = new AsyncRestClient(Rump.createDefault(new RequestConfig()
+                    .setLoadBalancer(new LoadBalancer(first.getBaseURL(), second.getBaseURL()))), executor);
+            Assert.assertEquals("first", client.getForObject("posts", String.class).get(3, TimeUnit.SECONDS));
+            Assert.assertEquals("second", client.getForObject("posts", String.class).get(3, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCacheIsSharedByEndpoints() throws IOException {
+        DefaultRestClient client = Rump.createDefault(new RequestConfig()
+                .setHttpCache(new HttpCache())
+                .setLoadBalancer(new LoadBalancer(first.getBaseURL(), second.getBaseURL())));
+        Assert.assertEquals("first", client.getForObject("cached", String.class));
+        Assert.assertEquals("first", client.getForObject("cached", String.class));
+        Assert.assertEquals(1, firstHits.get() + secondHits.get());
+
+        // Sent to the other endpoint, still invalidates the entry fetched through the first
+        client.postForObject("cached", "update", String.class);
+        Assert.assertEquals(1, secondHits.get());
+        Assert.assertEquals("first", client.getForObject("cached", String.class));
+        Assert.assertEquals(2, firstHits.get());
+        Assert.assertEquals("first", client.getForObject("cached", String.class));
+        Assert.assertEquals(3, firstHits.get() + secondHits.get());
+    }
+
+    @Test
+    public void testRetryPicksAnotherEndpoint() throws IOException {
+        LoadBalancer balancer = new LoadBalancer(broken.getBaseURL(), first.getBaseURL());
+        DefaultRestClient client = Rump.createDefault(new RequestConfig()
+                .setRetryPolicy(new RetryPolicy().setInitialBackoff(1).setRetryStatusCodes(500))
+                .setLoadBalancer(balancer));
+
+        Assert.assertEquals("first", client.getForObject("posts", String.class));
+        Assert.assertEquals(1, firstHits.get());
+        Assert.assertEquals(1, balancer.getEndpoint(broken.getBaseURL()).getConsecutiveFailures());
+    }
+}
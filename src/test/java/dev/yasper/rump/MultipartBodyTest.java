@@ -0,0 +1,124 @@
+package dev.yasper.rump;
+
+import dev.yasper.rump.client.DefaultRestClient;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.request.MultipartBody;
+import dev.yasper.rump.request.Part;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class MultipartBodyTest {
+
+    private static final String CSV = "id,name\n1,first\n2,second\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private TestServer server;
+    private DefaultRestClient drs;
+    private Path csv;
+
+    @Before
+    public void init() throws IOException {
+        server = new TestServer().handle("/upload", exchange -> {
+            requests.add(exchange.getRequestHeaders().getFirst("Content-Type") + "|"
+                    + exchange.getRequestHeaders().getFirst("Content-Length") + "|"
+                    + exchange.getRequestHeaders().getFirst("Transfer-Encoding"));
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            TestServer.respond(exchange, 200, "text/plain", body);
+        });
+        drs = Rump.createDefault(new RequestConfig().setBaseURL(server.getBaseURL()));
+        csv = folder.newFile("report.csv").toPath();
+        Files.write(csv, CSV.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void close() {
+        server.close();
+    }
+
+    private static String expected(String csvContentType) {
+        return "--b0undary\r\n"
+                + "Content-Disposition: form-data; name=\"title\"\r\n\r\n"
+                + "Nightly \"report\"\r\n"
+                + "--b0undary\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"report.csv\"\r\n"
+                + "Content-Type: " + csvContentType + "\r\n\r\n"
+                + CSV + "\r\n"
+                + "--b0undary\r\n"
+                + "Content-Disposition: form-data; name=\"raw\"\r\n"
+                + "X-Part: 1\r\n\r\n"
+                + "bytes\r\n"
+                + "--b0undary--\r\n";
+    }
+
+    private MultipartBody body() {
+        return new MultipartBody("b0undary")
+                .addField("title", "Nightly \"report\"")
+                .addPart(Part.of("file", csv).setContentType("text/csv"))
+                .addPart(Part.of("raw", ByteBuffer.wrap("bytes".getBytes(StandardCharsets.UTF_8)))
+                        .setHeader("X-Part", "1"));
+    }
+
+    @Test
+    public void testFixedLengthUpload() throws IOException {
+        MultipartBody body = body();
+        String echoed = drs.postForObject("upload", body, String.class);
+
+        String expected = expected("text/csv");
+        Assert.assertEquals(expected, echoed);
+        Assert.assertEquals(expected.getBytes(StandardCharsets.UTF_8).length, body.getContentLength());
+        Assert.assertEquals(List.of("multipart/form-data; boundary=b0undary|" + body.getContentLength() + "|null"),
+                requests);
+    }
+
+    @Test
+    public void testChunkedUploadOfStream() throws IOException {
+        MultipartBody body = new MultipartBody()
+                .addPart(Part.of("file", new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)), -1)
+                        .setFileName("report.csv"));
+        String echoed = drs.putForObject("upload", body, String.class);
+
+        Assert.assertEquals(-1, body.getContentLength());
+        Assert.assertTrue(echoed.startsWith("--" + body.getBoundary() + "\r\n"));
+        Assert.assertTrue(echoed.contains("Content-Type: application/octet-stream\r\n\r\n" + CSV + "\r\n"));
+        Assert.assertTrue(echoed.endsWith("--" + body.getBoundary() + "--\r\n"));
+        Assert.assertEquals(List.of(body.getContentType() + "|null|chunked"), requests);
+    }
+
+    @Test
+    public void testEscapesNames() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new MultipartBody("b").addPart(Part.of("a\"b", "v").setFileName("x\r\ny")).writeTo(output);
+
+        Assert.assertTrue(output.toString(StandardCharsets.UTF_8)
+                .contains("name=\"a%22b\"; filename=\"x%0D%0Ay\"\r\n"));
+    }
+
+    @Test
+    public void testStreamIsSentOnce() throws IOException {
+        MultipartBody body = new MultipartBody().addPart(Part.of("file", new ByteArrayInputStream(new byte[3]), 3));
+        body.writeTo(new ByteArrayOutputStream());
+        try {
+            body.writeTo(new ByteArrayOutputStream());
+            Assert.fail("Expected the stream to be consumed");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("once"));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package dev.yasper.rump;
+
+import dev.yasper.rump.client.AsyncRestClient;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.exception.HttpStatusCodeException;
+import dev.yasper.rump.response.HttpResponse;
+import dev.yasper.rump.transport.HttpClientTransport;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NonBlockingAsyncTest {
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private TestServer server;
+    private ExecutorService executor;
+    private AsyncRestClient ars;
+
+    @Before
+    public void init() throws IOException {
+        server = new TestServer()
+                .handle("/slow", exchange -> {
+                    try {
+                        Thread.sleep(250);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    TestServer.respond(exchange, 200, "text/plain", "42");
+                })
+                .handle("/count", exchange -> {
+                    hits.incrementAndGet();
+                    TestServer.respond(exchange, 200, "text/plain", "counted");
+                })
+                .handle("/missing", exchange -> TestServer.respond(exchange, 404, "text/plain", "nope"));
+        executor = Executors.newSingleThreadExecutor();
+        ars = Rump.createAsync(new RequestConfig()
+                .setBaseURL(server.getBaseURL())
+                .setTransport(new HttpClientTransport()), executor);
+    }
+
+    @After
+    public void close() {
+        executor.shutdownNow();
+        server.close();
+    }
+
+    @Test
+    public void testRequestsDoNotHoldExecutorThreads() throws Exception {
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            futures.add(ars.getForObject("slow", String.class));
+        }
+
+        for (CompletableFuture<String> future : futures) {
+            Assert.assertEquals("42", future.get(10, TimeUnit.SECONDS));
+        }
+
+        // Twenty sequential requests on the single executor thread would take at least five seconds
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 4000);
+    }
+
+    @Test
+    public void testErrorStatusCompletesExceptionally() throws Exception {
+        CompletableFuture<HttpResponse<String>> future = ars.get("missing", String.class);
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            Assert.fail("Expected a status code exception");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof HttpStatusCodeException);
+        }
+    }
+
+    @Test
+    public void testCancelDuringPrepareIsNotSent() throws Exception {
+        CountDownLatch preparing = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        CompletableFuture<HttpResponse<String>> future = ars.get("count", String.class, new RequestConfig()
+                .addRequestInterceptor((mergedURL, connection, config) -> {
+                    preparing.countDown();
+                    try {
+                        cancelled.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return true;
+                }));
+
+        Assert.assertTrue(preparing.await(5, TimeUnit.SECONDS));
+        future.cancel(true);
+        cancelled.countDown();
+
+        // A request that was sent anyway would have reached the server by now
+        Assert.assertEquals("counted", ars.getForObject("count", String.class).get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, hits.get());
+    }
+}
@@ -0,0 +1,75 @@
+package dev.yasper.rump;
+
+import dev.yasper.rump.response.PrimitiveBody;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class PrimitiveBodyTest {
+
+    private static PrimitiveBody body(String body) {
+        return new PrimitiveBody(body.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testBodyIsNotAltered() {
+        Assert.assertEquals("no newline", body("no newline").getAsString());
+        Assert.assertEquals("two\nlines\n", body("two\nlines\n").getAsString());
+        Assert.assertEquals("twolines", body("two\r\nlines\n").getAsString(false));
+    }
+
+    @Test
+    public void testNumbersFromBytes() {
+        Assert.assertEquals(42, body("42\n").getAsInt());
+        Assert.assertEquals(-7, body(" -7 ").getAsShort());
+        Assert.assertEquals(Long.MIN_VALUE, body(String.valueOf(Long.MIN_VALUE)).getAsLong());
+        Assert.assertEquals(1.5, body("1.5\r\n").getAsDouble(), 0);
+        Assert.assertTrue(body("TRUE\n").getAsBoolean());
+        Assert.assertFalse(body("truex").getAsBoolean());
+        Assert.assertEquals(Integer.valueOf(12), body("12").getAs(Integer.class));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testIntOverflow() {
+        body("2147483648").getAsInt();
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testLongOverflow() {
+        body("9223372036854775808").getAsLong();
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testNotANumber() {
+        body("4a").getAsInt();
+    }
+
+    @Test
+    public void testCharsetAndLengthFromHeaders() throws IOException {
+        byte[] bytes = "caf\u00e9".getBytes(StandardCharsets.ISO_8859_1);
+        Map<String, List<String>> fields = Map.of(
+                "Content-Type", Collections.singletonList("text/plain; charset=ISO-8859-1"),
+                "Content-Length", Collections.singletonList("2")
+        );
+        PrimitiveBody body = new PrimitiveBody(new ByteArrayInputStream(bytes), new Headers(fields));
+
+        Assert.assertEquals("caf\u00e9", body.getAsString());
+        Assert.assertArrayEquals(bytes, body.getAsBytes());
+        Assert.assertEquals(4, body.getAsByteBuffer().remaining());
+        Assert.assertEquals("caf\u00e9", body.getAsReader().readLine());
+        Assert.assertEquals("caf\u00e9", body.getAsReader().readLine());
+    }
+
+    @Test
+    public void testNullStreamIsEmpty() throws IOException {
+        PrimitiveBody body = new PrimitiveBody(null, new Headers());
+        Assert.assertEquals("", body.getAsString());
+        Assert.assertEquals(0, body.length());
+    }
+}
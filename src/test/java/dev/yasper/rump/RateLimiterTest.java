@@ -0,0 +1,159 @@
+package dev.yasper.rump;
+
+import dev.yasper.rump.client.AsyncRestClient;
+import dev.yasper.rump.client.DefaultRestClient;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.exception.HttpStatusCodeException;
+import dev.yasper.rump.exception.RequestRejectedException;
+import dev.yasper.rump.resilience.RateLimiter;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RateLimiterTest {
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private TestServer server;
+
+    @Before
+    public void init() throws IOException {
+        server = new TestServer()
+                .handle("/ok", exchange -> {
+                    hits.incrementAndGet();
+                    TestServer.respond(exchange, 200, "text/plain", "ok");
+                })
+                .handle("/throttled", exchange -> {
+                    hits.incrementAndGet();
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    TestServer.respond(exchange, 429, "text/plain", "slow down");
+                })
+                .handle("/exhausted", exchange -> {
+                    hits.incrementAndGet();
+                    exchange.getResponseHeaders().set("X-RateLimit-Remaining", "0");
+                    exchange.getResponseHeaders().set("X-RateLimit-Reset", "1");
+                    TestServer.respond(exchange, 200, "text/plain", "last one");
+                });
+    }
+
+    @After
+    public void close() {
+        server.close();
+    }
+
+    private DefaultRestClient client(RateLimiter limiter) {
+        return Rump.createDefault(new RequestConfig()
+                .setBaseURL(server.getBaseURL())
+                .setRateLimiter(limiter));
+    }
+
+    @Test
+    public void testSpacesRequests() throws IOException {
+        DefaultRestClient client = client(new RateLimiter(20));
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            client.get("ok", String.class);
+        }
+
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assert.assertTrue("elapsed " + elapsed, elapsed >= 180);
+        Assert.assertEquals(5, hits.get());
+    }
+
+    @Test
+    public void testBurst() throws IOException {
+        RateLimiter limiter = new RateLimiter(1, 3);
+        Assert.assertEquals(0, limiter.reserve("burst"));
+        Assert.assertEquals(0, limiter.reserve("burst"));
+        Assert.assertEquals(0, limiter.reserve("burst"));
+        Assert.assertTrue(limiter.reserve("burst") > TimeUnit.MILLISECONDS.toNanos(900));
+    }
+
+    @Test
+    public void testRejectsBeyondMaxWait() throws IOException {
+        DefaultRestClient client = client(new RateLimiter(1).setMaxWait(100));
+        client.get("ok", String.class);
+        try {
+            client.get("ok", String.class);
+            Assert.fail("Expected the request to be rejected");
+        } catch (RequestRejectedException e) {
+            Assert.assertEquals("*", e.getKey());
+        }
+        Assert.assertEquals(1, hits.get());
+    }
+
+    @Test
+    public void testPausesOnRetryAfter() throws IOException {
+        RateLimiter limiter = new RateLimiter(1000).setMaxWait(100);
+        DefaultRestClient client = client(limiter);
+        try {
+            client.get("throttled", String.class);
+            Assert.fail("Expected a status code exception");
+        } catch (HttpStatusCodeException e) {
+            Assert.assertEquals(429, e.getErrorResponse().getResponseCode());
+        }
+
+        try {
+            client.get("ok", String.class);
+            Assert.fail("Expected the request to be rejected");
+        } catch (RequestRejectedException ignore) {
+            // Expected
+        }
+        Assert.assertEquals(1, hits.get());
+    }
+
+    @Test
+    public void testPausesOnExhaustedQuota() throws IOException {
+        RateLimiter limiter = new RateLimiter(1000);
+        DefaultRestClient client = client(limiter);
+        client.get("exhausted", String.class);
+        long wait = limiter.reserve("*");
+        Assert.assertTrue("wait " + wait, wait > TimeUnit.MILLISECONDS.toNanos(500));
+
+        RateLimiter fixed = new RateLimiter(1000).setAdaptive(false);
+        client(fixed).get("exhausted", String.class);
+        Assert.assertTrue(fixed.reserve("*") < TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test
+    public void testPathTemplateKey() throws IOException {
+        RateLimiter limiter = new RateLimiter(1).setScope(RateLimiter.Scope.PATH_TEMPLATE);
+        RequestConfig config = new RequestConfig();
+        Assert.assertEquals("http://localhost:8080/posts/{}/comments",
+                limiter.key(new URL("http://localhost:8080/posts/12/comments?page=2"), config));
+        Assert.assertEquals("http://localhost:8080/users/{}",
+                limiter.key(new URL("http://localhost:8080/users/123e4567-e89b-12d3-a456-426614174000"), config));
+
+        limiter.setScope(RateLimiter.Scope.BASE_URL);
+        Assert.assertEquals("http://localhost:8080/",
+                limiter.key(new URL("http://localhost:8080/posts/12"), config));
+        Assert.assertEquals("http://localhost:8080/api/",
+                limiter.key(new URL("http://localhost:8080/api/posts"),
+                        new RequestConfig().setBaseURL("http://localhost:8080/api/")));
+    }
+
+    @Test
+    public void testAsyncDelaysWithoutBlocking() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AsyncRestClient async = new AsyncRestClient(client(new RateLimiter(5)), executor);
+            long start = System.nanoTime();
+            CompletableFuture<String> first = async.getForObject("ok", String.class);
+            CompletableFuture<String> second = async.getForObject("ok", String.class);
+            Assert.assertEquals("ok", first.get(3, TimeUnit.SECONDS));
+            Assert.assertEquals("ok", second.get(3, TimeUnit.SECONDS));
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            Assert.assertTrue("elapsed " + elapsed, elapsed >= 180);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package dev.yasper.rump;
+
+import dev.yasper.rump.cache.RequestCoalescer;
+import dev.yasper.rump.client.AsyncRestClient;
+import dev.yasper.rump.client.DefaultRestClient;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.exception.HttpStatusCodeException;
+import dev.yasper.rump.response.HttpResponse;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RequestCoalescerTest {
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private TestServer server;
+    private ExecutorService executor;
+    private RequestCoalescer coalescer;
+
+    @Before
+    public void init() throws IOException {
+        server = new TestServer()
+                .handle("/slow", exchange -> {
+                    hits.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    TestServer.respond(exchange, 200, "text/plain", "ok");
+                })
+                .handle("/fail", exchange -> {
+                    hits.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    TestServer.respond(exchange, 500, "text/plain", "broken");
+                });
+        executor = Executors.newFixedThreadPool(8);
+        coalescer = new RequestCoalescer();
+    }
+
+    @After
+    public void close() {
+        executor.shutdownNow();
+        server.close();
+    }
+
+    private DefaultRestClient client() {
+        return Rump.createDefault(new RequestConfig()
+                .setBaseURL(server.getBaseURL())
+                .setRequestCoalescer(coalescer));
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (hits.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testConcurrentRequestsShareOneExchange() throws Exception {
+        DefaultRestClient drs = client();
+        AsyncRestClient ars = new AsyncRestClient(drs, executor);
+
+        Future<HttpResponse<String>> leader = executor.submit(() -> drs.get("slow", String.class));
+        awaitInFlight();
+        List<Future<HttpResponse<String>>> followers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            followers.add(executor.submit(() -> drs.get("slow", String.class)));
+        }
+        CompletableFuture<HttpResponse<String>> async = ars.get("slow", String.class);
+        while (coalescer.getCoalescedCount() < 5) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        HttpResponse<String> shared = leader.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals("ok", shared.getBody());
+        for (Future<HttpResponse<String>> follower : followers) {
+            Assert.assertSame(shared, follower.get(5, TimeUnit.SECONDS));
+        }
+        Assert.assertSame(shared, async.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, hits.get());
+        Assert.assertEquals(0, coalescer.getInFlight());
+
+        drs.get("slow", String.class);
+        Assert.assertEquals(2, hits.get());
+    }
+
+    @Test
+    public void testDifferentHeadersAreNotCoalesced() throws Exception {
+        DefaultRestClient drs = client();
+        Future<String> first = executor.submit(() -> drs.getForObject("slow", String.class));
+        awaitInFlight();
+        Future<String> second = executor.submit(() -> drs.getForObject("slow", String.class,
+                new Headers().setAuthorization("Bearer other").toConfig()));
+        while (hits.get() < 2) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    public void testFailureIsShared() throws Exception {
+        DefaultRestClient drs = client();
+        AsyncRestClient ars = new AsyncRestClient(drs, executor);
+        CompletableFuture<String> leader = ars.getForObject("fail", String.class);
+        awaitInFlight();
+        Future<String> follower = executor.submit(() -> drs.getForObject("fail", String.class));
+        while (coalescer.getCoalescedCount() < 1) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        try {
+            follower.get(5, TimeUnit.SECONDS);
+            Assert.fail("Expected the shared failure");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof HttpStatusCodeException);
+        }
+        try {
+            leader.join();
+            Assert.fail("Expected the failure");
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof HttpStatusCodeException);
+        }
+        Assert.assertEquals(1, hits.get());
+    }
+
+    @Test
+    public void testLeaderCancelDoesNotFailFollowers() throws Exception {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        CompletableFuture<String> leader = coalescer.executeAsync("key", () -> upstream);
+        CompletableFuture<String> follower = coalescer.executeAsync("key", () -> {
+            throw new AssertionError("Expected the follower to share the exchange");
+        });
+
+        leader.cancel(true);
+        Assert.assertFalse(upstream.isCancelled());
+        Assert.assertFalse(follower.isDone());
+
+        upstream.complete("ok");
+        Assert.assertEquals("ok", follower.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(0, coalescer.getInFlight());
+    }
+
+    @Test
+    public void testCancelledByAllCallers() {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        CompletableFuture<String> leader = coalescer.executeAsync("key", () -> upstream);
+        CompletableFuture<String> follower = coalescer.executeAsync("key", () -> upstream);
+
+        follower.cancel(true);
+        Assert.assertFalse(upstream.isCancelled());
+        leader.cancel(true);
+        Assert.assertTrue(upstream.isCancelled());
+        Assert.assertEquals(0, coalescer.getInFlight());
+
+        CompletableFuture<String> next = coalescer.executeAsync("key", () -> CompletableFuture.completedFuture("new"));
+        Assert.assertEquals("new", next.join());
+    }
+}
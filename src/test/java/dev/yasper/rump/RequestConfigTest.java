@@ -0,0 +1,67 @@
+package dev.yasper.rump;
+
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.interceptor.ResponseInterceptor;
+import dev.yasper.rump.request.RequestMethod;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RequestConfigTest {
+
+    @Test
+    public void testMergeOverridesNonNullValues() {
+        RequestConfig base = new RequestConfig()
+                .setBaseURL("https://base/")
+                .setTimeout(100)
+                .addResponseInterceptor(res -> true);
+        RequestConfig merged = base.merge(new RequestConfig().setTimeout(200),
+                new RequestConfig().addResponseInterceptor(res -> false));
+
+        Assert.assertEquals("https://base/", merged.getBaseURL());
+        Assert.assertEquals(200, merged.getTimeout());
+        Assert.assertEquals(2, merged.getResponseInterceptors().size());
+        Assert.assertEquals(1, base.getResponseInterceptors().size());
+        Assert.assertFalse(merged.isFrozen());
+    }
+
+    @Test
+    public void testFrozenConfigWithoutOverloadsIsReused() {
+        RequestConfig frozen = new RequestConfig()
+                .setBaseURL("https://base/")
+                .freeze();
+
+        Assert.assertSame(frozen, frozen.merge());
+        Assert.assertSame(frozen, frozen.freeze());
+    }
+
+    @Test
+    public void testFrozenOverlay() {
+        ResponseInterceptor first = res -> true;
+        ResponseInterceptor second = res -> false;
+        RequestConfig frozen = new RequestConfig()
+                .setBaseURL("https://base/")
+                .setMethod(RequestMethod.GET)
+                .addResponseInterceptor(first)
+                .freeze();
+        RequestConfig overlay = frozen.merge(RequestMethod.POST.toConfig(),
+                new RequestConfig().addResponseInterceptor(second));
+
+        Assert.assertTrue(overlay.isFrozen());
+        Assert.assertEquals(RequestMethod.POST, overlay.getMethod());
+        Assert.assertEquals("https://base/", overlay.getBaseURL());
+        Assert.assertEquals(2, overlay.getResponseInterceptors().size());
+        Assert.assertSame(second, overlay.getResponseInterceptors().get(1));
+        Assert.assertEquals(1, frozen.getResponseInterceptors().size());
+        Assert.assertEquals(RequestMethod.GET, frozen.getMethod());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFrozenConfigRejectsSetters() {
+        new RequestConfig().freeze().setBaseURL("https://other/");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFrozenConfigRejectsListChanges() {
+        new RequestConfig().freeze().getResponseInterceptors().add(res -> true);
+    }
+}
@@ -0,0 +1,192 @@
+package dev.yasper.rump;
+
+import dev.yasper.rump.client.AsyncRestClient;
+import dev.yasper.rump.client.DefaultRestClient;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.exception.HttpStatusCodeException;
+import dev.yasper.rump.resilience.RetryPolicy;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class RetryPolicyTest {
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private TestServer server;
+    private ExecutorService executor;
+    private RetryPolicy policy;
+
+    @Before
+    public void init() throws IOException {
+        server = new TestServer()
+                .handle("/flaky", exchange -> {
+                    exchange.getRequestBody().readAllBytes();
+                    if (hits.incrementAndGet() < 3) {
+                        exchange.getResponseHeaders().set("Retry-After", "0");
+                        TestServer.respond(exchange, 503, "text/plain", "unavailable");
+                    } else {
+                        TestServer.respond(exchange, 200, "text/plain", "ok");
+                    }
+                })
+                .handle("/missing", exchange -> {
+                    hits.incrementAndGet();
+                    TestServer.respond(exchange, 404, "text/plain", "nope");
+                });
+        executor = Executors.newFixedThreadPool(2);
+        policy = new RetryPolicy()
+                .setInitialBackoff(10)
+                .setMaxBackoff(50);
+    }
+
+    @After
+    public void close() {
+        executor.shutdownNow();
+        server.close();
+    }
+
+    private DefaultRestClient client() {
+        return Rump.createDefault(new RequestConfig()
+                .setBaseURL(server.getBaseURL())
+                .setRetryPolicy(policy));
+    }
+
+    @Test
+    public void testRetriesUnavailable() throws IOException {
+        Assert.assertEquals("ok", client().getForObject("flaky", String.class));
+        Assert.assertEquals(3, hits.get());
+    }
+
+    @Test
+    public void testGivesUpAfterMaxAttempts() throws IOException {
+        policy.setMaxAttempts(2);
+        try {
+            client().getForObject("flaky", String.class);
+            Assert.fail("Expected a status code exception");
+        } catch (HttpStatusCodeException e) {
+            Assert.assertEquals(503, e.getErrorResponse().getResponseCode());
+        }
+        Assert.assertEquals(2, hits.get());
+    }
+
+    @Test
+    public void testDoesNotRetryOtherStatusCodes() throws IOException {
+        try {
+            client().getForObject("missing", String.class);
+            Assert.fail("Expected a status code exception");
+        } catch (HttpStatusCodeException e) {
+            Assert.assertEquals(404, e.getErrorResponse().getResponseCode());
+        }
+        Assert.assertEquals(1, hits.get());
+    }
+
+    @Test
+    public void testPostOnlyRetriedWhenMarkedIdempotent() throws IOException {
+        try {
+            client().postForObject("flaky", "body", String.class);
+            Assert.fail("Expected a status code exception");
+        } catch (HttpStatusCodeException e) {
+            Assert.assertEquals(1, hits.get());
+        }
+
+        hits.set(0);
+        Assert.assertEquals("ok", client().postForObject("flaky", "body", String.class, new RequestConfig()
+                .setIdempotent(true)));
+        Assert.assertEquals(3, hits.get());
+    }
+
+    @Test
+    public void testAsyncRetries() throws Exception {
+        AsyncRestClient async = new AsyncRestClient(client(), executor);
+        Assert.assertEquals("ok", async.getForObject("flaky", String.class).get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(3, hits.get());
+    }
+
+    @Test
+    public void testAsyncGivesUp() throws Exception {
+        policy.setMaxAttempts(2);
+        AsyncRestClient async = new AsyncRestClient(client(), executor);
+        try {
+            async.getForObject("flaky", String.class).get(5, TimeUnit.SECONDS);
+            Assert.fail("Expected a status code exception");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof HttpStatusCodeException);
+        }
+        Assert.assertEquals(2, hits.get());
+    }
+
+    @Test
+    public void testAsyncCancelCancelsAttempt() {
+        AtomicReference<CompletableFuture<String>> attempt = new AtomicReference<>();
+        CompletableFuture<String> result = policy.executeAsync(new RequestConfig(), () -> {
+            attempt.set(new CompletableFuture<>());
+            return attempt.get();
+        }, executor);
+        result.cancel(true);
+        Assert.assertTrue(attempt.get().isCancelled());
+    }
+
+    @Test
+    public void testAsyncDiscardsResultAfterCancel() {
+        CompletableFuture<String> attempt = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                // Already answered by the server, too late to cancel
+                return false;
+            }
+        };
+        List<String> discarded = new CopyOnWriteArrayList<>();
+        CompletableFuture<String> result = policy.executeAsync(new RequestConfig(), () -> attempt, executor,
+                discarded::add);
+        result.cancel(true);
+        attempt.complete("late");
+        Assert.assertEquals(Collections.singletonList("late"), discarded);
+    }
+
+    @Test
+    public void testClassify() {
+        Assert.assertEquals(RetryPolicy.Failure.READ_TIMEOUT,
+                RetryPolicy.classify(new SocketTimeoutException("Read timed out")));
+        Assert.assertEquals(RetryPolicy.Failure.CONNECT_TIMEOUT,
+                RetryPolicy.classify(new SocketTimeoutException("Connect timed out")));
+        Assert.assertEquals(RetryPolicy.Failure.CONNECTION_REFUSED,
+                RetryPolicy.classify(new CompletionException(new ConnectException("Connection refused"))));
+        Assert.assertEquals(RetryPolicy.Failure.OTHER, RetryPolicy.classify(new IllegalStateException()));
+    }
+
+    @Test
+    public void testBackoff() {
+        policy.setJitter(0).setInitialBackoff(100).setMaxBackoff(300);
+        Assert.assertEquals(100, policy.getBackoff(1));
+        Assert.assertEquals(200, policy.getBackoff(2));
+        Assert.assertEquals(300, policy.getBackoff(3));
+
+        policy.setJitter(1);
+        for (int i = 0; i < 50; i++) {
+            long backoff = policy.getBackoff(2);
+            Assert.assertTrue(backoff >= 0 && backoff <= 200);
+        }
+    }
+
+    @Test
+    public void testParseRetryAfter() {
+        Assert.assertEquals(2000, RetryPolicy.parseRetryAfter(new Headers().setRetryAfter("2")));
+        Assert.assertEquals(0, RetryPolicy.parseRetryAfter(new Headers().setRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT")));
+        Assert.assertEquals(-1, RetryPolicy.parseRetryAfter(new Headers()));
+    }
+}
@@ -0,0 +1,113 @@
+package dev.yasper.rump;
+
+import dev.yasper.rump.client.AsyncRestClient;
+import dev.yasper.rump.config.RequestConfig;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class RumpExecutorTest {
+
+    private TestServer server;
+    private ExecutorService original;
+
+    @Before
+    public void init() throws IOException {
+        server = new TestServer()
+                .handle("/ok", exchange -> TestServer.respond(exchange, 200, "text/plain", "ok"));
+        original = Rump.getDefaultExecutor();
+    }
+
+    @After
+    public void close() {
+        Rump.setDefaultExecutor(original);
+        System.clearProperty(Rump.EXECUTOR_PROPERTY);
+        server.close();
+    }
+
+    @Test
+    public void testEarlierClientsKeepTheirExecutor() throws Exception {
+        AsyncRestClient before = (AsyncRestClient) Rump.create(new RequestConfig()
+                .setBaseURL(server.getBaseURL()), true);
+        ExecutorService first = Executors.newSingleThreadExecutor();
+        ExecutorService second = Executors.newSingleThreadExecutor();
+        try {
+            Rump.setDefaultExecutor(first);
+            Rump.setDefaultExecutor(second);
+
+            Assert.assertFalse(original.isShutdown());
+            Assert.assertFalse(first.isShutdown());
+            Assert.assertSame(original, before.getExecutor());
+            Assert.assertEquals("ok", before.getForObject("ok", String.class).get(5, TimeUnit.SECONDS));
+            Assert.assertSame(second, ((AsyncRestClient) Rump.create(new RequestConfig(), true)).getExecutor());
+            Assert.assertEquals("ok", Rump.getForObjectAsync(server.getBaseURL() + "ok", String.class)
+                    .get(5, TimeUnit.SECONDS));
+        } finally {
+            first.shutdownNow();
+            second.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testUseVirtualThreads() throws Exception {
+        Rump.useVirtualThreads();
+        ExecutorService executor = Rump.getDefaultExecutor();
+        try {
+            Assert.assertNotSame(original, executor);
+            assertRunsConcurrently(executor);
+            Assert.assertEquals("ok", Rump.getForObjectAsync(server.getBaseURL() + "ok", String.class)
+                    .get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testExecutorProperty() throws Exception {
+        ExecutorService pool = Rump.createDefaultExecutor();
+        Assert.assertEquals(5, ((ThreadPoolExecutor) pool).getMaximumPoolSize());
+        Assert.assertTrue(((ThreadPoolExecutor) pool).allowsCoreThreadTimeOut());
+        pool.shutdown();
+
+        System.setProperty(Rump.EXECUTOR_PROPERTY, "virtual");
+        ExecutorService executor = Rump.createDefaultExecutor();
+        try {
+            assertRunsConcurrently(executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Blocks more tasks than the default pool has threads until all of them started
+     */
+    private static void assertRunsConcurrently(ExecutorService executor) throws InterruptedException {
+        int tasks = 10;
+        CountDownLatch started = new CountDownLatch(tasks);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < tasks; i++) {
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        try {
+            Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+        }
+    }
+}
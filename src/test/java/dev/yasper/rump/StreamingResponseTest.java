@@ -0,0 +1,244 @@
+package dev.yasper.rump;
+
+import dev.yasper.rump.client.AsyncRestClient;
+import dev.yasper.rump.client.DefaultRestClient;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.model.Post;
+import dev.yasper.rump.response.CloseableIterator;
+import dev.yasper.rump.transport.ConnectionPool;
+import dev.yasper.rump.transport.HttpClientTransport;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class StreamingResponseTest {
+
+    private static final int COUNT = 1000;
+
+    private final CountDownLatch finish = new CountDownLatch(1);
+    private TestServer server;
+    private ConnectionPool pool;
+    private DefaultRestClient client;
+
+    @Before
+    public void init() throws IOException {
+        StringBuilder array = new StringBuilder("[");
+        StringBuilder lines = new StringBuilder();
+        for (int i = 1; i <= COUNT; i++) {
+            String post = "{\"userId\":1,\"id\":" + i + ",\"title\":\"post " + i + "\",\"body\":\"\"}";
+            array.append(i > 1 ? "," : "").append(post);
+            lines.append(post).append('\n');
+        }
+        array.append(']');
+
+        server = new TestServer()
+                .handle("/array", exchange -> TestServer.respond(exchange, 200, "application/json", array.toString()))
+                .handle("/ndjson", exchange -> TestServer.respond(exchange, 200, "application/x-ndjson",
+                        lines.toString()))
+                .handle("/slow-ndjson", exchange -> {
+                    exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+                    exchange.sendResponseHeaders(200, 0);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+                        out.flush();
+                        finish.await(5, TimeUnit.SECONDS);
+                        out.write("{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                })
+                .handle("/empty", exchange -> TestServer.respond(exchange, 200, "application/json", "[]"));
+        pool = new ConnectionPool().setMaxConnectionsPerHost(2);
+        client = Rump.createDefault(new RequestConfig()
+                .setBaseURL(server.getBaseURL())
+                .setConnectionPool(pool));
+    }
+
+    @After
+    public void close() {
+        finish.countDown();
+        server.close();
+    }
+
+    @Test
+    public void testIterateArray() throws IOException {
+        int count = 0;
+        try (CloseableIterator<Post> posts = client.iterate("array", Post.class)) {
+            Assert.assertEquals(1, pool.getLeased());
+            while (posts.hasNext()) {
+                Post post = posts.next();
+                Assert.assertEquals(++count, post.getId());
+            }
+        }
+
+        Assert.assertEquals(COUNT, count);
+        Assert.assertEquals(0, pool.getLeased());
+    }
+
+    @Test
+    public void testStreamNdjson() throws IOException {
+        try (Stream<Post> posts = client.stream("ndjson", Post.class)) {
+            Assert.assertEquals(COUNT, posts.filter(post -> post.getUserId() == 1).count());
+        }
+
+        Assert.assertEquals(0, pool.getLeased());
+    }
+
+    @Test
+    public void testCloseEarlyReleasesConnection() throws IOException {
+        try (Stream<Post> posts = client.stream("array", Post.class)) {
+            List<Integer> ids = posts.limit(3).map(Post::getId).collect(Collectors.toList());
+            Assert.assertEquals(List.of(1, 2, 3), ids);
+            Assert.assertEquals(1, pool.getLeased());
+        }
+
+        Assert.assertEquals(0, pool.getLeased());
+    }
+
+    @Test
+    public void testEmptyArray() throws IOException {
+        try (CloseableIterator<Post> posts = client.iterate("empty", Post.class)) {
+            Assert.assertFalse(posts.hasNext());
+        }
+    }
+
+    @Test
+    public void testRawInputStream() throws IOException {
+        try (InputStream body = client.getForObject("empty", InputStream.class)) {
+            Assert.assertEquals("[]", new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        Assert.assertEquals(0, pool.getLeased());
+    }
+
+    @Test
+    public void testAsyncStream() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            AsyncRestClient async = new AsyncRestClient(client, executor);
+            try (Stream<Post> posts = async.stream("ndjson", Post.class).get(3, TimeUnit.SECONDS)) {
+                Assert.assertEquals(COUNT, posts.count());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAsyncIterateStreamsOnHttpClientTransport() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            AsyncRestClient async = new AsyncRestClient(Rump.createDefault(new RequestConfig()
+                    .setBaseURL(server.getBaseURL())
+                    .setTransport(new HttpClientTransport())), executor);
+            try (CloseableIterator<Post> posts = async.iterate("slow-ndjson", Post.class).get(3, TimeUnit.SECONDS)) {
+                Assert.assertEquals(1, posts.next().getId());
+                Assert.assertEquals(1, finish.getCount());
+                finish.countDown();
+                Assert.assertEquals(2, posts.next().getId());
+                Assert.assertFalse(posts.hasNext());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPublisherHonoursDemand() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            AsyncRestClient async = new AsyncRestClient(client, executor);
+            List<Integer> received = new ArrayList<>();
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            async.publish("array", Post.class).subscribe(new Flow.Subscriber<Post>() {
+                private Flow.Subscription subscription;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(2);
+                }
+
+                @Override
+                public void onNext(Post item) {
+                    received.add(item.getId());
+                    if (received.size() == 2) {
+                        subscription.request(3);
+                    } else if (received.size() == 5) {
+                        subscription.cancel();
+                        done.complete(null);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    done.completeExceptionally(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    done.completeExceptionally(new AssertionError("Completed after cancel"));
+                }
+            });
+
+            done.get(3, TimeUnit.SECONDS);
+            Thread.sleep(100);
+            Assert.assertEquals(List.of(1, 2, 3, 4, 5), received);
+            Assert.assertEquals(0, pool.getLeased());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPublisherCompletes() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            AsyncRestClient async = new AsyncRestClient(client, executor);
+            CompletableFuture<Integer> count = new CompletableFuture<>();
+            async.publish("ndjson", Post.class).subscribe(new Flow.Subscriber<Post>() {
+                private int received = 0;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(Post item) {
+                    received++;
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    count.completeExceptionally(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    count.complete(received);
+                }
+            });
+
+            Assert.assertEquals(COUNT, (int) count.get(3, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package dev.yasper.rump;
+
+import dev.yasper.rump.client.AsyncRestClient;
+import dev.yasper.rump.client.ThreadPerTaskExecutors;
+import dev.yasper.rump.config.RequestConfig;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class ThreadPerTaskExecutorsTest {
+
+    private TestServer server;
+    private ExecutorService executor;
+
+    @Before
+    public void init() throws IOException {
+        server = new TestServer()
+                .handle("/slow", exchange -> {
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    TestServer.respond(exchange, 200, "text/plain", "ok");
+                });
+        executor = ThreadPerTaskExecutors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @After
+    public void close() {
+        executor.shutdownNow();
+        server.close();
+    }
+
+    @Test
+    public void testBlockingRequestsDoNotQueue() throws Exception {
+        AsyncRestClient ars = Rump.createAsync(new RequestConfig()
+                .setBaseURL(server.getBaseURL()), executor);
+
+        long start = System.nanoTime();
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            futures.add(ars.getForObject("slow", String.class));
+        }
+
+        for (CompletableFuture<String> future : futures) {
+            Assert.assertEquals("ok", future.get(10, TimeUnit.SECONDS));
+        }
+
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 3000);
+    }
+}
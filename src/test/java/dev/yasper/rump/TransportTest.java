@@ -0,0 +1,165 @@
+package dev.yasper.rump;
+
+import dev.yasper.rump.client.DefaultRestClient;
+import dev.yasper.rump.config.RequestConfig;
+import dev.yasper.rump.exception.HttpStatusCodeException;
+import dev.yasper.rump.model.Post;
+import dev.yasper.rump.response.GenericType;
+import dev.yasper.rump.response.HttpResponse;
+import dev.yasper.rump.transport.HttpClientTransport;
+import dev.yasper.rump.transport.Transport;
+import dev.yasper.rump.transport.URLConnectionTransport;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(Parameterized.class)
+public class TransportTest {
+
+    private final Transport transport;
+    private final CountDownLatch stalled = new CountDownLatch(1);
+    private TestServer server;
+    private DefaultRestClient drs;
+
+    public TransportTest(String name, Transport transport) {
+        this.transport = transport;
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> transports() {
+        return Arrays.asList(
+                new Object[]{"url-connection", new URLConnectionTransport()},
+                new Object[]{"http-client", new HttpClientTransport()}
+        );
+    }
+
+    @Before
+    public void init() throws IOException {
+        server = new TestServer()
+                .handle("/posts/1", exchange -> TestServer.respond(exchange, 200, "application/json",
+                        "{\"userId\":1,\"id\":1,\"title\":\"title\",\"body\":\"body\"}"))
+                .handle("/posts", exchange -> TestServer.respond(exchange, 200, "application/json",
+                        "[{\"id\":1,\"title\":\"first\"},{\"id\":2,\"title\":\"second\"}]"))
+                .handle("/echo", exchange -> {
+                    String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("X-Method", exchange.getRequestMethod());
+                    exchange.getResponseHeaders().set("X-Token", String.valueOf(exchange.getRequestHeaders().getFirst("X-Token")));
+                    TestServer.respond(exchange, 200, "application/json", body);
+                })
+                .handle("/raw", exchange -> {
+                    byte[] body = exchange.getRequestBody().readAllBytes();
+                    String charset = exchange.getRequestHeaders().getFirst("Content-Type").contains("ISO-8859-1")
+                            ? "ISO-8859-1" : "UTF-8";
+                    boolean decoded = new String(body, charset).contains("\"caf\u00e9\"");
+                    TestServer.respond(exchange, 200, "text/plain", decoded ? charset : "garbled");
+                })
+                .handle("/stall", exchange -> {
+                    exchange.getResponseHeaders().set("Content-Type", "text/plain");
+                    exchange.sendResponseHeaders(200, 0);
+                    OutputStream out = exchange.getResponseBody();
+                    out.write("partial".getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    try {
+                        stalled.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    out.close();
+                })
+                .handle("/missing", exchange -> TestServer.respond(exchange, 404, "text/plain", "nope"));
+        drs = Rump.createDefault(new RequestConfig()
+                .setBaseURL(server.getBaseURL())
+                .setTransport(transport)
+                .addRequestInterceptor((mergedURL, connection, config) -> {
+                    connection.setRequestProperty("X-Token", "intercepted");
+                    return true;
+                }));
+    }
+
+    @After
+    public void close() {
+        stalled.countDown();
+        server.close();
+    }
+
+    @Test
+    public void testGetObject() throws IOException {
+        HttpResponse<Post> res = drs.get("posts/1", Post.class);
+        Post match = new Post()
+                .setId(1)
+                .setUserId(1)
+                .setTitle("title")
+                .setBody("body");
+        Assert.assertEquals(match, res.getBody());
+        Assert.assertEquals(200, res.getResponseCode());
+        Assert.assertEquals("application/json", res.getResponseHeaders().getContentType());
+    }
+
+    @Test
+    public void testGetGenericType() throws IOException {
+        List<Post> posts = drs.getForObject("posts", new GenericType<List<Post>>() {});
+        Assert.assertEquals(2, posts.size());
+        Assert.assertEquals(new Post().setId(2).setTitle("second"), posts.get(1));
+    }
+
+    @Test
+    public void testPost() throws IOException {
+        Post post = new Post().setId(7).setTitle("posted");
+        HttpResponse<Post> res = drs.post("echo", post, Post.class);
+        Assert.assertEquals(post, res.getBody());
+        Assert.assertEquals("POST", res.getResponseHeaders().getSafeValue("x-method"));
+        Assert.assertEquals("intercepted", res.getResponseHeaders().getSafeValue("X-Token"));
+    }
+
+    @Test
+    public void testStreamedPost() throws IOException {
+        Post post = new Post().setId(8).setTitle("gestreamd \u00e9\u00e8 \u2603");
+        HttpResponse<Post> res = drs.post("echo", post, Post.class, new RequestConfig()
+                .setStreamingChunkSize(16));
+        Assert.assertEquals(post, res.getBody());
+    }
+
+    @Test
+    public void testReadTimeoutCoversBody() {
+        long start = System.nanoTime();
+        try {
+            drs.get("stall", String.class, new RequestConfig().setReadTimeout(300));
+            Assert.fail("Expected the stalled body to time out");
+        } catch (IOException e) {
+            Assert.assertTrue(e instanceof SocketTimeoutException || e.getCause() instanceof SocketTimeoutException);
+        }
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 3000);
+    }
+
+    @Test
+    public void testRequestCharsetFromContentType() throws IOException {
+        String body = drs.postForObject("raw", new Post().setTitle("caf\u00e9"), String.class, new Headers()
+                .setContentType("application/json; charset=ISO-8859-1")
+                .toConfig());
+        Assert.assertEquals("ISO-8859-1", body);
+    }
+
+    @Test
+    public void testErrorStatus() throws IOException {
+        try {
+            drs.get("missing", String.class);
+            Assert.fail("Expected a status code exception");
+        } catch (HttpStatusCodeException e) {
+            Assert.assertEquals(404, e.getErrorResponse().getResponseCode());
+            Assert.assertEquals("nope", e.getErrorResponse().getBody());
+        }
+    }
+}